@@ -0,0 +1,148 @@
+package moe.takochan.takorender.core.particle;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 邻域搜索基准：{@link ParticleSpatialHash} 构建 + 查询 与 两两暴力扫描
+ *
+ * <p>
+ * 20k 个粒子均匀分布在 40 x 10 x 40 的空间内，半径 1。两种实现计算相同的分离 / 对齐力
+ * （同样在 {@link ParticleSpatialHash#MAX_NEIGHBORS} 个邻居处截断），每次调用相当于一帧的全部查询。
+ * </p>
+ *
+ * <p>
+ * 运行: {@code ./gradlew jmh -PjmhArgs="ParticleNeighborBenchmark"}
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleNeighborBenchmark {
+
+    private static final float RADIUS = 1.0f;
+    private static final float SEPARATION = 1.0f;
+    private static final float ALIGNMENT = 0.5f;
+
+    @Param({ "20000" })
+    public int count;
+
+    private float[] particles;
+    private ParticleSpatialHash hash;
+    private final float[] force = new float[3];
+    private final int[] buckets = new int[ParticleSpatialHash.SEARCH_CELLS];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1L);
+        particles = new float[count * ParticleBuffer.PARTICLE_SIZE_FLOATS];
+        for (int i = 0; i < count; i++) {
+            int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
+            particles[base] = random.nextFloat() * 40;
+            particles[base + 1] = random.nextFloat() * 10;
+            particles[base + 2] = random.nextFloat() * 40;
+            particles[base + 3] = 100;
+            particles[base + 4] = random.nextFloat() - 0.5f;
+            particles[base + 5] = random.nextFloat() - 0.5f;
+            particles[base + 6] = random.nextFloat() - 0.5f;
+            particles[base + 7] = 100;
+            particles[base + 12] = 1;
+        }
+        hash = new ParticleSpatialHash();
+    }
+
+    @Benchmark
+    public void spatialHash(Blackhole blackhole) {
+        final float[] particles = this.particles;
+        hash.build(particles, count, RADIUS);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
+            total += hash.accumulate(
+                i,
+                particles[base],
+                particles[base + 1],
+                particles[base + 2],
+                particles[base + 4],
+                particles[base + 5],
+                particles[base + 6],
+                RADIUS,
+                SEPARATION,
+                ALIGNMENT,
+                force,
+                buckets);
+        }
+        blackhole.consume(total);
+        blackhole.consume(force[0] + force[1] + force[2]);
+    }
+
+    @Benchmark
+    public void bruteForce(Blackhole blackhole) {
+        final float[] particles = this.particles;
+        final int stride = ParticleBuffer.PARTICLE_SIZE_FLOATS;
+        final float radiusSq = RADIUS * RADIUS;
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int base = i * stride;
+            float posX = particles[base];
+            float posY = particles[base + 1];
+            float posZ = particles[base + 2];
+
+            float forceX = 0, forceY = 0, forceZ = 0;
+            float sumVelX = 0, sumVelY = 0, sumVelZ = 0;
+            int neighbors = 0;
+            for (int j = 0; j < count && neighbors < ParticleSpatialHash.MAX_NEIGHBORS; j++) {
+                if (j == i) {
+                    continue;
+                }
+                int other = j * stride;
+                float ox = posX - particles[other];
+                float oy = posY - particles[other + 1];
+                float oz = posZ - particles[other + 2];
+                float distSq = ox * ox + oy * oy + oz * oz;
+                if (distSq >= radiusSq || distSq < 1.0e-8f) {
+                    continue;
+                }
+                float dist = (float) Math.sqrt(distSq);
+                float factor = SEPARATION * (1.0f - dist / RADIUS) / dist;
+                forceX += ox * factor;
+                forceY += oy * factor;
+                forceZ += oz * factor;
+                sumVelX += particles[other + 4];
+                sumVelY += particles[other + 5];
+                sumVelZ += particles[other + 6];
+                neighbors++;
+            }
+
+            if (neighbors > 0) {
+                float inv = 1.0f / neighbors;
+                forceX += (sumVelX * inv - particles[base + 4]) * ALIGNMENT;
+                forceY += (sumVelY * inv - particles[base + 5]) * ALIGNMENT;
+                forceZ += (sumVelZ * inv - particles[base + 6]) * ALIGNMENT;
+            }
+            force[0] += forceX;
+            force[1] += forceY;
+            force[2] += forceZ;
+            total += neighbors;
+        }
+        blackhole.consume(total);
+        blackhole.consume(force[0] + force[1] + force[2]);
+    }
+}
@@ -0,0 +1,158 @@
+package moe.takochan.takorender.core.particle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import moe.takochan.takorender.api.particle.CollisionMode;
+import moe.takochan.takorender.api.particle.CollisionResponse;
+import moe.takochan.takorender.api.particle.ColorOverLifetime;
+import moe.takochan.takorender.api.particle.ParticleForce;
+import moe.takochan.takorender.api.particle.RotationOverLifetime;
+import moe.takochan.takorender.api.particle.SizeOverLifetime;
+import moe.takochan.takorender.api.particle.VelocityOverLifetime;
+
+/**
+ * ParticleCPU 单线程更新循环基准
+ *
+ * <p>
+ * 启用 CPU 回退支持的全部逐粒子功能（阻力、吸引、湍流、速度限制、邻域力、四种生命周期曲线、平面碰撞），
+ * 分别测量 10k / 100k / 1M 粒子的每帧耗时。粒子寿命足够长，测量期间存活数量不变；
+ * 每轮迭代开始时重新写入同一组种子数据，避免吸引力长时间积累后粒子聚成一团。
+ * </p>
+ *
+ * <p>
+ * {@link #main(String[])} 用 GC profiler 运行 10k 粒子的配置，
+ * 每次 {@link ParticleCPU#update} 的平均分配量超过 {@value #MAX_ALLOC_BYTES_PER_OP} 字节时抛出异常，
+ * 用于证明稳态下更新循环不产生对象分配（{@code ./gradlew jmhAllocationCheck}）。
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleUpdateBenchmark {
+
+    /** 允许的每次调用平均分配字节数：小于最小对象（16 字节）的一半，即不可能每次调用都分配对象 */
+    static final double MAX_ALLOC_BYTES_PER_OP = 8.0;
+
+    private static final float DELTA_TIME = 0.016f;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int count;
+
+    private ParticleCPU cpu;
+    private List<ParticleForce> forces;
+    private float[] seed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cpu = new ParticleCPU(count);
+        cpu.setVelocityOverLifetime(VelocityOverLifetime.decelerate());
+        cpu.setRotationOverLifetime(RotationOverLifetime.slow());
+        cpu.setColorOverLifetime(ColorOverLifetime.fire());
+        cpu.setSizeOverLifetime(SizeOverLifetime.shrink());
+        cpu.setCollision(CollisionMode.PLANE, CollisionResponse.BOUNCE_DAMPED, 0.6f, 1.0f, 15.0f);
+        cpu.setCollisionPlane(0, 1, 0, -8);
+
+        forces = new ArrayList<>();
+        forces.add(ParticleForce.gravity());
+        forces.add(ParticleForce.wind(1, 0, 0, 0.5f, 0.2f));
+        forces.add(ParticleForce.drag(0.1f));
+        forces.add(ParticleForce.attractor(0, 2, 0, 3.0f, 12.0f));
+        forces.add(ParticleForce.turbulence(0.5f, 1.0f));
+        forces.add(ParticleForce.velocityLimit(20.0f));
+        forces.add(ParticleForce.neighbor(0.5f, 1.0f, 0.1f));
+
+        seed = seededParticles(count, 42L);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        cpu.clear();
+        cpu.emit(seed, count);
+    }
+
+    @Benchmark
+    public void update(Blackhole blackhole) {
+        cpu.update(DELTA_TIME, forces);
+        blackhole.consume(cpu.getAliveCount());
+    }
+
+    /**
+     * 生成确定性的粒子数据（16 float / 粒子），剩余寿命在最大寿命内均匀分布
+     */
+    static float[] seededParticles(int count, long seed) {
+        Random random = new Random(seed);
+        float[] data = new float[count * ParticleBuffer.PARTICLE_SIZE_FLOATS];
+        for (int i = 0; i < count; i++) {
+            int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
+            data[base] = random.nextFloat() * 16 - 8;
+            data[base + 1] = random.nextFloat() * 16 - 8;
+            data[base + 2] = random.nextFloat() * 16 - 8;
+            data[base + 7] = 1.0e6f;
+            data[base + 3] = data[base + 7] * (0.05f + random.nextFloat() * 0.95f);
+            data[base + 4] = random.nextFloat() * 2 - 1;
+            data[base + 5] = random.nextFloat() * 2 - 1;
+            data[base + 6] = random.nextFloat() * 2 - 1;
+            data[base + 8] = 1;
+            data[base + 9] = 1;
+            data[base + 10] = 1;
+            data[base + 11] = 1;
+            data[base + 12] = 0.1f + random.nextFloat() * 0.4f;
+            data[base + 13] = random.nextFloat() * 6.2831855f;
+            data[base + 15] = random.nextFloat() * 2 - 1;
+        }
+        return data;
+    }
+
+    /**
+     * 零分配检查：失败时抛出 {@link IllegalStateException}
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ParticleUpdateBenchmark.class.getName() + ".update$")
+            .param("count", "10000")
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        for (RunResult run : new Runner(options).run()) {
+            Result<?> alloc = run.getSecondaryResults()
+                .get("gc.alloc.rate.norm");
+            if (alloc == null) {
+                throw new IllegalStateException("GC profiler did not report gc.alloc.rate.norm");
+            }
+            if (alloc.getScore() > MAX_ALLOC_BYTES_PER_OP) {
+                throw new IllegalStateException(
+                    String.format(
+                        "ParticleCPU.update allocates %.2f B/op (limit %.1f)",
+                        alloc.getScore(),
+                        MAX_ALLOC_BYTES_PER_OP));
+            }
+            System.out.printf("ParticleCPU.update: %.3f B/op%n", alloc.getScore());
+        }
+    }
+}
@@ -13,6 +13,7 @@ import moe.takochan.takorender.api.system.ParticlePhysicsSystem;
 import moe.takochan.takorender.api.system.ParticleRenderSystem;
 import moe.takochan.takorender.api.system.SpriteRenderSystem;
 import moe.takochan.takorender.api.system.TransformSystem;
+import moe.takochan.takorender.core.render.CameraUniformBuffer;
 
 /**
  * TakoRender 公共 API 入口
@@ -121,6 +122,7 @@ public final class TakoRender {
             world.clear();
             world = null;
         }
+        CameraUniformBuffer.dispose();
 
         initialized = false;
         TakoRenderMod.LOG.info("TakoRender ECS shutdown complete");
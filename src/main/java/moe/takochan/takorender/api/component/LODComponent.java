@@ -95,6 +95,9 @@ public class LODComponent extends Component {
     /** 当前到相机的距离（由 LODSystem 写入） */
     private float currentDistance = 0;
 
+    /** 是否已按当前相机格子计算过（由 LODSystem 写入，级别配置变化时清除） */
+    private boolean evaluated = false;
+
     /**
      * 创建默认 LOD 组件
      */
@@ -114,6 +117,7 @@ public class LODComponent extends Component {
     public LODComponent addLevel(float maxDistance, Mesh mesh) {
         levels.add(new LODLevel(maxDistance, mesh));
         Collections.sort(levels, Comparator.comparingDouble(LODLevel::getMaxDistance));
+        evaluated = false;
         return this;
     }
 
@@ -180,6 +184,7 @@ public class LODComponent extends Component {
      */
     public LODComponent setHysteresis(float hysteresis) {
         this.hysteresis = Math.max(0, Math.min(1, hysteresis));
+        evaluated = false;
         return this;
     }
 
@@ -197,6 +202,24 @@ public class LODComponent extends Component {
         this.currentDistance = distance;
     }
 
+    /**
+     * 检查是否已按当前相机格子计算过级别
+     *
+     * <p>
+     * 静态 Entity 在相机跨格前只计算一次，添加级别或修改滞后值后清除，下一帧重新计算。
+     * </p>
+     */
+    public boolean isEvaluated() {
+        return evaluated;
+    }
+
+    /**
+     * 设置已计算标记（由 LODSystem 调用）
+     */
+    public void setEvaluated(boolean evaluated) {
+        this.evaluated = evaluated;
+    }
+
     /**
      * 根据距离计算应该使用的 LOD 级别
      *
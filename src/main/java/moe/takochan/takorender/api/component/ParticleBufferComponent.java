@@ -48,6 +48,9 @@ public class ParticleBufferComponent extends Component implements Disposable {
     /** 是否使用 CPU 回退模式 */
     private boolean useCPUFallback;
 
+    /** CPU 回退模式是否使用 SoA 存储 */
+    private boolean cpuSoA;
+
     /** 是否已初始化 */
     private boolean initialized;
 
@@ -126,6 +129,21 @@ public class ParticleBufferComponent extends Component implements Disposable {
         this.useCPUFallback = useCPUFallback;
     }
 
+    public boolean isCpuSoA() {
+        return cpuSoA;
+    }
+
+    /**
+     * 设置 CPU 回退模式是否使用 SoA 存储（需在初始化前设置，见 {@link ParticleCPU#setSoAEnabled(boolean)}）
+     *
+     * @param cpuSoA 是否启用
+     * @return this（链式调用）
+     */
+    public ParticleBufferComponent setCpuSoA(boolean cpuSoA) {
+        this.cpuSoA = cpuSoA;
+        return this;
+    }
+
     public boolean isInitialized() {
         return initialized;
     }
@@ -139,6 +139,10 @@ public class ParticleEmitterComponent extends Component {
     /** 子发射器 */
     private final List<ParticleEmitter.SubEmitterEntry> subEmitters = new ArrayList<>();
 
+    /** 随机种子（仅 seeded 为 true 时生效） */
+    private long seed;
+    private boolean seeded = false;
+
     public ParticleEmitterComponent() {}
 
     /**
@@ -198,6 +202,10 @@ public class ParticleEmitterComponent extends Component {
         c.collisionPlaneD = emitter.getCollisionPlaneD();
         // 子发射器
         c.subEmitters.addAll(emitter.getSubEmitters());
+
+        if (emitter.hasSeed()) {
+            c.setSeed(emitter.getSeed());
+        }
         return c;
     }
 
@@ -301,6 +309,36 @@ public class ParticleEmitterComponent extends Component {
         return this;
     }
 
+    // ==================== 随机种子 ====================
+
+    /**
+     * 设置随机种子
+     *
+     * <p>
+     * 需在实体第一次发射前设置，由 ParticleEmitSystem 写入 ParticleStateComponent 的随机数生成器。
+     * 未设置时每个实体使用各不相同的随机种子。
+     * </p>
+     *
+     * @param seed 种子
+     * @return this（链式调用）
+     */
+    public ParticleEmitterComponent setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 是否显式设置过种子
+     */
+    public boolean hasSeed() {
+        return seeded;
+    }
+
     // ==================== 生命周期 ====================
 
     public float getLifetimeMin() {
@@ -3,6 +3,7 @@ package moe.takochan.takorender.api.component;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 import moe.takochan.takorender.api.ecs.Component;
+import moe.takochan.takorender.api.particle.ParticleRandom;
 
 /**
  * 粒子状态组件 - 纯数据
@@ -50,6 +51,9 @@ public class ParticleStateComponent extends Component {
     /** 随机种子 */
     private int randomSeed;
 
+    /** 发射用随机数生成器（每个实体独立，只在发射线程上使用） */
+    private final ParticleRandom random = new ParticleRandom();
+
     /** 是否已启动 */
     private boolean started;
 
@@ -171,6 +175,13 @@ public class ParticleStateComponent extends Component {
         this.randomSeed = randomSeed;
     }
 
+    /**
+     * 获取发射用随机数生成器
+     */
+    public ParticleRandom getRandom() {
+        return random;
+    }
+
     public boolean isStarted() {
         return started;
     }
@@ -111,6 +111,20 @@ public class StaticFlagsComponent extends Component {
         return flags.contains(StaticFlags.OCCLUDEE);
     }
 
+    /**
+     * 检查几何体是否静止（BATCHING 或 OCCLUDER）
+     *
+     * <p>
+     * 静止的 Entity 注册到静态空间网格后不再跟踪包围盒变化，
+     * 注册后移动需要先移除标记再重新添加。
+     * </p>
+     *
+     * @return true 如果有 BATCHING 或 OCCLUDER 标记
+     */
+    public boolean isStatic() {
+        return flags.contains(StaticFlags.BATCHING) || flags.contains(StaticFlags.OCCLUDER);
+    }
+
     /**
      * 获取所有标记的只读副本
      *
@@ -1,9 +1,14 @@
 package moe.takochan.takorender.api.component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
 import moe.takochan.takorender.api.ecs.Component;
+import moe.takochan.takorender.api.ecs.Disposable;
 
 /**
  * 变换组件 - 存储实体的位置、旋转和缩放数据
@@ -23,6 +28,14 @@ import moe.takochan.takorender.api.ecs.Component;
  * </p>
  *
  * <p>
+ * <b>层级</b>:
+ * 通过 {@link #setParent(TransformComponent)} 建立父子关系后，
+ * position / rotation / scale 表示相对父节点的本地变换，
+ * {@link #getWorldMatrix()} 为父节点世界矩阵 × 本地矩阵。
+ * 父节点变更时整棵子树被标记为脏，TransformSystem 按深度（广度优先）依次重算。
+ * </p>
+ *
+ * <p>
  * <b>旋转约定</b>:
  * </p>
  * <ul>
@@ -47,7 +60,7 @@ import moe.takochan.takorender.api.ecs.Component;
  * }
  * </pre>
  */
-public class TransformComponent extends Component {
+public class TransformComponent extends Component implements Disposable {
 
     // 基础变换数据
     private final Vector3f position = new Vector3f(0, 0, 0);
@@ -63,6 +76,18 @@ public class TransformComponent extends Component {
     // 脏标记
     private boolean dirty = true;
 
+    // 世界矩阵版本（每次重算后递增）
+    private int version;
+
+    // 层级
+    private TransformComponent parent;
+    private List<TransformComponent> children;
+    private int depth;
+
+    // SoA 存储槽位（由 TransformStore 管理）
+    TransformStore store;
+    int storeSlot = -1;
+
     /**
      * 创建默认变换组件（原点位置，无旋转，单位缩放）
      */
@@ -250,16 +275,136 @@ public class TransformComponent extends Component {
 
     /**
      * 标记数据已变更
+     *
+     * <p>
+     * 同时标记所有子孙节点（它们的世界矩阵依赖此节点）。
+     * 即使本节点已经为脏也继续向下传播：未激活的父节点不会被 TransformSystem 处理和清除，
+     * 其子节点却可能已被处理并清除脏标记，不能假设“脏节点的子树必然为脏”。
+     * </p>
      */
     public void markDirty() {
         this.dirty = true;
+        if (children != null) {
+            for (int i = 0; i < children.size(); i++) {
+                children.get(i)
+                    .markDirty();
+            }
+        }
     }
 
     /**
-     * 清除脏标记（由 TransformSystem 调用）
+     * 清除脏标记（由 TransformSystem 在重算矩阵后调用，同时递增版本）
      */
     public void clearDirty() {
         this.dirty = false;
+        this.version++;
+    }
+
+    /**
+     * 获取世界矩阵版本
+     *
+     * <p>
+     * TransformSystem 每次重算世界矩阵后递增，可用于判断派生缓存是否过期。
+     * </p>
+     *
+     * @return 版本号
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取父节点
+     *
+     * @return 父节点，根节点返回 null
+     */
+    public TransformComponent getParent() {
+        return parent;
+    }
+
+    /**
+     * 设置父节点
+     *
+     * <p>
+     * 本地变换保持不变（即世界位置会随新父节点变化）。
+     * 传入 null 表示脱离父节点成为根节点。
+     * </p>
+     *
+     * @param parent 父节点
+     * @return this（链式调用）
+     * @throws IllegalArgumentException 如果会形成环
+     */
+    public TransformComponent setParent(TransformComponent parent) {
+        if (this.parent == parent) {
+            return this;
+        }
+        for (TransformComponent p = parent; p != null; p = p.parent) {
+            if (p == this) {
+                throw new IllegalArgumentException("Transform hierarchy cannot contain cycles");
+            }
+        }
+
+        if (this.parent != null) {
+            this.parent.children.remove(this);
+        }
+        this.parent = parent;
+        if (parent != null) {
+            if (parent.children == null) {
+                parent.children = new ArrayList<>(4);
+            }
+            parent.children.add(this);
+        }
+
+        updateDepth(parent != null ? parent.depth + 1 : 0);
+        // 子树的世界矩阵全部失效
+        markDirty();
+        return this;
+    }
+
+    /**
+     * 获取子节点（只读）
+     */
+    public List<TransformComponent> getChildren() {
+        return children != null ? Collections.unmodifiableList(children) : Collections.emptyList();
+    }
+
+    /**
+     * 获取子节点数量
+     */
+    public int getChildCount() {
+        return children != null ? children.size() : 0;
+    }
+
+    /**
+     * 获取层级深度（根节点为 0）
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    private void updateDepth(int depth) {
+        this.depth = depth;
+        if (children != null) {
+            for (int i = 0; i < children.size(); i++) {
+                children.get(i)
+                    .updateDepth(depth + 1);
+            }
+        }
+    }
+
+    /**
+     * 获取世界空间位置
+     *
+     * <p>
+     * 根节点等同于 {@link #getPositionRef()}；子节点从世界矩阵中读取，
+     * 由 TransformSystem 更新。
+     * </p>
+     *
+     * @param dest 结果向量
+     * @return dest
+     */
+    public Vector3f getWorldPosition(Vector3f dest) {
+        return parent == null ? dest.set(position) : worldMatrix.getTranslation(dest);
     }
 
     /**
@@ -268,6 +413,7 @@ public class TransformComponent extends Component {
      * <p>
      * 注意：矩阵由 TransformSystem 负责计算和更新。
      * 如果 isDirty() 为 true，矩阵可能未更新。
+     * 有父节点时为父节点世界矩阵 × 本地矩阵。
      * </p>
      *
      * @return 世界变换矩阵引用
@@ -277,7 +423,7 @@ public class TransformComponent extends Component {
     }
 
     /**
-     * 获取前向向量（直接引用）
+     * 获取前向向量（直接引用，世界空间）
      *
      * <p>
      * 注意：由 TransformSystem 负责计算和更新。
@@ -338,4 +484,14 @@ public class TransformComponent extends Component {
         rotation.add(dPitch, dYaw, dRoll);
         markDirty();
     }
+
+    /**
+     * 释放 SoA 存储槽位（Entity 移除时由 World 调用）
+     */
+    @Override
+    public void dispose() {
+        if (store != null) {
+            store.release(this);
+        }
+    }
 }
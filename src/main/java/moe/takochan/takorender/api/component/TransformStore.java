@@ -0,0 +1,277 @@
+package moe.takochan.takorender.api.component;
+
+import java.util.Arrays;
+
+import org.joml.Vector3f;
+
+/**
+ * 变换数据的 SoA（结构数组）存储
+ *
+ * <p>
+ * 每个 {@link TransformComponent} 在存储中占用一个槽位，槽位内的数据按类型连续存放在 float 数组中：
+ * </p>
+ * <ul>
+ * <li>positions / rotations / scales: 每槽位 3 个 float（本地位置、欧拉角（度）、缩放）</li>
+ * <li>matrices: 每槽位 16 个 float（世界矩阵，列主序，可直接上传 GPU）</li>
+ * <li>axes: 每槽位 9 个 float（右 / 上 / 后方向的旋转列，不含缩放）</li>
+ * </ul>
+ *
+ * <p>
+ * {@link #compose(int[], int, int)} 直接由 sin/cos 展开 T × Ry × Rx × Rz × S，
+ * 没有中间 JOML 调用和对象访问，循环体只读写基本类型数组，便于 JIT 优化。
+ * 实例化渲染可以通过 {@link #getMatrices()} 整段复制矩阵数据。
+ * </p>
+ *
+ * <p>
+ * TransformComponent 的 Vector3f / Matrix4f 仍是对外 API，存储是由
+ * {@link moe.takochan.takorender.api.system.TransformSystem} 维护的镜像。
+ * 槽位在 Entity 移除时通过 dispose 释放；只移除 Component 时槽位在存储丢弃前不回收。
+ * </p>
+ *
+ * <p>
+ * <b>线程安全</b>: {@link #acquire} / {@link #release} 只能在单线程调用；
+ * {@link #compose} 可以在多个线程上对互不重叠的槽位并发调用。
+ * </p>
+ */
+public final class TransformStore {
+
+    /** 每个矩阵的 float 数量 */
+    public static final int MATRIX_FLOATS = 16;
+
+    private static final float DEG_TO_RAD = (float) (Math.PI / 180.0);
+
+    private float[] positions;
+    private float[] rotations;
+    private float[] scales;
+    private float[] matrices;
+    private float[] axes;
+
+    /** 已分配过的槽位数（高水位） */
+    private int slotCount;
+
+    /** 空闲槽位栈 */
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    public TransformStore() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity 初始槽位容量
+     */
+    public TransformStore(int initialCapacity) {
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * 为 Transform 分配槽位（已分配时直接返回）
+     *
+     * @param transform 变换组件
+     * @return 槽位号
+     */
+    public int acquire(TransformComponent transform) {
+        if (transform.store == this) {
+            return transform.storeSlot;
+        }
+        if (transform.store != null) {
+            // 从其他 World 的存储迁移过来
+            transform.store.release(transform);
+        }
+
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == scales.length / 3) {
+                allocate(slotCount << 1);
+            }
+            slot = slotCount++;
+        }
+        transform.store = this;
+        transform.storeSlot = slot;
+        return slot;
+    }
+
+    /**
+     * 释放 Transform 的槽位
+     *
+     * @param transform 变换组件
+     */
+    public void release(TransformComponent transform) {
+        if (transform.store != this) {
+            return;
+        }
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+        }
+        freeSlots[freeCount++] = transform.storeSlot;
+        transform.store = null;
+        transform.storeSlot = -1;
+    }
+
+    /**
+     * 获取 Transform 在此存储中的槽位
+     *
+     * @return 槽位号，未分配时返回 -1
+     */
+    public int getSlot(TransformComponent transform) {
+        return transform.store == this ? transform.storeSlot : -1;
+    }
+
+    /**
+     * 获取当前占用的槽位数
+     */
+    public int size() {
+        return slotCount - freeCount;
+    }
+
+    /**
+     * 将 Transform 的本地位置 / 旋转 / 缩放写入槽位
+     *
+     * @param slot      槽位号
+     * @param transform 变换组件
+     */
+    public void load(int slot, TransformComponent transform) {
+        Vector3f position = transform.getPositionRef();
+        Vector3f rotation = transform.getRotationRef();
+        Vector3f scale = transform.getScaleRef();
+        int base = slot * 3;
+        positions[base] = position.x;
+        positions[base + 1] = position.y;
+        positions[base + 2] = position.z;
+        rotations[base] = rotation.x;
+        rotations[base + 1] = rotation.y;
+        rotations[base + 2] = rotation.z;
+        scales[base] = scale.x;
+        scales[base + 1] = scale.y;
+        scales[base + 2] = scale.z;
+    }
+
+    /**
+     * 批量计算本地矩阵：M = T × Ry(yaw) × Rx(pitch) × Rz(roll) × S
+     *
+     * <p>
+     * 结果写入 matrices 和 axes；slots 中为负数的元素跳过。
+     * </p>
+     *
+     * @param slots 槽位号数组
+     * @param from  起始下标（含）
+     * @param to    结束下标（不含）
+     */
+    public void compose(int[] slots, int from, int to) {
+        float[] positions = this.positions;
+        float[] rotations = this.rotations;
+        float[] scales = this.scales;
+        float[] matrices = this.matrices;
+        float[] axes = this.axes;
+
+        for (int i = from; i < to; i++) {
+            int slot = slots[i];
+            if (slot < 0) {
+                continue;
+            }
+            int v = slot * 3;
+            float pitch = rotations[v] * DEG_TO_RAD;
+            float yaw = rotations[v + 1] * DEG_TO_RAD;
+            float roll = rotations[v + 2] * DEG_TO_RAD;
+            float sx = (float) Math.sin(pitch);
+            float cx = (float) Math.cos(pitch);
+            float sy = (float) Math.sin(yaw);
+            float cy = (float) Math.cos(yaw);
+            float sz = (float) Math.sin(roll);
+            float cz = (float) Math.cos(roll);
+
+            // R = Ry × Rx × Rz 的三列
+            float r00 = cy * cz + sy * sx * sz;
+            float r01 = cx * sz;
+            float r02 = cy * sx * sz - sy * cz;
+            float r10 = sy * sx * cz - cy * sz;
+            float r11 = cx * cz;
+            float r12 = sy * sz + cy * sx * cz;
+            float r20 = sy * cx;
+            float r21 = -sx;
+            float r22 = cy * cx;
+
+            int a = slot * 9;
+            axes[a] = r00;
+            axes[a + 1] = r01;
+            axes[a + 2] = r02;
+            axes[a + 3] = r10;
+            axes[a + 4] = r11;
+            axes[a + 5] = r12;
+            axes[a + 6] = r20;
+            axes[a + 7] = r21;
+            axes[a + 8] = r22;
+
+            float scaleX = scales[v];
+            float scaleY = scales[v + 1];
+            float scaleZ = scales[v + 2];
+            int m = slot * MATRIX_FLOATS;
+            matrices[m] = r00 * scaleX;
+            matrices[m + 1] = r01 * scaleX;
+            matrices[m + 2] = r02 * scaleX;
+            matrices[m + 3] = 0.0f;
+            matrices[m + 4] = r10 * scaleY;
+            matrices[m + 5] = r11 * scaleY;
+            matrices[m + 6] = r12 * scaleY;
+            matrices[m + 7] = 0.0f;
+            matrices[m + 8] = r20 * scaleZ;
+            matrices[m + 9] = r21 * scaleZ;
+            matrices[m + 10] = r22 * scaleZ;
+            matrices[m + 11] = 0.0f;
+            matrices[m + 12] = positions[v];
+            matrices[m + 13] = positions[v + 1];
+            matrices[m + 14] = positions[v + 2];
+            matrices[m + 15] = 1.0f;
+        }
+    }
+
+    /**
+     * 获取矩阵数组（直接引用，槽位 n 的矩阵位于 [n * 16, n * 16 + 16)，列主序）
+     *
+     * <p>
+     * 数组在分配新槽位时可能被替换，不应跨帧持有。
+     * </p>
+     */
+    public float[] getMatrices() {
+        return matrices;
+    }
+
+    /**
+     * 获取旋转列数组（直接引用，槽位 n 位于 [n * 9, n * 9 + 9)：右、上、后三列）
+     */
+    public float[] getAxes() {
+        return axes;
+    }
+
+    /**
+     * 获取本地位置数组（直接引用，每槽位 3 个 float）
+     */
+    public float[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * 获取欧拉角数组（直接引用，每槽位 3 个 float，单位为度）
+     */
+    public float[] getRotations() {
+        return rotations;
+    }
+
+    /**
+     * 获取缩放数组（直接引用，每槽位 3 个 float）
+     */
+    public float[] getScales() {
+        return scales;
+    }
+
+    private void allocate(int capacity) {
+        positions = positions == null ? new float[capacity * 3] : Arrays.copyOf(positions, capacity * 3);
+        rotations = rotations == null ? new float[capacity * 3] : Arrays.copyOf(rotations, capacity * 3);
+        scales = scales == null ? new float[capacity * 3] : Arrays.copyOf(scales, capacity * 3);
+        axes = axes == null ? new float[capacity * 9] : Arrays.copyOf(axes, capacity * 9);
+        matrices = matrices == null ? new float[capacity * MATRIX_FLOATS]
+            : Arrays.copyOf(matrices, capacity * MATRIX_FLOATS);
+    }
+}
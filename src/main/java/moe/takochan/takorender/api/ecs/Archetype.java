@@ -0,0 +1,232 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Archetype - 拥有相同 Component 组合的 Entity 集合
+ *
+ * <p>
+ * 在 {@link StorageMode#ARCHETYPE} 模式下，每个 Entity 属于且仅属于一个 Archetype。
+ * Archetype 由一组 {@link ArchetypeChunk} 组成，除最后一个 Chunk 外均为满块，
+ * 保证数据紧凑、遍历连续。
+ * </p>
+ *
+ * <p>
+ * 添加或移除 Component 时，Entity 会迁移到对应的新 Archetype。
+ * 迁移目标通过边缓存（add/remove edge）查找，重复迁移无需重新计算类型集合。
+ * </p>
+ */
+public final class Archetype {
+
+    /** 按类型 ID 升序排列的 Component 类型 */
+    private final ComponentType[] types;
+
+    /** 类型 ID 位图（Archetype 的唯一标识） */
+    private final BitSet mask;
+
+    /** 类型 ID → 列号（-1 表示不包含） */
+    private final int[] columnByTypeId;
+
+    /** Component 类集合（只读） */
+    private final Set<Class<? extends Component>> componentClasses;
+
+    private final List<ArchetypeChunk> chunks = new ArrayList<>();
+
+    private int entityCount;
+
+    /** 添加某类型后的目标 Archetype（按类型 ID 索引） */
+    private Archetype[] addEdges = new Archetype[0];
+
+    /** 移除某类型后的目标 Archetype（按类型 ID 索引） */
+    private Archetype[] removeEdges = new Archetype[0];
+
+    @SuppressWarnings("unchecked")
+    Archetype(ComponentType[] types) {
+        this.types = types;
+        this.mask = new BitSet();
+
+        int maxId = -1;
+        for (ComponentType type : types) {
+            mask.set(type.getId());
+            maxId = Math.max(maxId, type.getId());
+        }
+
+        this.columnByTypeId = new int[maxId + 1];
+        Arrays.fill(columnByTypeId, -1);
+        Set<Class<? extends Component>> classes = new LinkedHashSet<>();
+        for (int i = 0; i < types.length; i++) {
+            columnByTypeId[types[i].getId()] = i;
+            classes.add((Class<? extends Component>) types[i].getType());
+        }
+        this.componentClasses = Collections.unmodifiableSet(classes);
+    }
+
+    /**
+     * 获取此 Archetype 包含的 Component 类型（只读）
+     */
+    public Set<Class<? extends Component>> getComponentTypes() {
+        return componentClasses;
+    }
+
+    /**
+     * 检查是否包含指定 Component 类型
+     */
+    public boolean hasComponent(Class<? extends Component> componentClass) {
+        return columnOf(ComponentType.of(componentClass)) >= 0;
+    }
+
+    /**
+     * 获取 Entity 数量
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * 获取 Chunk 数量
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * 获取指定索引的 Chunk
+     *
+     * @param index Chunk 索引
+     * @return Chunk
+     */
+    public ArchetypeChunk getChunk(int index) {
+        return chunks.get(index);
+    }
+
+    /**
+     * 获取类型对应的列号（内部方法）
+     *
+     * @return 列号，不包含时返回 -1
+     */
+    int columnOf(ComponentType type) {
+        int id = type.getId();
+        return id < columnByTypeId.length ? columnByTypeId[id] : -1;
+    }
+
+    /**
+     * 检查是否包含位图中的所有类型（内部方法）
+     */
+    boolean containsAll(BitSet required) {
+        for (int id = required.nextSetBit(0); id >= 0; id = required.nextSetBit(id + 1)) {
+            if (id >= columnByTypeId.length || columnByTypeId[id] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    ComponentType[] getTypes() {
+        return types;
+    }
+
+    BitSet getMask() {
+        return mask;
+    }
+
+    Archetype getAddEdge(ComponentType type) {
+        int id = type.getId();
+        return id < addEdges.length ? addEdges[id] : null;
+    }
+
+    void setAddEdge(ComponentType type, Archetype target) {
+        int id = type.getId();
+        if (id >= addEdges.length) {
+            addEdges = Arrays.copyOf(addEdges, id + 1);
+        }
+        addEdges[id] = target;
+    }
+
+    Archetype getRemoveEdge(ComponentType type) {
+        int id = type.getId();
+        return id < removeEdges.length ? removeEdges[id] : null;
+    }
+
+    void setRemoveEdge(ComponentType type, Archetype target) {
+        int id = type.getId();
+        if (id >= removeEdges.length) {
+            removeEdges = Arrays.copyOf(removeEdges, id + 1);
+        }
+        removeEdges[id] = target;
+    }
+
+    /**
+     * 为 Entity 分配一行并记录位置（内部方法）
+     */
+    void allocate(Entity entity) {
+        ArchetypeChunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.isFull()) {
+            chunk = new ArchetypeChunk(this, types);
+            chunks.add(chunk);
+        }
+        entity.chunk = chunk;
+        entity.row = chunk.allocateRow(entity);
+        entityCount++;
+    }
+
+    /**
+     * 移除一行，并用最后一行填补空位（内部方法）
+     *
+     * <p>
+     * 被移动的 Entity 会同步更新其位置记录。
+     * 最后一个 Chunk 变空时会被释放。
+     * </p>
+     */
+    void removeRow(ArchetypeChunk chunk, int row) {
+        ArchetypeChunk last = chunks.get(chunks.size() - 1);
+        int lastRow = last.size - 1;
+
+        if (chunk != last || row != lastRow) {
+            Entity moved = last.entities[lastRow];
+            chunk.entities[row] = moved;
+            for (int c = 0; c < types.length; c++) {
+                chunk.columns[c][row] = last.columns[c][lastRow];
+            }
+            moved.chunk = chunk;
+            moved.row = row;
+        }
+
+        last.clearRow(lastRow);
+        last.size--;
+        if (last.size == 0) {
+            chunks.remove(chunks.size() - 1);
+        }
+        entityCount--;
+    }
+
+    /**
+     * 清空所有数据（内部方法）
+     */
+    void clear() {
+        chunks.clear();
+        entityCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Archetype[");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(
+                types[i].getType()
+                    .getSimpleName());
+        }
+        return sb.append("; entities=")
+            .append(entityCount)
+            .append("]")
+            .toString();
+    }
+}
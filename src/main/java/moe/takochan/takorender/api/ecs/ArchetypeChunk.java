@@ -0,0 +1,133 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.lang.reflect.Array;
+
+/**
+ * Archetype 数据块 - 定长的 Component 列式存储表
+ *
+ * <p>
+ * 每个 Chunk 最多容纳 {@link #CAPACITY} 个 Entity。
+ * 同一 Archetype 的每种 Component 在 Chunk 内对应一列数组，
+ * Entity 的所有 Component 位于各列的相同行号。
+ * </p>
+ *
+ * <p>
+ * <b>行号稳定性</b>:
+ * Entity 的行号在其所属 Archetype 不变期间保持稳定；
+ * 仅当同一 Archetype 中有其他 Entity 被移除时，
+ * 最后一行的 Entity 会被移动填补空位（保持数据紧凑）。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * world.forEachChunk(chunk -> {
+ *     TransformComponent[] transforms = chunk.getColumn(TransformComponent.class);
+ *     for (int row = 0; row < chunk.size(); row++) {
+ *         TransformComponent transform = transforms[row];
+ *         // 处理数据
+ *     }
+ * }, TransformComponent.class);
+ * }
+ * </pre>
+ */
+public final class ArchetypeChunk {
+
+    /** 每个 Chunk 的行数 */
+    public static final int CAPACITY = 128;
+
+    private final Archetype archetype;
+
+    /** 行 → Entity */
+    final Entity[] entities;
+
+    /** 列 → 行 → Component（列顺序与 Archetype 的类型顺序一致） */
+    final Component[][] columns;
+
+    /** 已使用行数 */
+    int size;
+
+    ArchetypeChunk(Archetype archetype, ComponentType[] types) {
+        this.archetype = archetype;
+        this.entities = new Entity[CAPACITY];
+        this.columns = new Component[types.length][];
+        for (int i = 0; i < types.length; i++) {
+            // 使用具体类型创建数组，使 getColumn 可以直接返回类型化数组
+            columns[i] = (Component[]) Array.newInstance(types[i].getType(), CAPACITY);
+        }
+    }
+
+    /**
+     * 获取所属 Archetype
+     */
+    public Archetype getArchetype() {
+        return archetype;
+    }
+
+    /**
+     * 获取已使用的行数
+     *
+     * @return 有效行数，行号范围为 [0, size)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 检查是否已满
+     */
+    public boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    /**
+     * 获取指定行的 Entity
+     *
+     * @param row 行号
+     * @return Entity
+     */
+    public Entity getEntity(int row) {
+        return entities[row];
+    }
+
+    /**
+     * 获取指定 Component 类型的列数组（直接引用）
+     *
+     * <p>
+     * 只有 [0, {@link #size()}) 范围内的元素有效。
+     * 不应修改数组本身，只能读取或修改其中的 Component 对象。
+     * </p>
+     *
+     * @param componentClass Component 类型
+     * @return 列数组，如果此 Archetype 不包含该类型则返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T[] getColumn(Class<T> componentClass) {
+        int column = archetype.columnOf(ComponentType.of(componentClass));
+        return column < 0 ? null : (T[]) columns[column];
+    }
+
+    /**
+     * 追加一行（内部方法）
+     *
+     * @return 新行号
+     */
+    int allocateRow(Entity entity) {
+        int row = size++;
+        entities[row] = entity;
+        return row;
+    }
+
+    /**
+     * 清空指定行的引用（内部方法）
+     */
+    void clearRow(int row) {
+        entities[row] = null;
+        for (Component[] column : columns) {
+            column[row] = null;
+        }
+    }
+}
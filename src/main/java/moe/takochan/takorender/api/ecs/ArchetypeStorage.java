@@ -0,0 +1,194 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archetype 存储（内部类）
+ *
+ * <p>
+ * 管理 {@link StorageMode#ARCHETYPE} 模式下的所有 Archetype，
+ * 负责 Entity 在 Archetype 之间的迁移。
+ * </p>
+ */
+final class ArchetypeStorage {
+
+    /** 类型位图 → Archetype */
+    private final Map<BitSet, Archetype> archetypes = new HashMap<>();
+
+    /** 所有 Archetype（按创建顺序，用于遍历） */
+    private final List<Archetype> archetypeList = new ArrayList<>();
+
+    /** 空 Archetype（新建 Entity 的初始位置） */
+    private final Archetype root;
+
+    ArchetypeStorage() {
+        this.root = register(new Archetype(new ComponentType[0]));
+    }
+
+    /**
+     * 将新建 Entity 放入空 Archetype
+     */
+    void add(Entity entity) {
+        root.allocate(entity);
+    }
+
+    /**
+     * 获取 Entity 的 Component
+     *
+     * @return Component，不存在时返回 null
+     */
+    Component get(Entity entity, Class<?> componentClass) {
+        ArchetypeChunk chunk = entity.chunk;
+        int column = chunk.getArchetype()
+            .columnOf(ComponentType.of(componentClass));
+        return column < 0 ? null : chunk.columns[column][entity.row];
+    }
+
+    /**
+     * 检查 Entity 是否拥有指定 Component
+     */
+    boolean has(Entity entity, Class<?> componentClass) {
+        return entity.chunk.getArchetype()
+            .columnOf(ComponentType.of(componentClass)) >= 0;
+    }
+
+    /**
+     * 设置 Entity 的 Component
+     *
+     * <p>
+     * 如果该类型已存在则原地替换，否则迁移到包含该类型的 Archetype。
+     * </p>
+     */
+    void set(Entity entity, Component component) {
+        ComponentType type = ComponentType.of(component.getClass());
+        Archetype source = entity.chunk.getArchetype();
+
+        int column = source.columnOf(type);
+        if (column >= 0) {
+            entity.chunk.columns[column][entity.row] = component;
+            return;
+        }
+
+        Archetype target = source.getAddEdge(type);
+        if (target == null) {
+            target = withType(source, type);
+            source.setAddEdge(type, target);
+        }
+
+        move(entity, source, target);
+        entity.chunk.columns[target.columnOf(type)][entity.row] = component;
+    }
+
+    /**
+     * 移除 Entity 的 Component
+     *
+     * @return 被移除的 Component，不存在时返回 null
+     */
+    Component remove(Entity entity, Class<?> componentClass) {
+        ComponentType type = ComponentType.of(componentClass);
+        Archetype source = entity.chunk.getArchetype();
+
+        int column = source.columnOf(type);
+        if (column < 0) {
+            return null;
+        }
+        Component removed = entity.chunk.columns[column][entity.row];
+
+        Archetype target = source.getRemoveEdge(type);
+        if (target == null) {
+            target = withoutType(source, type);
+            source.setRemoveEdge(type, target);
+        }
+
+        move(entity, source, target);
+        return removed;
+    }
+
+    /**
+     * 从存储中移除 Entity
+     */
+    void removeEntity(Entity entity) {
+        entity.chunk.getArchetype()
+            .removeRow(entity.chunk, entity.row);
+        entity.chunk = null;
+        entity.row = -1;
+    }
+
+    /**
+     * 获取所有 Archetype
+     */
+    List<Archetype> getArchetypes() {
+        return archetypeList;
+    }
+
+    /**
+     * 清空所有 Entity（保留 Archetype 结构和边缓存）
+     */
+    void clear() {
+        for (Archetype archetype : archetypeList) {
+            archetype.clear();
+        }
+    }
+
+    /**
+     * 将 Entity 从 source 迁移到 target，复制两者共有的 Component
+     */
+    private void move(Entity entity, Archetype source, Archetype target) {
+        ArchetypeChunk oldChunk = entity.chunk;
+        int oldRow = entity.row;
+
+        target.allocate(entity);
+        ArchetypeChunk newChunk = entity.chunk;
+        int newRow = entity.row;
+
+        ComponentType[] sourceTypes = source.getTypes();
+        for (int c = 0; c < sourceTypes.length; c++) {
+            int targetColumn = target.columnOf(sourceTypes[c]);
+            if (targetColumn >= 0) {
+                newChunk.columns[targetColumn][newRow] = oldChunk.columns[c][oldRow];
+            }
+        }
+
+        source.removeRow(oldChunk, oldRow);
+    }
+
+    private Archetype withType(Archetype source, ComponentType type) {
+        ComponentType[] sourceTypes = source.getTypes();
+        ComponentType[] types = Arrays.copyOf(sourceTypes, sourceTypes.length + 1);
+        types[sourceTypes.length] = type;
+        Arrays.sort(types, (a, b) -> Integer.compare(a.getId(), b.getId()));
+        return getOrCreate(types);
+    }
+
+    private Archetype withoutType(Archetype source, ComponentType type) {
+        ComponentType[] sourceTypes = source.getTypes();
+        ComponentType[] types = new ComponentType[sourceTypes.length - 1];
+        int i = 0;
+        for (ComponentType t : sourceTypes) {
+            if (t != type) {
+                types[i++] = t;
+            }
+        }
+        return getOrCreate(types);
+    }
+
+    private Archetype getOrCreate(ComponentType[] types) {
+        BitSet mask = new BitSet();
+        for (ComponentType type : types) {
+            mask.set(type.getId());
+        }
+        Archetype existing = archetypes.get(mask);
+        return existing != null ? existing : register(new Archetype(types));
+    }
+
+    private Archetype register(Archetype archetype) {
+        archetypes.put(archetype.getMask(), archetype);
+        archetypeList.add(archetype);
+        return archetype;
+    }
+}
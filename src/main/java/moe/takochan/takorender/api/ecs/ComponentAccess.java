@@ -0,0 +1,70 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明 System 读写的 Component 类型
+ *
+ * <p>
+ * World 根据此声明构建 UPDATE 阶段的依赖图：
+ * 两个 System 只要一方写入另一方读取或写入的类型，就按优先级顺序串行执行；
+ * 互不冲突的 System 在 {@link WorkerPool} 上并行执行。
+ * 由于冲突的 System 始终保持原有相对顺序，结果与串行执行一致。
+ * </p>
+ *
+ * <p>
+ * {@link RequiresComponent} 声明的类型自动视为读取。
+ * 未声明此注解的 System 视为独占：它之前的所有 System 完成后才会开始，
+ * 它完成后之后的 System 才会开始。
+ * </p>
+ *
+ * <p>
+ * <b>声明此注解的 System 必须满足</b>:
+ * </p>
+ * <ul>
+ * <li>不调用任何 OpenGL 函数（工作线程没有 GL 上下文）</li>
+ * <li>不创建/移除 Entity，不添加/移除 Component，不修改 Entity 激活状态</li>
+ * <li>只修改 write 中声明的 Component，以及 System 自身的字段</li>
+ * </ul>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ *
+ * {
+ *     &#64;code
+ *     &#64;RequiresComponent({ TransformComponent.class, LODComponent.class })
+ *     &#64;ComponentAccess(read = CameraComponent.class, write = LODComponent.class)
+ *     public class LODSystem extends GameSystem {
+ *         // ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @see World#setParallelUpdate(boolean)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ComponentAccess {
+
+    /**
+     * 只读访问的 Component 类型
+     *
+     * @return Component 类型数组
+     */
+    Class<? extends Component>[] read() default {};
+
+    /**
+     * 写入的 Component 类型（隐含读取）
+     *
+     * @return Component 类型数组
+     */
+    Class<? extends Component>[] write() default {};
+}
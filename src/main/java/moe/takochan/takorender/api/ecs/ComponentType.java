@@ -0,0 +1,65 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Component 类型标识（内部类）
+ *
+ * <p>
+ * 为每个 Component 类分配一个进程内唯一、连续的整数 ID，
+ * 供 Archetype 存储使用数组而非哈希表寻址。
+ * </p>
+ *
+ * <p>
+ * 使用 {@link ClassValue} 缓存，查询不需要装箱或哈希表查找。
+ * </p>
+ */
+final class ComponentType {
+
+    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+
+    private static final ClassValue<ComponentType> TYPES = new ClassValue<ComponentType>() {
+
+        @Override
+        protected ComponentType computeValue(Class<?> type) {
+            return new ComponentType(ID_COUNTER.getAndIncrement(), type);
+        }
+    };
+
+    private final int id;
+    private final Class<?> type;
+
+    private ComponentType(int id, Class<?> type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    /**
+     * 获取指定类的类型标识
+     *
+     * @param type Component 类
+     * @return 类型标识（同一个类总是返回同一实例）
+     */
+    static ComponentType of(Class<?> type) {
+        return TYPES.get(type);
+    }
+
+    /**
+     * 获取类型 ID
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * 获取 Component 类
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentType[" + id + ", " + type.getSimpleName() + "]";
+    }
+}
@@ -1,7 +1,10 @@
 package moe.takochan.takorender.api.ecs;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -13,17 +16,41 @@ import java.util.Set;
  * Entity 是 Component 的容器，本身只是一个 ID。
  * 所有逻辑都在 System 中处理，Entity 只负责持有 Component。
  * </p>
+ *
+ * <p>
+ * <b>存储模式</b>:
+ * 在 {@link StorageMode#HASH_MAP} 模式下 Component 保存在 Entity 自身的 HashMap 中；
+ * 在 {@link StorageMode#ARCHETYPE} 模式下 Entity 只是一个外观（facade），
+ * Component 实际存放在所属 {@link ArchetypeChunk} 的列数组中，API 保持不变。
+ * </p>
  */
 public class Entity {
 
+    private static final int[] NO_QUERY_SLOTS = new int[0];
+
     private final long id;
-    private final Map<Class<? extends Component>, Component> components = new HashMap<>();
+
+    /** HASH_MAP 模式的 Component 表；ARCHETYPE 模式下为 null（从 World 移除后会生成快照） */
+    private Map<Class<? extends Component>, Component> components;
+
     private boolean active = true;
     private World world;
 
+    /** ARCHETYPE 模式下所在的 Chunk（由 Archetype 维护） */
+    ArchetypeChunk chunk;
+
+    /** ARCHETYPE 模式下在 Chunk 中的行号（由 Archetype 维护） */
+    int row = -1;
+
+    /** 在各 Query 结果数组中的下标（按 Query 编号索引，由 Query 维护） */
+    private int[] querySlots = NO_QUERY_SLOTS;
+
     Entity(long id, World world) {
         this.id = id;
         this.world = world;
+        if (world == null || world.getStorageMode() == StorageMode.HASH_MAP) {
+            this.components = new HashMap<>();
+        }
     }
 
     public long getId() {
@@ -35,7 +62,13 @@ public class Entity {
     }
 
     public void setActive(boolean active) {
+        if (this.active == active) {
+            return;
+        }
         this.active = active;
+        if (world != null) {
+            world.onEntityActiveChanged(this);
+        }
     }
 
     /**
@@ -74,7 +107,12 @@ public class Entity {
         }
 
         Class<? extends Component> componentClass = component.getClass();
-        components.put(componentClass, component);
+        if (components != null) {
+            components.put(componentClass, component);
+        } else {
+            world.getArchetypeStorage()
+                .set(this, component);
+        }
         component.setEntity(this);
 
         // 通知 World 更新索引
@@ -87,16 +125,34 @@ public class Entity {
     /**
      * 获取指定类型的 Component。
      */
-    @SuppressWarnings("unchecked")
     public <T extends Component> Optional<T> getComponent(Class<T> componentClass) {
-        return Optional.ofNullable((T) components.get(componentClass));
+        return Optional.ofNullable(getComponentOrNull(componentClass));
+    }
+
+    /**
+     * 获取指定类型的 Component（不分配 Optional）。
+     *
+     * <p>
+     * 适用于每帧遍历大量实体的 System 热路径。
+     * </p>
+     *
+     * @param componentClass Component 类型
+     * @return Component，如果不存在则返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T getComponentOrNull(Class<T> componentClass) {
+        if (components != null) {
+            return (T) components.get(componentClass);
+        }
+        return (T) world.getArchetypeStorage()
+            .get(this, componentClass);
     }
 
     /**
      * 检查是否拥有指定类型的 Component。
      */
     public <T extends Component> boolean hasComponent(Class<T> componentClass) {
-        return components.containsKey(componentClass);
+        return hasComponentType(componentClass);
     }
 
     /**
@@ -107,18 +163,28 @@ public class Entity {
      */
     public boolean hasComponents(Class<?>... componentClasses) {
         for (Class<?> clazz : componentClasses) {
-            if (!components.containsKey(clazz)) {
+            if (!hasComponentType(clazz)) {
                 return false;
             }
         }
         return true;
     }
 
+    private boolean hasComponentType(Class<?> componentClass) {
+        if (components != null) {
+            return components.containsKey(componentClass);
+        }
+        return world.getArchetypeStorage()
+            .has(this, componentClass);
+    }
+
     /**
      * 从此实体移除 Component。
      */
     public <T extends Component> void removeComponent(Class<T> componentClass) {
-        Component removed = components.remove(componentClass);
+        Component removed = components != null ? components.remove(componentClass)
+            : world.getArchetypeStorage()
+                .remove(this, componentClass);
         if (removed != null && world != null) {
             world.onComponentRemoved(this, componentClass);
         }
@@ -128,13 +194,106 @@ public class Entity {
      * 获取此实体拥有的所有 Component 类型。
      */
     public Set<Class<? extends Component>> getComponentTypes() {
-        return components.keySet();
+        if (components != null) {
+            return components.keySet();
+        }
+        return chunk.getArchetype()
+            .getComponentTypes();
     }
 
     /**
      * 获取此实体的所有 Component。
+     *
+     * <p>
+     * ARCHETYPE 模式下返回当前数据的副本。
+     * </p>
      */
     public Collection<Component> getComponents() {
-        return components.values();
+        if (components != null) {
+            return components.values();
+        }
+        Component[][] columns = chunk.columns;
+        List<Component> result = new ArrayList<>(columns.length);
+        for (Component[] column : columns) {
+            result.add(column[row]);
+        }
+        return result;
+    }
+
+    /**
+     * 获取 ARCHETYPE 模式下所在的 Chunk。
+     *
+     * @return 所在 Chunk，HASH_MAP 模式或已从 World 移除时返回 null
+     */
+    public ArchetypeChunk getChunk() {
+        return chunk;
+    }
+
+    /**
+     * 获取 ARCHETYPE 模式下在 Chunk 中的行号。
+     *
+     * @return 行号，HASH_MAP 模式或已从 World 移除时返回 -1
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * 获取在指定 Query 中的下标（内部方法）。
+     *
+     * @return 下标，不在查询结果中时返回 -1
+     */
+    int getQuerySlot(int queryId) {
+        return queryId >= 0 && queryId < querySlots.length ? querySlots[queryId] : -1;
+    }
+
+    /**
+     * 记录在指定 Query 中的下标（内部方法）。
+     */
+    void setQuerySlot(int queryId, int slot) {
+        if (queryId >= querySlots.length) {
+            if (slot < 0) {
+                return;
+            }
+            int oldLength = querySlots.length;
+            querySlots = Arrays.copyOf(querySlots, queryId + 1);
+            Arrays.fill(querySlots, oldLength, querySlots.length, -1);
+        }
+        querySlots[queryId] = slot;
+    }
+
+    /**
+     * 从 Archetype 存储中分离（内部方法）。
+     *
+     * <p>
+     * Entity 从 World 移除前调用，将 Component 复制到独立的 HashMap，
+     * 使外部仍持有的引用可以继续读取 Component。
+     * </p>
+     */
+    void detachFromChunk() {
+        if (components != null) {
+            return;
+        }
+        Map<Class<? extends Component>, Component> snapshot = new HashMap<>();
+        for (Component component : getComponents()) {
+            snapshot.put(component.getClass(), component);
+        }
+        components = snapshot;
+    }
+
+    /**
+     * 脱离所属 World（内部方法）。
+     *
+     * <p>
+     * World 整体清空时调用：保留 Component 快照，清除 Chunk、行号、查询下标和 World 引用，
+     * 外部仍持有的引用之后增删 Component 不会再触及已清空的存储。
+     * </p>
+     */
+    void detachFromWorld() {
+        detachFromChunk();
+        chunk = null;
+        row = -1;
+        querySlots = NO_QUERY_SLOTS;
+        world = null;
     }
 }
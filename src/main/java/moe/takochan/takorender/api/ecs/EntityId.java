@@ -0,0 +1,50 @@
+package moe.takochan.takorender.api.ecs;
+
+/**
+ * Entity ID 工具 - 解析带代数的实体句柄
+ *
+ * <p>
+ * {@link Entity#getId()} 返回的 long 由两部分组成：
+ * </p>
+ * <ul>
+ * <li>低 32 位：槽位号（World 内部实体表的下标）</li>
+ * <li>高 32 位：代数（槽位每次被释放时递增，从 1 开始）</li>
+ * </ul>
+ *
+ * <p>
+ * 槽位会在 Entity 移除后复用，但代数不同，因此旧 ID 不会指向新的 Entity。
+ * 有效 ID 永远不为 0，可以用 0 表示"无实体"。
+ * </p>
+ */
+public final class EntityId {
+
+    /** 无效 ID */
+    public static final long NONE = 0L;
+
+    private EntityId() {}
+
+    /**
+     * 打包槽位号和代数
+     *
+     * @param index      槽位号
+     * @param generation 代数
+     * @return 实体 ID
+     */
+    public static long pack(int index, int generation) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 获取槽位号
+     */
+    public static int index(long id) {
+        return (int) id;
+    }
+
+    /**
+     * 获取代数
+     */
+    public static int generation(long id) {
+        return (int) (id >>> 32);
+    }
+}
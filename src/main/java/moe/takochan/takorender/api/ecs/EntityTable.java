@@ -0,0 +1,160 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.Arrays;
+
+/**
+ * 实体表（内部类）- 带代数校验的 slot-map
+ *
+ * <p>
+ * 每个 Entity 占用一个槽位，ID 由槽位号和该槽位的代数打包而成
+ * （见 {@link EntityId}）。Entity 移除后槽位进入空闲栈并递增代数，
+ * 之后复用该槽位的新 Entity 会得到不同的 ID，旧 ID 的查询返回 null。
+ * </p>
+ *
+ * <p>
+ * 另维护一个紧凑数组保存所有存活 Entity，遍历时不需要跳过空槽。
+ * 查找、插入、移除均为 O(1) 且不装箱。
+ * </p>
+ */
+final class EntityTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** 槽位 → Entity（空闲槽位为 null） */
+    private Entity[] slots = new Entity[INITIAL_CAPACITY];
+
+    /** 槽位 → 当前代数 */
+    private int[] generations = new int[INITIAL_CAPACITY];
+
+    /** 槽位 → 在紧凑数组中的下标 */
+    private int[] denseIndex = new int[INITIAL_CAPACITY];
+
+    /** 已使用过的槽位数（高水位） */
+    private int slotCount;
+
+    /** 空闲槽位栈 */
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+
+    /** 存活 Entity（紧凑排列） */
+    private Entity[] dense = new Entity[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * 分配槽位并创建 Entity
+     */
+    Entity create(World world) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == slots.length) {
+                int capacity = slots.length << 1;
+                slots = Arrays.copyOf(slots, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+                denseIndex = Arrays.copyOf(denseIndex, capacity);
+            }
+            // 代数从 1 开始，保证 ID 不为 0
+            generations[slot] = 1;
+        }
+
+        Entity entity = new Entity(EntityId.pack(slot, generations[slot]), world);
+        slots[slot] = entity;
+
+        if (size == dense.length) {
+            dense = Arrays.copyOf(dense, size << 1);
+        }
+        denseIndex[slot] = size;
+        dense[size++] = entity;
+        return entity;
+    }
+
+    /**
+     * 根据 ID 查找存活 Entity
+     *
+     * @return Entity，ID 无效或已过期时返回 null
+     */
+    Entity get(long id) {
+        int slot = EntityId.index(id);
+        if (slot < 0 || slot >= slotCount) {
+            return null;
+        }
+        Entity entity = slots[slot];
+        return entity != null && entity.getId() == id ? entity : null;
+    }
+
+    /**
+     * 检查 Entity 是否仍在表中
+     */
+    boolean contains(Entity entity) {
+        return get(entity.getId()) == entity;
+    }
+
+    /**
+     * 移除 Entity，释放槽位并递增代数
+     *
+     * @return 被移除的 Entity，ID 无效或已过期时返回 null
+     */
+    Entity remove(long id) {
+        Entity entity = get(id);
+        if (entity == null) {
+            return null;
+        }
+        int slot = EntityId.index(id);
+
+        // 紧凑数组 swap-remove
+        int index = denseIndex[slot];
+        int last = --size;
+        if (index != last) {
+            Entity moved = dense[last];
+            dense[index] = moved;
+            denseIndex[EntityId.index(moved.getId())] = index;
+        }
+        dense[last] = null;
+
+        release(slot);
+        return entity;
+    }
+
+    /**
+     * 获取存活 Entity 数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 获取紧凑数组中指定下标的 Entity
+     *
+     * <p>
+     * 下标范围 [0, size)，移除 Entity 后顺序会改变。
+     * </p>
+     */
+    Entity getAt(int index) {
+        return dense[index];
+    }
+
+    /**
+     * 移除所有 Entity（旧 ID 全部失效）
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            release(EntityId.index(dense[i].getId()));
+            dense[i] = null;
+        }
+        size = 0;
+    }
+
+    private void release(int slot) {
+        slots[slot] = null;
+        int generation = generations[slot] + 1;
+        // 代数回绕时跳过 0
+        generations[slot] = generation == 0 ? 1 : generation;
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
@@ -47,6 +47,15 @@ public abstract class GameSystem {
     private World world;
     private boolean enabled = true;
 
+    /** 必需 Component 类型（构造时读取一次注解） */
+    private final Class<? extends Component>[] requiredComponents = readRequiredComponents();
+
+    /** 必需 Component 的缓存查询（延迟创建） */
+    private Query requiredQuery;
+
+    /** 读写声明（未声明时为 null，视为独占） */
+    private final ComponentAccess access = getClass().getAnnotation(ComponentAccess.class);
+
     /**
      * 获取此系统所属的 World。
      */
@@ -134,6 +143,11 @@ public abstract class GameSystem {
      * </p>
      *
      * <p>
+     * 返回的是 {@link #getRequiredQuery()} 的只读实时视图，每帧调用不产生分配。
+     * 遍历期间如需移除实体，请使用 {@link Query#forEach} 或倒序下标遍历。
+     * </p>
+     *
+     * <p>
      * <b>使用示例</b>:
      * </p>
      *
@@ -154,18 +168,61 @@ public abstract class GameSystem {
      * }
      * </pre>
      *
-     * @return 拥有所有必需 Component 的实体列表
+     * @return 拥有所有必需 Component 的实体列表（只读）
      */
     protected List<Entity> getRequiredEntities() {
-        if (world == null) {
-            return Collections.emptyList();
+        Query query = getRequiredQuery();
+        return query != null ? query.asList() : Collections.emptyList();
+    }
+
+    /**
+     * 获取必需 Component 的缓存查询。
+     *
+     * <p>
+     * 首次调用时由 World 创建，之后增量维护；系统移除时自动释放。
+     * </p>
+     *
+     * @return 缓存查询，未声明 {@link RequiresComponent} 或未加入 World 时返回 null
+     */
+    protected Query getRequiredQuery() {
+        if (world == null || requiredComponents.length == 0) {
+            return null;
+        }
+        if (requiredQuery == null || requiredQuery.isDisposed()) {
+            requiredQuery = world.createQuery(requiredComponents);
         }
+        return requiredQuery;
+    }
 
-        RequiresComponent annotation = getClass().getAnnotation(RequiresComponent.class);
-        if (annotation == null || annotation.value().length == 0) {
-            return Collections.emptyList();
+    /**
+     * 释放必需 Component 的缓存查询（内部方法）。
+     */
+    void releaseRequiredQuery() {
+        if (requiredQuery != null) {
+            requiredQuery.dispose();
+            requiredQuery = null;
         }
+    }
 
-        return world.getEntitiesWith(annotation.value());
+    /**
+     * 获取必需 Component 类型（内部方法）。
+     */
+    Class<? extends Component>[] getRequiredComponents() {
+        return requiredComponents;
+    }
+
+    /**
+     * 获取读写声明（内部方法）。
+     *
+     * @return 读写声明，未声明 {@link ComponentAccess} 时返回 null
+     */
+    ComponentAccess getAccess() {
+        return access;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<? extends Component>[] readRequiredComponents() {
+        RequiresComponent annotation = getClass().getAnnotation(RequiresComponent.class);
+        return annotation != null ? annotation.value() : (Class<? extends Component>[]) new Class<?>[0];
     }
 }
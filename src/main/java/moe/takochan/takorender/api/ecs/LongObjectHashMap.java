@@ -0,0 +1,228 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.Arrays;
+
+/**
+ * long 键的开放寻址哈希表
+ *
+ * <p>
+ * 用于以实体 ID 等 long 值为键的外部查找，避免 {@code HashMap<Long, V>} 的装箱和节点分配。
+ * 采用线性探测，删除时回移后续元素（不使用墓碑），负载因子 0.5。
+ * </p>
+ *
+ * <p>
+ * <b>注意</b>: 不允许 null 值；非线程安全。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * LongObjectHashMap<NetworkState> states = new LongObjectHashMap<>();
+ * states.put(entity.getId(), state);
+ * NetworkState s = states.get(entity.getId());
+ * }
+ * </pre>
+ *
+ * @param <V> 值类型
+ */
+public final class LongObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计元素数量
+     */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * 获取元素数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 检查是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取键对应的值
+     *
+     * @return 值，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * 检查是否包含键
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 放入键值对
+     *
+     * @param key   键
+     * @param value 值（不能为 null）
+     * @return 旧值，不存在时返回 null
+     * @throws NullPointerException 如果 value 为 null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            Object existing = values[i];
+            if (existing == null) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length) {
+                    rehash(keys.length << 1);
+                }
+                return null;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return (V) existing;
+            }
+        }
+    }
+
+    /**
+     * 移除键
+     *
+     * @return 被移除的值，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                size--;
+                shiftKeys(i);
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * 清空所有元素（保留容量）
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * 遍历所有键值对
+     *
+     * @param action 回调
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Entry<? super V> action) {
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value != null) {
+                action.accept(keys[i], (V) value);
+            }
+        }
+    }
+
+    /**
+     * 键值对回调
+     */
+    @FunctionalInterface
+    public interface Entry<V> {
+
+        void accept(long key, V value);
+    }
+
+    /**
+     * 删除后回移同一探测链上的元素，保证查找不提前终止
+     */
+    private void shiftKeys(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            Object value = values[i];
+            if (value == null) {
+                break;
+            }
+            int home = slot(keys[i]);
+            // home 不在 (gap, i] 区间内时才能移动到 gap
+            boolean movable = gap <= i ? (home <= gap || home > i) : (home <= gap && home > i);
+            if (movable) {
+                keys[gap] = keys[i];
+                values[gap] = value;
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private int slot(long key) {
+        // 混合高低位（实体 ID 的代数位于高 32 位）
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value != null) {
+                for (int j = slot(oldKeys[i]);; j = (j + 1) & mask) {
+                    if (values[j] == null) {
+                        keys[j] = oldKeys[i];
+                        values[j] = value;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,333 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * 缓存查询 - 持续维护拥有指定 Component 组合的活跃实体
+ *
+ * <p>
+ * 与每次调用都重新过滤的 {@link World#getEntitiesWith(Class[])} 不同，
+ * Query 只在创建时扫描一次，之后由 World 在以下时机增量更新：
+ * </p>
+ * <ul>
+ * <li>Entity 添加 / 移除 Component</li>
+ * <li>Entity 激活状态变化（{@link Entity#setActive(boolean)}）</li>
+ * <li>Entity 从 World 移除</li>
+ * </ul>
+ *
+ * <p>
+ * 匹配的实体存放在紧凑数组中，稳态帧遍历不产生任何分配。
+ * </p>
+ *
+ * <p>
+ * <b>遍历顺序</b>:
+ * {@link #forEach(Consumer)} 和 {@link #iterator()} 从后向前遍历，
+ * 因此在遍历期间移除当前实体（或其 Component）是安全的；
+ * 遍历期间新匹配的实体追加到末尾，不会在本次遍历中出现。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ *
+ * {
+ *     &#64;code
+ *     public class MySystem extends GameSystem {
+ *
+ *         private Query query;
+ *
+ *         &#64;Override
+ *         public void onInit() {
+ *             query = getWorld().createQuery(TransformComponent.class, LODComponent.class);
+ *         }
+ *
+ *         &#64;Override
+ *         public void update(float deltaTime) {
+ *             for (int i = query.size() - 1; i >= 0; i--) {
+ *                 Entity entity = query.get(i);
+ *                 // 处理逻辑
+ *             }
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * @see World#createQuery(Class[])
+ * @see GameSystem#getRequiredQuery()
+ */
+public final class Query implements Iterable<Entity> {
+
+    private static final Entity[] EMPTY = new Entity[0];
+
+    private final World world;
+    private final Class<? extends Component>[] componentClasses;
+
+    /** World 内的查询编号（用于 Entity 记录所在位置） */
+    private int id;
+
+    private Entity[] entities = EMPTY;
+    private int size;
+
+    /** 结果集版本（每次增删实体时递增） */
+    private int version;
+
+    /** 只读列表视图（复用） */
+    private final List<Entity> listView = new ListView();
+
+    private boolean disposed;
+
+    Query(World world, int id, Class<? extends Component>[] componentClasses) {
+        this.world = world;
+        this.id = id;
+        this.componentClasses = componentClasses;
+    }
+
+    /**
+     * 获取匹配实体数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 检查是否没有匹配实体
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取结果集版本
+     *
+     * <p>
+     * 每次有实体加入或离开结果集时递增，可用于判断基于结果集构建的缓存是否过期。
+     * </p>
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取指定下标的实体
+     *
+     * <p>
+     * 下标只在两次结构变化之间稳定，不应长期保存。
+     * </p>
+     *
+     * @param index 下标，范围 [0, size)
+     * @return 实体
+     */
+    public Entity get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return entities[index];
+    }
+
+    /**
+     * 检查实体是否在查询结果中
+     */
+    public boolean contains(Entity entity) {
+        return indexOf(entity) >= 0;
+    }
+
+    /**
+     * 遍历所有匹配实体（从后向前，不分配）
+     *
+     * @param action 回调
+     */
+    @Override
+    public void forEach(Consumer<? super Entity> action) {
+        // 回调中可能移除实体，每步都按当前 size 收缩下标
+        for (int i = size - 1; i >= 0; i = Math.min(i - 1, size - 1)) {
+            action.accept(entities[i]);
+        }
+    }
+
+    /**
+     * 返回从后向前的迭代器
+     *
+     * <p>
+     * 迭代器对象极小且不逃逸，通常会被 JIT 标量替换；
+     * 需要严格零分配时请使用 {@link #forEach(Consumer)} 或 {@link #get(int)}。
+     * </p>
+     */
+    @Override
+    public Iterator<Entity> iterator() {
+        return new QueryIterator();
+    }
+
+    /**
+     * 获取只读的实时列表视图
+     *
+     * <p>
+     * 视图对象被复用，内容随查询结果实时变化。
+     * </p>
+     *
+     * @return 只读列表视图
+     */
+    public List<Entity> asList() {
+        return listView;
+    }
+
+    /**
+     * 获取查询的 Component 类型（副本）
+     */
+    public Class<? extends Component>[] getComponentClasses() {
+        return Arrays.copyOf(componentClasses, componentClasses.length);
+    }
+
+    /**
+     * 检查查询是否已释放
+     */
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * 释放查询，World 不再维护其结果
+     */
+    public void dispose() {
+        if (!disposed) {
+            world.removeQuery(this);
+        }
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * 检查 Component 类型是否与此查询相关（内部方法）
+     */
+    boolean involves(Class<? extends Component> componentClass) {
+        for (Class<? extends Component> clazz : componentClasses) {
+            if (clazz == componentClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重新评估实体是否匹配，并同步结果（内部方法）
+     */
+    void update(Entity entity) {
+        boolean matches = entity.isActive() && entity.hasComponents(componentClasses);
+        int index = indexOf(entity);
+        if (matches && index < 0) {
+            add(entity);
+        } else if (!matches && index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * 从结果中移除实体（内部方法）
+     */
+    void remove(Entity entity) {
+        int index = indexOf(entity);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * 清空结果（内部方法）
+     */
+    void clear() {
+        Arrays.fill(entities, 0, size, null);
+        size = 0;
+        version++;
+    }
+
+    /**
+     * 标记为已释放（内部方法）
+     */
+    void markDisposed() {
+        clear();
+        disposed = true;
+        id = -1;
+    }
+
+    private int indexOf(Entity entity) {
+        int index = entity.getQuerySlot(id);
+        // 校验槽位，防止实体被 World 清空后残留的旧记录
+        return index >= 0 && index < size && entities[index] == entity ? index : -1;
+    }
+
+    private void add(Entity entity) {
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, Math.max(16, size + (size >> 1)));
+        }
+        entities[size] = entity;
+        entity.setQuerySlot(id, size);
+        size++;
+        version++;
+    }
+
+    private void removeAt(int index) {
+        Entity removed = entities[index];
+        int last = --size;
+        if (index != last) {
+            Entity moved = entities[last];
+            entities[index] = moved;
+            moved.setQuerySlot(id, index);
+        }
+        entities[last] = null;
+        removed.setQuerySlot(id, -1);
+        version++;
+    }
+
+    /**
+     * 从后向前的迭代器（容忍遍历期间移除当前实体）
+     */
+    private final class QueryIterator implements Iterator<Entity> {
+
+        private int next = size - 1;
+
+        @Override
+        public boolean hasNext() {
+            if (next >= size) {
+                next = size - 1;
+            }
+            return next >= 0;
+        }
+
+        @Override
+        public Entity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return entities[next--];
+        }
+    }
+
+    /**
+     * 只读列表视图
+     */
+    private final class ListView extends AbstractList<Entity> {
+
+        @Override
+        public Entity get(int index) {
+            return Query.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Entity> iterator() {
+            return new QueryIterator();
+        }
+    }
+}
@@ -83,14 +83,7 @@ public class SceneManager {
      * @return 活动相机实体，如果没有则返回 empty
      */
     public Optional<Entity> getActiveCamera() {
-        for (Entity entity : world.getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
-            if (camera != null && camera.isActive()) {
-                return Optional.of(entity);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(world.findActiveCamera());
     }
 
     /**
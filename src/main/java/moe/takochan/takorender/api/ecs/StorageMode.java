@@ -0,0 +1,45 @@
+package moe.takochan.takorender.api.ecs;
+
+/**
+ * Component 存储模式枚举
+ *
+ * <p>
+ * 决定 {@link World} 中 Entity 的 Component 数据如何存放，
+ * 在创建 World 时通过 {@link World#World(StorageMode)} 指定，之后不可更改。
+ * </p>
+ *
+ * <ul>
+ * <li>{@link #HASH_MAP}: 每个 Entity 持有独立的 {@code Map<Class, Component>}（默认）</li>
+ * <li>{@link #ARCHETYPE}: 相同 Component 组合的 Entity 存放在同一 Archetype 的分块表中</li>
+ * </ul>
+ */
+public enum StorageMode {
+
+    /**
+     * 哈希表存储
+     *
+     * <p>
+     * 每个 Entity 自带一个 HashMap，World 维护 {@code Map<Class, Set<Entity>>} 索引。
+     * 增删 Component 开销最小，适合实体数量少、结构频繁变化的场景。
+     * </p>
+     */
+    HASH_MAP,
+
+    /**
+     * Archetype 分块存储
+     *
+     * <p>
+     * 拥有相同 Component 组合的 Entity 归属同一个 {@link Archetype}，
+     * 其 Component 按列存放在定长的 {@link ArchetypeChunk} 中。
+     * </p>
+     * <ul>
+     * <li>Component 访问为数组下标寻址，无哈希查找</li>
+     * <li>查询按 Archetype 匹配，可通过 {@link World#forEachChunk} 批量遍历</li>
+     * <li>增删 Component 时 Entity 在 Archetype 之间迁移，开销略高</li>
+     * </ul>
+     * <p>
+     * 适合大量结构稳定的装饰性实体。
+     * </p>
+     */
+    ARCHETYPE
+}
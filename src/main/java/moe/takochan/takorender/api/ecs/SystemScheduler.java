@@ -0,0 +1,259 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+import moe.takochan.takorender.core.debug.SystemProfiler;
+
+/**
+ * UPDATE 阶段调度器（内部类）
+ *
+ * <p>
+ * 根据 {@link ComponentAccess} 声明把 UPDATE 阶段的 System 划分为执行批次：
+ * </p>
+ * <ol>
+ * <li>未声明访问的 System 独占一个批次，在调用线程上执行</li>
+ * <li>相邻的已声明 System 组成一段，段内按冲突关系分层：
+ * 每个 System 的层号 = 与其冲突的前序 System 的最大层号 + 1</li>
+ * <li>同层 System 互不冲突，并行执行；层与层之间串行</li>
+ * </ol>
+ *
+ * <p>
+ * 冲突的 System 始终按优先级顺序执行，因此结果与完全串行执行一致。
+ * 计划只在 System 列表变化时重建，禁用的 System 在执行时跳过。
+ * </p>
+ */
+final class SystemScheduler {
+
+    private final World world;
+
+    /** 执行计划：每个元素为一个批次（单个 System 或可并行的一组 System） */
+    private final List<GameSystem[]> batches = new ArrayList<>();
+
+    /** 批次是否来自可并行段（独占 System 的批次为 false） */
+    private final List<Boolean> parallelBatches = new ArrayList<>();
+
+    private boolean dirty = true;
+
+    SystemScheduler(World world) {
+        this.world = world;
+    }
+
+    /**
+     * 标记计划需要重建（System 列表变化时调用）
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * 执行 UPDATE 阶段
+     *
+     * @param systems   已按优先级排序的所有 System
+     * @param deltaTime 帧间隔
+     * @param parallel  是否允许并行
+     */
+    void update(List<GameSystem> systems, float deltaTime, boolean parallel) {
+        SystemProfiler profiler = world.getProfiler();
+
+        if (!parallel || !WorkerPool.isParallelAvailable()) {
+            for (GameSystem system : systems) {
+                if (system.isEnabled() && system.getPhase() == Phase.UPDATE) {
+                    profiler.beginSystem(system);
+                    system.update(deltaTime);
+                    profiler.endSystem(system);
+                }
+            }
+            return;
+        }
+
+        if (dirty) {
+            rebuild(systems);
+            dirty = false;
+        }
+
+        for (int b = 0; b < batches.size(); b++) {
+            GameSystem[] batch = batches.get(b);
+            if (parallelBatches.get(b)) {
+                runParallel(batch, deltaTime, profiler);
+            } else if (batch[0].isEnabled()) {
+                profiler.beginSystem(batch[0]);
+                batch[0].update(deltaTime);
+                profiler.endSystem(batch[0]);
+            }
+        }
+    }
+
+    /**
+     * 执行一组互不冲突的 System
+     */
+    private void runParallel(GameSystem[] batch, float deltaTime, SystemProfiler profiler) {
+        // 延迟创建的查询必须在进入并行区之前创建
+        for (GameSystem system : batch) {
+            system.getRequiredQuery();
+        }
+        world.getCameraQuery();
+
+        GameSystem inline = null;
+        int enabledCount = 0;
+        for (GameSystem system : batch) {
+            if (system.isEnabled()) {
+                if (inline == null) {
+                    inline = system;
+                }
+                enabledCount++;
+            }
+        }
+        if (enabledCount <= 1) {
+            if (inline != null) {
+                runTimed(inline, deltaTime, profiler);
+            }
+            return;
+        }
+
+        world.setParallelSection(true);
+        List<ForkJoinTask<?>> forked = new ArrayList<>(enabledCount - 1);
+        RuntimeException failure = null;
+        try {
+            try {
+                for (GameSystem system : batch) {
+                    if (system.isEnabled() && system != inline) {
+                        forked.add(
+                            WorkerPool.get()
+                                .submit(() -> runTimed(system, deltaTime, profiler)));
+                    }
+                }
+                // 第一个 System 在调用线程上执行
+                runTimed(inline, deltaTime, profiler);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                // 等待所有任务完成后再离开并行区
+                failure = joinAll(forked, failure);
+            }
+        } finally {
+            // 任何异常都不能让 World 停留在并行区，否则之后的结构变更全部失败
+            world.setParallelSection(false);
+        }
+        // 第一个异常在最后抛出
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 等待所有任务完成
+     *
+     * @param failure 已发生的异常（可为 null）
+     * @return 第一个异常，没有异常时返回 null
+     */
+    private static RuntimeException joinAll(List<ForkJoinTask<?>> forked, RuntimeException failure) {
+        for (ForkJoinTask<?> task : forked) {
+            try {
+                task.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        return failure;
+    }
+
+    private static void runTimed(GameSystem system, float deltaTime, SystemProfiler profiler) {
+        if (!profiler.isEnabled()) {
+            system.update(deltaTime);
+            return;
+        }
+        long start = System.nanoTime();
+        system.update(deltaTime);
+        profiler.recordSystem(system, System.nanoTime() - start);
+    }
+
+    /**
+     * 重建执行计划
+     */
+    private void rebuild(List<GameSystem> systems) {
+        batches.clear();
+        parallelBatches.clear();
+
+        List<GameSystem> segment = new ArrayList<>();
+        for (GameSystem system : systems) {
+            if (system.getPhase() != Phase.UPDATE) {
+                continue;
+            }
+            if (system.getAccess() == null) {
+                flushSegment(segment);
+                batches.add(new GameSystem[] { system });
+                parallelBatches.add(Boolean.FALSE);
+            } else {
+                segment.add(system);
+            }
+        }
+        flushSegment(segment);
+    }
+
+    /**
+     * 将一段已声明访问的 System 按冲突关系分层
+     */
+    private void flushSegment(List<GameSystem> segment) {
+        int count = segment.size();
+        if (count == 0) {
+            return;
+        }
+
+        BitSet[] reads = new BitSet[count];
+        BitSet[] writes = new BitSet[count];
+        int[] levels = new int[count];
+        int levelCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            GameSystem system = segment.get(i);
+            reads[i] = toMask(system.getRequiredComponents(), system.getAccess());
+            writes[i] = toMask(system.getAccess().write());
+
+            int level = 0;
+            for (int j = 0; j < i; j++) {
+                if (conflicts(reads[i], writes[i], reads[j], writes[j])) {
+                    level = Math.max(level, levels[j] + 1);
+                }
+            }
+            levels[i] = level;
+            levelCount = Math.max(levelCount, level + 1);
+        }
+
+        for (int level = 0; level < levelCount; level++) {
+            List<GameSystem> group = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (levels[i] == level) {
+                    group.add(segment.get(i));
+                }
+            }
+            batches.add(group.toArray(new GameSystem[0]));
+            parallelBatches.add(Boolean.TRUE);
+        }
+        segment.clear();
+    }
+
+    private static boolean conflicts(BitSet readsA, BitSet writesA, BitSet readsB, BitSet writesB) {
+        return writesA.intersects(readsB) || writesA.intersects(writesB) || readsA.intersects(writesB);
+    }
+
+    private static BitSet toMask(Class<? extends Component>[] required, ComponentAccess access) {
+        BitSet mask = toMask(required);
+        mask.or(toMask(access.read()));
+        return mask;
+    }
+
+    private static BitSet toMask(Class<? extends Component>[] classes) {
+        BitSet mask = new BitSet();
+        for (Class<? extends Component> clazz : classes) {
+            mask.set(
+                ComponentType.of(clazz)
+                    .getId());
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,74 @@
+package moe.takochan.takorender.api.ecs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ECS 工作线程池
+ *
+ * <p>
+ * 所有 World 共享的 {@link ForkJoinPool}，用于并行执行 UPDATE 阶段的 System
+ * 以及 System 内部的数据并行计算。线程为守护线程，首次使用时创建。
+ * </p>
+ *
+ * <p>
+ * <b>注意</b>: 工作线程没有 OpenGL 上下文，提交的任务中不能调用任何 GL 函数。
+ * </p>
+ */
+public final class WorkerPool {
+
+    private WorkerPool() {}
+
+    /**
+     * 获取共享线程池
+     */
+    public static ForkJoinPool get() {
+        return Holder.POOL;
+    }
+
+    /**
+     * 获取并行度（工作线程数）
+     */
+    public static int getParallelism() {
+        return get().getParallelism();
+    }
+
+    /**
+     * 检查并行执行是否有意义（单核机器上返回 false，调用方应直接串行执行）
+     */
+    public static boolean isParallelAvailable() {
+        return Holder.CPU_COUNT > 1;
+    }
+
+    /**
+     * 检查当前线程是否为工作线程
+     */
+    public static boolean isWorkerThread() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == Holder.POOL;
+    }
+
+    /**
+     * 延迟初始化持有类
+     */
+    private static final class Holder {
+
+        static final int CPU_COUNT = Runtime.getRuntime()
+            .availableProcessors();
+
+        static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+        /** 保留一个核心给客户端主线程（调用方也会参与执行） */
+        static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.max(1, CPU_COUNT - 1),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("TakoRender-Worker-" + THREAD_COUNTER.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null,
+            false);
+    }
+}
@@ -1,6 +1,8 @@
 package moe.takochan.takorender.api.ecs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,7 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import moe.takochan.takorender.api.component.CameraComponent;
 import moe.takochan.takorender.core.debug.SystemProfiler;
@@ -37,16 +39,35 @@ import moe.takochan.takorender.core.debug.SystemProfiler;
  * 使用 {@link #update(Layer, float)} 和 {@link #render(Layer)} 按层更新和渲染。
  * System 通过 {@link #getCurrentLayer()} 获取当前渲染层进行筛选。
  * </p>
+ *
+ * <p>
+ * <b>存储模式</b>:
+ * 默认使用 {@link StorageMode#HASH_MAP}。大量结构稳定的实体可使用
+ * {@code new World(StorageMode.ARCHETYPE)}，Component 按 Archetype 分块存储，
+ * 并可通过 {@link #forEachChunk(Consumer, Class[])} 按列批量遍历。
+ * </p>
  */
 public class World {
 
-    private final AtomicLong entityIdCounter = new AtomicLong(0);
-    private final Map<Long, Entity> entities = new HashMap<>();
+    /** 实体表（slot-map，ID 带代数校验） */
+    private final EntityTable entities = new EntityTable();
     private final List<GameSystem> systems = new ArrayList<>();
 
-    /** Component 类型索引 - 支持 O(1) 查询 */
+    /** Component 存储模式 */
+    private final StorageMode storageMode;
+
+    /** Archetype 存储（仅 ARCHETYPE 模式） */
+    private final ArchetypeStorage archetypeStorage;
+
+    /** Component 类型索引 - 支持 O(1) 查询（仅 HASH_MAP 模式） */
     private final Map<Class<? extends Component>, Set<Entity>> componentIndex = new HashMap<>();
 
+    /** 已注册的缓存查询（按查询编号索引，空位可复用） */
+    private Query[] queries = new Query[0];
+
+    /** 内部相机查询（延迟创建，供 findActiveCamera 使用） */
+    private Query cameraQuery;
+
     /** 场景管理器 */
     private final SceneManager sceneManager = new SceneManager(this);
 
@@ -56,25 +77,96 @@ public class World {
     /** 系统性能分析器 */
     private final SystemProfiler profiler = new SystemProfiler();
 
+    /** UPDATE 阶段调度器 */
+    private final SystemScheduler scheduler = new SystemScheduler(this);
+
+    /** 是否允许并行执行 UPDATE 阶段 */
+    private boolean parallelUpdate = true;
+
+    /** 是否正在并行执行 System（此期间禁止结构变更） */
+    private volatile boolean parallelSection;
+
+    /**
+     * 创建使用默认存储模式（{@link StorageMode#HASH_MAP}）的 World。
+     */
+    public World() {
+        this(StorageMode.HASH_MAP);
+    }
+
+    /**
+     * 创建使用指定存储模式的 World。
+     *
+     * @param storageMode Component 存储模式
+     */
+    public World(StorageMode storageMode) {
+        this.storageMode = storageMode != null ? storageMode : StorageMode.HASH_MAP;
+        this.archetypeStorage = this.storageMode == StorageMode.ARCHETYPE ? new ArchetypeStorage() : null;
+    }
+
+    /**
+     * 获取 Component 存储模式。
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * 获取 Archetype 存储（内部方法，仅 ARCHETYPE 模式非 null）。
+     */
+    ArchetypeStorage getArchetypeStorage() {
+        return archetypeStorage;
+    }
+
     /**
      * 创建新实体。
      *
+     * <p>
+     * 实体 ID 由槽位号和代数组成（见 {@link EntityId}），
+     * 已移除实体的槽位会被复用，但旧 ID 不会再匹配到新实体。
+     * </p>
+     *
      * @return 新创建的实体
      */
     public Entity createEntity() {
-        long id = entityIdCounter.incrementAndGet();
-        Entity entity = new Entity(id, this);
-        entities.put(id, entity);
+        checkStructuralChange();
+        Entity entity = entities.create(this);
+        if (archetypeStorage != null) {
+            archetypeStorage.add(entity);
+        }
         return entity;
     }
 
     /**
      * 根据 ID 获取实体。
+     *
+     * <p>
+     * 已移除实体的 ID（包括槽位已被复用的情况）返回 empty。
+     * </p>
      */
     public Optional<Entity> getEntity(long id) {
         return Optional.ofNullable(entities.get(id));
     }
 
+    /**
+     * 根据 ID 获取实体（不分配 Optional）。
+     *
+     * @param id 实体 ID
+     * @return 实体，ID 无效或已过期时返回 null
+     */
+    public Entity getEntityOrNull(long id) {
+        return entities.get(id);
+    }
+
+    /**
+     * 检查实体是否仍存活于此 World。
+     *
+     * @param entity 实体
+     * @return 是否存活
+     */
+    public boolean isAlive(Entity entity) {
+        return entity != null && entities.contains(entity);
+    }
+
     /**
      * 从 World 中移除实体。
      *
@@ -83,8 +175,16 @@ public class World {
      * </p>
      */
     public void removeEntity(long id) {
+        checkStructuralChange();
         Entity entity = entities.remove(id);
         if (entity != null) {
+            // 从所有缓存查询中移除
+            for (Query query : queries) {
+                if (query != null) {
+                    query.remove(entity);
+                }
+            }
+
             // 清理 Disposable Component 资源
             for (Component component : entity.getComponents()) {
                 if (component instanceof Disposable) {
@@ -92,6 +192,13 @@ public class World {
                 }
             }
 
+            if (archetypeStorage != null) {
+                // 保留 Component 快照后移出 Archetype
+                entity.detachFromChunk();
+                archetypeStorage.removeEntity(entity);
+                return;
+            }
+
             // 从所有 Component 索引中移除此实体
             for (Class<? extends Component> componentClass : entity.getComponentTypes()) {
                 Set<Entity> indexed = componentIndex.get(componentClass);
@@ -106,7 +213,12 @@ public class World {
      * 获取所有实体。
      */
     public List<Entity> getEntities() {
-        return new ArrayList<>(entities.values());
+        int count = entities.size();
+        List<Entity> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entities.getAt(i));
+        }
+        return result;
     }
 
     /**
@@ -120,6 +232,10 @@ public class World {
      * @return 拥有该 Component 的活跃实体列表
      */
     public <T extends Component> List<Entity> getEntitiesWith(Class<T> componentClass) {
+        if (archetypeStorage != null) {
+            return collectFromArchetypes(componentClass);
+        }
+
         Set<Entity> indexed = componentIndex.get(componentClass);
         if (indexed == null || indexed.isEmpty()) {
             return Collections.emptyList();
@@ -154,6 +270,10 @@ public class World {
             return getEntitiesWith(componentClasses[0]);
         }
 
+        if (archetypeStorage != null) {
+            return collectFromArchetypes(componentClasses);
+        }
+
         // 找到最小的索引集作为起始点
         Set<Entity> smallestSet = null;
         int minSize = Integer.MAX_VALUE;
@@ -179,6 +299,152 @@ public class World {
         return result;
     }
 
+    /**
+     * 遍历包含所有指定 Component 的 Archetype Chunk（仅 ARCHETYPE 模式）。
+     *
+     * <p>
+     * Chunk 内的 Component 按列连续存放，适合批量处理大量实体。
+     * 遍历会包含非活跃实体，需要时可通过 {@link Entity#isActive()} 过滤。
+     * 遍历期间不应增删 Component 或实体。
+     * </p>
+     *
+     * @param visitor          Chunk 回调
+     * @param componentClasses 必须包含的 Component 类型
+     * @throws IllegalStateException 如果不是 ARCHETYPE 模式
+     */
+    public void forEachChunk(Consumer<ArchetypeChunk> visitor, Class<?>... componentClasses) {
+        if (archetypeStorage == null) {
+            throw new IllegalStateException("forEachChunk 仅在 StorageMode.ARCHETYPE 下可用");
+        }
+
+        BitSet required = toMask(componentClasses);
+        for (Archetype archetype : archetypeStorage.getArchetypes()) {
+            if (archetype.getEntityCount() == 0 || !archetype.containsAll(required)) {
+                continue;
+            }
+            for (int i = 0; i < archetype.getChunkCount(); i++) {
+                visitor.accept(archetype.getChunk(i));
+            }
+        }
+    }
+
+    /**
+     * 从匹配的 Archetype 中收集活跃实体（ARCHETYPE 模式）
+     */
+    private List<Entity> collectFromArchetypes(Class<?>... componentClasses) {
+        BitSet required = toMask(componentClasses);
+        List<Entity> result = new ArrayList<>();
+        for (Archetype archetype : archetypeStorage.getArchetypes()) {
+            if (archetype.getEntityCount() == 0 || !archetype.containsAll(required)) {
+                continue;
+            }
+            for (int i = 0; i < archetype.getChunkCount(); i++) {
+                ArchetypeChunk chunk = archetype.getChunk(i);
+                for (int row = 0; row < chunk.size(); row++) {
+                    Entity entity = chunk.getEntity(row);
+                    if (entity.isActive()) {
+                        result.add(entity);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static BitSet toMask(Class<?>... componentClasses) {
+        BitSet mask = new BitSet();
+        for (Class<?> componentClass : componentClasses) {
+            mask.set(
+                ComponentType.of(componentClass)
+                    .getId());
+        }
+        return mask;
+    }
+
+    /**
+     * 创建缓存查询。
+     *
+     * <p>
+     * 查询创建时扫描一次现有实体，之后由 World 增量维护，
+     * 遍历结果不产生分配。不再使用时应调用 {@link Query#dispose()}。
+     * </p>
+     *
+     * @param componentClasses 必须全部拥有的 Component 类型
+     * @return 新建的查询
+     * @throws IllegalArgumentException 如果未指定任何 Component 类型
+     */
+    @SafeVarargs
+    public final Query createQuery(Class<? extends Component>... componentClasses) {
+        if (componentClasses.length == 0) {
+            throw new IllegalArgumentException("Query 至少需要一个 Component 类型");
+        }
+        checkStructuralChange();
+
+        int id = 0;
+        while (id < queries.length && queries[id] != null) {
+            id++;
+        }
+        if (id == queries.length) {
+            queries = Arrays.copyOf(queries, id + 1);
+        }
+
+        // 逐个复制到新数组，调用方之后修改参数数组不影响查询
+        @SuppressWarnings("unchecked")
+        Class<? extends Component>[] required = (Class<? extends Component>[]) new Class<?>[componentClasses.length];
+        for (int i = 0; i < required.length; i++) {
+            required[i] = componentClasses[i];
+        }
+        Query query = new Query(this, id, required);
+        queries[id] = query;
+
+        for (int i = 0, count = entities.size(); i < count; i++) {
+            query.update(entities.getAt(i));
+        }
+        return query;
+    }
+
+    /**
+     * 移除缓存查询，World 不再维护其结果。
+     *
+     * @param query 要移除的查询
+     */
+    public void removeQuery(Query query) {
+        checkStructuralChange();
+        int id = query.getId();
+        if (id >= 0 && id < queries.length && queries[id] == query) {
+            queries[id] = null;
+            query.markDisposed();
+        }
+    }
+
+    /**
+     * 当 Entity 激活状态变化时调用（内部方法）。
+     *
+     * @param entity 状态变化的实体
+     */
+    void onEntityActiveChanged(Entity entity) {
+        checkStructuralChange();
+        if (!entities.contains(entity)) {
+            return;
+        }
+        for (Query query : queries) {
+            if (query != null) {
+                query.update(entity);
+            }
+        }
+    }
+
+    /**
+     * 同步与指定 Component 类型相关的缓存查询。
+     */
+    private void updateQueries(Entity entity, Class<? extends Component> componentClass) {
+        for (Query query : queries) {
+            if (query != null && query.involves(componentClass)) {
+                query.update(entity);
+            }
+        }
+    }
+
     /**
      * 当 Entity 添加 Component 时调用（内部方法）。
      *
@@ -186,6 +452,15 @@ public class World {
      * @param componentClass Component 类型
      */
     void onComponentAdded(Entity entity, Class<? extends Component> componentClass) {
+        checkStructuralChange();
+        // 已移除的实体不再进入索引
+        if (!entities.contains(entity)) {
+            return;
+        }
+        updateQueries(entity, componentClass);
+        if (archetypeStorage != null) {
+            return;
+        }
         componentIndex.computeIfAbsent(componentClass, k -> new HashSet<>())
             .add(entity);
     }
@@ -197,6 +472,14 @@ public class World {
      * @param componentClass Component 类型
      */
     void onComponentRemoved(Entity entity, Class<? extends Component> componentClass) {
+        checkStructuralChange();
+        if (!entities.contains(entity)) {
+            return;
+        }
+        updateQueries(entity, componentClass);
+        if (archetypeStorage != null) {
+            return;
+        }
         Set<Entity> indexed = componentIndex.get(componentClass);
         if (indexed != null) {
             indexed.remove(entity);
@@ -215,6 +498,7 @@ public class World {
         system.setWorld(this);
         systems.add(system);
         sortSystems();
+        scheduler.invalidate();
         system.onInit();
         return system;
     }
@@ -231,7 +515,9 @@ public class World {
      */
     public void removeSystem(GameSystem system) {
         system.onDestroy();
+        system.releaseRequiredQuery();
         systems.remove(system);
+        scheduler.invalidate();
     }
 
     /**
@@ -258,17 +544,17 @@ public class World {
      * 应在游戏逻辑更新时调用。
      * </p>
      *
+     * <p>
+     * 声明了 {@link ComponentAccess} 且互不冲突的系统会在 {@link WorkerPool} 上并行执行，
+     * 冲突的系统保持优先级顺序，结果与串行执行一致。
+     * 方法返回时所有系统均已执行完毕。
+     * </p>
+     *
      * @param deltaTime 距上次更新的时间（秒）
      */
     public void update(float deltaTime) {
         profiler.beginUpdatePhase();
-        for (GameSystem system : systems) {
-            if (system.isEnabled() && system.getPhase() == Phase.UPDATE) {
-                profiler.beginSystem(system);
-                system.update(deltaTime);
-                profiler.endSystem(system);
-            }
-        }
+        scheduler.update(systems, deltaTime, parallelUpdate);
         profiler.endUpdatePhase();
     }
 
@@ -369,19 +655,72 @@ public class World {
         return profiler;
     }
 
+    /**
+     * 检查是否允许并行执行 UPDATE 阶段。
+     */
+    public boolean isParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    /**
+     * 设置是否允许并行执行 UPDATE 阶段（默认启用）。
+     *
+     * <p>
+     * 禁用后所有 UPDATE 系统按优先级在调用线程上串行执行。
+     * RENDER 阶段始终在调用线程（GL 线程）上串行执行。
+     * </p>
+     *
+     * @param parallelUpdate 是否允许并行
+     */
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+
+    /**
+     * 设置是否处于并行执行区（内部方法）。
+     */
+    void setParallelSection(boolean parallelSection) {
+        this.parallelSection = parallelSection;
+    }
+
+    /**
+     * 并行执行 System 期间禁止结构变更
+     *
+     * @throws IllegalStateException 如果正在并行执行 System
+     */
+    private void checkStructuralChange() {
+        if (parallelSection) {
+            throw new IllegalStateException(
+                "Structural changes are not allowed while systems run in parallel; "
+                    + "remove @ComponentAccess from the system that modifies entities");
+        }
+    }
+
+    /**
+     * 获取内部相机查询（内部方法，延迟创建）。
+     */
+    Query getCameraQuery() {
+        if (cameraQuery == null) {
+            cameraQuery = createQuery(CameraComponent.class);
+        }
+        return cameraQuery;
+    }
+
     /**
      * 查找当前活动的相机实体。
      *
      * <p>
      * 遍历所有拥有 CameraComponent 的实体，返回第一个 active=true 的实体。
+     * 使用内部缓存查询，每帧调用不产生分配。
      * </p>
      *
      * @return 活动相机实体，如果没有则返回 null
      */
     public Entity findActiveCamera() {
-        for (Entity entity : getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
+        Query cameraQuery = getCameraQuery();
+        for (int i = 0, size = cameraQuery.size(); i < size; i++) {
+            Entity entity = cameraQuery.get(i);
+            CameraComponent camera = entity.getComponentOrNull(CameraComponent.class);
             if (camera != null && camera.isActive()) {
                 return entity;
             }
@@ -401,8 +740,13 @@ public class World {
             removeSystem(system);
         }
         disposeAllEntities();
+        detachAllEntities();
         entities.clear();
         componentIndex.clear();
+        clearQueries();
+        if (archetypeStorage != null) {
+            archetypeStorage.clear();
+        }
     }
 
     /**
@@ -415,16 +759,33 @@ public class World {
      */
     public void clearAllEntities() {
         disposeAllEntities();
+        detachAllEntities();
         entities.clear();
         componentIndex.clear();
+        clearQueries();
+        if (archetypeStorage != null) {
+            archetypeStorage.clear();
+        }
+    }
+
+    /**
+     * 清空所有缓存查询的结果（查询本身保留）
+     */
+    private void clearQueries() {
+        for (Query query : queries) {
+            if (query != null) {
+                query.clear();
+            }
+        }
     }
 
     /**
      * 释放所有 Entity 的 Disposable Component 资源（内部方法）
      */
     private void disposeAllEntities() {
-        for (Entity entity : entities.values()) {
-            for (Component component : entity.getComponents()) {
+        for (int i = 0, count = entities.size(); i < count; i++) {
+            for (Component component : entities.getAt(i)
+                .getComponents()) {
                 if (component instanceof Disposable) {
                     ((Disposable) component).dispose();
                 }
@@ -432,6 +793,16 @@ public class World {
         }
     }
 
+    /**
+     * 让所有实体脱离 World（Archetype 存储清空前调用，外部持有的引用改用 Component 快照）
+     */
+    private void detachAllEntities() {
+        for (int i = 0, count = entities.size(); i < count; i++) {
+            entities.getAt(i)
+                .detachFromWorld();
+        }
+    }
+
     /**
      * 获取实体数量。
      */
@@ -131,6 +131,48 @@ public final class AABB {
         return new Vector3f(max);
     }
 
+    /**
+     * 获取最小点 X（不分配对象）
+     */
+    public float getMinX() {
+        return min.x;
+    }
+
+    /**
+     * 获取最小点 Y（不分配对象）
+     */
+    public float getMinY() {
+        return min.y;
+    }
+
+    /**
+     * 获取最小点 Z（不分配对象）
+     */
+    public float getMinZ() {
+        return min.z;
+    }
+
+    /**
+     * 获取最大点 X（不分配对象）
+     */
+    public float getMaxX() {
+        return max.x;
+    }
+
+    /**
+     * 获取最大点 Y（不分配对象）
+     */
+    public float getMaxY() {
+        return max.y;
+    }
+
+    /**
+     * 获取最大点 Z（不分配对象）
+     */
+    public float getMaxZ() {
+        return max.z;
+    }
+
     /**
      * 获取中心点
      */
@@ -245,6 +287,36 @@ public final class AABB {
         return new AABB(minX, minY, minZ, maxX, maxY, maxZ);
     }
 
+    /**
+     * 应用仿射变换矩阵（中心 / 半尺寸法）
+     *
+     * <p>
+     * 新中心 = M × 中心，新半尺寸 = |M 的 3×3 部分| × 半尺寸。
+     * 结果与 {@link #transform(Matrix4f)} 相同，但不创建角点，只分配结果对象。
+     * 仅适用于仿射矩阵（世界矩阵），投影矩阵请使用 {@link #transform(Matrix4f)}。
+     * </p>
+     *
+     * @param matrix 仿射变换矩阵
+     * @return 变换后的新 AABB
+     */
+    public AABB transformAffine(Matrix4f matrix) {
+        float cx = (min.x + max.x) * 0.5f;
+        float cy = (min.y + max.y) * 0.5f;
+        float cz = (min.z + max.z) * 0.5f;
+        float ex = (max.x - min.x) * 0.5f;
+        float ey = (max.y - min.y) * 0.5f;
+        float ez = (max.z - min.z) * 0.5f;
+
+        float ncx = matrix.m00() * cx + matrix.m10() * cy + matrix.m20() * cz + matrix.m30();
+        float ncy = matrix.m01() * cx + matrix.m11() * cy + matrix.m21() * cz + matrix.m31();
+        float ncz = matrix.m02() * cx + matrix.m12() * cy + matrix.m22() * cz + matrix.m32();
+        float nex = Math.abs(matrix.m00()) * ex + Math.abs(matrix.m10()) * ey + Math.abs(matrix.m20()) * ez;
+        float ney = Math.abs(matrix.m01()) * ex + Math.abs(matrix.m11()) * ey + Math.abs(matrix.m21()) * ez;
+        float nez = Math.abs(matrix.m02()) * ex + Math.abs(matrix.m12()) * ey + Math.abs(matrix.m22()) * ez;
+
+        return new AABB(ncx - nex, ncy - ney, ncz - nez, ncx + nex, ncy + ney, ncz + nez);
+    }
+
     /**
      * 获取 8 个角点
      *
@@ -0,0 +1,544 @@
+package moe.takochan.takorender.api.graphics;
+
+import java.util.Arrays;
+
+/**
+ * 动态 AABB 树 (Dynamic Bounding Volume Hierarchy)
+ *
+ * <p>
+ * 叶子节点保存对象的包围盒，内部节点保存子节点包围盒的并集。
+ * 支持增量插入 / 删除 / 更新，插入时按表面积启发式选择兄弟节点，并通过旋转保持平衡。
+ * </p>
+ *
+ * <p>
+ * <b>松弛包围盒</b>:
+ * 叶子节点在树中使用外扩 margin 的包围盒，对象在其中移动时只更新精确包围盒，不调整树结构。
+ * 查询时叶子最终使用精确包围盒测试，结果与逐个测试完全一致。
+ * </p>
+ *
+ * <p>
+ * <b>视锥查询</b>:
+ * 节点完全在视锥外时整棵子树被拒绝；完全在视锥内时整棵子树直接接受，不再做平面测试；
+ * 部分相交时只把仍相交的平面传给子节点（平面掩码）。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * DynamicAABBTree<Entity> tree = new DynamicAABBTree<>();
+ * int proxy = tree.insert(bounds, entity);
+ * tree.update(proxy, newBounds);
+ * tree.query(frustum, visible -> render(visible));
+ * tree.remove(proxy);
+ * }
+ * </pre>
+ *
+ * <p>
+ * <b>注意</b>: 非线程安全。
+ * </p>
+ *
+ * @param <T> 叶子节点关联的数据类型
+ */
+public final class DynamicAABBTree<T> {
+
+    /** 默认松弛量 */
+    public static final float DEFAULT_MARGIN = 0.5f;
+
+    private static final int NULL = -1;
+
+    private final float margin;
+
+    /** 节点包围盒（每节点 6 个 float：minX, minY, minZ, maxX, maxY, maxZ；叶子为松弛包围盒） */
+    private float[] boxes;
+
+    /** 叶子节点的精确包围盒 */
+    private float[] tight;
+
+    /** 父节点（空闲节点复用为空闲链表的 next） */
+    private int[] parents;
+    private int[] child1;
+    private int[] child2;
+
+    /** 节点高度（叶子为 0，空闲节点为 -1） */
+    private int[] heights;
+
+    private Object[] data;
+
+    private int root = NULL;
+    private int freeList = NULL;
+    private int nodeCapacity;
+    private int leafCount;
+
+    /** 查询用的遍历栈（复用） */
+    private int[] stack = new int[64];
+    private int[] stackMasks = new int[64];
+
+    public DynamicAABBTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * @param margin 叶子包围盒的松弛量
+     */
+    public DynamicAABBTree(float margin) {
+        this.margin = Math.max(0.0f, margin);
+        allocate(16);
+    }
+
+    /**
+     * 获取叶子数量
+     */
+    public int size() {
+        return leafCount;
+    }
+
+    /**
+     * 获取树高度（空树为 0）
+     */
+    public int getHeight() {
+        return root == NULL ? 0 : heights[root] + 1;
+    }
+
+    /**
+     * 插入对象
+     *
+     * @param bounds 包围盒（必须有效）
+     * @param value  关联数据
+     * @return 代理 ID（叶子节点号），用于 update / remove
+     */
+    public int insert(AABB bounds, T value) {
+        int leaf = allocateNode();
+        setTight(leaf, bounds);
+        fatten(leaf);
+        data[leaf] = value;
+        insertLeaf(leaf);
+        leafCount++;
+        return leaf;
+    }
+
+    /**
+     * 移除对象
+     *
+     * @param proxy 代理 ID
+     */
+    public void remove(int proxy) {
+        checkLeaf(proxy);
+        removeLeaf(proxy);
+        freeNode(proxy);
+        leafCount--;
+    }
+
+    /**
+     * 更新对象包围盒
+     *
+     * <p>
+     * 新包围盒仍在松弛包围盒内时只更新精确包围盒；否则重新插入。
+     * </p>
+     *
+     * @param proxy  代理 ID
+     * @param bounds 新包围盒（必须有效）
+     * @return true 表示树结构发生了变化
+     */
+    public boolean update(int proxy, AABB bounds) {
+        checkLeaf(proxy);
+        setTight(proxy, bounds);
+        int b = proxy * 6;
+        if (boxes[b] <= tight[b] && boxes[b + 1] <= tight[b + 1]
+            && boxes[b + 2] <= tight[b + 2]
+            && boxes[b + 3] >= tight[b + 3]
+            && boxes[b + 4] >= tight[b + 4]
+            && boxes[b + 5] >= tight[b + 5]) {
+            return false;
+        }
+        removeLeaf(proxy);
+        fatten(proxy);
+        insertLeaf(proxy);
+        return true;
+    }
+
+    /**
+     * 获取代理关联的数据
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int proxy) {
+        checkLeaf(proxy);
+        return (T) data[proxy];
+    }
+
+    /**
+     * 清空所有对象（保留容量）
+     */
+    public void clear() {
+        Arrays.fill(data, null);
+        root = NULL;
+        leafCount = 0;
+        freeList = NULL;
+        for (int i = nodeCapacity - 1; i >= 0; i--) {
+            heights[i] = -1;
+            parents[i] = freeList;
+            freeList = i;
+        }
+    }
+
+    /**
+     * 查询与视锥相交的所有对象
+     *
+     * @param frustum 视锥
+     * @param visitor 对每个相交对象调用一次
+     */
+    @SuppressWarnings("unchecked")
+    public void query(Frustum frustum, Visitor<? super T> visitor) {
+        if (root == NULL) {
+            return;
+        }
+        int sp = 0;
+        stack[sp] = root;
+        stackMasks[sp] = Frustum.ALL_PLANES;
+        sp++;
+
+        while (sp > 0) {
+            sp--;
+            int node = stack[sp];
+            int mask = stackMasks[sp];
+            int b = node * 6;
+
+            if (mask != 0) {
+                mask = frustum.intersects(
+                    boxes[b],
+                    boxes[b + 1],
+                    boxes[b + 2],
+                    boxes[b + 3],
+                    boxes[b + 4],
+                    boxes[b + 5],
+                    mask);
+                if (mask == Frustum.OUTSIDE) {
+                    continue;
+                }
+            }
+
+            if (child1[node] == NULL) {
+                // 叶子：用精确包围盒测试剩余平面
+                if (mask != 0 && frustum.intersects(
+                    tight[b],
+                    tight[b + 1],
+                    tight[b + 2],
+                    tight[b + 3],
+                    tight[b + 4],
+                    tight[b + 5],
+                    mask) == Frustum.OUTSIDE) {
+                    continue;
+                }
+                visitor.visit((T) data[node]);
+                continue;
+            }
+
+            if (sp + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length << 1);
+                stackMasks = Arrays.copyOf(stackMasks, stackMasks.length << 1);
+            }
+            stack[sp] = child1[node];
+            stackMasks[sp] = mask;
+            sp++;
+            stack[sp] = child2[node];
+            stackMasks[sp] = mask;
+            sp++;
+        }
+    }
+
+    /**
+     * 查询回调
+     *
+     * @param <T> 数据类型
+     */
+    @FunctionalInterface
+    public interface Visitor<T> {
+
+        void visit(T value);
+    }
+
+    // ==================== 树结构维护 ====================
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parents[leaf] = NULL;
+            return;
+        }
+
+        // 按表面积启发式向下寻找最佳兄弟节点
+        int lb = leaf * 6;
+        int index = root;
+        while (child1[index] != NULL) {
+            int c1 = child1[index];
+            int c2 = child2[index];
+
+            float area = perimeter(index);
+            float combinedArea = unionPerimeter(index * 6, lb);
+
+            // 在此处创建新父节点的代价
+            float cost = 2.0f * combinedArea;
+            // 继续下降时祖先包围盒增大的代价
+            float inheritance = 2.0f * (combinedArea - area);
+
+            float cost1 = descendCost(c1, lb) + inheritance;
+            float cost2 = descendCost(c2, lb) + inheritance;
+
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+            index = cost1 < cost2 ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = parents[sibling];
+        int newParent = allocateNode();
+        parents[newParent] = oldParent;
+        heights[newParent] = heights[sibling] + 1;
+        union(newParent, sibling, leaf);
+
+        if (oldParent != NULL) {
+            if (child1[oldParent] == sibling) {
+                child1[oldParent] = newParent;
+            } else {
+                child2[oldParent] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parents[sibling] = newParent;
+        parents[leaf] = newParent;
+
+        refit(parents[leaf]);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int parent = parents[leaf];
+        int grandParent = parents[parent];
+        int sibling = child1[parent] == leaf ? child2[parent] : child1[parent];
+
+        if (grandParent != NULL) {
+            if (child1[grandParent] == parent) {
+                child1[grandParent] = sibling;
+            } else {
+                child2[grandParent] = sibling;
+            }
+            parents[sibling] = grandParent;
+            freeNode(parent);
+            refit(grandParent);
+        } else {
+            root = sibling;
+            parents[sibling] = NULL;
+            freeNode(parent);
+        }
+        parents[leaf] = NULL;
+    }
+
+    /**
+     * 从指定节点向上重新平衡并重算包围盒和高度
+     */
+    private void refit(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index];
+            int c2 = child2[index];
+            heights[index] = 1 + Math.max(heights[c1], heights[c2]);
+            union(index, c1, c2);
+            index = parents[index];
+        }
+    }
+
+    /**
+     * 高度差超过 1 时做一次旋转
+     *
+     * @return 旋转后位于原位置的节点
+     */
+    private int balance(int a) {
+        if (child1[a] == NULL || heights[a] < 2) {
+            return a;
+        }
+
+        int b = child1[a];
+        int c = child2[a];
+        int diff = heights[c] - heights[b];
+
+        // 把 C 提升
+        if (diff > 1) {
+            int f = child1[c];
+            int g = child2[c];
+
+            child1[c] = a;
+            parents[c] = parents[a];
+            parents[a] = c;
+            replaceChild(parents[c], a, c);
+
+            if (heights[f] > heights[g]) {
+                child2[c] = f;
+                child2[a] = g;
+                parents[g] = a;
+                union(a, b, g);
+                union(c, a, f);
+                heights[a] = 1 + Math.max(heights[b], heights[g]);
+                heights[c] = 1 + Math.max(heights[a], heights[f]);
+            } else {
+                child2[c] = g;
+                child2[a] = f;
+                parents[f] = a;
+                union(a, b, f);
+                union(c, a, g);
+                heights[a] = 1 + Math.max(heights[b], heights[f]);
+                heights[c] = 1 + Math.max(heights[a], heights[g]);
+            }
+            return c;
+        }
+
+        // 把 B 提升
+        if (diff < -1) {
+            int d = child1[b];
+            int e = child2[b];
+
+            child1[b] = a;
+            parents[b] = parents[a];
+            parents[a] = b;
+            replaceChild(parents[b], a, b);
+
+            if (heights[d] > heights[e]) {
+                child2[b] = d;
+                child1[a] = e;
+                parents[e] = a;
+                union(a, c, e);
+                union(b, a, d);
+                heights[a] = 1 + Math.max(heights[c], heights[e]);
+                heights[b] = 1 + Math.max(heights[a], heights[d]);
+            } else {
+                child2[b] = e;
+                child1[a] = d;
+                parents[d] = a;
+                union(a, c, d);
+                union(b, a, e);
+                heights[a] = 1 + Math.max(heights[c], heights[d]);
+                heights[b] = 1 + Math.max(heights[a], heights[e]);
+            }
+            return b;
+        }
+
+        return a;
+    }
+
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (parent == NULL) {
+            root = newChild;
+        } else if (child1[parent] == oldChild) {
+            child1[parent] = newChild;
+        } else {
+            child2[parent] = newChild;
+        }
+    }
+
+    private float descendCost(int child, int lb) {
+        float combined = unionPerimeter(child * 6, lb);
+        return child1[child] == NULL ? combined : combined - perimeter(child);
+    }
+
+    // ==================== 包围盒运算 ====================
+
+    private void setTight(int node, AABB bounds) {
+        int b = node * 6;
+        tight[b] = bounds.getMinX();
+        tight[b + 1] = bounds.getMinY();
+        tight[b + 2] = bounds.getMinZ();
+        tight[b + 3] = bounds.getMaxX();
+        tight[b + 4] = bounds.getMaxY();
+        tight[b + 5] = bounds.getMaxZ();
+    }
+
+    private void fatten(int node) {
+        int b = node * 6;
+        boxes[b] = tight[b] - margin;
+        boxes[b + 1] = tight[b + 1] - margin;
+        boxes[b + 2] = tight[b + 2] - margin;
+        boxes[b + 3] = tight[b + 3] + margin;
+        boxes[b + 4] = tight[b + 4] + margin;
+        boxes[b + 5] = tight[b + 5] + margin;
+    }
+
+    private void union(int dest, int a, int b) {
+        int d = dest * 6;
+        int ia = a * 6;
+        int ib = b * 6;
+        boxes[d] = Math.min(boxes[ia], boxes[ib]);
+        boxes[d + 1] = Math.min(boxes[ia + 1], boxes[ib + 1]);
+        boxes[d + 2] = Math.min(boxes[ia + 2], boxes[ib + 2]);
+        boxes[d + 3] = Math.max(boxes[ia + 3], boxes[ib + 3]);
+        boxes[d + 4] = Math.max(boxes[ia + 4], boxes[ib + 4]);
+        boxes[d + 5] = Math.max(boxes[ia + 5], boxes[ib + 5]);
+    }
+
+    private float perimeter(int node) {
+        int b = node * 6;
+        return (boxes[b + 3] - boxes[b]) + (boxes[b + 4] - boxes[b + 1]) + (boxes[b + 5] - boxes[b + 2]);
+    }
+
+    private float unionPerimeter(int ia, int ib) {
+        float dx = Math.max(boxes[ia + 3], boxes[ib + 3]) - Math.min(boxes[ia], boxes[ib]);
+        float dy = Math.max(boxes[ia + 4], boxes[ib + 4]) - Math.min(boxes[ia + 1], boxes[ib + 1]);
+        float dz = Math.max(boxes[ia + 5], boxes[ib + 5]) - Math.min(boxes[ia + 2], boxes[ib + 2]);
+        return dx + dy + dz;
+    }
+
+    // ==================== 节点池 ====================
+
+    private int allocateNode() {
+        if (freeList == NULL) {
+            allocate(nodeCapacity << 1);
+        }
+        int node = freeList;
+        freeList = parents[node];
+        parents[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        heights[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        parents[node] = freeList;
+        heights[node] = -1;
+        data[node] = null;
+        freeList = node;
+    }
+
+    private void checkLeaf(int proxy) {
+        if (proxy < 0 || proxy >= nodeCapacity || heights[proxy] != 0 || child1[proxy] != NULL) {
+            throw new IllegalArgumentException("Invalid proxy: " + proxy);
+        }
+    }
+
+    private void allocate(int capacity) {
+        int old = nodeCapacity;
+        boxes = boxes == null ? new float[capacity * 6] : Arrays.copyOf(boxes, capacity * 6);
+        tight = tight == null ? new float[capacity * 6] : Arrays.copyOf(tight, capacity * 6);
+        parents = parents == null ? new int[capacity] : Arrays.copyOf(parents, capacity);
+        child1 = child1 == null ? new int[capacity] : Arrays.copyOf(child1, capacity);
+        child2 = child2 == null ? new int[capacity] : Arrays.copyOf(child2, capacity);
+        heights = heights == null ? new int[capacity] : Arrays.copyOf(heights, capacity);
+        data = data == null ? new Object[capacity] : Arrays.copyOf(data, capacity);
+        nodeCapacity = capacity;
+
+        // 新节点加入空闲链表
+        for (int i = capacity - 1; i >= old; i--) {
+            heights[i] = -1;
+            parents[i] = freeList;
+            freeList = i;
+        }
+    }
+}
@@ -48,6 +48,12 @@ public class Frustum {
     public static final int NEAR = 4;
     public static final int FAR = 5;
 
+    /** 平面掩码：需要测试全部 6 个平面 */
+    public static final int ALL_PLANES = 0x3F;
+
+    /** {@link #intersects(float, float, float, float, float, float, int)} 的返回值：完全在视锥外 */
+    public static final int OUTSIDE = -1;
+
     /** 6 个平面 (ax + by + cz + d = 0 形式，存储为 (a, b, c, d)) */
     private final Vector4f[] planes = new Vector4f[6];
 
@@ -194,6 +200,45 @@ public class Frustum {
         return true;
     }
 
+    /**
+     * 带平面掩码的 AABB 测试（用于层级剔除）
+     *
+     * <p>
+     * 只测试 planeMask 中置位的平面（第 i 位对应平面 i）。
+     * 返回值为包围盒仍与之相交的平面掩码：完全位于某平面内侧时清除对应位，
+     * 子节点包含在父节点内，因此可以直接使用父节点的返回值，跳过已通过的平面。
+     * </p>
+     *
+     * @param planeMask 需要测试的平面掩码
+     * @return {@link #OUTSIDE} 表示完全在视锥外；0 表示完全在视锥内；否则为仍需测试的平面掩码
+     */
+    public int intersects(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int planeMask) {
+        int result = planeMask;
+        for (int i = 0; i < 6; i++) {
+            if ((planeMask & (1 << i)) == 0) {
+                continue;
+            }
+            Vector4f plane = planes[i];
+
+            // P-vertex 在负半空间：完全在外
+            float px = plane.x > 0 ? maxX : minX;
+            float py = plane.y > 0 ? maxY : minY;
+            float pz = plane.z > 0 ? maxZ : minZ;
+            if (plane.x * px + plane.y * py + plane.z * pz + plane.w < 0) {
+                return OUTSIDE;
+            }
+
+            // N-vertex 在正半空间：完全在此平面内侧
+            float nx = plane.x > 0 ? minX : maxX;
+            float ny = plane.y > 0 ? minY : maxY;
+            float nz = plane.z > 0 ? minZ : maxZ;
+            if (plane.x * nx + plane.y * ny + plane.z * nz + plane.w >= 0) {
+                result &= ~(1 << i);
+            }
+        }
+        return result;
+    }
+
     /**
      * 检查球体是否与视锥相交
      *
@@ -0,0 +1,305 @@
+package moe.takochan.takorender.api.graphics;
+
+import java.util.Arrays;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
+
+/**
+ * 材质参数块 - 按类型存放的 uniform 值
+ *
+ * <p>
+ * 每个参数保存 uniform 句柄（{@link ShaderProgram#uniformId(String)}）、类型和最多 4 个分量，
+ * 全部存放在基本类型数组中，不装箱。{@link #apply(ShaderProgram)} 按句柄直接设置，
+ * 没有 Map 遍历和 instanceof 分派；与上次上传相同的值由 ShaderProgram 的值缓存跳过。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * MaterialParameters params = new MaterialParameters();
+ * params.setFloat("uMetallic", 0.8f);
+ * params.setVec3("uTint", 1.0f, 0.5f, 0.0f);
+ * params.apply(shader);
+ * }
+ * </pre>
+ */
+@SideOnly(Side.CLIENT)
+public final class MaterialParameters {
+
+    /** 参数类型 */
+    public enum Type {
+        INT,
+        BOOL,
+        FLOAT,
+        VEC2,
+        VEC3,
+        VEC4
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private int[] ids = new int[4];
+    private byte[] types = new byte[4];
+    /** 每个参数 4 个分量（int 参数存整数值，其余存 float） */
+    private float[] values = new float[16];
+    private int[] intValues = new int[4];
+    private int count;
+
+    // ==================== 设置 ====================
+
+    public void setInt(String name, int value) {
+        int i = slot(ShaderProgram.uniformId(name), Type.INT);
+        intValues[i] = value;
+    }
+
+    public void setBool(String name, boolean value) {
+        int i = slot(ShaderProgram.uniformId(name), Type.BOOL);
+        intValues[i] = value ? 1 : 0;
+    }
+
+    public void setFloat(String name, float value) {
+        int i = slot(ShaderProgram.uniformId(name), Type.FLOAT);
+        values[i * 4] = value;
+    }
+
+    public void setVec2(String name, float x, float y) {
+        int o = slot(ShaderProgram.uniformId(name), Type.VEC2) * 4;
+        values[o] = x;
+        values[o + 1] = y;
+    }
+
+    public void setVec3(String name, float x, float y, float z) {
+        int o = slot(ShaderProgram.uniformId(name), Type.VEC3) * 4;
+        values[o] = x;
+        values[o + 1] = y;
+        values[o + 2] = z;
+    }
+
+    public void setVec4(String name, float x, float y, float z, float w) {
+        int o = slot(ShaderProgram.uniformId(name), Type.VEC4) * 4;
+        values[o] = x;
+        values[o + 1] = y;
+        values[o + 2] = z;
+        values[o + 3] = w;
+    }
+
+    /**
+     * 按值的运行时类型设置（兼容旧的属性 Map 写法）
+     *
+     * <p>
+     * 支持 Integer、Boolean、其他 Number（按 float）和长度 1-4 的 float[]；其他类型忽略。
+     * </p>
+     *
+     * @return 是否接受了该值
+     */
+    public boolean set(String name, Object value) {
+        if (value instanceof Integer) {
+            setInt(name, (Integer) value);
+        } else if (value instanceof Boolean) {
+            setBool(name, (Boolean) value);
+        } else if (value instanceof Number) {
+            setFloat(name, ((Number) value).floatValue());
+        } else if (value instanceof float[]) {
+            float[] arr = (float[]) value;
+            switch (arr.length) {
+                case 1:
+                    setFloat(name, arr[0]);
+                    break;
+                case 2:
+                    setVec2(name, arr[0], arr[1]);
+                    break;
+                case 3:
+                    setVec3(name, arr[0], arr[1], arr[2]);
+                    break;
+                case 4:
+                    setVec4(name, arr[0], arr[1], arr[2], arr[3]);
+                    break;
+                default:
+                    return false;
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 移除参数
+     *
+     * @return 是否存在
+     */
+    public boolean remove(String name) {
+        int i = indexOf(ShaderProgram.uniformId(name));
+        if (i < 0) {
+            return false;
+        }
+        int tail = count - i - 1;
+        System.arraycopy(ids, i + 1, ids, i, tail);
+        System.arraycopy(types, i + 1, types, i, tail);
+        System.arraycopy(intValues, i + 1, intValues, i, tail);
+        System.arraycopy(values, (i + 1) * 4, values, i * 4, tail * 4);
+        count--;
+        return true;
+    }
+
+    /**
+     * 清空所有参数
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 获取参数数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 检查参数是否存在
+     */
+    public boolean contains(String name) {
+        return indexOf(ShaderProgram.uniformId(name)) >= 0;
+    }
+
+    /**
+     * 获取参数类型
+     *
+     * @return 类型，不存在时返回 null
+     */
+    public Type getType(String name) {
+        int i = indexOf(ShaderProgram.uniformId(name));
+        return i >= 0 ? TYPES[types[i]] : null;
+    }
+
+    /**
+     * 获取 float 值（INT / BOOL 转换为 float，向量取第一个分量）
+     */
+    public float getFloat(String name, float defaultValue) {
+        int i = indexOf(ShaderProgram.uniformId(name));
+        if (i < 0) {
+            return defaultValue;
+        }
+        Type type = TYPES[types[i]];
+        return type == Type.INT || type == Type.BOOL ? intValues[i] : values[i * 4];
+    }
+
+    /**
+     * 获取 int 值（FLOAT 截断，向量取第一个分量）
+     */
+    public int getInt(String name, int defaultValue) {
+        int i = indexOf(ShaderProgram.uniformId(name));
+        if (i < 0) {
+            return defaultValue;
+        }
+        Type type = TYPES[types[i]];
+        return type == Type.INT || type == Type.BOOL ? intValues[i] : (int) values[i * 4];
+    }
+
+    /**
+     * 以装箱形式获取参数值（Integer、Boolean、Float 或 float[]，仅用于调试 / 兼容）
+     *
+     * @return 值，不存在时返回 null
+     */
+    public Object get(String name) {
+        int i = indexOf(ShaderProgram.uniformId(name));
+        if (i < 0) {
+            return null;
+        }
+        int o = i * 4;
+        switch (TYPES[types[i]]) {
+            case INT:
+                return intValues[i];
+            case BOOL:
+                return intValues[i] != 0;
+            case FLOAT:
+                return values[o];
+            case VEC2:
+                return new float[] { values[o], values[o + 1] };
+            case VEC3:
+                return new float[] { values[o], values[o + 1], values[o + 2] };
+            default:
+                return new float[] { values[o], values[o + 1], values[o + 2], values[o + 3] };
+        }
+    }
+
+    // ==================== 应用 ====================
+
+    /**
+     * 把所有参数设置到着色器（着色器需已绑定）
+     *
+     * @param shader 着色器程序
+     */
+    public void apply(ShaderProgram shader) {
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            int o = i * 4;
+            switch (TYPES[types[i]]) {
+                case INT:
+                case BOOL:
+                    shader.setUniformInt(id, intValues[i]);
+                    break;
+                case FLOAT:
+                    shader.setUniformFloat(id, values[o]);
+                    break;
+                case VEC2:
+                    shader.setUniformVec2(id, values[o], values[o + 1]);
+                    break;
+                case VEC3:
+                    shader.setUniformVec3(id, values[o], values[o + 1], values[o + 2]);
+                    break;
+                case VEC4:
+                    shader.setUniformVec4(id, values[o], values[o + 1], values[o + 2], values[o + 3]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 用另一个参数块的内容替换本参数块
+     */
+    public void copyFrom(MaterialParameters other) {
+        count = other.count;
+        ids = Arrays.copyOf(other.ids, other.ids.length);
+        types = Arrays.copyOf(other.types, other.types.length);
+        intValues = Arrays.copyOf(other.intValues, other.intValues.length);
+        values = Arrays.copyOf(other.values, other.values.length);
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 找到或追加参数槽位并设置类型
+     */
+    private int slot(int id, Type type) {
+        int i = indexOf(id);
+        if (i < 0) {
+            if (count == ids.length) {
+                int capacity = count * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                types = Arrays.copyOf(types, capacity);
+                intValues = Arrays.copyOf(intValues, capacity);
+                values = Arrays.copyOf(values, capacity * 4);
+            }
+            i = count++;
+            ids[i] = id;
+        }
+        types[i] = (byte) type.ordinal();
+        return i;
+    }
+}
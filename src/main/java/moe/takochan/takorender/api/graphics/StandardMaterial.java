@@ -1,8 +1,5 @@
 package moe.takochan.takorender.api.graphics;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
 
@@ -24,7 +21,8 @@ import moe.takochan.takorender.api.resource.TextureManager;
  * <b>特性</b>:
  * </p>
  * <ul>
- * <li>属性 Map 存储任意 uniform 值</li>
+ * <li>类型化参数块存储自定义 uniform 值（{@link MaterialParameters}，不装箱）</li>
+ * <li>内置 uniform 使用预注册句柄设置，值未变化时由 ShaderProgram 跳过上传</li>
  * <li>深拷贝支持（instantiate）</li>
  * <li>纹理槽管理</li>
  * <li>PBR 参数（metallic, roughness, emissive）</li>
@@ -47,12 +45,22 @@ import moe.takochan.takorender.api.resource.TextureManager;
 @SideOnly(Side.CLIENT)
 public class StandardMaterial implements Material {
 
+    /** 内置 uniform 句柄 */
+    private static final int U_TEXTURE = ShaderProgram.uniformId("uTexture");
+    private static final int U_HAS_TEXTURE = ShaderProgram.uniformId("uHasTexture");
+    private static final int U_NORMAL_MAP = ShaderProgram.uniformId("uNormalMap");
+    private static final int U_HAS_NORMAL_MAP = ShaderProgram.uniformId("uHasNormalMap");
+    private static final int U_COLOR = ShaderProgram.uniformId("uColor");
+    private static final int U_METALLIC = ShaderProgram.uniformId("uMetallic");
+    private static final int U_ROUGHNESS = ShaderProgram.uniformId("uRoughness");
+    private static final int U_EMISSIVE = ShaderProgram.uniformId("uEmissive");
+
     private ShaderProgram shader;
     private RenderMode renderMode = RenderMode.COLOR;
     private boolean transparent = false;
 
-    /** 动态属性容器 */
-    private final Map<String, Object> properties = new HashMap<>();
+    /** 自定义 uniform 参数 */
+    private final MaterialParameters parameters = new MaterialParameters();
 
     /** 主纹理资源键 */
     private String textureKey;
@@ -248,15 +256,99 @@ public class StandardMaterial implements Material {
      *
      * <p>
      * 属性会在 apply() 时自动设置为 shader uniform。
+     * 优先使用下面的类型化重载；此方法按值的运行时类型分派。
      * </p>
      *
      * @param name  uniform 名称
-     * @param value 值（支持 float, int, boolean, float[]）
+     * @param value 值（支持 Number, Integer, Boolean, 长度 1-4 的 float[]）
      * @return this（链式调用）
+     * @throws IllegalArgumentException 值的类型无法作为 uniform 上传
      */
     public StandardMaterial setProperty(String name, Object value) {
-        if (name != null && value != null) {
-            properties.put(name, value);
+        if (name != null && value != null && !parameters.set(name, value)) {
+            throw new IllegalArgumentException(
+                "Unsupported material property type for " + name
+                    + ": "
+                    + value.getClass()
+                        .getName());
+        }
+        return this;
+    }
+
+    /**
+     * 设置 float 属性
+     *
+     * @param name  uniform 名称
+     * @param value 值
+     * @return this（链式调用）
+     */
+    public StandardMaterial setProperty(String name, float value) {
+        if (name != null) {
+            parameters.setFloat(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 设置 int 属性
+     *
+     * @param name  uniform 名称
+     * @param value 值
+     * @return this（链式调用）
+     */
+    public StandardMaterial setProperty(String name, int value) {
+        if (name != null) {
+            parameters.setInt(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 设置 bool 属性
+     *
+     * @param name  uniform 名称
+     * @param value 值
+     * @return this（链式调用）
+     */
+    public StandardMaterial setProperty(String name, boolean value) {
+        if (name != null) {
+            parameters.setBool(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 设置 vec2 属性
+     *
+     * @return this（链式调用）
+     */
+    public StandardMaterial setProperty(String name, float x, float y) {
+        if (name != null) {
+            parameters.setVec2(name, x, y);
+        }
+        return this;
+    }
+
+    /**
+     * 设置 vec3 属性
+     *
+     * @return this（链式调用）
+     */
+    public StandardMaterial setProperty(String name, float x, float y, float z) {
+        if (name != null) {
+            parameters.setVec3(name, x, y, z);
+        }
+        return this;
+    }
+
+    /**
+     * 设置 vec4 属性
+     *
+     * @return this（链式调用）
+     */
+    public StandardMaterial setProperty(String name, float x, float y, float z, float w) {
+        if (name != null) {
+            parameters.setVec4(name, x, y, z, w);
         }
         return this;
     }
@@ -265,10 +357,17 @@ public class StandardMaterial implements Material {
      * 获取属性值
      *
      * @param name 属性名
-     * @return 属性值，如果不存在返回 null
+     * @return 属性值（Integer、Boolean、Float 或 float[]），如果不存在返回 null
      */
     public Object getProperty(String name) {
-        return properties.get(name);
+        return parameters.get(name);
+    }
+
+    /**
+     * 获取自定义参数块（直接引用）
+     */
+    public MaterialParameters getParameters() {
+        return parameters;
     }
 
     /**
@@ -279,11 +378,7 @@ public class StandardMaterial implements Material {
      * @return 属性值
      */
     public float getFloat(String name, float defaultValue) {
-        Object val = properties.get(name);
-        if (val instanceof Number) {
-            return ((Number) val).floatValue();
-        }
-        return defaultValue;
+        return parameters.getFloat(name, defaultValue);
     }
 
     @Override
@@ -299,10 +394,10 @@ public class StandardMaterial implements Material {
         if (textureId > 0) {
             GL13.glActiveTexture(GL13.GL_TEXTURE0);
             GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
-            shader.setUniformInt("uTexture", 0);
-            shader.setUniformBool("uHasTexture", true);
+            shader.setUniformInt(U_TEXTURE, 0);
+            shader.setUniformBool(U_HAS_TEXTURE, true);
         } else {
-            shader.setUniformBool("uHasTexture", false);
+            shader.setUniformBool(U_HAS_TEXTURE, false);
         }
 
         // 绑定法线贴图
@@ -310,57 +405,27 @@ public class StandardMaterial implements Material {
         if (normalMapId > 0) {
             GL13.glActiveTexture(GL13.GL_TEXTURE1);
             GL11.glBindTexture(GL11.GL_TEXTURE_2D, normalMapId);
-            shader.setUniformInt("uNormalMap", 1);
-            shader.setUniformBool("uHasNormalMap", true);
+            shader.setUniformInt(U_NORMAL_MAP, 1);
+            shader.setUniformBool(U_HAS_NORMAL_MAP, true);
         } else {
-            shader.setUniformBool("uHasNormalMap", false);
+            shader.setUniformBool(U_HAS_NORMAL_MAP, false);
         }
 
         // 应用内置属性
         applyBuiltinProperties();
 
-        // 应用动态属性
-        for (Map.Entry<String, Object> entry : properties.entrySet()) {
-            applyProperty(entry.getKey(), entry.getValue());
-        }
+        // 应用自定义参数
+        parameters.apply(shader);
     }
 
     /**
      * 应用内置属性到 shader uniform
      */
     private void applyBuiltinProperties() {
-        shader.setUniformVec4("uColor", colorR, colorG, colorB, colorA);
-        shader.setUniformFloat("uMetallic", metallic);
-        shader.setUniformFloat("uRoughness", roughness);
-        shader.setUniformFloat("uEmissive", emissive);
-    }
-
-    /**
-     * 应用单个属性到 shader uniform
-     */
-    private void applyProperty(String name, Object value) {
-        if (value instanceof Float) {
-            shader.setUniformFloat(name, (Float) value);
-        } else if (value instanceof Integer) {
-            shader.setUniformInt(name, (Integer) value);
-        } else if (value instanceof Boolean) {
-            shader.setUniformBool(name, (Boolean) value);
-        } else if (value instanceof float[]) {
-            float[] arr = (float[]) value;
-            switch (arr.length) {
-                case 2:
-                    shader.setUniformVec2(name, arr[0], arr[1]);
-                    break;
-                case 3:
-                    shader.setUniformVec3(name, arr[0], arr[1], arr[2]);
-                    break;
-                case 4:
-                    shader.setUniformVec4(name, arr[0], arr[1], arr[2], arr[3]);
-                    break;
-                default:
-                    break;
-            }
-        }
+        shader.setUniformVec4(U_COLOR, colorR, colorG, colorB, colorA);
+        shader.setUniformFloat(U_METALLIC, metallic);
+        shader.setUniformFloat(U_ROUGHNESS, roughness);
+        shader.setUniformFloat(U_EMISSIVE, emissive);
     }
 
     @Override
@@ -378,15 +443,8 @@ public class StandardMaterial implements Material {
         copy.roughness = this.roughness;
         copy.emissive = this.emissive;
 
-        // 深拷贝属性
-        for (Map.Entry<String, Object> entry : properties.entrySet()) {
-            Object val = entry.getValue();
-            if (val instanceof float[]) {
-                copy.properties.put(entry.getKey(), ((float[]) val).clone());
-            } else {
-                copy.properties.put(entry.getKey(), val);
-            }
-        }
+        // 深拷贝参数
+        copy.parameters.copyFrom(parameters);
 
         return copy;
     }
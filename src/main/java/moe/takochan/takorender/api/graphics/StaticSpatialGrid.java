@@ -0,0 +1,305 @@
+package moe.takochan.takorender.api.graphics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import moe.takochan.takorender.api.ecs.LongObjectHashMap;
+
+/**
+ * 静态物体空间网格
+ *
+ * <p>
+ * 按 Minecraft 区块段（16×16×16）划分的均匀网格，用于不会移动的物体。
+ * 物体按包围盒中心归入一个格子，每个格子维护其中所有物体包围盒的并集（松散格子），
+ * 因此跨越格子边界的物体也只存一份。
+ * </p>
+ *
+ * <p>
+ * <b>视锥查询</b>:
+ * 先逐格测试格子包围盒：完全在外的格子整体跳过，完全在内的格子整体接受，
+ * 部分相交的格子才逐个测试物体（只测试格子未通过的平面）。结果与逐个测试完全一致。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * StaticSpatialGrid<Entity> grid = new StaticSpatialGrid<>();
+ * int handle = grid.insert(bounds, entity);
+ * grid.query(frustum, visible -> render(visible));
+ * grid.remove(handle);
+ * }
+ * </pre>
+ *
+ * <p>
+ * <b>注意</b>: 非线程安全。
+ * </p>
+ *
+ * @param <T> 物体关联的数据类型
+ */
+public final class StaticSpatialGrid<T> {
+
+    /** 格子边长（方块） */
+    public static final int SECTION_SIZE = 16;
+
+    /** 世界坐标到格子坐标的位移量 */
+    public static final int SECTION_SHIFT = 4;
+
+    /** 物体包围盒（每个 6 个 float） */
+    private float[] bounds = new float[16 * 6];
+    private Object[] data = new Object[16];
+
+    /** 物体所在格子与格子内下标 */
+    private Cell[] cellOf = new Cell[16];
+    private int[] indexInCell = new int[16];
+
+    /** 空闲句柄栈 */
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int handleCount;
+    private int size;
+
+    private final LongObjectHashMap<Cell> cellMap = new LongObjectHashMap<>();
+    private final List<Cell> cells = new ArrayList<>();
+
+    /**
+     * 计算世界坐标所在的格子键
+     */
+    public static long sectionKeyAt(float x, float y, float z) {
+        return sectionKey(
+            (int) Math.floor(x) >> SECTION_SHIFT,
+            (int) Math.floor(y) >> SECTION_SHIFT,
+            (int) Math.floor(z) >> SECTION_SHIFT);
+    }
+
+    /**
+     * 打包格子坐标（X / Z 各 26 位，Y 12 位）
+     */
+    public static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) (sectionX & 0x3FFFFFF) << 38) | ((long) (sectionZ & 0x3FFFFFF) << 12) | (sectionY & 0xFFF);
+    }
+
+    /**
+     * 获取物体数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取非空格子数量
+     */
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    /**
+     * 插入物体
+     *
+     * @param box   包围盒（必须有效）
+     * @param value 关联数据
+     * @return 句柄，用于 remove
+     */
+    public int insert(AABB box, T value) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (handleCount == data.length) {
+                int capacity = handleCount << 1;
+                bounds = Arrays.copyOf(bounds, capacity * 6);
+                data = Arrays.copyOf(data, capacity);
+                cellOf = Arrays.copyOf(cellOf, capacity);
+                indexInCell = Arrays.copyOf(indexInCell, capacity);
+            }
+            handle = handleCount++;
+        }
+
+        int b = handle * 6;
+        bounds[b] = box.getMinX();
+        bounds[b + 1] = box.getMinY();
+        bounds[b + 2] = box.getMinZ();
+        bounds[b + 3] = box.getMaxX();
+        bounds[b + 4] = box.getMaxY();
+        bounds[b + 5] = box.getMaxZ();
+        data[handle] = value;
+
+        long key = sectionKeyAt(
+            (bounds[b] + bounds[b + 3]) * 0.5f,
+            (bounds[b + 1] + bounds[b + 4]) * 0.5f,
+            (bounds[b + 2] + bounds[b + 5]) * 0.5f);
+        Cell cell = cellMap.get(key);
+        if (cell == null) {
+            cell = new Cell(key);
+            cell.listIndex = cells.size();
+            cellMap.put(key, cell);
+            cells.add(cell);
+        }
+        cell.add(handle, bounds, indexInCell);
+        cellOf[handle] = cell;
+        size++;
+        return handle;
+    }
+
+    /**
+     * 移除物体
+     *
+     * @param handle 句柄
+     */
+    public void remove(int handle) {
+        Cell cell = handle >= 0 && handle < handleCount ? cellOf[handle] : null;
+        if (cell == null) {
+            throw new IllegalArgumentException("Invalid handle: " + handle);
+        }
+        cell.removeAt(indexInCell[handle], indexInCell);
+        if (cell.count == 0) {
+            cellMap.remove(cell.key);
+            int last = cells.size() - 1;
+            Cell moved = cells.get(last);
+            cells.set(cell.listIndex, moved);
+            moved.listIndex = cell.listIndex;
+            cells.remove(last);
+        }
+
+        cellOf[handle] = null;
+        data[handle] = null;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount << 1);
+        }
+        freeHandles[freeCount++] = handle;
+        size--;
+    }
+
+    /**
+     * 清空所有物体（保留容量）
+     */
+    public void clear() {
+        Arrays.fill(data, 0, handleCount, null);
+        Arrays.fill(cellOf, 0, handleCount, null);
+        cellMap.clear();
+        cells.clear();
+        handleCount = 0;
+        freeCount = 0;
+        size = 0;
+    }
+
+    /**
+     * 查询与视锥相交的所有物体
+     *
+     * @param frustum 视锥
+     * @param visitor 对每个相交物体调用一次
+     */
+    @SuppressWarnings("unchecked")
+    public void query(Frustum frustum, Visitor<? super T> visitor) {
+        for (int c = 0, cellCount = cells.size(); c < cellCount; c++) {
+            Cell cell = cells.get(c);
+            if (cell.boundsDirty) {
+                cell.recomputeBounds(bounds);
+            }
+            float[] cb = cell.bounds;
+            int mask = frustum.intersects(cb[0], cb[1], cb[2], cb[3], cb[4], cb[5], Frustum.ALL_PLANES);
+            if (mask == Frustum.OUTSIDE) {
+                continue;
+            }
+
+            int[] items = cell.items;
+            for (int i = 0, count = cell.count; i < count; i++) {
+                int handle = items[i];
+                if (mask != 0) {
+                    int b = handle * 6;
+                    if (frustum.intersects(
+                        bounds[b],
+                        bounds[b + 1],
+                        bounds[b + 2],
+                        bounds[b + 3],
+                        bounds[b + 4],
+                        bounds[b + 5],
+                        mask) == Frustum.OUTSIDE) {
+                        continue;
+                    }
+                }
+                visitor.visit((T) data[handle]);
+            }
+        }
+    }
+
+    /**
+     * 查询回调
+     *
+     * @param <T> 数据类型
+     */
+    @FunctionalInterface
+    public interface Visitor<T> {
+
+        void visit(T value);
+    }
+
+    /**
+     * 网格单元
+     */
+    private static final class Cell {
+
+        final long key;
+        int listIndex;
+        int[] items = new int[8];
+        int count;
+
+        /** 单元内所有物体包围盒的并集 */
+        final float[] bounds = new float[6];
+        boolean boundsDirty;
+
+        Cell(long key) {
+            this.key = key;
+        }
+
+        void add(int handle, float[] all, int[] indexInCell) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count << 1);
+            }
+            items[count] = handle;
+            indexInCell[handle] = count;
+            count++;
+
+            int b = handle * 6;
+            if (count == 1) {
+                System.arraycopy(all, b, bounds, 0, 6);
+            } else {
+                bounds[0] = Math.min(bounds[0], all[b]);
+                bounds[1] = Math.min(bounds[1], all[b + 1]);
+                bounds[2] = Math.min(bounds[2], all[b + 2]);
+                bounds[3] = Math.max(bounds[3], all[b + 3]);
+                bounds[4] = Math.max(bounds[4], all[b + 4]);
+                bounds[5] = Math.max(bounds[5], all[b + 5]);
+            }
+        }
+
+        void removeAt(int index, int[] indexInCell) {
+            int last = --count;
+            if (index != last) {
+                int moved = items[last];
+                items[index] = moved;
+                indexInCell[moved] = index;
+            }
+            // 并集只能整体重算，延迟到下次查询
+            boundsDirty = true;
+        }
+
+        void recomputeBounds(float[] all) {
+            Arrays.fill(bounds, 0, 3, Float.POSITIVE_INFINITY);
+            Arrays.fill(bounds, 3, 6, Float.NEGATIVE_INFINITY);
+            for (int i = 0; i < count; i++) {
+                int b = items[i] * 6;
+                bounds[0] = Math.min(bounds[0], all[b]);
+                bounds[1] = Math.min(bounds[1], all[b + 1]);
+                bounds[2] = Math.min(bounds[2], all[b + 2]);
+                bounds[3] = Math.max(bounds[3], all[b + 3]);
+                bounds[4] = Math.max(bounds[4], all[b + 4]);
+                bounds[5] = Math.max(bounds[5], all[b + 5]);
+            }
+            boundsDirty = false;
+        }
+    }
+}
@@ -114,6 +114,8 @@ public class SpriteBatch implements AutoCloseable {
             maxQuads * VERTICES_PER_QUAD,
             maxQuads * INDICES_PER_QUAD,
             VertexFormat.POSITION_COLOR);
+        // 每次 flush 写入环形缓冲区的新位置，同一帧多次 flush 不互相等待
+        this.mesh.enableStreaming();
     }
 
     /**
@@ -111,6 +111,8 @@ public class World3DBatch implements AutoCloseable {
         this.vertexData = new float[maxVertices * FLOATS_PER_VERTEX];
         this.indexData = new int[maxVertices];
         this.mesh = new DynamicMesh(maxVertices, maxVertices, STRIDE, ATTRIBUTES);
+        // 每次 flush 写入环形缓冲区的新位置，同一帧多次 flush 不互相等待
+        this.mesh.enableStreaming();
     }
 
     /**
@@ -6,10 +6,12 @@ import java.nio.IntBuffer;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
 
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
+import moe.takochan.takorender.core.render.StreamBuffer;
 
 /**
  * 动态 Mesh 实现，支持每帧更新顶点数据。
@@ -18,6 +20,13 @@ import cpw.mods.fml.relauncher.SideOnly;
  * 使用 GL_DYNAMIC_DRAW 提示 GPU 优化频繁更新场景。
  * 预分配缓冲区以避免每帧分配内存。
  * </p>
+ *
+ * <p>
+ * <b>流式模式</b>:
+ * {@link #enableStreaming()} 后顶点和索引改为写入两个 {@link StreamBuffer} 环形缓冲区，
+ * 每次 updateData 写到新的位置，绘制时按返回的偏移绑定属性和索引，
+ * 适合每帧多次更新的批处理（同一帧内的多次 flush 不会等待上一次绘制完成）。
+ * </p>
  */
 @SideOnly(Side.CLIENT)
 public class DynamicMesh extends BaseMesh {
@@ -30,6 +39,14 @@ public class DynamicMesh extends BaseMesh {
     /** 预分配的索引缓冲区 */
     private final IntBuffer indexBuffer;
 
+    /** 流式顶点 / 索引缓冲区（未启用流式模式时为 null） */
+    private StreamBuffer vertexStream;
+    private StreamBuffer indexStream;
+
+    /** 当前数据在流式缓冲区中的字节偏移 */
+    private long vertexByteOffset;
+    private long indexByteOffset;
+
     /**
      * 使用 VertexFormat 创建动态 Mesh
      *
@@ -102,6 +119,29 @@ public class DynamicMesh extends BaseMesh {
         valid = true;
     }
 
+    /**
+     * 启用流式模式（不可逆，之后 {@link #getVbo()} / {@link #getEbo()} 返回流式缓冲区的 ID）
+     */
+    public void enableStreaming() {
+        if (!valid || vertexStream != null) return;
+
+        vertexStream = new StreamBuffer(maxVertices * strideBytes);
+        indexStream = new StreamBuffer(maxIndices * 4);
+
+        // 预分配的 VBO / EBO 不再使用
+        GL15.glDeleteBuffers(vbo);
+        GL15.glDeleteBuffers(ebo);
+        vbo = vertexStream.getBufferId();
+        ebo = indexStream.getBufferId();
+    }
+
+    /**
+     * 是否已启用流式模式
+     */
+    public boolean isStreaming() {
+        return vertexStream != null;
+    }
+
     /**
      * 更新顶点和索引数据
      *
@@ -117,6 +157,16 @@ public class DynamicMesh extends BaseMesh {
         // 从浮点数数量计算实际顶点数
         this.vertexCount = vertexCount / (strideBytes / 4);
 
+        if (vertexStream != null) {
+            // 写入环形缓冲区的新位置，不需要绑定 VAO
+            vertexByteOffset = vertexStream.write(vertexData, 0, vertexCount, strideBytes);
+            indexByteOffset = indexStream.write(indexData, 0, indexCount, 4);
+            vbo = vertexStream.getBufferId();
+            ebo = indexStream.getBufferId();
+            computeBoundsFromSubset(vertexData, vertexCount);
+            return;
+        }
+
         // 保存当前状态
         int savedVao = GL11.glGetInteger(GL30.GL_VERTEX_ARRAY_BINDING);
         int savedVbo = GL11.glGetInteger(GL15.GL_ARRAY_BUFFER_BINDING);
@@ -154,6 +204,57 @@ public class DynamicMesh extends BaseMesh {
         computeBoundsFromSubset(vertexData, vertexCount);
     }
 
+    @Override
+    protected void setupVertexAttributes() {
+        // 流式模式下属性指针加上本次数据的偏移（非流式时偏移为 0）
+        for (int i = 0; i < attributes.length; i++) {
+            VertexAttribute attr = attributes[i];
+            GL20.glEnableVertexAttribArray(i);
+            GL20.glVertexAttribPointer(
+                i,
+                attr.size,
+                attr.type,
+                attr.normalized,
+                strideBytes,
+                vertexByteOffset + attr.offset);
+        }
+    }
+
+    @Override
+    public void draw() {
+        if (vertexStream == null) {
+            super.draw();
+            return;
+        }
+        draw(drawMode);
+    }
+
+    @Override
+    public void draw(int mode) {
+        if (vertexStream == null) {
+            super.draw(mode);
+            return;
+        }
+        if (valid && elementCount > 0) {
+            bind();
+            GL11.glDrawElements(mode, elementCount, GL11.GL_UNSIGNED_INT, indexByteOffset);
+            unbind();
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        if (vertexStream != null) {
+            vertexStream.dispose();
+            indexStream.dispose();
+            vertexStream = null;
+            indexStream = null;
+            // 已随 StreamBuffer 释放
+            vbo = ebo = 0;
+        }
+        super.cleanup();
+    }
+
     /**
      * 从部分顶点数据计算包围盒
      *
@@ -5,7 +5,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -13,6 +16,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.OpenGlHelper;
 import net.minecraft.util.ResourceLocation;
 
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
@@ -42,6 +46,19 @@ import moe.takochan.takorender.TakoRenderMod;
  * <li>Geometry Shader: GLSL 330+ (OpenGL 3.2)</li>
  * <li>Compute Shader: GLSL 430 core (OpenGL 4.3)</li>
  * </ul>
+ *
+ * <p>
+ * <b>Uniform 句柄与值缓存</b>:
+ * </p>
+ * <ul>
+ * <li>{@link #uniformId(String)} 把 uniform 名称注册为全局整数句柄，调用方通常保存在 static final 字段中；
+ * 每个程序按句柄下标缓存 location，首次使用时查询一次 {@code glGetUniformLocation}</li>
+ * <li>每个程序记录每个句柄最近一次上传的值，与之相同的 {@code glUniform*} 调用直接跳过
+ * （uniform 值属于程序对象，切换程序不会丢失）</li>
+ * <li>按名称设置的重载先经由名称表换成句柄，同样享受上述缓存</li>
+ * <li>绕过本类直接调用 {@code glUniform*} 修改了本程序的 uniform 后，需要调用 {@link #invalidateUniformCache()}</li>
+ * <li>程序链接成功或被删除时 location 和值缓存一并清空（见 {@link UniformValueCache}）</li>
+ * </ul>
  */
 @SideOnly(Side.CLIENT)
 public class ShaderProgram implements AutoCloseable {
@@ -54,8 +71,11 @@ public class ShaderProgram implements AutoCloseable {
 
     private boolean isComputeProgram = false;
 
+    /** 名称 → 全局 uniform 句柄 */
     private final Map<String, Integer> uniformCache = new HashMap<>();
     private final Map<String, Integer> blockIndexCache = new HashMap<>();
+    /** uniform 块名称 → 已设置的绑定点 */
+    private final Map<String, Integer> blockBindings = new HashMap<>();
     private final Map<String, Integer> ssboIndexCache = new HashMap<>();
 
     private static Boolean geometryShaderSupported = null;
@@ -64,6 +84,26 @@ public class ShaderProgram implements AutoCloseable {
     private static int[] maxWorkGroupSize = null;
     private static int maxWorkGroupInvocations = -1;
 
+    // ==================== Uniform 句柄 ====================
+
+    /** 全局 uniform 名称注册表（句柄 = 下标） */
+    private static final Map<String, Integer> UNIFORM_IDS = new HashMap<>();
+    private static final List<String> UNIFORM_NAMES = new ArrayList<>();
+
+    /** location 尚未查询 */
+    private static final int LOCATION_UNRESOLVED = -2;
+
+    /** float[] 形式矩阵 / 数组上传用的缓冲区 */
+    private static FloatBuffer uploadBuffer = BufferUtils.createFloatBuffer(16);
+
+    /** 累计因值未变化而跳过的 glUniform 调用数 */
+    private static long skippedUniformUploads;
+
+    /** 句柄 → location（LOCATION_UNRESOLVED 表示未查询） */
+    private int[] locations = new int[0];
+    /** 句柄 → 最近一次上传的值 */
+    private final UniformValueCache uniformValues = new UniformValueCache();
+
     /**
      * 检查当前系统是否支持 Shader
      */
@@ -348,6 +388,7 @@ public class ShaderProgram implements AutoCloseable {
         computeShaderId = 0;
 
         isComputeProgram = true;
+        resetUniformState();
         validateProgram();
     }
 
@@ -370,6 +411,7 @@ public class ShaderProgram implements AutoCloseable {
         programId = linkProgram(vertexShaderId, geometryShaderId, fragmentShaderId);
 
         if (programId != 0) {
+            resetUniformState();
             validateProgram();
         }
     }
@@ -552,79 +594,301 @@ public class ShaderProgram implements AutoCloseable {
             GL20.glDeleteProgram(programId);
             programId = 0;
         }
-        uniformCache.clear();
+        resetUniformState();
         blockIndexCache.clear();
+        blockBindings.clear();
         ssboIndexCache.clear();
         isComputeProgram = false;
     }
 
+    /**
+     * 注册（或查找）uniform 名称对应的全局句柄
+     *
+     * <p>
+     * 同一名称在所有程序中得到同一个句柄，适合保存在 static final 字段中：
+     * </p>
+     *
+     * <pre>
+     * {@code
+     * private static final int U_MODEL = ShaderProgram.uniformId("uModel");
+     * shader.setUniformMatrix4(U_MODEL, false, modelBuffer);
+     * }
+     * </pre>
+     *
+     * @param name uniform 名称
+     * @return 句柄（≥ 0）
+     */
+    public static int uniformId(String name) {
+        synchronized (UNIFORM_IDS) {
+            Integer id = UNIFORM_IDS.get(name);
+            if (id == null) {
+                id = UNIFORM_NAMES.size();
+                UNIFORM_NAMES.add(name);
+                UNIFORM_IDS.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 获取句柄对应的 uniform 名称
+     */
+    public static String uniformName(int id) {
+        synchronized (UNIFORM_IDS) {
+            return UNIFORM_NAMES.get(id);
+        }
+    }
+
+    /**
+     * 获取累计因值未变化而跳过的 glUniform 调用数（所有程序）
+     */
+    public static long getSkippedUniformUploads() {
+        return skippedUniformUploads;
+    }
+
+    /**
+     * 丢弃本程序的 uniform 值缓存（下次设置时一定会上传）
+     */
+    public void invalidateUniformCache() {
+        uniformValues.invalidate();
+    }
+
+    /**
+     * 丢弃 location 和值缓存（程序删除或重新链接后，旧的 location 和已上传的值都不再有效）
+     */
+    private void resetUniformState() {
+        uniformCache.clear();
+        locations = new int[0];
+        uniformValues.clear();
+    }
+
     public int getUniformLocation(String name) {
         if (!isValid()) {
             return -1;
         }
+        return getUniformLocation(handleOf(name));
+    }
 
-        return uniformCache.computeIfAbsent(name, n -> {
-            int loc = GL20.glGetUniformLocation(programId, n);
+    /**
+     * 按句柄获取 uniform location（首次使用时查询并缓存）
+     *
+     * @param id {@link #uniformId(String)} 返回的句柄
+     * @return location，不存在时返回 -1
+     */
+    public int getUniformLocation(int id) {
+        if (!isValid() || id < 0) {
+            return -1;
+        }
+        if (id >= locations.length) {
+            growUniformCache(id + 1);
+        }
+        int loc = locations[id];
+        if (loc == LOCATION_UNRESOLVED) {
+            String name = uniformName(id);
+            loc = GL20.glGetUniformLocation(programId, name);
             if (loc == -1) {
-                TakoRenderMod.LOG.warn("Uniform '{}' not found in shader program (ID = {})", n, programId);
+                TakoRenderMod.LOG.warn("Uniform '{}' not found in shader program (ID = {})", name, programId);
             }
-            return loc;
-        });
+            locations[id] = loc;
+        }
+        return loc;
     }
 
-    public boolean setUniformInt(String name, int value) {
-        int loc = getUniformLocation(name);
+    private int handleOf(String name) {
+        Integer id = uniformCache.get(name);
+        if (id == null) {
+            id = uniformId(name);
+            uniformCache.put(name, id);
+        }
+        return id;
+    }
+
+    private void growUniformCache(int minSize) {
+        int oldSize = locations.length;
+        int size = Math.max(minSize, Math.max(16, oldSize * 2));
+        locations = Arrays.copyOf(locations, size);
+        Arrays.fill(locations, oldSize, size, LOCATION_UNRESOLVED);
+    }
+
+    /**
+     * 检查值缓存，值相同返回 true（调用方跳过上传）；否则记录新值
+     */
+    private boolean unchanged(int id, byte kind, int v0, int v1, int v2, int v3) {
+        if (uniformValues.unchanged(id, kind, v0, v1, v2, v3)) {
+            skippedUniformUploads++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 检查矩阵缓存（比较 buffer 从 position 开始的 size 个元素，不改变 position）
+     */
+    private boolean unchangedMatrix(int id, byte kind, FloatBuffer matrix, int size) {
+        if (uniformValues.unchangedMatrix(id, kind, matrix, size)) {
+            skippedUniformUploads++;
+            return true;
+        }
+        return false;
+    }
+
+    private static FloatBuffer uploadBuffer(float[] data, int count) {
+        if (uploadBuffer.capacity() < count) {
+            uploadBuffer = BufferUtils.createFloatBuffer(Math.max(count, uploadBuffer.capacity() * 2));
+        }
+        uploadBuffer.clear();
+        uploadBuffer.put(data, 0, count)
+            .flip();
+        return uploadBuffer;
+    }
+
+    // ==================== 按句柄设置 ====================
+
+    public boolean setUniformInt(int id, int value) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniform1i(loc, value);
+        if (!unchanged(id, UniformValueCache.INT, value, 0, 0, 0)) {
+            GL20.glUniform1i(loc, value);
+        }
         return true;
     }
 
-    public boolean setUniformBool(String name, boolean value) {
-        return setUniformInt(name, value ? 1 : 0);
+    public boolean setUniformBool(int id, boolean value) {
+        return setUniformInt(id, value ? 1 : 0);
     }
 
-    public boolean setUniformFloat(String name, float value) {
-        int loc = getUniformLocation(name);
+    public boolean setUniformFloat(int id, float value) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniform1f(loc, value);
+        if (!unchanged(id, UniformValueCache.FLOAT, Float.floatToRawIntBits(value), 0, 0, 0)) {
+            GL20.glUniform1f(loc, value);
+        }
         return true;
     }
 
-    public boolean setUniformVec2(String name, float x, float y) {
-        int loc = getUniformLocation(name);
+    public boolean setUniformVec2(int id, float x, float y) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniform2f(loc, x, y);
+        if (!unchanged(id, UniformValueCache.VEC2, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), 0, 0)) {
+            GL20.glUniform2f(loc, x, y);
+        }
         return true;
     }
 
-    public boolean setUniformVec3(String name, float x, float y, float z) {
-        int loc = getUniformLocation(name);
+    public boolean setUniformVec3(int id, float x, float y, float z) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniform3f(loc, x, y, z);
+        if (!unchanged(
+            id,
+            UniformValueCache.VEC3,
+            Float.floatToRawIntBits(x),
+            Float.floatToRawIntBits(y),
+            Float.floatToRawIntBits(z),
+            0)) {
+            GL20.glUniform3f(loc, x, y, z);
+        }
         return true;
     }
 
-    public boolean setUniformVec4(String name, float x, float y, float z, float w) {
-        int loc = getUniformLocation(name);
+    public boolean setUniformVec4(int id, float x, float y, float z, float w) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniform4f(loc, x, y, z, w);
+        if (!unchanged(
+            id,
+            UniformValueCache.VEC4,
+            Float.floatToRawIntBits(x),
+            Float.floatToRawIntBits(y),
+            Float.floatToRawIntBits(z),
+            Float.floatToRawIntBits(w))) {
+            GL20.glUniform4f(loc, x, y, z, w);
+        }
         return true;
     }
 
-    public boolean setUniformMatrix3(String name, boolean transpose, FloatBuffer matrix) {
-        int loc = getUniformLocation(name);
+    public boolean setUniformMatrix3(int id, boolean transpose, FloatBuffer matrix) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniformMatrix3(loc, transpose, matrix);
+        // transpose 不参与比较：同一 uniform 的调用方总是使用相同的约定
+        if (!unchangedMatrix(id, UniformValueCache.MAT3, matrix, 9)) {
+            GL20.glUniformMatrix3(loc, transpose, matrix);
+        }
         return true;
     }
 
-    public boolean setUniformMatrix4(String name, boolean transpose, FloatBuffer matrix) {
-        int loc = getUniformLocation(name);
+    public boolean setUniformMatrix4(int id, boolean transpose, FloatBuffer matrix) {
+        int loc = getUniformLocation(id);
         if (loc == -1) return false;
-        GL20.glUniformMatrix4(loc, transpose, matrix);
+        if (!unchangedMatrix(id, UniformValueCache.MAT4, matrix, 16)) {
+            GL20.glUniformMatrix4(loc, transpose, matrix);
+        }
         return true;
     }
 
+    /**
+     * 设置 mat4 uniform（列主序 float[16]）
+     */
+    public boolean setUniformMatrix4(int id, boolean transpose, float[] matrix) {
+        if (getUniformLocation(id) == -1) return false;
+        return setUniformMatrix4(id, transpose, uploadBuffer(matrix, 16));
+    }
+
+    /**
+     * 设置 float 数组 uniform（不缓存值，每次都上传）
+     *
+     * @param id    句柄
+     * @param data  数据
+     * @param count 上传的元素数
+     */
+    public boolean setUniformFloatArray(int id, float[] data, int count) {
+        int loc = getUniformLocation(id);
+        if (loc == -1) return false;
+        uniformValues.forget(id);
+        GL20.glUniform1(loc, uploadBuffer(data, count));
+        return true;
+    }
+
+    // ==================== 按名称设置 ====================
+
+    public boolean setUniformInt(String name, int value) {
+        return isValid() && setUniformInt(handleOf(name), value);
+    }
+
+    public boolean setUniformBool(String name, boolean value) {
+        return setUniformInt(name, value ? 1 : 0);
+    }
+
+    public boolean setUniformFloat(String name, float value) {
+        return isValid() && setUniformFloat(handleOf(name), value);
+    }
+
+    public boolean setUniformVec2(String name, float x, float y) {
+        return isValid() && setUniformVec2(handleOf(name), x, y);
+    }
+
+    public boolean setUniformVec3(String name, float x, float y, float z) {
+        return isValid() && setUniformVec3(handleOf(name), x, y, z);
+    }
+
+    public boolean setUniformVec4(String name, float x, float y, float z, float w) {
+        return isValid() && setUniformVec4(handleOf(name), x, y, z, w);
+    }
+
+    public boolean setUniformMatrix3(String name, boolean transpose, FloatBuffer matrix) {
+        return isValid() && setUniformMatrix3(handleOf(name), transpose, matrix);
+    }
+
+    public boolean setUniformMatrix4(String name, boolean transpose, FloatBuffer matrix) {
+        return isValid() && setUniformMatrix4(handleOf(name), transpose, matrix);
+    }
+
+    public boolean setUniformMatrix4(String name, boolean transpose, float[] matrix) {
+        return isValid() && setUniformMatrix4(handleOf(name), transpose, matrix);
+    }
+
+    public boolean setUniformFloatArray(String name, float[] data, int count) {
+        return isValid() && setUniformFloatArray(handleOf(name), data, count);
+    }
+
     public int getUniformBlockIndex(String blockName) {
         if (!isValid()) {
             return -1;
@@ -640,12 +904,45 @@ public class ShaderProgram implements AutoCloseable {
         });
     }
 
+    /**
+     * 检查程序是否声明了指定的 uniform 块（不存在时不输出警告）
+     *
+     * @param blockName uniform 块名称
+     * @return 是否存在且处于活动状态
+     */
+    public boolean hasUniformBlock(String blockName) {
+        if (!isValid()) {
+            return false;
+        }
+
+        Integer cached = blockIndexCache.get(blockName);
+        if (cached == null) {
+            int index = GL31.glGetUniformBlockIndex(programId, blockName);
+            cached = index == GL31.GL_INVALID_INDEX ? -1 : index;
+            blockIndexCache.put(blockName, cached);
+        }
+        return cached != -1;
+    }
+
+    /**
+     * 把 uniform 块绑定到绑定点
+     *
+     * <p>
+     * 绑定关系属于程序对象，已绑定到同一绑定点时不再调用 {@code glUniformBlockBinding}。
+     * </p>
+     *
+     * @return 块是否存在
+     */
     public boolean bindUniformBlock(String blockName, int bindingPoint) {
         int blockIndex = getUniformBlockIndex(blockName);
         if (blockIndex == -1) {
             return false;
         }
-        GL31.glUniformBlockBinding(programId, blockIndex, bindingPoint);
+        Integer bound = blockBindings.get(blockName);
+        if (bound == null || bound != bindingPoint) {
+            GL31.glUniformBlockBinding(programId, blockIndex, bindingPoint);
+            blockBindings.put(blockName, bindingPoint);
+        }
         return true;
     }
 
@@ -0,0 +1,113 @@
+package moe.takochan.takorender.api.graphics.shader;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Uniform 值缓存 - 按句柄记录一个程序最近一次上传的 uniform 值
+ *
+ * <p>
+ * {@link ShaderProgram} 在每次 {@code glUniform*} 之前询问本类，值与上次相同时跳过上传。
+ * 本类不调用 GL，只做比较和记录：标量 / 向量按原始位存放在每个句柄 4 个 int 中，矩阵单独存放。
+ * </p>
+ *
+ * <p>
+ * 程序重新链接后 uniform 值全部回到默认值，必须调用 {@link #clear()}；
+ * 绕过 ShaderProgram 修改了 uniform 时调用 {@link #invalidate()}。
+ * </p>
+ */
+final class UniformValueCache {
+
+    /** 值类型标记（0 表示未知，下次一定上传） */
+    static final byte INT = 1;
+    static final byte FLOAT = 2;
+    static final byte VEC2 = 3;
+    static final byte VEC3 = 4;
+    static final byte VEC4 = 5;
+    static final byte MAT3 = 6;
+    static final byte MAT4 = 7;
+
+    /** 句柄 → 最近一次上传值的类型 */
+    private byte[] kinds = new byte[0];
+    /** 句柄 → 最近一次上传的值（每个句柄 4 个 int，float 按原始位存放） */
+    private int[] values = new int[0];
+    /** 句柄 → 最近一次上传的矩阵（按需创建） */
+    private float[][] matrices = new float[0][];
+
+    /**
+     * 检查标量 / 向量值，与上次记录相同返回 true（调用方跳过上传）；否则记录新值
+     */
+    boolean unchanged(int id, byte kind, int v0, int v1, int v2, int v3) {
+        ensureCapacity(id);
+        int o = id * 4;
+        if (kinds[id] == kind && values[o] == v0 && values[o + 1] == v1 && values[o + 2] == v2
+            && values[o + 3] == v3) {
+            return true;
+        }
+        kinds[id] = kind;
+        values[o] = v0;
+        values[o + 1] = v1;
+        values[o + 2] = v2;
+        values[o + 3] = v3;
+        return false;
+    }
+
+    /**
+     * 检查矩阵值（比较 buffer 从 position 开始的 size 个元素，不改变 position），语义同 {@link #unchanged}
+     */
+    boolean unchangedMatrix(int id, byte kind, FloatBuffer matrix, int size) {
+        ensureCapacity(id);
+        float[] cached = matrices[id];
+        if (cached == null) {
+            cached = new float[16];
+            matrices[id] = cached;
+        }
+        int pos = matrix.position();
+        boolean same = kinds[id] == kind;
+        for (int i = 0; i < size; i++) {
+            float v = matrix.get(pos + i);
+            if (same && Float.floatToRawIntBits(cached[i]) != Float.floatToRawIntBits(v)) {
+                same = false;
+            }
+            cached[i] = v;
+        }
+        kinds[id] = kind;
+        return same;
+    }
+
+    /**
+     * 丢弃单个句柄的记录（用于不缓存的数组上传）
+     */
+    void forget(int id) {
+        if (id < kinds.length) {
+            kinds[id] = 0;
+        }
+    }
+
+    /**
+     * 丢弃所有记录（下次设置时一定会上传）
+     */
+    void invalidate() {
+        Arrays.fill(kinds, (byte) 0);
+    }
+
+    /**
+     * 释放所有记录（程序删除或重新链接时调用）
+     */
+    void clear() {
+        kinds = new byte[0];
+        values = new int[0];
+        matrices = new float[0][];
+    }
+
+    private void ensureCapacity(int id) {
+        int oldSize = kinds.length;
+        if (id < oldSize) {
+            return;
+        }
+        int size = Math.max(id + 1, Math.max(16, oldSize * 2));
+        kinds = Arrays.copyOf(kinds, size);
+        values = Arrays.copyOf(values, size * 4);
+        matrices = Arrays.copyOf(matrices, size);
+    }
+}
@@ -29,6 +29,13 @@ import cpw.mods.fml.relauncher.SideOnly;
  *     float value = curve.evaluate(0.25f); // 在 25% 时采样
  * }
  * </pre>
+ *
+ * <p>
+ * <b>查找表</b>:
+ * {@link #evaluate(float)} 每次线性扫描关键帧；逐粒子采样应使用 {@link #evaluateLUT(float)}，
+ * 它在首次调用时按 {@link #getLUTResolution()} 均匀采样烘焙查找表，之后 O(1) 线性插值且不分配内存。
+ * 关键帧或插值方式变化时查找表自动失效。多个线程可以同时调用 evaluateLUT。
+ * </p>
  */
 @SideOnly(Side.CLIENT)
 public class AnimationCurve {
@@ -39,6 +46,15 @@ public class AnimationCurve {
     /** 是否使用平滑插值 */
     private boolean smoothInterpolation = true;
 
+    /** 默认查找表采样数 */
+    public static final int DEFAULT_LUT_RESOLUTION = 256;
+
+    /** 查找表采样数 */
+    private int lutResolution = DEFAULT_LUT_RESOLUTION;
+
+    /** 烘焙后的查找表（失效时为 null） */
+    private volatile float[] lut;
+
     /**
      * 关键帧数据
      */
@@ -68,6 +84,7 @@ public class AnimationCurve {
     public AnimationCurve addKey(float time, float value) {
         keyframes.add(new Keyframe(time, value));
         Collections.sort(keyframes);
+        lut = null;
         return this;
     }
 
@@ -78,6 +95,7 @@ public class AnimationCurve {
      */
     public AnimationCurve clear() {
         keyframes.clear();
+        lut = null;
         return this;
     }
 
@@ -89,6 +107,7 @@ public class AnimationCurve {
      */
     public AnimationCurve setSmooth(boolean smooth) {
         this.smoothInterpolation = smooth;
+        lut = null;
         return this;
     }
 
@@ -140,6 +159,77 @@ public class AnimationCurve {
         return prev.value + (next.value - prev.value) * factor;
     }
 
+    /**
+     * 通过查找表采样曲线值（O(1)，不分配内存）
+     *
+     * <p>
+     * 在相邻采样点之间线性插值，与 {@link #evaluate(float)} 的误差随分辨率减小；
+     * 间隔小于采样间距的突变会被平滑到一个采样间距内。
+     * </p>
+     *
+     * @param t 时间 (0-1)
+     * @return 插值后的值
+     */
+    public float evaluateLUT(float t) {
+        float[] table = lut;
+        if (table == null) {
+            table = bakeLUT();
+        }
+        return sampleLUT(table, t);
+    }
+
+    /**
+     * 立即烘焙查找表（通常无需手动调用，首次采样时自动烘焙）
+     *
+     * @return 查找表（调用方不得修改）
+     */
+    public float[] bakeLUT() {
+        int resolution = lutResolution;
+        float[] table = new float[resolution];
+        for (int i = 0; i < resolution; i++) {
+            table[i] = evaluate((float) i / (resolution - 1));
+        }
+        lut = table;
+        return table;
+    }
+
+    /**
+     * 获取查找表采样数
+     */
+    public int getLUTResolution() {
+        return lutResolution;
+    }
+
+    /**
+     * 设置查找表采样数（至少 2，默认 {@link #DEFAULT_LUT_RESOLUTION}）
+     *
+     * @param resolution 采样数
+     * @return this（链式调用）
+     */
+    public AnimationCurve setLUTResolution(int resolution) {
+        this.lutResolution = Math.max(2, resolution);
+        lut = null;
+        return this;
+    }
+
+    /**
+     * 在均匀采样的单通道查找表中线性插值
+     *
+     * @param table 查找表（至少 2 个元素）
+     * @param t     时间 (0-1)
+     * @return 插值结果
+     */
+    static float sampleLUT(float[] table, float t) {
+        int last = table.length - 1;
+        float x = (t <= 0 ? 0 : t >= 1 ? 1 : t) * last;
+        int i = (int) x;
+        if (i >= last) {
+            return table[last];
+        }
+        float frac = x - i;
+        return table[i] + (table[i + 1] - table[i]) * frac;
+    }
+
     /**
      * 获取关键帧数量
      *
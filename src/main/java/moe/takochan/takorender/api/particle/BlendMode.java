@@ -4,6 +4,7 @@ import org.lwjgl.opengl.GL11;
 
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
+import moe.takochan.takorender.core.gl.GLStateContext;
 
 /**
  * 粒子混合模式
@@ -98,10 +99,27 @@ public enum BlendMode {
         return dstFactor;
     }
 
+    /**
+     * 应用混合模式（经由上下文设置，结束时自动恢复，并保持 GL 状态影子一致）
+     *
+     * @param ctx 当前 GL 状态上下文
+     */
+    public void apply(GLStateContext ctx) {
+        ctx.setBlendFunc(srcFactor, dstFactor);
+    }
+
     /**
      * 应用混合模式
+     *
+     * <p>
+     * 直接调用 glBlendFunc，之后使 GL 状态影子失效。
+     * </p>
+     *
+     * @deprecated 使用 {@link #apply(GLStateContext)}
      */
+    @Deprecated
     public void apply() {
         GL11.glBlendFunc(srcFactor, dstFactor);
+        GLStateContext.invalidateShadow();
     }
 }
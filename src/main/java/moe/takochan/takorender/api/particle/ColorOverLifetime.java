@@ -116,6 +116,28 @@ public class ColorOverLifetime {
         return gradient.evaluate(lifePercent);
     }
 
+    /**
+     * 通过查找表采样颜色（O(1)，不分配内存，见 {@link Gradient#evaluateLUT(float, float[])}）
+     *
+     * @param lifePercent 生命周期百分比 (0-1)
+     * @param dest        目标数组（至少 4 个元素）
+     * @return dest
+     */
+    public float[] evaluateLUT(float lifePercent, float[] dest) {
+        return gradient.evaluateLUT(lifePercent, dest);
+    }
+
+    /**
+     * 设置当前渐变的查找表采样数
+     *
+     * @param resolution 采样数
+     * @return this（链式调用）
+     */
+    public ColorOverLifetime setLUTResolution(int resolution) {
+        gradient.setLUTResolution(resolution);
+        return this;
+    }
+
     /**
      * 转换为 LUT（用于上传到 GPU）
      *
@@ -47,7 +47,10 @@ public enum ForceType {
     VECTOR_FIELD(10),
 
     /** 弹簧力 - 回复到原点的弹性力 */
-    SPRING(11);
+    SPRING(11),
+
+    /** 邻域力 - 与半径内其他粒子的分离 / 速度对齐（仅 CPU 模式，基于空间哈希） */
+    NEIGHBOR(12);
 
     private final int id;
 
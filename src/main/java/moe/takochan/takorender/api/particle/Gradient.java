@@ -32,6 +32,12 @@ import cpw.mods.fml.relauncher.SideOnly;
  *     float[] color = gradient.evaluate(0.25f); // [r, g, b, a]
  * }
  * </pre>
+ *
+ * <p>
+ * <b>查找表</b>:
+ * 逐粒子采样应使用 {@link #evaluateLUT(float, float[])}，首次调用时烘焙 RGBA 查找表，
+ * 之后 O(1) 线性插值且不分配内存。关键帧变化时查找表自动失效。多个线程可以同时调用。
+ * </p>
  */
 @SideOnly(Side.CLIENT)
 public class Gradient {
@@ -42,6 +48,15 @@ public class Gradient {
     /** 透明度关键帧列表 */
     private final List<AlphaKey> alphaKeys = new ArrayList<>();
 
+    /** 默认查找表采样数 */
+    public static final int DEFAULT_LUT_RESOLUTION = 256;
+
+    /** 查找表采样数 */
+    private int lutResolution = DEFAULT_LUT_RESOLUTION;
+
+    /** 烘焙后的 RGBA 查找表（失效时为 null） */
+    private volatile float[] lut;
+
     /**
      * 颜色关键帧
      */
@@ -94,6 +109,7 @@ public class Gradient {
     public Gradient addColorKey(float time, float r, float g, float b) {
         colorKeys.add(new ColorKey(time, r, g, b));
         Collections.sort(colorKeys);
+        lut = null;
         return this;
     }
 
@@ -107,6 +123,7 @@ public class Gradient {
     public Gradient addAlphaKey(float time, float alpha) {
         alphaKeys.add(new AlphaKey(time, alpha));
         Collections.sort(alphaKeys);
+        lut = null;
         return this;
     }
 
@@ -134,6 +151,7 @@ public class Gradient {
     public Gradient clear() {
         colorKeys.clear();
         alphaKeys.clear();
+        lut = null;
         return this;
     }
 
@@ -144,7 +162,17 @@ public class Gradient {
      * @return [r, g, b, a] 数组
      */
     public float[] evaluate(float t) {
-        float[] result = new float[4];
+        return evaluate(t, new float[4]);
+    }
+
+    /**
+     * 在指定时间采样颜色，写入已有数组（不分配内存）
+     *
+     * @param t      时间 (0-1)
+     * @param result 目标数组（至少 4 个元素）
+     * @return result
+     */
+    public float[] evaluate(float t, float[] result) {
         t = Math.max(0, Math.min(1, t));
 
         // 采样颜色
@@ -167,7 +195,8 @@ public class Gradient {
                 }
             }
 
-            float factor = prev.time == next.time ? 0 : (t - prev.time) / (next.time - prev.time);
+            // t 在首尾关键帧之外时取边界关键帧的值
+            float factor = prev.time == next.time ? 0 : clamp01((t - prev.time) / (next.time - prev.time));
             result[0] = prev.r + (next.r - prev.r) * factor;
             result[1] = prev.g + (next.g - prev.g) * factor;
             result[2] = prev.b + (next.b - prev.b) * factor;
@@ -190,13 +219,72 @@ public class Gradient {
                 }
             }
 
-            float factor = prev.time == next.time ? 0 : (t - prev.time) / (next.time - prev.time);
+            // t 在首尾关键帧之外时取边界关键帧的值
+            float factor = prev.time == next.time ? 0 : clamp01((t - prev.time) / (next.time - prev.time));
             result[3] = prev.alpha + (next.alpha - prev.alpha) * factor;
         }
 
         return result;
     }
 
+    private static float clamp01(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    /**
+     * 通过查找表采样颜色（O(1)，不分配内存）
+     *
+     * @param t    时间 (0-1)
+     * @param dest 目标数组（至少 4 个元素）
+     * @return dest
+     */
+    public float[] evaluateLUT(float t, float[] dest) {
+        float[] table = lut;
+        if (table == null) {
+            table = bakeLUT();
+        }
+        int last = table.length / 4 - 1;
+        float x = (t <= 0 ? 0 : t >= 1 ? 1 : t) * last;
+        int i = Math.min((int) x, last - 1);
+        float frac = x - i;
+        int a = i * 4;
+        dest[0] = table[a] + (table[a + 4] - table[a]) * frac;
+        dest[1] = table[a + 1] + (table[a + 5] - table[a + 1]) * frac;
+        dest[2] = table[a + 2] + (table[a + 6] - table[a + 2]) * frac;
+        dest[3] = table[a + 3] + (table[a + 7] - table[a + 3]) * frac;
+        return dest;
+    }
+
+    /**
+     * 立即烘焙查找表（通常无需手动调用，首次采样时自动烘焙）
+     *
+     * @return 查找表 [r0, g0, b0, a0, ...]（调用方不得修改）
+     */
+    public float[] bakeLUT() {
+        float[] table = toLUT(lutResolution);
+        lut = table;
+        return table;
+    }
+
+    /**
+     * 获取查找表采样数
+     */
+    public int getLUTResolution() {
+        return lutResolution;
+    }
+
+    /**
+     * 设置查找表采样数（至少 2，默认 {@link #DEFAULT_LUT_RESOLUTION}）
+     *
+     * @param resolution 采样数
+     * @return this（链式调用）
+     */
+    public Gradient setLUTResolution(int resolution) {
+        this.lutResolution = Math.max(2, resolution);
+        lut = null;
+        return this;
+    }
+
     /**
      * 获取颜色关键帧数量
      *
@@ -227,9 +315,10 @@ public class Gradient {
      */
     public float[] toLUT(int samples) {
         float[] lut = new float[samples * 4];
+        float[] color = new float[4];
         for (int i = 0; i < samples; i++) {
             float t = (float) i / (samples - 1);
-            float[] color = evaluate(t);
+            evaluate(t, color);
             lut[i * 4] = color[0];
             lut[i * 4 + 1] = color[1];
             lut[i * 4 + 2] = color[2];
@@ -2,7 +2,6 @@ package moe.takochan.takorender.api.particle;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
@@ -34,7 +33,11 @@ import cpw.mods.fml.relauncher.SideOnly;
 @SideOnly(Side.CLIENT)
 public class ParticleEmitter {
 
-    private final Random random = new Random();
+    /** 随机数生成器（每个发射器独立） */
+    private final ParticleRandom random = new ParticleRandom();
+
+    /** 是否显式设置过种子 */
+    private boolean seeded = false;
 
     /** 发射器位置 */
     private float posX = 0, posY = 0, posZ = 0;
@@ -144,6 +147,37 @@ public class ParticleEmitter {
 
     public ParticleEmitter() {}
 
+    // ==================== 随机种子设置 ====================
+
+    /**
+     * 设置随机种子
+     *
+     * <p>
+     * 相同种子和相同参数的发射器产生完全相同的粒子序列，用于回放和基准测试。
+     * {@link #reset()} 会让序列回到种子起点。
+     * 未设置时每个发射器使用各不相同的随机种子。
+     * </p>
+     *
+     * @param seed 种子
+     * @return this（链式调用）
+     */
+    public ParticleEmitter setSeed(long seed) {
+        this.random.setSeed(seed);
+        this.seeded = true;
+        return this;
+    }
+
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * 是否显式设置过种子
+     */
+    public boolean hasSeed() {
+        return seeded;
+    }
+
     // ==================== 位置和方向设置 ====================
 
     public ParticleEmitter setPosition(float x, float y, float z) {
@@ -741,12 +775,15 @@ public class ParticleEmitter {
     }
 
     /**
-     * 重置发射状态
+     * 重置发射状态（设置过种子时随机序列也回到种子起点）
      */
     public void reset() {
         emissionAccumulator = 0;
         burstAccumulator = 0;
         initialBurstTriggered = false;
+        if (seeded) {
+            random.setSeed(random.getSeed());
+        }
     }
 
     // ==================== 内部方法 ====================
@@ -346,4 +346,25 @@ public class ParticleForce {
         force.param1 = damping;
         return force;
     }
+
+    /**
+     * 创建邻域力场（粒子之间的相互作用，如互相推开的火花、成群运动的粒子）
+     *
+     * <p>
+     * 只作用于半径内的其他粒子：分离力随距离线性衰减，速度对齐力把粒子速度拉向邻居的平均速度。
+     * 邻居通过每帧重建的空间哈希查找，每个粒子最多统计固定数量的邻居。
+     * 仅 CPU 模式支持，GPU 模式忽略此力场。
+     * </p>
+     *
+     * @param radius     作用半径
+     * @param separation 分离强度（负值为相互吸引）
+     * @param alignment  速度对齐系数（0 表示不对齐）
+     * @return 力场对象
+     */
+    public static ParticleForce neighbor(float radius, float separation, float alignment) {
+        ParticleForce force = new ParticleForce(ForceType.NEIGHBOR, 0, 0, 0, separation);
+        force.param1 = radius;
+        force.param2 = alignment;
+        return force;
+    }
 }
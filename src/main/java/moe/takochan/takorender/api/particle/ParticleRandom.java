@@ -0,0 +1,134 @@
+package moe.takochan.takorender.api.particle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * 粒子发射用的可设种子随机数生成器
+ *
+ * <p>
+ * Xoroshiro128+ 生成器，128 位状态由 SplitMix64 从 64 位种子展开。
+ * 与 {@link java.util.Random} 不同，状态是普通字段而不是 CAS 更新的原子变量，
+ * 每个发射器持有自己的实例，不存在线程间竞争。
+ * 相同种子总是产生相同的序列，可用于回放和基准测试。
+ * </p>
+ *
+ * <p>
+ * <b>拆分</b>:
+ * {@link #split()} 从当前序列取一个值作为新生成器的种子，得到一条独立的子序列，
+ * 适合把工作分给多个线程时每个线程各持一个。
+ * </p>
+ *
+ * <p>
+ * <b>注意</b>: 非线程安全，每个实例只应被一个线程使用。
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+public final class ParticleRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** 默认种子序列（保证同时创建的实例种子也不同） */
+    private static final AtomicLong SEED_SEQUENCE = new AtomicLong(System.nanoTime());
+
+    private long seed;
+    private long s0;
+    private long s1;
+
+    /**
+     * 使用唯一的默认种子创建
+     */
+    public ParticleRandom() {
+        this(uniqueSeed());
+    }
+
+    /**
+     * @param seed 种子
+     */
+    public ParticleRandom(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * 生成一个与其他调用都不同的默认种子
+     */
+    public static long uniqueSeed() {
+        return mix64(SEED_SEQUENCE.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+    }
+
+    /**
+     * 重置种子（之后的序列与新建 {@code new ParticleRandom(seed)} 完全相同）
+     *
+     * @param seed 种子
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        long x = seed + GOLDEN_GAMMA;
+        s0 = mix64(x);
+        s1 = mix64(x + GOLDEN_GAMMA);
+        if ((s0 | s1) == 0) {
+            // 全零状态无法前进
+            s1 = GOLDEN_GAMMA;
+        }
+    }
+
+    /**
+     * 获取最近一次设置的种子
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 下一个 64 位随机数
+     */
+    public long nextLong() {
+        final long a = s0;
+        long b = s1;
+        final long result = a + b;
+        b ^= a;
+        s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+        s1 = Long.rotateLeft(b, 37);
+        return result;
+    }
+
+    /**
+     * 下一个 [0, 1) 均匀分布的 float
+     */
+    public float nextFloat() {
+        // 取高 24 位（Xoroshiro128+ 的低位质量较差）
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * 下一个 [0, bound) 的 int
+     *
+     * @param bound 上界（必须为正）
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * 拆分出一个独立的生成器（消耗当前序列的一个值）
+     *
+     * @return 新生成器
+     */
+    public ParticleRandom split() {
+        return new ParticleRandom(nextLong());
+    }
+
+    /**
+     * SplitMix64 混合函数
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
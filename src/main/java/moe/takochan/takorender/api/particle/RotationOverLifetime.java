@@ -264,13 +264,27 @@ public class RotationOverLifetime {
      * @return [x, y, z] 旋转速度数组（弧度/秒）
      */
     public float[] evaluate(float lifePercent) {
+        return evaluate(lifePercent, new float[3]);
+    }
+
+    /**
+     * 在指定生命周期采样旋转速度，写入已有数组（不分配内存）
+     *
+     * @param lifePercent 生命周期百分比 (0-1)
+     * @param dest        目标数组（至少 3 个元素）
+     * @return dest
+     */
+    public float[] evaluate(float lifePercent, float[] dest) {
         if (separateAxes) {
-            return new float[] { curveX.evaluate(lifePercent) + baseSpeed, curveY.evaluate(lifePercent) + baseSpeed,
-                curveZ.evaluate(lifePercent) + baseSpeed };
+            dest[0] = curveX.evaluate(lifePercent) + baseSpeed;
+            dest[1] = curveY.evaluate(lifePercent) + baseSpeed;
+            dest[2] = curveZ.evaluate(lifePercent) + baseSpeed;
         } else {
-            float v = uniformCurve.evaluate(lifePercent) + baseSpeed;
-            return new float[] { 0, 0, v };
+            dest[0] = 0;
+            dest[1] = 0;
+            dest[2] = uniformCurve.evaluate(lifePercent) + baseSpeed;
         }
+        return dest;
     }
 
     /**
@@ -287,6 +301,34 @@ public class RotationOverLifetime {
         }
     }
 
+    /**
+     * 通过查找表采样 Z 轴旋转速度（O(1)，不分配内存，见 {@link AnimationCurve#evaluateLUT(float)}）
+     *
+     * @param lifePercent 生命周期百分比 (0-1)
+     * @return Z 轴旋转速度（弧度/秒）
+     */
+    public float evaluateZLUT(float lifePercent) {
+        if (separateAxes) {
+            return curveZ.evaluateLUT(lifePercent) + baseSpeed;
+        } else {
+            return uniformCurve.evaluateLUT(lifePercent) + baseSpeed;
+        }
+    }
+
+    /**
+     * 设置当前所有曲线的查找表采样数
+     *
+     * @param resolution 采样数
+     * @return this（链式调用）
+     */
+    public RotationOverLifetime setLUTResolution(int resolution) {
+        uniformCurve.setLUTResolution(resolution);
+        curveX.setLUTResolution(resolution);
+        curveY.setLUTResolution(resolution);
+        curveZ.setLUTResolution(resolution);
+        return this;
+    }
+
     /**
      * 转换为数组（用于上传到 GPU）
      *
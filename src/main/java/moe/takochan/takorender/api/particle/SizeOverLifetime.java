@@ -121,6 +121,27 @@ public class SizeOverLifetime {
         return curve.evaluate(lifePercent) * baseMultiplier;
     }
 
+    /**
+     * 通过查找表采样大小（O(1)，不分配内存，见 {@link AnimationCurve#evaluateLUT(float)}）
+     *
+     * @param lifePercent 生命周期百分比 (0-1)
+     * @return 大小倍率（已乘以 baseMultiplier）
+     */
+    public float evaluateLUT(float lifePercent) {
+        return curve.evaluateLUT(lifePercent) * baseMultiplier;
+    }
+
+    /**
+     * 设置当前曲线的查找表采样数
+     *
+     * @param resolution 采样数
+     * @return this（链式调用）
+     */
+    public SizeOverLifetime setLUTResolution(int resolution) {
+        curve.setLUTResolution(resolution);
+        return this;
+    }
+
     /**
      * 转换为数组（用于上传到 GPU）
      *
@@ -217,13 +217,63 @@ public class VelocityOverLifetime {
      * @return [x, y, z] 速度倍率数组
      */
     public float[] evaluate(float lifePercent) {
+        return evaluate(lifePercent, new float[3]);
+    }
+
+    /**
+     * 在指定生命周期采样速度倍率，写入已有数组（不分配内存）
+     *
+     * @param lifePercent 生命周期百分比 (0-1)
+     * @param dest        目标数组（至少 3 个元素）
+     * @return dest
+     */
+    public float[] evaluate(float lifePercent, float[] dest) {
         if (separateAxes) {
-            return new float[] { curveX.evaluate(lifePercent), curveY.evaluate(lifePercent),
-                curveZ.evaluate(lifePercent) };
+            dest[0] = curveX.evaluate(lifePercent);
+            dest[1] = curveY.evaluate(lifePercent);
+            dest[2] = curveZ.evaluate(lifePercent);
         } else {
             float v = uniformCurve.evaluate(lifePercent);
-            return new float[] { v, v, v };
+            dest[0] = v;
+            dest[1] = v;
+            dest[2] = v;
+        }
+        return dest;
+    }
+
+    /**
+     * 通过查找表采样速度倍率（O(1)，不分配内存，见 {@link AnimationCurve#evaluateLUT(float)}）
+     *
+     * @param lifePercent 生命周期百分比 (0-1)
+     * @param dest        目标数组（至少 3 个元素）
+     * @return dest
+     */
+    public float[] evaluateLUT(float lifePercent, float[] dest) {
+        if (separateAxes) {
+            dest[0] = curveX.evaluateLUT(lifePercent);
+            dest[1] = curveY.evaluateLUT(lifePercent);
+            dest[2] = curveZ.evaluateLUT(lifePercent);
+        } else {
+            float v = uniformCurve.evaluateLUT(lifePercent);
+            dest[0] = v;
+            dest[1] = v;
+            dest[2] = v;
         }
+        return dest;
+    }
+
+    /**
+     * 设置当前所有曲线的查找表采样数
+     *
+     * @param resolution 采样数
+     * @return this（链式调用）
+     */
+    public VelocityOverLifetime setLUTResolution(int resolution) {
+        uniformCurve.setLUTResolution(resolution);
+        curveX.setLUTResolution(resolution);
+        curveY.setLUTResolution(resolution);
+        curveZ.setLUTResolution(resolution);
+        return this;
     }
 
     /**
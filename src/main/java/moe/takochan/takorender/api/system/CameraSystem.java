@@ -16,6 +16,7 @@ import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
 import moe.takochan.takorender.api.ecs.RequiresComponent;
+import moe.takochan.takorender.core.render.CameraUniformBuffer;
 
 /**
  * 相机系统 - 负责更新相机的投影矩阵和视图矩阵
@@ -31,6 +32,7 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
  * <li>更新投影矩阵（透视/正交）</li>
  * <li>根据 TransformComponent 更新视图矩阵</li>
  * <li>计算视图投影矩阵（VP = P * V）</li>
+ * <li>把活动相机写入 {@link CameraUniformBuffer}（每帧一次，供着色器的 TakoCamera 块读取）</li>
  * <li>可选的 Minecraft 相机同步</li>
  * </ul>
  *
@@ -58,6 +60,9 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
 @RequiresComponent(CameraComponent.class)
 public class CameraSystem extends GameSystem {
 
+    /** 相机世界坐标（复用，避免每帧分配） */
+    private final Vector3f worldPosition = new Vector3f();
+
     @Override
     public Phase getPhase() {
         return Phase.UPDATE;
@@ -98,6 +103,10 @@ public class CameraSystem extends GameSystem {
                 .set(camera.getProjectionMatrix())
                 .mul(camera.getViewMatrix());
 
+            if (camera.isActive()) {
+                CameraUniformBuffer.update(camera, transform.getWorldPosition(worldPosition));
+            }
+
             camera.clearDirtyFlags();
         }
     }
@@ -129,7 +138,7 @@ public class CameraSystem extends GameSystem {
      * 更新视图矩阵
      */
     private void updateViewMatrix(CameraComponent camera, TransformComponent transform) {
-        Vector3f position = transform.getPosition();
+        Vector3f position = transform.getWorldPosition(worldPosition);
         Vector3f forward = transform.getForward();
         Vector3f up = transform.getUp();
 
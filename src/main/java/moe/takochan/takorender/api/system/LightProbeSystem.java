@@ -40,11 +40,19 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
  * Priority 0，在 TransformSystem (-1000) 之后、CameraSystem (100) 之前执行，
  * 确保位置数据已更新且光照数据在渲染前可用。
  * </p>
+ *
+ * <p>
+ * <b>线程</b>: 光照查询读取原版区块存储（非线程安全），因此本系统不声明 ComponentAccess，
+ * 始终在主线程独占执行。
+ * </p>
  */
 @SideOnly(Side.CLIENT)
 @RequiresComponent({ LightProbeComponent.class, TransformComponent.class })
 public class LightProbeSystem extends GameSystem {
 
+    /** 世界坐标临时向量（复用避免每帧分配；本系统只在主线程执行） */
+    private final Vector3f tempPosition = new Vector3f();
+
     @Override
     public Phase getPhase() {
         return Phase.UPDATE;
@@ -87,7 +95,7 @@ public class LightProbeSystem extends GameSystem {
             return;
         }
 
-        Vector3f pos = transform.getPosition();
+        Vector3f pos = transform.getWorldPosition(tempPosition);
         int x = MathHelper.floor_double(pos.x);
         int y = MathHelper.floor_double(pos.y);
         int z = MathHelper.floor_double(pos.z);
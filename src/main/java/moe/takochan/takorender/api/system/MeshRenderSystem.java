@@ -2,9 +2,7 @@ package moe.takochan.takorender.api.system;
 
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
 
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
@@ -32,6 +30,8 @@ import moe.takochan.takorender.api.graphics.Mesh;
 import moe.takochan.takorender.api.graphics.RenderQueue;
 import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
 import moe.takochan.takorender.core.gl.GLStateContext;
+import moe.takochan.takorender.core.render.CameraUniformBuffer;
+import moe.takochan.takorender.core.render.RenderCommandList;
 
 /**
  * 网格渲染系统 - 负责渲染所有拥有 MeshRendererComponent 的实体
@@ -50,8 +50,12 @@ import moe.takochan.takorender.core.gl.GLStateContext;
  * <b>渲染优化</b>:
  * </p>
  * <ul>
- * <li>按材质排序减少状态切换</li>
- * <li>透明物体按深度排序确保正确混合</li>
+ * <li>每个绘制在收集时编码一次 64 位排序键（队列、sortingOrder、着色器、材质、网格、量化深度），
+ * 用基数排序代替逐次比较时查询组件的比较器（见 {@link RenderCommandList}）</li>
+ * <li>不透明物体按着色器 / 材质 / 网格分组减少状态切换，组内由近到远</li>
+ * <li>透明物体在同一 sortingOrder 内由远到近排序确保正确混合</li>
+ * <li>相机矩阵由 {@link CameraUniformBuffer} 每帧上传一次，声明了 TakoCamera 块的着色器在材质切换时
+ * 不再上传 uView / uProjection；未声明该块的着色器仍按 uniform 设置</li>
  * <li>使用 GLStateContext 管理 GL 状态</li>
  * </ul>
  */
@@ -59,6 +63,14 @@ import moe.takochan.takorender.core.gl.GLStateContext;
 @RequiresComponent(MeshRendererComponent.class)
 public class MeshRenderSystem extends GameSystem {
 
+    /** uniform 句柄 */
+    private static final int U_VIEW = ShaderProgram.uniformId("uView");
+    private static final int U_PROJECTION = ShaderProgram.uniformId("uProjection");
+    private static final int U_MODEL = ShaderProgram.uniformId("uModel");
+    private static final int U_BLOCK_LIGHT = ShaderProgram.uniformId("uBlockLight");
+    private static final int U_SKY_LIGHT = ShaderProgram.uniformId("uSkyLight");
+    private static final int U_COMBINED_LIGHT = ShaderProgram.uniformId("uCombinedLight");
+
     /** MVP 矩阵缓冲区（复用避免每帧分配） */
     private final FloatBuffer modelMatrixBuffer = BufferUtils.createFloatBuffer(16);
     private final FloatBuffer viewMatrixBuffer = BufferUtils.createFloatBuffer(16);
@@ -69,14 +81,16 @@ public class MeshRenderSystem extends GameSystem {
     private final Vector3f tempPosition = new Vector3f();
     private final Vector3f cameraPosition = new Vector3f();
 
-    /** 按队列分组的渲染列表（复用避免每帧分配） */
-    private final Map<RenderQueue, List<Entity>> queuedRenderables = new EnumMap<>(RenderQueue.class);
+    /** 渲染命令（排序键 + 下标，复用避免每帧分配） */
+    private final RenderCommandList commands = new RenderCommandList();
 
-    public MeshRenderSystem() {
-        for (RenderQueue queue : RenderQueue.values()) {
-            queuedRenderables.put(queue, new ArrayList<>());
-        }
-    }
+    /** 命令载荷：按下标并行存放的实体、网格（已解析 LOD）和材质 */
+    private final List<Entity> drawEntities = new ArrayList<>();
+    private final List<Mesh> drawMeshes = new ArrayList<>();
+    private final List<Material> drawMaterials = new ArrayList<>();
+
+    /** 相机远裁剪面（用于深度量化） */
+    private float cameraFar;
 
     @Override
     public Phase getPhase() {
@@ -95,10 +109,8 @@ public class MeshRenderSystem extends GameSystem {
             return;
         }
 
-        CameraComponent camera = cameraEntity.getComponent(CameraComponent.class)
-            .orElse(null);
-        TransformComponent cameraTransform = cameraEntity.getComponent(TransformComponent.class)
-            .orElse(null);
+        CameraComponent camera = cameraEntity.getComponentOrNull(CameraComponent.class);
+        TransformComponent cameraTransform = cameraEntity.getComponentOrNull(TransformComponent.class);
 
         if (camera == null) {
             return;
@@ -112,22 +124,18 @@ public class MeshRenderSystem extends GameSystem {
             cameraPosition.set(0, 0, 0);
         }
 
-        // 收集并分组可渲染实体
-        collectAndGroupRenderables();
+        cameraFar = camera.getFarPlane();
 
-        // 检查是否有可渲染物体
-        boolean hasRenderables = false;
-        for (List<Entity> list : queuedRenderables.values()) {
-            if (!list.isEmpty()) {
-                hasRenderables = true;
-                break;
-            }
-        }
-        if (!hasRenderables) {
+        // 收集可渲染实体并编码排序键
+        collectRenderCommands();
+        if (commands.isEmpty()) {
+            clearCommands();
             return;
         }
+        commands.sort();
 
-        // 缓存相机矩阵
+        // 上传相机 UBO；矩阵缓冲区供未声明 TakoCamera 块的着色器使用
+        CameraUniformBuffer.bind(camera);
         Matrix4f viewMatrix = camera.getViewMatrix();
         Matrix4f projMatrix = camera.getProjectionMatrix();
 
@@ -152,11 +160,8 @@ public class MeshRenderSystem extends GameSystem {
             ctx.setBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
             ctx.enableCullFace();
 
-            // 按队列顺序渲染
-            renderQueue(RenderQueue.BACKGROUND, ctx);
-            renderQueue(RenderQueue.OPAQUE, ctx);
-            renderQueue(RenderQueue.TRANSPARENT, ctx);
-            renderQueue(RenderQueue.OVERLAY, ctx);
+            // 按排序键顺序渲染（队列在键的最高位，相同队列的命令连续）
+            renderCommands(ctx);
         }
 
         // 结束后处理捕获（如果启用）
@@ -164,40 +169,42 @@ public class MeshRenderSystem extends GameSystem {
             postProcess.endCapture();
         }
 
-        // 清空队列（下一帧重新收集）
-        for (List<Entity> list : queuedRenderables.values()) {
-            list.clear();
-        }
+        // 清空命令（下一帧重新收集）
+        clearCommands();
+    }
+
+    private void clearCommands() {
+        commands.clear();
+        drawEntities.clear();
+        drawMeshes.clear();
+        drawMaterials.clear();
     }
 
     /**
-     * 收集并分组所有可渲染实体
+     * 收集所有可渲染实体，每个实体编码一次排序键
      */
-    private void collectAndGroupRenderables() {
+    private void collectRenderCommands() {
         Layer currentLayer = getWorld().getCurrentLayer();
         int activeDimension = getWorld().getSceneManager()
             .getActiveDimensionId();
 
         for (Entity entity : getRequiredEntities()) {
             // 跳过 BATCHING 实体（由 InstancedRenderSystem 处理）
-            StaticFlagsComponent flags = entity.getComponent(StaticFlagsComponent.class)
-                .orElse(null);
+            StaticFlagsComponent flags = entity.getComponentOrNull(StaticFlagsComponent.class);
             if (flags != null && flags.isBatchable()) {
                 continue;
             }
 
             // 检查可见性
-            VisibilityComponent visibility = entity.getComponent(VisibilityComponent.class)
-                .orElse(null);
+            VisibilityComponent visibility = entity.getComponentOrNull(VisibilityComponent.class);
             if (visibility != null && !visibility.shouldRender()) {
                 continue;
             }
 
             // 检查 Layer 筛选
             if (currentLayer != null) {
-                Layer entityLayer = entity.getComponent(LayerComponent.class)
-                    .map(LayerComponent::getLayer)
-                    .orElse(Layer.WORLD_3D);
+                LayerComponent layer = entity.getComponentOrNull(LayerComponent.class);
+                Layer entityLayer = layer != null ? layer.getLayer() : Layer.WORLD_3D;
                 if (entityLayer != currentLayer) {
                     continue;
                 }
@@ -205,159 +212,89 @@ public class MeshRenderSystem extends GameSystem {
 
             // 检查维度筛选（仅 WORLD_3D 需要）
             if (currentLayer == Layer.WORLD_3D) {
-                DimensionComponent dimension = entity.getComponent(DimensionComponent.class)
-                    .orElse(null);
+                DimensionComponent dimension = entity.getComponentOrNull(DimensionComponent.class);
                 if (dimension != null && dimension.getDimensionId() != activeDimension) {
                     continue;
                 }
             }
 
-            MeshRendererComponent renderer = entity.getComponent(MeshRendererComponent.class)
-                .orElse(null);
-            if (renderer != null && renderer.getMesh() != null && renderer.getMaterial() != null) {
-                RenderQueue queue = renderer.getRenderQueue();
-                queuedRenderables.get(queue)
-                    .add(entity);
+            MeshRendererComponent renderer = entity.getComponentOrNull(MeshRendererComponent.class);
+            TransformComponent transform = entity.getComponentOrNull(TransformComponent.class);
+            if (renderer == null || transform == null) {
+                continue;
             }
-        }
-    }
 
-    /**
-     * 渲染指定队列
-     */
-    private void renderQueue(RenderQueue queue, GLStateContext ctx) {
-        List<Entity> entities = queuedRenderables.get(queue);
-        if (entities.isEmpty()) {
-            return;
-        }
-
-        // 根据队列类型设置 GL 状态
-        configureQueueState(queue, ctx);
-
-        // 排序
-        sortEntities(entities, queue);
-
-        // 渲染
-        renderMeshes(entities);
-    }
-
-    /**
-     * 根据队列类型配置 GL 状态
-     */
-    private void configureQueueState(RenderQueue queue, GLStateContext ctx) {
-        switch (queue) {
-            case BACKGROUND:
-                // 背景：禁用深度写入，保持深度测试
-                ctx.setDepthMask(false);
-                ctx.enableDepthTest();
-                break;
-
-            case OPAQUE:
-                // 不透明：启用深度写入和测试
-                ctx.setDepthMask(true);
-                ctx.enableDepthTest();
-                break;
-
-            case TRANSPARENT:
-                // 透明：禁用深度写入，保持深度测试
-                ctx.setDepthMask(false);
-                ctx.enableDepthTest();
-                ctx.enableBlend();
-                ctx.setBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-                break;
+            // 优先使用 LODComponent 的 Mesh
+            Mesh mesh = null;
+            LODComponent lod = entity.getComponentOrNull(LODComponent.class);
+            if (lod != null && lod.getLevelCount() > 0) {
+                mesh = lod.getActiveMesh();
+            }
+            if (mesh == null) {
+                mesh = renderer.getMesh();
+            }
 
-            case OVERLAY:
-                // 叠加：禁用深度测试
-                ctx.disableDepthTest();
-                ctx.setDepthMask(false);
-                break;
-        }
-    }
+            Material material = renderer.getMaterial();
+            if (mesh == null || material == null || mesh.isDisposed()) {
+                continue;
+            }
 
-    /**
-     * 排序实体
-     */
-    private void sortEntities(List<Entity> entities, RenderQueue queue) {
-        if (queue.requiresDepthSorting()) {
-            // 透明物体：从后往前排序（距离相机远的先渲染）
-            entities.sort((e1, e2) -> {
-                float dist1 = getDistanceToCamera(e1);
-                float dist2 = getDistanceToCamera(e2);
-                // 从远到近排序
-                int distCompare = Float.compare(dist2, dist1);
-                if (distCompare != 0) {
-                    return distCompare;
-                }
-                // 相同距离按 sortingOrder
-                return compareSortingOrder(e1, e2);
-            });
-        } else {
-            // 非透明物体：按 sortingOrder 排序
-            entities.sort(this::compareSortingOrder);
+            int payload = drawEntities.size();
+            drawEntities.add(entity);
+            drawMeshes.add(mesh);
+            drawMaterials.add(material);
+            commands.add(encodeKey(renderer, transform, mesh, material), payload);
         }
     }
 
     /**
-     * 比较 sortingOrder
+     * 编码排序键
      */
-    private int compareSortingOrder(Entity e1, Entity e2) {
-        int order1 = e1.getComponent(MeshRendererComponent.class)
-            .map(MeshRendererComponent::getSortingOrder)
-            .orElse(0);
-        int order2 = e2.getComponent(MeshRendererComponent.class)
-            .map(MeshRendererComponent::getSortingOrder)
-            .orElse(0);
-        return Integer.compare(order1, order2);
-    }
-
-    /**
-     * 计算实体到相机的距离
-     */
-    private float getDistanceToCamera(Entity entity) {
-        TransformComponent transform = entity.getComponent(TransformComponent.class)
-            .orElse(null);
-        if (transform == null) {
-            return 0;
-        }
-
+    private long encodeKey(MeshRendererComponent renderer, TransformComponent transform, Mesh mesh,
+        Material material) {
+        RenderQueue queue = renderer.getRenderQueue();
         transform.getWorldMatrix()
             .getTranslation(tempPosition);
-        return tempPosition.distanceSquared(cameraPosition);
+        int depth = RenderCommandList.quantizeDepth(tempPosition.distance(cameraPosition), cameraFar);
+        int shaderId = commands.shaderId(material.getShader());
+        int materialId = commands.materialId(material);
+
+        if (queue.requiresDepthSorting()) {
+            return RenderCommandList
+                .transparentKey(queue.ordinal(), renderer.getSortingOrder(), shaderId, materialId, depth);
+        }
+        return RenderCommandList.opaqueKey(
+            queue.ordinal(),
+            renderer.getSortingOrder(),
+            shaderId,
+            materialId,
+            commands.meshId(mesh),
+            depth);
     }
 
     /**
-     * 渲染网格列表
+     * 按排序后的顺序渲染所有命令，队列变化时切换 GL 状态
      */
-    private void renderMeshes(List<Entity> renderables) {
+    private void renderCommands(GLStateContext ctx) {
+        RenderQueue[] queues = RenderQueue.values();
+        int currentQueue = -1;
         Material lastMaterial = null;
         ShaderProgram currentShader = null;
 
-        for (Entity entity : renderables) {
-            MeshRendererComponent renderer = entity.getComponent(MeshRendererComponent.class)
-                .orElse(null);
-            TransformComponent transform = entity.getComponent(TransformComponent.class)
-                .orElse(null);
-
-            if (renderer == null || transform == null) {
-                continue;
-            }
-
-            // 优先使用 LODComponent 的 Mesh
-            Mesh mesh = null;
-            LODComponent lod = entity.getComponent(LODComponent.class)
-                .orElse(null);
-            if (lod != null && lod.getLevelCount() > 0) {
-                mesh = lod.getActiveMesh();
-            }
-            if (mesh == null) {
-                mesh = renderer.getMesh();
+        for (int i = 0, count = commands.size(); i < count; i++) {
+            int queue = RenderCommandList.queueOf(commands.getKey(i));
+            if (queue != currentQueue) {
+                // 根据队列类型设置 GL 状态
+                configureQueueState(queues[queue], ctx);
+                currentQueue = queue;
+                lastMaterial = null;
             }
 
-            Material material = renderer.getMaterial();
-
-            if (mesh == null || material == null || mesh.isDisposed()) {
-                continue;
-            }
+            int payload = commands.getPayload(i);
+            Entity entity = drawEntities.get(payload);
+            Mesh mesh = drawMeshes.get(payload);
+            Material material = drawMaterials.get(payload);
+            TransformComponent transform = entity.getComponentOrNull(TransformComponent.class);
 
             // 材质切换优化：只在材质变化时重新绑定
             if (material != lastMaterial) {
@@ -365,12 +302,12 @@ public class MeshRenderSystem extends GameSystem {
                 currentShader = material.getShader();
                 lastMaterial = material;
 
-                // 设置相机矩阵（每次材质切换时）
-                if (currentShader != null && currentShader.isValid()) {
+                // 相机矩阵来自 TakoCamera 块，未声明该块时按 uniform 设置
+                if (currentShader != null && currentShader.isValid() && !CameraUniformBuffer.attach(currentShader)) {
                     viewMatrixBuffer.rewind();
-                    currentShader.setUniformMatrix4("uView", false, viewMatrixBuffer);
+                    currentShader.setUniformMatrix4(U_VIEW, false, viewMatrixBuffer);
                     projMatrixBuffer.rewind();
-                    currentShader.setUniformMatrix4("uProjection", false, projMatrixBuffer);
+                    currentShader.setUniformMatrix4(U_PROJECTION, false, projMatrixBuffer);
                 }
             }
 
@@ -379,20 +316,19 @@ public class MeshRenderSystem extends GameSystem {
                 tempModelMatrix.set(transform.getWorldMatrix());
                 modelMatrixBuffer.clear();
                 tempModelMatrix.get(modelMatrixBuffer);
-                currentShader.setUniformMatrix4("uModel", false, modelMatrixBuffer);
+                currentShader.setUniformMatrix4(U_MODEL, false, modelMatrixBuffer);
 
                 // 设置光照 uniform（如果有 LightProbeComponent）
-                LightProbeComponent probe = entity.getComponent(LightProbeComponent.class)
-                    .orElse(null);
+                LightProbeComponent probe = entity.getComponentOrNull(LightProbeComponent.class);
                 if (probe != null) {
-                    currentShader.setUniformFloat("uBlockLight", probe.getBlockLight());
-                    currentShader.setUniformFloat("uSkyLight", probe.getSkyLight());
-                    currentShader.setUniformFloat("uCombinedLight", probe.getCombinedLight());
+                    currentShader.setUniformFloat(U_BLOCK_LIGHT, probe.getBlockLight());
+                    currentShader.setUniformFloat(U_SKY_LIGHT, probe.getSkyLight());
+                    currentShader.setUniformFloat(U_COMBINED_LIGHT, probe.getCombinedLight());
                 } else {
                     // 无光照探针时使用全亮度
-                    currentShader.setUniformFloat("uBlockLight", 1.0f);
-                    currentShader.setUniformFloat("uSkyLight", 1.0f);
-                    currentShader.setUniformFloat("uCombinedLight", 1.0f);
+                    currentShader.setUniformFloat(U_BLOCK_LIGHT, 1.0f);
+                    currentShader.setUniformFloat(U_SKY_LIGHT, 1.0f);
+                    currentShader.setUniformFloat(U_COMBINED_LIGHT, 1.0f);
                 }
             }
 
@@ -406,6 +342,39 @@ public class MeshRenderSystem extends GameSystem {
         ShaderProgram.unbind();
     }
 
+    /**
+     * 根据队列类型配置 GL 状态
+     */
+    private void configureQueueState(RenderQueue queue, GLStateContext ctx) {
+        switch (queue) {
+            case BACKGROUND:
+                // 背景：禁用深度写入，保持深度测试
+                ctx.setDepthMask(false);
+                ctx.enableDepthTest();
+                break;
+
+            case OPAQUE:
+                // 不透明：启用深度写入和测试
+                ctx.setDepthMask(true);
+                ctx.enableDepthTest();
+                break;
+
+            case TRANSPARENT:
+                // 透明：禁用深度写入，保持深度测试
+                ctx.setDepthMask(false);
+                ctx.enableDepthTest();
+                ctx.enableBlend();
+                ctx.setBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+                break;
+
+            case OVERLAY:
+                // 叠加：禁用深度测试
+                ctx.disableDepthTest();
+                ctx.setDepthMask(false);
+                break;
+        }
+    }
+
     /**
      * 查找活动相机
      */
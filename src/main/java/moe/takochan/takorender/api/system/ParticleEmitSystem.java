@@ -1,7 +1,5 @@
 package moe.takochan.takorender.api.system;
 
-import java.util.Random;
-
 import org.joml.Vector3f;
 
 import cpw.mods.fml.relauncher.Side;
@@ -18,6 +16,7 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
 import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
 import moe.takochan.takorender.api.particle.EmitterShape;
 import moe.takochan.takorender.api.particle.ParticleEmitter;
+import moe.takochan.takorender.api.particle.ParticleRandom;
 import moe.takochan.takorender.core.particle.ParticleBuffer;
 import moe.takochan.takorender.core.particle.ParticleCPU;
 
@@ -41,7 +40,8 @@ import moe.takochan.takorender.core.particle.ParticleCPU;
     TransformComponent.class })
 public class ParticleEmitSystem extends GameSystem {
 
-    private final Random random = new Random();
+    /** 发射数据暂存（跨帧复用，只增不减） */
+    private float[] emitScratch = new float[0];
 
     @Override
     public Phase getPhase() {
@@ -84,6 +84,15 @@ public class ParticleEmitSystem extends GameSystem {
             return;
         }
 
+        if (!state.isStarted()) {
+            // 种子只在第一次处理时写入，之后序列由该实体独占推进
+            if (emitter.hasSeed()) {
+                state.getRandom()
+                    .setSeed(emitter.getSeed());
+            }
+            state.setStarted(true);
+        }
+
         if (!buffer.isInitialized()) {
             initializeBuffer(buffer);
         }
@@ -104,7 +113,7 @@ public class ParticleEmitSystem extends GameSystem {
             return;
         }
 
-        Vector3f position = transform.getPosition();
+        Vector3f position = transform.getWorldPosition(new Vector3f());
         emitParticles(emitter, buffer, state, position, emitCount);
 
         processSubEmitters(emitter, buffer, state);
@@ -151,7 +160,7 @@ public class ParticleEmitSystem extends GameSystem {
         int count = entry.emitCount;
         float inheritVelocity = entry.inheritVelocity;
 
-        float[] particles = new float[count * ParticleBuffer.PARTICLE_SIZE_FLOATS];
+        float[] particles = acquireScratch(count);
         Vector3f position = new Vector3f(x, y, z);
 
         for (int i = 0; i < count; i++) {
@@ -162,24 +171,7 @@ public class ParticleEmitSystem extends GameSystem {
         if (buffer.isUseCPUFallback()) {
             ParticleCPU cpuBuffer = buffer.getCpuBuffer();
             if (cpuBuffer != null) {
-                for (int i = 0; i < count; i++) {
-                    int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
-                    cpuBuffer.emit(
-                        particles[base],
-                        particles[base + 1],
-                        particles[base + 2],
-                        particles[base + 4],
-                        particles[base + 5],
-                        particles[base + 6],
-                        particles[base + 3],
-                        particles[base + 12],
-                        particles[base + 8],
-                        particles[base + 9],
-                        particles[base + 10],
-                        particles[base + 11],
-                        particles[base + 13],
-                        particles[base + 15]);
-                }
+                cpuBuffer.emit(particles, count);
             }
         } else {
             ParticleBuffer gpuBuffer = buffer.getGpuBuffer();
@@ -198,7 +190,8 @@ public class ParticleEmitSystem extends GameSystem {
     private void generateSubEmitterParticle(ParticleEmitter subEmitter, ParticleStateComponent state, Vector3f position,
         float[] particles, int offset, float parentVelMag, float inheritVelocity) {
 
-        float lifetime = randomRange(subEmitter.getLifetimeMin(), subEmitter.getLifetimeMax());
+        ParticleRandom random = state.getRandom();
+        float lifetime = randomRange(random, subEmitter.getLifetimeMin(), subEmitter.getLifetimeMax());
         particles[offset] = position.x;
         particles[offset + 1] = position.y;
         particles[offset + 2] = position.z;
@@ -239,12 +232,23 @@ public class ParticleEmitSystem extends GameSystem {
         particles[offset + 10] = subEmitter.getColorB();
         particles[offset + 11] = subEmitter.getColorA();
 
-        particles[offset + 12] = randomRange(subEmitter.getSizeMin(), subEmitter.getSizeMax());
+        particles[offset + 12] = randomRange(random, subEmitter.getSizeMin(), subEmitter.getSizeMax());
         particles[offset + 13] = 0;
         particles[offset + 14] = 0;
         particles[offset + 15] = 0;
     }
 
+    /**
+     * 获取至少容纳 count 个粒子的暂存数组
+     */
+    private float[] acquireScratch(int count) {
+        int required = count * ParticleBuffer.PARTICLE_SIZE_FLOATS;
+        if (emitScratch.length < required) {
+            emitScratch = new float[Math.max(required, emitScratch.length * 2)];
+        }
+        return emitScratch;
+    }
+
     /**
      * 初始化粒子缓冲区
      *
@@ -264,6 +268,7 @@ public class ParticleEmitSystem extends GameSystem {
             buffer.setUseCPUFallback(false);
         } else {
             ParticleCPU cpuBuffer = new ParticleCPU(buffer.getMaxParticles());
+            cpuBuffer.setSoAEnabled(buffer.isCpuSoA());
             buffer.setCpuBuffer(cpuBuffer);
             buffer.setUseCPUFallback(true);
             TakoRenderMod.LOG.info("ParticleEmitSystem: Using CPU fallback (SSBO not supported)");
@@ -302,7 +307,7 @@ public class ParticleEmitSystem extends GameSystem {
     private void emitParticles(ParticleEmitterComponent emitter, ParticleBufferComponent buffer,
         ParticleStateComponent state, Vector3f basePosition, int count) {
 
-        float[] particles = new float[count * ParticleBuffer.PARTICLE_SIZE_FLOATS];
+        float[] particles = acquireScratch(count);
 
         for (int i = 0; i < count; i++) {
             generateParticle(emitter, state, basePosition, particles, i * ParticleBuffer.PARTICLE_SIZE_FLOATS);
@@ -311,24 +316,7 @@ public class ParticleEmitSystem extends GameSystem {
         if (buffer.isUseCPUFallback()) {
             ParticleCPU cpuBuffer = buffer.getCpuBuffer();
             if (cpuBuffer != null) {
-                for (int i = 0; i < count; i++) {
-                    int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
-                    cpuBuffer.emit(
-                        particles[base],
-                        particles[base + 1],
-                        particles[base + 2],
-                        particles[base + 4],
-                        particles[base + 5],
-                        particles[base + 6],
-                        particles[base + 3],
-                        particles[base + 12],
-                        particles[base + 8],
-                        particles[base + 9],
-                        particles[base + 10],
-                        particles[base + 11],
-                        particles[base + 13],
-                        particles[base + 15]);
-                }
+                cpuBuffer.emit(particles, count);
             }
         } else {
             ParticleBuffer gpuBuffer = buffer.getGpuBuffer();
@@ -341,15 +329,16 @@ public class ParticleEmitSystem extends GameSystem {
     private void generateParticle(ParticleEmitterComponent emitter, ParticleStateComponent state, Vector3f basePosition,
         float[] particles, int offset) {
 
-        float[] localPos = generatePosition(emitter);
+        ParticleRandom random = state.getRandom();
+        float[] localPos = generatePosition(random, emitter);
         particles[offset] = localPos[0] + basePosition.x;
         particles[offset + 1] = localPos[1] + basePosition.y;
         particles[offset + 2] = localPos[2] + basePosition.z;
 
-        float lifetime = randomRange(emitter.getLifetimeMin(), emitter.getLifetimeMax());
+        float lifetime = randomRange(random, emitter.getLifetimeMin(), emitter.getLifetimeMax());
         particles[offset + 3] = lifetime;
 
-        float[] velocity = generateVelocity(emitter, localPos, basePosition);
+        float[] velocity = generateVelocity(random, emitter, localPos, basePosition);
         particles[offset + 4] = velocity[0];
         particles[offset + 5] = velocity[1];
         particles[offset + 6] = velocity[2];
@@ -360,13 +349,13 @@ public class ParticleEmitSystem extends GameSystem {
         particles[offset + 10] = emitter.getColorB();
         particles[offset + 11] = emitter.getColorA();
 
-        particles[offset + 12] = randomRange(emitter.getSizeMin(), emitter.getSizeMax());
-        particles[offset + 13] = randomRange(emitter.getRotationMin(), emitter.getRotationMax());
+        particles[offset + 12] = randomRange(random, emitter.getSizeMin(), emitter.getSizeMax());
+        particles[offset + 13] = randomRange(random, emitter.getRotationMin(), emitter.getRotationMax());
         particles[offset + 14] = 0;
-        particles[offset + 15] = randomRange(emitter.getAngularVelocityMin(), emitter.getAngularVelocityMax());
+        particles[offset + 15] = randomRange(random, emitter.getAngularVelocityMin(), emitter.getAngularVelocityMax());
     }
 
-    private float[] generatePosition(ParticleEmitterComponent emitter) {
+    private float[] generatePosition(ParticleRandom random, ParticleEmitterComponent emitter) {
         EmitterShape shape = emitter.getShape();
         float p1 = emitter.getShapeParam1();
         float p2 = emitter.getShapeParam2();
@@ -377,21 +366,21 @@ public class ParticleEmitSystem extends GameSystem {
             case POINT:
                 return new float[] { 0, 0, 0 };
             case SPHERE:
-                return fromSurface ? randomOnSphere(p1) : randomInSphere(p1);
+                return fromSurface ? randomOnSphere(random, p1) : randomInSphere(random, p1);
             case SPHERE_SURFACE:
-                return randomOnSphere(p1);
+                return randomOnSphere(random, p1);
             case HEMISPHERE:
-                return randomInHemisphere(p1);
+                return randomInHemisphere(random, p1);
             case CIRCLE:
-                return randomInCircle(p1);
+                return randomInCircle(random, p1);
             case RING:
-                return randomOnRing(p1, p2);
+                return randomOnRing(random, p1, p2);
             case CONE:
-                return randomInCone(p1, p2, p3);
+                return randomInCone(random, p1, p2, p3);
             case BOX:
-                return fromSurface ? randomOnBox(p1, p2, p3) : randomInBox(p1, p2, p3);
+                return fromSurface ? randomOnBox(random, p1, p2, p3) : randomInBox(random, p1, p2, p3);
             case CYLINDER:
-                return randomInCylinder(p1, p2);
+                return randomInCylinder(random, p1, p2);
             case LINE:
                 return new float[] { (random.nextFloat() - 0.5f) * p1, 0, 0 };
             case RECTANGLE:
@@ -401,7 +390,8 @@ public class ParticleEmitSystem extends GameSystem {
         }
     }
 
-    private float[] generateVelocity(ParticleEmitterComponent emitter, float[] localPos, Vector3f basePosition) {
+    private float[] generateVelocity(ParticleRandom random, ParticleEmitterComponent emitter, float[] localPos,
+        Vector3f basePosition) {
         float vx = emitter.getVelocityX();
         float vy = emitter.getVelocityY();
         float vz = emitter.getVelocityZ();
@@ -417,7 +407,7 @@ public class ParticleEmitSystem extends GameSystem {
                 vy += dy * emitter.getSpeed();
                 vz += dz * emitter.getSpeed();
             } else {
-                float[] dir = randomOnSphere(1.0f);
+                float[] dir = randomOnSphere(random, 1.0f);
                 vx += dir[0] * emitter.getSpeed();
                 vy += dir[1] * emitter.getSpeed();
                 vz += dir[2] * emitter.getSpeed();
@@ -434,7 +424,7 @@ public class ParticleEmitSystem extends GameSystem {
         return new float[] { vx, vy, vz };
     }
 
-    private float[] randomInSphere(float radius) {
+    private float[] randomInSphere(ParticleRandom random, float radius) {
         float x, y, z;
         do {
             x = random.nextFloat() * 2 - 1;
@@ -444,7 +434,7 @@ public class ParticleEmitSystem extends GameSystem {
         return new float[] { x * radius, y * radius, z * radius };
     }
 
-    private float[] randomOnSphere(float radius) {
+    private float[] randomOnSphere(ParticleRandom random, float radius) {
         float theta = random.nextFloat() * 2 * (float) Math.PI;
         float phi = (float) Math.acos(2 * random.nextFloat() - 1);
         float sinPhi = (float) Math.sin(phi);
@@ -452,37 +442,37 @@ public class ParticleEmitSystem extends GameSystem {
             radius * sinPhi * (float) Math.sin(theta) };
     }
 
-    private float[] randomInHemisphere(float radius) {
-        float[] pos = randomInSphere(radius);
+    private float[] randomInHemisphere(ParticleRandom random, float radius) {
+        float[] pos = randomInSphere(random, radius);
         pos[1] = Math.abs(pos[1]);
         return pos;
     }
 
-    private float[] randomInCircle(float radius) {
+    private float[] randomInCircle(ParticleRandom random, float radius) {
         float r = radius * (float) Math.sqrt(random.nextFloat());
         float theta = random.nextFloat() * 2 * (float) Math.PI;
         return new float[] { r * (float) Math.cos(theta), 0, r * (float) Math.sin(theta) };
     }
 
-    private float[] randomOnRing(float outerRadius, float innerRadius) {
+    private float[] randomOnRing(ParticleRandom random, float outerRadius, float innerRadius) {
         float r = innerRadius + (outerRadius - innerRadius) * (float) Math.sqrt(random.nextFloat());
         float theta = random.nextFloat() * 2 * (float) Math.PI;
         return new float[] { r * (float) Math.cos(theta), 0, r * (float) Math.sin(theta) };
     }
 
-    private float[] randomInCone(float radius, float angle, float height) {
+    private float[] randomInCone(ParticleRandom random, float radius, float angle, float height) {
         float h = random.nextFloat() * height;
         float r = (h / Math.max(height, 0.001f)) * radius * (float) Math.tan(angle);
         float theta = random.nextFloat() * 2 * (float) Math.PI;
         return new float[] { r * (float) Math.cos(theta), h, r * (float) Math.sin(theta) };
     }
 
-    private float[] randomInBox(float width, float height, float depth) {
+    private float[] randomInBox(ParticleRandom random, float width, float height, float depth) {
         return new float[] { (random.nextFloat() - 0.5f) * width, (random.nextFloat() - 0.5f) * height,
             (random.nextFloat() - 0.5f) * depth };
     }
 
-    private float[] randomOnBox(float width, float height, float depth) {
+    private float[] randomOnBox(ParticleRandom random, float width, float height, float depth) {
         int face = random.nextInt(6);
         float x = (random.nextFloat() - 0.5f) * width;
         float y = (random.nextFloat() - 0.5f) * height;
@@ -511,14 +501,14 @@ public class ParticleEmitSystem extends GameSystem {
         return new float[] { x, y, z };
     }
 
-    private float[] randomInCylinder(float radius, float height) {
+    private float[] randomInCylinder(ParticleRandom random, float radius, float height) {
         float r = radius * (float) Math.sqrt(random.nextFloat());
         float theta = random.nextFloat() * 2 * (float) Math.PI;
         float y = (random.nextFloat() - 0.5f) * height;
         return new float[] { r * (float) Math.cos(theta), y, r * (float) Math.sin(theta) };
     }
 
-    private float randomRange(float min, float max) {
+    private float randomRange(ParticleRandom random, float min, float max) {
         if (min == max) return min;
         return min + random.nextFloat() * (max - min);
     }
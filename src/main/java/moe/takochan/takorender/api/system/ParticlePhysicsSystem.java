@@ -1,5 +1,9 @@
 package moe.takochan.takorender.api.system;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 import moe.takochan.takorender.TakoRenderMod;
@@ -11,6 +15,7 @@ import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
 import moe.takochan.takorender.api.ecs.RequiresComponent;
+import moe.takochan.takorender.api.ecs.WorkerPool;
 import moe.takochan.takorender.core.particle.ParticleBuffer;
 import moe.takochan.takorender.core.particle.ParticleCPU;
 import moe.takochan.takorender.core.particle.ParticleCompute;
@@ -29,9 +34,16 @@ import moe.takochan.takorender.core.particle.ParticleCompute;
  * </p>
  * <ul>
  * <li>GPU 模式: 使用 Compute Shader 进行并行物理计算 (OpenGL 4.3+)</li>
- * <li>CPU 模式: 使用 ParticleCPU 进行串行物理计算 (macOS 等)</li>
- * <li>CPU 模式支持简化的力场和曲线，但不支持碰撞检测和子发射器</li>
+ * <li>CPU 模式: 使用 ParticleCPU 进行物理计算 (macOS 等)</li>
+ * <li>CPU 模式支持简化的力场、曲线和平面 / 球体 / 盒子碰撞，但不支持世界碰撞和子发射器</li>
  * </ul>
+ *
+ * <p>
+ * <b>并行模式</b>:
+ * CPU 模式的发射器先收集起来，帧末统一在 {@link WorkerPool} 上模拟：
+ * 多个发射器之间并发执行，存活粒子数达到阈值的发射器再按粒子范围拆分。
+ * 结果与串行模式逐位一致。
+ * </p>
  */
 @SideOnly(Side.CLIENT)
 @RequiresComponent({ ParticleEmitterComponent.class, ParticleBufferComponent.class, ParticleStateComponent.class,
@@ -44,6 +56,20 @@ public class ParticlePhysicsSystem extends GameSystem {
     /** 是否已初始化 */
     private boolean initialized = false;
 
+    /** 默认并行阈值：存活粒子数达到此值的发射器按范围拆分 */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    /** 范围拆分时每个任务处理的粒子数 */
+    private static final int CHUNK_SIZE = 4096;
+
+    private boolean parallel = true;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** 本帧待模拟的 CPU 发射器（跨帧复用） */
+    private final List<ParticleEmitterComponent> cpuEmitters = new ArrayList<>();
+    private final List<ParticleStateComponent> cpuStates = new ArrayList<>();
+    private final List<ParticleCPU> cpuBuffers = new ArrayList<>();
+
     @Override
     public Phase getPhase() {
         return Phase.UPDATE;
@@ -60,11 +86,48 @@ public class ParticlePhysicsSystem extends GameSystem {
         TakoRenderMod.LOG.info("ParticlePhysicsSystem: Initialized");
     }
 
+    /**
+     * 检查是否启用并行模式
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * 设置是否启用 CPU 模式的并行模拟（默认启用）
+     *
+     * @param parallel 是否并行
+     * @return this（链式调用）
+     */
+    public ParticlePhysicsSystem setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * 获取并行阈值
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 设置并行阈值（存活粒子数低于此值的发射器不拆分；所有发射器合计低于此值时整体串行）
+     *
+     * @param parallelThreshold 阈值
+     * @return this（链式调用）
+     */
+    public ParticlePhysicsSystem setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+        return this;
+    }
+
     @Override
     public void update(float deltaTime) {
         for (Entity entity : getRequiredEntities()) {
             processEntity(entity, deltaTime);
         }
+        simulateCPU(deltaTime);
     }
 
     private void processEntity(Entity entity, float deltaTime) {
@@ -152,8 +215,12 @@ public class ParticlePhysicsSystem extends GameSystem {
      * CPU 物理更新（回退模式）
      *
      * <p>
-     * 支持: 重力、风力、阻力、吸引/排斥、湍流、速度曲线、旋转曲线。
-     * 不支持: 碰撞检测、子发射器触发。
+     * 支持: 重力、风力、阻力、吸引/排斥、湍流、邻域（分离 / 对齐）、速度 / 旋转 / 颜色 / 大小曲线、平面 / 球体 / 盒子碰撞。
+     * 不支持: 世界碰撞、子发射器触发。
+     * </p>
+     *
+     * <p>
+     * 这里只登记发射器，实际模拟在 {@link #simulateCPU(float)} 中统一执行。
      * </p>
      */
     private void updateCPU(ParticleEmitterComponent emitter, ParticleBufferComponent buffer,
@@ -166,10 +233,99 @@ public class ParticlePhysicsSystem extends GameSystem {
 
         cpuBuffer.setVelocityOverLifetime(emitter.getVelocityOverLifetime());
         cpuBuffer.setRotationOverLifetime(emitter.getRotationOverLifetime());
+        cpuBuffer.setColorOverLifetime(emitter.getColorOverLifetime());
+        cpuBuffer.setSizeOverLifetime(emitter.getSizeOverLifetime());
+        cpuBuffer.setCollision(
+            emitter.getCollisionMode(),
+            emitter.getCollisionResponse(),
+            emitter.getBounciness(),
+            emitter.getBounceChance(),
+            emitter.getBounceSpread());
+        cpuBuffer.setCollisionPlane(
+            emitter.getCollisionPlaneNX(),
+            emitter.getCollisionPlaneNY(),
+            emitter.getCollisionPlaneNZ(),
+            emitter.getCollisionPlaneD());
+        cpuBuffer.setCollisionSphere(
+            emitter.getCollisionSphereCenterX(),
+            emitter.getCollisionSphereCenterY(),
+            emitter.getCollisionSphereCenterZ(),
+            emitter.getCollisionSphereRadius());
+        cpuBuffer.setCollisionBox(
+            emitter.getCollisionBoxMinX(),
+            emitter.getCollisionBoxMinY(),
+            emitter.getCollisionBoxMinZ(),
+            emitter.getCollisionBoxMaxX(),
+            emitter.getCollisionBoxMaxY(),
+            emitter.getCollisionBoxMaxZ());
+
+        cpuEmitters.add(emitter);
+        cpuStates.add(state);
+        cpuBuffers.add(cpuBuffer);
+    }
 
-        cpuBuffer.update(deltaTime, emitter.getForces());
+    /**
+     * 模拟本帧登记的所有 CPU 发射器
+     */
+    private void simulateCPU(float deltaTime) {
+        int count = cpuBuffers.size();
+        if (count == 0) {
+            return;
+        }
 
-        state.setAliveCount(cpuBuffer.getAliveCount());
+        int totalAlive = 0;
+        for (int i = 0; i < count; i++) {
+            totalAlive += cpuBuffers.get(i)
+                .getAliveCount();
+        }
+
+        try {
+            if (!parallel || totalAlive < parallelThreshold || !WorkerPool.isParallelAvailable()) {
+                for (int i = 0; i < count; i++) {
+                    cpuBuffers.get(i)
+                        .update(
+                            deltaTime,
+                            cpuEmitters.get(i)
+                                .getForces());
+                }
+            } else if (count == 1) {
+                cpuBuffers.get(0)
+                    .updateParallel(
+                        deltaTime,
+                        cpuEmitters.get(0)
+                            .getForces(),
+                        CHUNK_SIZE);
+            } else {
+                EmitterTask[] tasks = new EmitterTask[count];
+                for (int i = 0; i < count; i++) {
+                    tasks[i] = new EmitterTask(cpuBuffers.get(i), cpuEmitters.get(i), deltaTime);
+                }
+                RecursiveAction batch = new RecursiveAction() {
+
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                };
+                if (WorkerPool.isWorkerThread()) {
+                    batch.invoke();
+                } else {
+                    WorkerPool.get()
+                        .invoke(batch);
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                cpuStates.get(i)
+                    .setAliveCount(
+                        cpuBuffers.get(i)
+                            .getAliveCount());
+            }
+        } finally {
+            cpuEmitters.clear();
+            cpuStates.clear();
+            cpuBuffers.clear();
+        }
     }
 
     private void ensureComputeInitialized() {
@@ -200,4 +356,31 @@ public class ParticlePhysicsSystem extends GameSystem {
         initialized = false;
         TakoRenderMod.LOG.info("ParticlePhysicsSystem: Destroyed");
     }
+
+    /**
+     * 单个发射器的模拟任务：大发射器继续按粒子范围拆分
+     */
+    private final class EmitterTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ParticleCPU cpuBuffer;
+        private final ParticleEmitterComponent emitter;
+        private final float deltaTime;
+
+        EmitterTask(ParticleCPU cpuBuffer, ParticleEmitterComponent emitter, float deltaTime) {
+            this.cpuBuffer = cpuBuffer;
+            this.emitter = emitter;
+            this.deltaTime = deltaTime;
+        }
+
+        @Override
+        protected void compute() {
+            if (cpuBuffer.getAliveCount() >= parallelThreshold) {
+                cpuBuffer.updateParallel(deltaTime, emitter.getForces(), CHUNK_SIZE);
+            } else {
+                cpuBuffer.update(deltaTime, emitter.getForces());
+            }
+        }
+    }
 }
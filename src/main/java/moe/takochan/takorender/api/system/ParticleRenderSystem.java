@@ -35,6 +35,7 @@ import moe.takochan.takorender.api.resource.TextureManager;
 import moe.takochan.takorender.core.particle.ParticleBuffer;
 import moe.takochan.takorender.core.particle.ParticleCPU;
 import moe.takochan.takorender.core.particle.ParticleRenderer;
+import moe.takochan.takorender.core.render.CameraUniformBuffer;
 
 /**
  * 粒子渲染系统
@@ -102,10 +103,14 @@ public class ParticleRenderSystem extends GameSystem {
         CameraComponent camera = findActiveCamera();
         boolean useMinecraftCamera = (camera == null);
 
+        // 粒子着色器从 TakoCamera 块读取相机数据；没有 ECS 相机时写入 Minecraft 矩阵
         if (!useMinecraftCamera) {
             extractCameraData(camera);
+            CameraUniformBuffer.bind(camera);
         } else {
             extractMinecraftCamera();
+            CameraUniformBuffer.update(viewMatrix, projMatrix, cameraPos[0], cameraPos[1], cameraPos[2], 0.0f, 0.0f);
+            CameraUniformBuffer.bind();
         }
 
         PostProcessSystem postProcess = getWorld() != null ? getWorld().getSystem(PostProcessSystem.class) : null;
@@ -358,14 +363,8 @@ public class ParticleRenderSystem extends GameSystem {
             return null;
         }
 
-        for (Entity entity : getWorld().getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
-            if (camera != null && camera.isActive()) {
-                return camera;
-            }
-        }
-        return null;
+        Entity entity = getWorld().findActiveCamera();
+        return entity != null ? entity.getComponentOrNull(CameraComponent.class) : null;
     }
 
     private void extractCameraData(CameraComponent camera) {
@@ -18,6 +18,7 @@ import moe.takochan.takorender.api.component.PostProcessComponent;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
+import moe.takochan.takorender.api.ecs.Query;
 import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
 import moe.takochan.takorender.api.resource.ResourceHandle;
 import moe.takochan.takorender.api.resource.ShaderManager;
@@ -102,6 +103,9 @@ public class PostProcessSystem extends GameSystem {
     private ResourceHandle<ShaderProgram> blurShaderHandle;
     private ResourceHandle<ShaderProgram> compositeShaderHandle;
 
+    /** 带后处理的相机查询 */
+    private Query cameraQuery;
+
     @Override
     public Phase getPhase() {
         return Phase.RENDER;
@@ -115,12 +119,17 @@ public class PostProcessSystem extends GameSystem {
 
     @Override
     public void onInit() {
-        // 延迟初始化（需要等待 OpenGL 上下文可用）
+        // GL 资源延迟初始化（需要等待 OpenGL 上下文可用）
+        cameraQuery = getWorld().createQuery(CameraComponent.class, PostProcessComponent.class);
     }
 
     @Override
     public void onDestroy() {
         cleanup();
+        if (cameraQuery != null) {
+            cameraQuery.dispose();
+            cameraQuery = null;
+        }
     }
 
     /**
@@ -504,9 +513,12 @@ public class PostProcessSystem extends GameSystem {
      * 查找带有 PostProcessComponent 的活动相机
      */
     private Entity findActiveCameraWithPostProcess() {
-        for (Entity entity : getWorld().getEntitiesWith(CameraComponent.class, PostProcessComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
+        if (cameraQuery == null) {
+            return null;
+        }
+        for (int i = cameraQuery.size() - 1; i >= 0; i--) {
+            Entity entity = cameraQuery.get(i);
+            CameraComponent camera = entity.getComponentOrNull(CameraComponent.class);
             if (camera != null && camera.isActive()) {
                 return entity;
             }
@@ -1,15 +1,20 @@
 package moe.takochan.takorender.api.system;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
 import org.joml.Matrix4f;
-import org.joml.Quaternionf;
-import org.joml.Vector3f;
 
 import moe.takochan.takorender.api.component.BoundsComponent;
 import moe.takochan.takorender.api.component.TransformComponent;
+import moe.takochan.takorender.api.component.TransformStore;
+import moe.takochan.takorender.api.ecs.ComponentAccess;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
 import moe.takochan.takorender.api.ecs.RequiresComponent;
+import moe.takochan.takorender.api.ecs.WorkerPool;
 import moe.takochan.takorender.api.graphics.AABB;
 
 /**
@@ -29,6 +34,19 @@ import moe.takochan.takorender.api.graphics.AABB;
  * </ul>
  *
  * <p>
+ * <b>并行模式</b>:
+ * 先单线程收集本帧脏的 Transform，数量达到阈值后按块分发到 {@link WorkerPool}，
+ * 块之间不共享任何可写数据，结果与串行一致。
+ * </p>
+ *
+ * <p>
+ * <b>SoA 存储</b>:
+ * 每个 Transform 在 {@link TransformStore} 中占用一个槽位。更新时先把本地数据写入存储，
+ * 由 {@link TransformStore#compose(int[], int, int)} 按块批量计算矩阵，再写回 Component；
+ * 实例化渲染可以直接从 {@link #getStore()} 复制矩阵。
+ * </p>
+ *
+ * <p>
  * <b>使用示例</b>:
  * </p>
  *
@@ -44,9 +62,41 @@ import moe.takochan.takorender.api.graphics.AABB;
  * </pre>
  */
 @RequiresComponent(TransformComponent.class)
+@ComponentAccess(write = { TransformComponent.class, BoundsComponent.class })
 public class TransformSystem extends GameSystem {
 
-    private final Quaternionf tempQuaternion = new Quaternionf();
+    /** 默认并行阈值：待更新实体数低于此值时串行处理 */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    /** 每个并行任务处理的实体数 */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** 矩阵的 SoA 存储 */
+    private final TransformStore store = new TransformStore();
+
+    private boolean parallel = true;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** 本帧待更新的 Transform（与 dirtyBounds、transformDirty 下标对应，跨帧复用） */
+    private TransformComponent[] dirtyTransforms = new TransformComponent[0];
+    private BoundsComponent[] dirtyBounds = new BoundsComponent[0];
+    private boolean[] transformDirty = new boolean[0];
+    private int dirtyCount;
+
+    /** 需要重算矩阵的槽位号（只更新 Bounds 的元素为 -1） */
+    private int[] dirtySlots = new int[0];
+
+    /** 按深度排序用的备用数组（与上面三个数组交替使用） */
+    private TransformComponent[] sortedTransforms = new TransformComponent[0];
+    private BoundsComponent[] sortedBounds = new BoundsComponent[0];
+    private boolean[] sortedDirty = new boolean[0];
+    private int[] sortedSlots = new int[0];
+
+    /** 本帧待更新实体的最大层级深度 */
+    private int maxDepth;
+
+    /** 每个深度在待更新数组中的起始下标（长度 maxDepth + 2） */
+    private int[] depthStart = new int[2];
 
     @Override
     public Phase getPhase() {
@@ -58,65 +108,313 @@ public class TransformSystem extends GameSystem {
         return -1000;
     }
 
+    /**
+     * 检查是否启用并行模式
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * 设置是否启用并行模式（默认启用）
+     *
+     * <p>
+     * 启用后，当本帧待更新的实体数达到 {@link #getParallelThreshold()} 时，
+     * 分块在 {@link WorkerPool} 上并行计算。
+     * </p>
+     *
+     * @param parallel 是否并行
+     * @return this（链式调用）
+     */
+    public TransformSystem setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * 获取并行阈值
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 设置并行阈值（待更新实体数低于此值时串行处理）
+     *
+     * @param parallelThreshold 阈值
+     * @return this（链式调用）
+     */
+    public TransformSystem setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+        return this;
+    }
+
+    /**
+     * 获取变换数据的 SoA 存储
+     *
+     * <p>
+     * 非脏 Transform 的槽位矩阵与 {@link TransformComponent#getWorldMatrix()} 一致。
+     * </p>
+     */
+    public TransformStore getStore() {
+        return store;
+    }
+
     @Override
     public void update(float deltaTime) {
-        for (Entity entity : getRequiredEntities()) {
-            TransformComponent transform = entity.getComponent(TransformComponent.class)
-                .orElse(null);
+        collectDirty();
+        if (dirtyCount == 0) {
+            return;
+        }
+        sortByDepth();
+
+        // 逐层处理：父节点所在层全部完成后才处理子节点层
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            int from = depthStart[depth];
+            int to = depthStart[depth + 1];
+            if (from == to) {
+                continue;
+            }
+            if (parallel && to - from >= parallelThreshold && WorkerPool.isParallelAvailable()) {
+                UpdateTask task = new UpdateTask(from, to);
+                if (WorkerPool.isWorkerThread()) {
+                    // 已在工作线程上（并行调度的 UPDATE 批次），直接分治
+                    task.invoke();
+                } else {
+                    WorkerPool.get()
+                        .invoke(task);
+                }
+            } else {
+                processRange(from, to);
+            }
+        }
+
+        // 释放引用，避免持有已移除的 Component
+        Arrays.fill(dirtyTransforms, 0, dirtyCount, null);
+        Arrays.fill(dirtyBounds, 0, dirtyCount, null);
+        dirtyCount = 0;
+    }
+
+    /**
+     * 收集本帧需要更新的 Transform / Bounds（单线程）
+     */
+    private void collectDirty() {
+        dirtyCount = 0;
+        maxDepth = 0;
+        boolean detached = false;
+        List<Entity> entities = getRequiredEntities();
+        for (int i = 0, size = entities.size(); i < size; i++) {
+            Entity entity = entities.get(i);
+            TransformComponent transform = entity.getComponentOrNull(TransformComponent.class);
 
             if (transform == null) {
                 continue;
             }
 
-            boolean transformDirty = transform.isDirty();
+            // 父实体已被移除时脱离层级（保留本地变换）
+            TransformComponent parent = transform.getParent();
+            if (parent != null && parent.getEntity() != null
+                && !getWorld().isAlive(parent.getEntity())) {
+                transform.setParent(null);
+                detached = true;
+            }
 
-            if (transformDirty) {
-                updateMatrices(transform);
+            boolean dirty = transform.isDirty();
+            if (dirty && hasPendingAncestor(transform)) {
+                // 父节点世界矩阵已过期，保留脏标记，等祖先重新激活并更新后再计算
+                continue;
+            }
+            BoundsComponent bounds = entity.getComponentOrNull(BoundsComponent.class);
+            if (!dirty && (bounds == null || !bounds.isDirty())) {
+                continue;
+            }
+
+            if (dirtyCount == dirtyTransforms.length) {
+                int capacity = Math.max(256, dirtyCount << 1);
+                dirtyTransforms = Arrays.copyOf(dirtyTransforms, capacity);
+                dirtyBounds = Arrays.copyOf(dirtyBounds, capacity);
+                transformDirty = Arrays.copyOf(transformDirty, capacity);
+                dirtySlots = Arrays.copyOf(dirtySlots, capacity);
+            }
+            dirtyTransforms[dirtyCount] = transform;
+            dirtyBounds[dirtyCount] = bounds;
+            transformDirty[dirtyCount] = dirty;
+            dirtySlots[dirtyCount] = dirty ? store.acquire(transform) : -1;
+            dirtyCount++;
+            maxDepth = Math.max(maxDepth, transform.getDepth());
+        }
+
+        // 脱离层级会把子树标记为脏，其中可能有已经遍历过的实体，重新收集一次
+        if (detached) {
+            Arrays.fill(dirtyTransforms, 0, dirtyCount, null);
+            Arrays.fill(dirtyBounds, 0, dirtyCount, null);
+            collectDirty();
+        }
+    }
+
+    /**
+     * 检查祖先中是否有本帧不会更新的脏 Transform
+     *
+     * <p>
+     * 查询结果不包含未激活实体，它们的脏 Transform 不会被处理，世界矩阵仍是旧值。
+     * 脏标记会向下传播，所以只需检查祖先链上是否存在未激活且为脏的节点。
+     * </p>
+     */
+    private static boolean hasPendingAncestor(TransformComponent transform) {
+        for (TransformComponent parent = transform.getParent(); parent != null; parent = parent.getParent()) {
+            Entity owner = parent.getEntity();
+            if (parent.isDirty() && owner != null && !owner.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按层级深度对待更新数组做计数排序（稳定），保证父节点先于子节点计算
+     */
+    private void sortByDepth() {
+        if (depthStart.length < maxDepth + 2) {
+            depthStart = new int[maxDepth + 2];
+        } else {
+            Arrays.fill(depthStart, 0);
+        }
+        if (maxDepth == 0) {
+            depthStart[1] = dirtyCount;
+            return;
+        }
+
+        for (int i = 0; i < dirtyCount; i++) {
+            depthStart[dirtyTransforms[i].getDepth() + 1]++;
+        }
+        for (int d = 1; d < maxDepth + 2; d++) {
+            depthStart[d] += depthStart[d - 1];
+        }
+
+        if (sortedTransforms.length < dirtyTransforms.length) {
+            sortedTransforms = new TransformComponent[dirtyTransforms.length];
+            sortedBounds = new BoundsComponent[dirtyTransforms.length];
+            sortedDirty = new boolean[dirtyTransforms.length];
+            sortedSlots = new int[dirtyTransforms.length];
+        }
+        // depthStart[d] 用作写入游标，结束时变为 depthStart[d + 1]，之后整体回退一位
+        for (int i = 0; i < dirtyCount; i++) {
+            int index = depthStart[dirtyTransforms[i].getDepth()]++;
+            sortedTransforms[index] = dirtyTransforms[i];
+            sortedBounds[index] = dirtyBounds[i];
+            sortedDirty[index] = transformDirty[i];
+            sortedSlots[index] = dirtySlots[i];
+        }
+        System.arraycopy(depthStart, 0, depthStart, 1, maxDepth + 1);
+        depthStart[0] = 0;
+
+        Arrays.fill(dirtyTransforms, 0, dirtyCount, null);
+        Arrays.fill(dirtyBounds, 0, dirtyCount, null);
+
+        TransformComponent[] transforms = dirtyTransforms;
+        dirtyTransforms = sortedTransforms;
+        sortedTransforms = transforms;
+        BoundsComponent[] bounds = dirtyBounds;
+        dirtyBounds = sortedBounds;
+        sortedBounds = bounds;
+        boolean[] flags = transformDirty;
+        transformDirty = sortedDirty;
+        sortedDirty = flags;
+        int[] slots = dirtySlots;
+        dirtySlots = sortedSlots;
+        sortedSlots = slots;
+    }
+
+    /**
+     * 处理 [from, to) 范围内的待更新实体（可在任意线程调用，范围之间无共享数据）
+     */
+    private void processRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (dirtySlots[i] >= 0) {
+                store.load(dirtySlots[i], dirtyTransforms[i]);
+            }
+        }
+        store.compose(dirtySlots, from, to);
+
+        for (int i = from; i < to; i++) {
+            TransformComponent transform = dirtyTransforms[i];
+
+            if (transformDirty[i]) {
+                applyMatrices(transform, dirtySlots[i]);
                 transform.clearDirty();
             }
 
             // 更新 BoundsComponent 的 worldBounds
-            BoundsComponent bounds = entity.getComponent(BoundsComponent.class)
-                .orElse(null);
-            if (bounds != null && (transformDirty || bounds.isDirty())) {
+            BoundsComponent bounds = dirtyBounds[i];
+            if (bounds != null) {
                 AABB worldBounds = bounds.getLocalBounds()
-                    .transform(transform.getWorldMatrix());
+                    .transformAffine(transform.getWorldMatrix());
                 bounds.setWorldBounds(worldBounds);
             }
         }
     }
 
     /**
-     * 更新变换矩阵和方向向量
+     * 将存储中计算好的本地矩阵写回 Component，并更新方向向量
+     *
+     * <p>
+     * 根节点直接使用旋转列作为方向向量；子节点乘上父节点世界矩阵后从中提取，
+     * 并把世界矩阵写回存储。
+     * </p>
      */
-    private void updateMatrices(TransformComponent transform) {
-        Vector3f position = transform.getPositionRef();
-        Vector3f rotation = transform.getRotationRef();
-        Vector3f scale = transform.getScaleRef();
+    private void applyMatrices(TransformComponent transform, int slot) {
+        float[] matrices = store.getMatrices();
+        int offset = slot * TransformStore.MATRIX_FLOATS;
         Matrix4f worldMatrix = transform.getWorldMatrix();
+        worldMatrix.set(matrices, offset);
+
+        TransformComponent parent = transform.getParent();
+        if (parent != null) {
+            // 父节点已在上一层计算完成：world = parentWorld * local
+            worldMatrix.mulLocal(parent.getWorldMatrix());
+            worldMatrix.get(matrices, offset);
+            worldMatrix.transformDirection(0, 0, -1, transform.getForward())
+                .normalize();
+            worldMatrix.transformDirection(0, 1, 0, transform.getUp())
+                .normalize();
+            worldMatrix.transformDirection(1, 0, 0, transform.getRight())
+                .normalize();
+            return;
+        }
+
+        float[] axes = store.getAxes();
+        int a = slot * 9;
+        transform.getRight()
+            .set(axes[a], axes[a + 1], axes[a + 2]);
+        transform.getUp()
+            .set(axes[a + 3], axes[a + 4], axes[a + 5]);
+        transform.getForward()
+            .set(-axes[a + 6], -axes[a + 7], -axes[a + 8]);
+    }
+
+    /**
+     * 分治任务：范围大于 CHUNK_SIZE 时对半拆分
+     */
+    private final class UpdateTask extends RecursiveAction {
 
-        worldMatrix.identity()
-            .translate(position)
-            .rotateY((float) Math.toRadians(rotation.y))
-            .rotateX((float) Math.toRadians(rotation.x))
-            .rotateZ((float) Math.toRadians(rotation.z))
-            .scale(scale);
-
-        tempQuaternion.identity()
-            .rotateY((float) Math.toRadians(rotation.y))
-            .rotateX((float) Math.toRadians(rotation.x))
-            .rotateZ((float) Math.toRadians(rotation.z));
-
-        Vector3f forward = transform.getForward();
-        forward.set(0, 0, -1);
-        tempQuaternion.transform(forward);
-
-        Vector3f up = transform.getUp();
-        up.set(0, 1, 0);
-        tempQuaternion.transform(up);
-
-        Vector3f right = transform.getRight();
-        right.set(1, 0, 0);
-        tempQuaternion.transform(right);
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        UpdateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                processRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new UpdateTask(from, mid), new UpdateTask(mid, to));
+        }
     }
 }
@@ -6,6 +6,7 @@ import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
 
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
 import cpw.mods.fml.common.network.FMLNetworkEvent.ClientDisconnectionFromServerEvent;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
@@ -14,6 +15,8 @@ import moe.takochan.takorender.api.ecs.Layer;
 import moe.takochan.takorender.api.ecs.World;
 import moe.takochan.takorender.api.system.LifetimeSystem;
 import moe.takochan.takorender.core.debug.SystemProfiler;
+import moe.takochan.takorender.core.gl.GLStateContext;
+import moe.takochan.takorender.core.render.StreamBuffer;
 
 /**
  * Forge 渲染事件处理器
@@ -29,6 +32,7 @@ import moe.takochan.takorender.core.debug.SystemProfiler;
  * <li>RenderWorldLastEvent → WORLD_3D 层</li>
  * <li>RenderGameOverlayEvent.Post(ALL) → HUD 层</li>
  * <li>DrawScreenEvent.Post → GUI 层</li>
+ * <li>RenderTickEvent(START) → 按帧统计翻页</li>
  * <li>ClientDisconnectionFromServerEvent → 存档退出清理</li>
  * </ul>
  */
@@ -67,6 +71,36 @@ public class RenderEventHandler {
         lastPartialTicks = partialTicks;
     }
 
+    /**
+     * 渲染帧开始
+     * <p>
+     * RenderTickEvent 每个渲染帧触发一次（包括菜单界面），按帧统计的计数器在这里翻页；
+     * partialTicks 回落只能检测游戏刻边界，不能用于按帧统计。
+     * </p>
+     */
+    @SubscribeEvent
+    public void onRenderTick(TickEvent.RenderTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            StreamBuffer.endFrame();
+            GLStateContext.endFrame();
+        }
+    }
+
+    /**
+     * 渲染一个层（期间启用 GL 状态影子）
+     * <p>
+     * MC 原版代码在两次事件之间会直接修改 GL 状态，影子只在本次层渲染内有效。
+     * </p>
+     */
+    private void renderLayer(Layer layer, float partialTicks) {
+        GLStateContext.beginPass();
+        try {
+            world.render(layer, partialTicks);
+        } finally {
+            GLStateContext.endPass();
+        }
+    }
+
     /**
      * WORLD_3D 层渲染
      * <p>
@@ -90,7 +124,7 @@ public class RenderEventHandler {
         }
 
         world.update(Layer.WORLD_3D, event.partialTicks);
-        world.render(Layer.WORLD_3D, event.partialTicks);
+        renderLayer(Layer.WORLD_3D, event.partialTicks);
     }
 
     /**
@@ -114,7 +148,7 @@ public class RenderEventHandler {
         beginFrameIfNeeded(event.partialTicks);
 
         world.update(Layer.HUD, event.partialTicks);
-        world.render(Layer.HUD, event.partialTicks);
+        renderLayer(Layer.HUD, event.partialTicks);
     }
 
     /**
@@ -133,7 +167,7 @@ public class RenderEventHandler {
         beginFrameIfNeeded(event.renderPartialTicks);
 
         world.update(Layer.GUI, event.renderPartialTicks);
-        world.render(Layer.GUI, event.renderPartialTicks);
+        renderLayer(Layer.GUI, event.renderPartialTicks);
     }
 
     /**
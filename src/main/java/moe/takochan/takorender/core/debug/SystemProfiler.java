@@ -279,13 +279,29 @@ public class SystemProfiler {
             return;
         }
 
-        long elapsed = System.nanoTime() - currentSystemStartNanos;
-        ProfileData data = profiles.computeIfAbsent(system.getClass(), k -> new ProfileData());
-        data.record(elapsed);
-
+        recordSystem(system, System.nanoTime() - currentSystemStartNanos);
         currentSystem = null;
     }
 
+    /**
+     * 直接记录 System 的一次执行耗时
+     *
+     * <p>
+     * 供并行执行的 System 使用（{@link #beginSystem}/{@link #endSystem} 只能在单线程中配对调用）。
+     * 可从任意线程调用，但同一个 System 不能同时记录。
+     * </p>
+     *
+     * @param system System
+     * @param nanos  耗时（纳秒）
+     */
+    public void recordSystem(GameSystem system, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        ProfileData data = profiles.computeIfAbsent(system.getClass(), k -> new ProfileData());
+        data.record(nanos);
+    }
+
     /**
      * 获取指定 System 的性能数据
      */
@@ -1,8 +1,7 @@
 package moe.takochan.takorender.core.gl;
 
 import java.nio.FloatBuffer;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
@@ -40,11 +39,15 @@ import cpw.mods.fml.relauncher.SideOnly;
  * <ul>
  * <li>异常安全：使用 try-with-resources 保证状态恢复，即使抛出异常</li>
  * <li>懒加载保存：首次修改时查询并保存原始值，后续修改不再查询</li>
- * <li>精确恢复：只恢复真正修改过的状态（基于列表追踪）</li>
+ * <li>精确恢复：只恢复真正修改过的状态（基于修改顺序追踪）</li>
  * <li>防重复保存：每个状态只保存一次原始值</li>
  * <li>支持嵌套：使用栈结构支持多层嵌套（主线程单栈设计）</li>
  * <li>零 GL 栈消耗：不使用 glPushAttrib/glPopAttrib</li>
- * <li>易维护：所有状态恢复逻辑封装在 StateTracker 接口中</li>
+ * <li>易维护：所有状态的捕获 / 恢复逻辑集中在 RenderEventStateTrackers 中</li>
+ * <li>零分配：上下文按嵌套深度池化复用，状态值保存在预分配的原始槽位中，
+ * 稳定运行时 {@link #begin()} / {@link #close()} 不产生任何对象分配</li>
+ * <li>状态影子：{@link #beginPass()} / {@link #endPass()} 之间常用状态的查询由内存中的影子回答，
+ * 与当前值相同的设置直接跳过（见 {@link GLStateShadow}）</li>
  * </ul>
  *
  * <p>
@@ -52,18 +55,28 @@ import cpw.mods.fml.relauncher.SideOnly;
  * Minecraft 客户端渲染都在主线程（Render Thread）执行，
  * 不存在多线程并发渲染，因此使用简单的静态栈而非 ThreadLocal。
  * </p>
+ *
+ * <p>
+ * <b>注意</b>: {@link #close()} 之后实例会被下一次同深度的 {@link #begin()} 复用，
+ * 关闭后不要再通过旧引用修改状态（跨方法持有时应在 close 后置空）。
+ * </p>
  */
 @SideOnly(Side.CLIENT)
 public class GLStateContext implements AutoCloseable {
 
-    /** 渲染事件栈 - 支持嵌套 */
-    private static final Deque<RenderEvent> eventStack = new ArrayDeque<>();
+    /** 上下文池 - 下标为嵌套深度，按需创建后一直复用 */
+    private static GLStateContext[] pool = new GLStateContext[8];
+    /** 当前嵌套深度（pool[0, depth) 正在使用） */
+    private static int depth;
+
+    /** 数组参数（雾效颜色、材质颜色）的共享缓冲区 */
+    private static final FloatBuffer COLOR_BUFFER = BufferUtils.createFloatBuffer(4);
 
     /**
      * 开始渲染作用域。
      *
      * <p>
-     * 创建新的渲染上下文并返回 GLStateContext 实例。
+     * 取出当前深度的池化上下文（首次使用时创建）并压栈。
      * 使用 try-with-resources 语法确保状态恢复。
      * </p>
      *
@@ -85,20 +98,27 @@ public class GLStateContext implements AutoCloseable {
      * @return GLStateContext 实例，用于 try-with-resources
      */
     public static GLStateContext begin() {
-        return new GLStateContext();
+        if (depth == pool.length) {
+            pool = Arrays.copyOf(pool, depth * 2);
+        }
+        GLStateContext ctx = pool[depth];
+        if (ctx == null) {
+            ctx = new GLStateContext();
+            pool[depth] = ctx;
+        }
+        ctx.event.reset();
+        depth++;
+        return ctx;
     }
 
     // 实例字段和方法
 
-    private final RenderEvent event;
+    private final RenderEvent event = new RenderEvent();
 
     /**
-     * 私有构造函数 - 只能通过 begin() 创建。
+     * 私有构造函数 - 只能通过 begin() 获取。
      */
-    private GLStateContext() {
-        this.event = new RenderEvent();
-        eventStack.push(event);
-    }
+    private GLStateContext() {}
 
     /**
      * 恢复所有修改过的 GL 状态。
@@ -111,18 +131,17 @@ public class GLStateContext implements AutoCloseable {
      */
     @Override
     public void close() {
-        if (eventStack.isEmpty()) {
+        if (depth == 0) {
             throw new IllegalStateException("GLStateContext.close() called but stack is empty");
         }
 
-        RenderEvent top = eventStack.peek();
-        if (top != this.event) {
+        if (pool[depth - 1] != this) {
             throw new IllegalStateException(
                 "GLStateContext.close() called out of order (nested contexts must be closed in reverse order)");
         }
 
-        eventStack.pop()
-            .restoreStates();
+        depth--;
+        event.restoreStates();
     }
 
     /**
@@ -131,7 +150,62 @@ public class GLStateContext implements AutoCloseable {
      * @return 栈深度
      */
     public static int getStackDepth() {
-        return eventStack.size();
+        return depth;
+    }
+
+    // GL 状态影子
+
+    /**
+     * 开始一个渲染阶段，启用 GL 状态影子。
+     *
+     * <p>
+     * 阶段内常用状态（开关、混合函数、深度 / Alpha 测试等）在第一次读取时查询一次 GL，
+     * 之后保存 / 恢复都直接读内存，设置与当前值相同的状态时跳过 GL 调用。
+     * 必须与 {@link #endPass()} 成对调用，阶段内不能有绕过 GLStateContext 修改这些状态的代码，
+     * 否则需要调用 {@link #invalidateShadow()}。
+     * </p>
+     */
+    public static void beginPass() {
+        GLStateShadow.beginPass();
+    }
+
+    /**
+     * 结束渲染阶段，之后恢复为每次直接查询 GL。
+     */
+    public static void endPass() {
+        GLStateShadow.endPass();
+    }
+
+    /**
+     * 丢弃影子中的所有状态（下次读取时重新查询 GL）。
+     *
+     * <p>
+     * 渲染阶段内直接调用 GL 修改了影子管理的状态后调用。
+     * </p>
+     */
+    public static void invalidateShadow() {
+        GLStateShadow.invalidate();
+    }
+
+    /**
+     * 结束帧统计（每帧调用一次）。
+     */
+    public static void endFrame() {
+        GLStateShadow.endFrame();
+    }
+
+    /**
+     * 获取累计因命中影子而省去的 GL 调用数（查询和冗余设置）。
+     */
+    public static long getAvoidedCalls() {
+        return GLStateShadow.getAvoidedCalls();
+    }
+
+    /**
+     * 获取上一帧因命中影子而省去的 GL 调用数。
+     */
+    public static long getAvoidedCallsLastFrame() {
+        return GLStateShadow.getAvoidedCallsLastFrame();
     }
 
     // GL 状态修改方法 - 对应 OpenGL 固定管线所有状态
@@ -140,79 +214,79 @@ public class GLStateContext implements AutoCloseable {
 
     /** 启用混合。 */
     public void enableBlend() {
-        this.event.saveBlendEnabled();
-        GL11.glEnable(GL11.GL_BLEND);
+        this.event.save(StateKey.BLEND_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_BLEND, true);
     }
 
     /** 禁用混合。 */
     public void disableBlend() {
-        this.event.saveBlendEnabled();
-        GL11.glDisable(GL11.GL_BLEND);
+        this.event.save(StateKey.BLEND_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_BLEND, false);
     }
 
     /** 设置混合函数。 */
     public void setBlendFunc(int sfactor, int dfactor) {
-        this.event.saveBlendFunc();
-        GL11.glBlendFunc(sfactor, dfactor);
+        this.event.save(StateKey.BLEND_FUNC);
+        GLStateShadow.setBlendFunc(sfactor, dfactor);
     }
 
     /** 启用 Alpha 测试。 */
     public void enableAlphaTest() {
-        this.event.saveAlphaTestEnabled();
-        GL11.glEnable(GL11.GL_ALPHA_TEST);
+        this.event.save(StateKey.ALPHA_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_ALPHA_TEST, true);
     }
 
     /** 禁用 Alpha 测试。 */
     public void disableAlphaTest() {
-        this.event.saveAlphaTestEnabled();
-        GL11.glDisable(GL11.GL_ALPHA_TEST);
+        this.event.save(StateKey.ALPHA_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_ALPHA_TEST, false);
     }
 
     /** 设置 Alpha 测试函数。 */
     public void setAlphaFunc(int func, float ref) {
-        this.event.saveAlphaTestFunc();
-        GL11.glAlphaFunc(func, ref);
+        this.event.save(StateKey.ALPHA_TEST_FUNC);
+        GLStateShadow.setAlphaFunc(func, ref);
     }
 
     /** 启用抖动。 */
     public void enableDither() {
-        this.event.saveDitherEnabled();
-        GL11.glEnable(GL11.GL_DITHER);
+        this.event.save(StateKey.DITHER_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_DITHER, true);
     }
 
     /** 禁用抖动。 */
     public void disableDither() {
-        this.event.saveDitherEnabled();
-        GL11.glDisable(GL11.GL_DITHER);
+        this.event.save(StateKey.DITHER_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_DITHER, false);
     }
 
     /** 启用颜色逻辑运算。 */
     public void enableLogicOp() {
-        this.event.saveLogicOpEnabled();
-        GL11.glEnable(GL11.GL_COLOR_LOGIC_OP);
+        this.event.save(StateKey.LOGIC_OP_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_COLOR_LOGIC_OP, true);
     }
 
     /** 禁用颜色逻辑运算。 */
     public void disableLogicOp() {
-        this.event.saveLogicOpEnabled();
-        GL11.glDisable(GL11.GL_COLOR_LOGIC_OP);
+        this.event.save(StateKey.LOGIC_OP_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_COLOR_LOGIC_OP, false);
     }
 
     /** 设置逻辑运算模式。 */
     public void setLogicOp(int opcode) {
-        this.event.saveLogicOpMode();
+        this.event.save(StateKey.LOGIC_OP_MODE);
         GL11.glLogicOp(opcode);
     }
 
     /** 设置颜色掩码。 */
     public void setColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
-        this.event.saveColorMask();
-        GL11.glColorMask(red, green, blue, alpha);
+        this.event.save(StateKey.COLOR_MASK);
+        GLStateShadow.setColorMask(red, green, blue, alpha);
     }
 
     /** 设置清屏颜色。 */
     public void setClearColor(float red, float green, float blue, float alpha) {
-        this.event.saveClearColor();
+        this.event.save(StateKey.CLEAR_COLOR);
         GL11.glClearColor(red, green, blue, alpha);
     }
 
@@ -220,19 +294,19 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置当前颜色。 */
     public void setColor(float r, float g, float b, float a) {
-        this.event.saveColor();
+        this.event.save(StateKey.CURRENT_COLOR);
         GL11.glColor4f(r, g, b, a);
     }
 
     /** 设置当前法线。 */
     public void setNormal(float x, float y, float z) {
-        this.event.saveNormal();
+        this.event.save(StateKey.CURRENT_NORMAL);
         GL11.glNormal3f(x, y, z);
     }
 
     /** 设置当前纹理坐标。 */
     public void setTexCoord(float s, float t, float r, float q) {
-        this.event.saveTexCoord();
+        this.event.save(StateKey.CURRENT_TEXCOORD);
         GL11.glTexCoord4f(s, t, r, q);
     }
 
@@ -240,31 +314,31 @@ public class GLStateContext implements AutoCloseable {
 
     /** 启用深度测试。 */
     public void enableDepthTest() {
-        this.event.saveDepthTestEnabled();
-        GL11.glEnable(GL11.GL_DEPTH_TEST);
+        this.event.save(StateKey.DEPTH_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_DEPTH_TEST, true);
     }
 
     /** 禁用深度测试。 */
     public void disableDepthTest() {
-        this.event.saveDepthTestEnabled();
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
+        this.event.save(StateKey.DEPTH_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_DEPTH_TEST, false);
     }
 
     /** 设置深度掩码。 */
     public void setDepthMask(boolean flag) {
-        this.event.saveDepthMask();
-        GL11.glDepthMask(flag);
+        this.event.save(StateKey.DEPTH_MASK);
+        GLStateShadow.setDepthMask(flag);
     }
 
     /** 设置深度测试函数。 */
     public void setDepthFunc(int func) {
-        this.event.saveDepthFunc();
-        GL11.glDepthFunc(func);
+        this.event.save(StateKey.DEPTH_FUNC);
+        GLStateShadow.setDepthFunc(func);
     }
 
     /** 设置深度清屏值。 */
     public void setClearDepth(double depth) {
-        this.event.saveClearDepth();
+        this.event.save(StateKey.CLEAR_DEPTH);
         GL11.glClearDepth(depth);
     }
 
@@ -272,216 +346,214 @@ public class GLStateContext implements AutoCloseable {
 
     /** 启用纹理2D。 */
     public void enableTexture2D() {
-        this.event.saveTexture2DEnabled();
-        GL11.glEnable(GL11.GL_TEXTURE_2D);
+        this.event.save(StateKey.TEXTURE_2D_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_TEXTURE_2D, true);
     }
 
     /** 禁用纹理2D。 */
     public void disableTexture2D() {
-        this.event.saveTexture2DEnabled();
-        GL11.glDisable(GL11.GL_TEXTURE_2D);
+        this.event.save(StateKey.TEXTURE_2D_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_TEXTURE_2D, false);
     }
 
     /** 启用光照。 */
     public void enableLighting() {
-        this.event.saveLightingEnabled();
-        GL11.glEnable(GL11.GL_LIGHTING);
+        this.event.save(StateKey.LIGHTING_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_LIGHTING, true);
     }
 
     /** 禁用光照。 */
     public void disableLighting() {
-        this.event.saveLightingEnabled();
-        GL11.glDisable(GL11.GL_LIGHTING);
+        this.event.save(StateKey.LIGHTING_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_LIGHTING, false);
     }
 
     /** 启用面剔除。 */
     public void enableCullFace() {
-        this.event.saveCullFaceEnabled();
-        GL11.glEnable(GL11.GL_CULL_FACE);
+        this.event.save(StateKey.CULL_FACE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_CULL_FACE, true);
     }
 
     /** 禁用面剔除。 */
     public void disableCullFace() {
-        this.event.saveCullFaceEnabled();
-        GL11.glDisable(GL11.GL_CULL_FACE);
+        this.event.save(StateKey.CULL_FACE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_CULL_FACE, false);
     }
 
     /** 启用雾效。 */
     public void enableFog() {
-        this.event.saveFogEnabled();
-        GL11.glEnable(GL11.GL_FOG);
+        this.event.save(StateKey.FOG_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_FOG, true);
     }
 
     /** 禁用雾效。 */
     public void disableFog() {
-        this.event.saveFogEnabled();
-        GL11.glDisable(GL11.GL_FOG);
+        this.event.save(StateKey.FOG_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_FOG, false);
     }
 
     /** 启用裁剪测试。 */
     public void enableScissorTest() {
-        this.event.saveScissorTestEnabled();
-        GL11.glEnable(GL11.GL_SCISSOR_TEST);
+        this.event.save(StateKey.SCISSOR_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_SCISSOR_TEST, true);
     }
 
     /** 禁用裁剪测试。 */
     public void disableScissorTest() {
-        this.event.saveScissorTestEnabled();
-        GL11.glDisable(GL11.GL_SCISSOR_TEST);
+        this.event.save(StateKey.SCISSOR_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_SCISSOR_TEST, false);
     }
 
     /** 启用模板测试。 */
     public void enableStencilTest() {
-        this.event.saveStencilTestEnabled();
-        GL11.glEnable(GL11.GL_STENCIL_TEST);
+        this.event.save(StateKey.STENCIL_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_STENCIL_TEST, true);
     }
 
     /** 禁用模板测试。 */
     public void disableStencilTest() {
-        this.event.saveStencilTestEnabled();
-        GL11.glDisable(GL11.GL_STENCIL_TEST);
+        this.event.save(StateKey.STENCIL_TEST_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_STENCIL_TEST, false);
     }
 
     /** 启用法线归一化。 */
     public void enableNormalize() {
-        this.event.saveNormalizeEnabled();
-        GL11.glEnable(GL11.GL_NORMALIZE);
+        this.event.save(StateKey.NORMALIZE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_NORMALIZE, true);
     }
 
     /** 禁用法线归一化。 */
     public void disableNormalize() {
-        this.event.saveNormalizeEnabled();
-        GL11.glDisable(GL11.GL_NORMALIZE);
+        this.event.save(StateKey.NORMALIZE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_NORMALIZE, false);
     }
 
     /** 启用法线重缩放。 */
     public void enableRescaleNormal() {
-        this.event.saveRescaleNormalEnabled();
-        GL11.glEnable(GL12.GL_RESCALE_NORMAL);
+        this.event.save(StateKey.RESCALE_NORMAL_ENABLED);
+        GLStateShadow.setEnabled(GL12.GL_RESCALE_NORMAL, true);
     }
 
     /** 禁用法线重缩放。 */
     public void disableRescaleNormal() {
-        this.event.saveRescaleNormalEnabled();
-        GL11.glDisable(GL12.GL_RESCALE_NORMAL);
+        this.event.save(StateKey.RESCALE_NORMAL_ENABLED);
+        GLStateShadow.setEnabled(GL12.GL_RESCALE_NORMAL, false);
     }
 
     /** 启用多边形偏移（填充模式）。 */
     public void enablePolygonOffsetFill() {
-        this.event.savePolygonOffsetFillEnabled();
-        GL11.glEnable(GL11.GL_POLYGON_OFFSET_FILL);
+        this.event.save(StateKey.POLYGON_OFFSET_FILL_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_OFFSET_FILL, true);
     }
 
     /** 禁用多边形偏移（填充模式）。 */
     public void disablePolygonOffsetFill() {
-        this.event.savePolygonOffsetFillEnabled();
-        GL11.glDisable(GL11.GL_POLYGON_OFFSET_FILL);
+        this.event.save(StateKey.POLYGON_OFFSET_FILL_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_OFFSET_FILL, false);
     }
 
     /** 启用多边形偏移（线框模式）。 */
     public void enablePolygonOffsetLine() {
-        this.event.savePolygonOffsetLineEnabled();
-        GL11.glEnable(GL11.GL_POLYGON_OFFSET_LINE);
+        this.event.save(StateKey.POLYGON_OFFSET_LINE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_OFFSET_LINE, true);
     }
 
     /** 禁用多边形偏移（线框模式）。 */
     public void disablePolygonOffsetLine() {
-        this.event.savePolygonOffsetLineEnabled();
-        GL11.glDisable(GL11.GL_POLYGON_OFFSET_LINE);
+        this.event.save(StateKey.POLYGON_OFFSET_LINE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_OFFSET_LINE, false);
     }
 
     /** 启用线条点画（stipple）。 */
     public void enableLineStipple() {
-        this.event.saveLineStippleEnabled();
-        GL11.glEnable(GL11.GL_LINE_STIPPLE);
+        this.event.save(StateKey.LINE_STIPPLE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_LINE_STIPPLE, true);
     }
 
     /** 禁用线条点画（stipple）。 */
     public void disableLineStipple() {
-        this.event.saveLineStippleEnabled();
-        GL11.glDisable(GL11.GL_LINE_STIPPLE);
+        this.event.save(StateKey.LINE_STIPPLE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_LINE_STIPPLE, false);
     }
 
     /** 启用线条平滑。 */
     public void enableLineSmooth() {
-        this.event.saveLineSmoothEnabled();
-        GL11.glEnable(GL11.GL_LINE_SMOOTH);
+        this.event.save(StateKey.LINE_SMOOTH_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_LINE_SMOOTH, true);
     }
 
     /** 禁用线条平滑。 */
     public void disableLineSmooth() {
-        this.event.saveLineSmoothEnabled();
-        GL11.glDisable(GL11.GL_LINE_SMOOTH);
+        this.event.save(StateKey.LINE_SMOOTH_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_LINE_SMOOTH, false);
     }
 
     /** 启用多边形点画（stipple）。 */
     public void enablePolygonStipple() {
-        this.event.savePolygonStippleEnabled();
-        GL11.glEnable(GL11.GL_POLYGON_STIPPLE);
+        this.event.save(StateKey.POLYGON_STIPPLE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_STIPPLE, true);
     }
 
     /** 禁用多边形点画（stipple）。 */
     public void disablePolygonStipple() {
-        this.event.savePolygonStippleEnabled();
-        GL11.glDisable(GL11.GL_POLYGON_STIPPLE);
+        this.event.save(StateKey.POLYGON_STIPPLE_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_STIPPLE, false);
     }
 
     /** 启用多边形平滑。 */
     public void enablePolygonSmooth() {
-        this.event.savePolygonSmoothEnabled();
-        GL11.glEnable(GL11.GL_POLYGON_SMOOTH);
+        this.event.save(StateKey.POLYGON_SMOOTH_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_SMOOTH, true);
     }
 
     /** 禁用多边形平滑。 */
     public void disablePolygonSmooth() {
-        this.event.savePolygonSmoothEnabled();
-        GL11.glDisable(GL11.GL_POLYGON_SMOOTH);
+        this.event.save(StateKey.POLYGON_SMOOTH_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POLYGON_SMOOTH, false);
     }
 
     /** 启用点平滑。 */
     public void enablePointSmooth() {
-        this.event.savePointSmoothEnabled();
-        GL11.glEnable(GL11.GL_POINT_SMOOTH);
+        this.event.save(StateKey.POINT_SMOOTH_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POINT_SMOOTH, true);
     }
 
     /** 禁用点平滑。 */
     public void disablePointSmooth() {
-        this.event.savePointSmoothEnabled();
-        GL11.glDisable(GL11.GL_POINT_SMOOTH);
+        this.event.save(StateKey.POINT_SMOOTH_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_POINT_SMOOTH, false);
     }
 
     // GL_FOG_BIT
 
     /** 设置雾效模式。 */
     public void setFogMode(int mode) {
-        this.event.saveFogMode();
+        this.event.save(StateKey.FOG_MODE);
         GL11.glFogi(GL11.GL_FOG_MODE, mode);
     }
 
     /** 设置雾效密度。 */
     public void setFogDensity(float density) {
-        this.event.saveFogDensity();
+        this.event.save(StateKey.FOG_DENSITY);
         GL11.glFogf(GL11.GL_FOG_DENSITY, density);
     }
 
     /** 设置雾效起始距离。 */
     public void setFogStart(float start) {
-        this.event.saveFogStart();
+        this.event.save(StateKey.FOG_START);
         GL11.glFogf(GL11.GL_FOG_START, start);
     }
 
     /** 设置雾效结束距离。 */
     public void setFogEnd(float end) {
-        this.event.saveFogEnd();
+        this.event.save(StateKey.FOG_END);
         GL11.glFogf(GL11.GL_FOG_END, end);
     }
 
     /** 设置雾效颜色。 */
     public void setFogColor(float r, float g, float b, float a) {
-        this.event.saveFogColor();
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(4);
-        buffer.put(new float[] { r, g, b, a });
-        buffer.flip();
+        this.event.save(StateKey.FOG_COLOR);
+        FloatBuffer buffer = colorBuffer(r, g, b, a);
         GL11.glFog(GL11.GL_FOG_COLOR, buffer);
     }
 
@@ -489,31 +561,31 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置透视校正提示。 */
     public void setPerspectiveCorrectionHint(int hint) {
-        this.event.savePerspectiveCorrectionHint();
+        this.event.save(StateKey.PERSPECTIVE_CORRECTION_HINT);
         GL11.glHint(GL11.GL_PERSPECTIVE_CORRECTION_HINT, hint);
     }
 
     /** 设置点平滑提示。 */
     public void setPointSmoothHint(int hint) {
-        this.event.savePointSmoothHint();
+        this.event.save(StateKey.POINT_SMOOTH_HINT);
         GL11.glHint(GL11.GL_POINT_SMOOTH_HINT, hint);
     }
 
     /** 设置线平滑提示。 */
     public void setLineSmoothHint(int hint) {
-        this.event.saveLineSmoothHint();
+        this.event.save(StateKey.LINE_SMOOTH_HINT);
         GL11.glHint(GL11.GL_LINE_SMOOTH_HINT, hint);
     }
 
     /** 设置多边形平滑提示。 */
     public void setPolygonSmoothHint(int hint) {
-        this.event.savePolygonSmoothHint();
+        this.event.save(StateKey.POLYGON_SMOOTH_HINT);
         GL11.glHint(GL11.GL_POLYGON_SMOOTH_HINT, hint);
     }
 
     /** 设置雾效提示。 */
     public void setFogHint(int hint) {
-        this.event.saveFogHint();
+        this.event.save(StateKey.FOG_HINT);
         GL11.glHint(GL11.GL_FOG_HINT, hint);
     }
 
@@ -521,68 +593,60 @@ public class GLStateContext implements AutoCloseable {
 
     /** 启用颜色材质。 */
     public void enableColorMaterial() {
-        this.event.saveColorMaterialEnabled();
-        GL11.glEnable(GL11.GL_COLOR_MATERIAL);
+        this.event.save(StateKey.COLOR_MATERIAL_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_COLOR_MATERIAL, true);
     }
 
     /** 禁用颜色材质。 */
     public void disableColorMaterial() {
-        this.event.saveColorMaterialEnabled();
-        GL11.glDisable(GL11.GL_COLOR_MATERIAL);
+        this.event.save(StateKey.COLOR_MATERIAL_ENABLED);
+        GLStateShadow.setEnabled(GL11.GL_COLOR_MATERIAL, false);
     }
 
     /** 设置颜色材质。 */
     public void setColorMaterial(int face, int mode) {
-        this.event.saveColorMaterialFace();
-        this.event.saveColorMaterialMode();
+        this.event.save(StateKey.COLOR_MATERIAL_FACE);
+        this.event.save(StateKey.COLOR_MATERIAL_MODE);
         GL11.glColorMaterial(face, mode);
     }
 
     /** 设置着色模型。 */
     public void setShadeModel(int mode) {
-        this.event.saveShadeModel();
-        GL11.glShadeModel(mode);
+        this.event.save(StateKey.SHADE_MODEL);
+        GLStateShadow.setShadeModel(mode);
     }
 
     /** 设置材质环境光。 */
     public void setMaterialAmbient(int face, float r, float g, float b, float a) {
-        this.event.saveMaterialAmbient();
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(4);
-        buffer.put(new float[] { r, g, b, a });
-        buffer.flip();
+        this.event.save(StateKey.MATERIAL_AMBIENT);
+        FloatBuffer buffer = colorBuffer(r, g, b, a);
         GL11.glMaterial(face, GL11.GL_AMBIENT, buffer);
     }
 
     /** 设置材质漫反射。 */
     public void setMaterialDiffuse(int face, float r, float g, float b, float a) {
-        this.event.saveMaterialDiffuse();
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(4);
-        buffer.put(new float[] { r, g, b, a });
-        buffer.flip();
+        this.event.save(StateKey.MATERIAL_DIFFUSE);
+        FloatBuffer buffer = colorBuffer(r, g, b, a);
         GL11.glMaterial(face, GL11.GL_DIFFUSE, buffer);
     }
 
     /** 设置材质镜面反射。 */
     public void setMaterialSpecular(int face, float r, float g, float b, float a) {
-        this.event.saveMaterialSpecular();
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(4);
-        buffer.put(new float[] { r, g, b, a });
-        buffer.flip();
+        this.event.save(StateKey.MATERIAL_SPECULAR);
+        FloatBuffer buffer = colorBuffer(r, g, b, a);
         GL11.glMaterial(face, GL11.GL_SPECULAR, buffer);
     }
 
     /** 设置材质自发光。 */
     public void setMaterialEmission(int face, float r, float g, float b, float a) {
-        this.event.saveMaterialEmission();
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(4);
-        buffer.put(new float[] { r, g, b, a });
-        buffer.flip();
+        this.event.save(StateKey.MATERIAL_EMISSION);
+        FloatBuffer buffer = colorBuffer(r, g, b, a);
         GL11.glMaterial(face, GL11.GL_EMISSION, buffer);
     }
 
     /** 设置材质光泽度。 */
     public void setMaterialShininess(int face, float shininess) {
-        this.event.saveMaterialShininess();
+        this.event.save(StateKey.MATERIAL_SHININESS);
         GL11.glMaterialf(face, GL11.GL_SHININESS, shininess);
     }
 
@@ -590,15 +654,15 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置线宽。 */
     public void setLineWidth(float width) {
-        this.event.saveLineWidth();
-        GL11.glLineWidth(width);
+        this.event.save(StateKey.LINE_WIDTH);
+        GLStateShadow.setLineWidth(width);
     }
 
     // GL_POINT_BIT
 
     /** 设置点大小。 */
     public void setPointSize(float size) {
-        this.event.savePointSize();
+        this.event.save(StateKey.POINT_SIZE);
         GL11.glPointSize(size);
     }
 
@@ -606,33 +670,33 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置面剔除模式。 */
     public void setCullFaceMode(int mode) {
-        this.event.saveCullFaceMode();
-        GL11.glCullFace(mode);
+        this.event.save(StateKey.CULL_FACE_MODE);
+        GLStateShadow.setCullFaceMode(mode);
     }
 
     /** 设置正面朝向。 */
     public void setFrontFace(int mode) {
-        this.event.saveFrontFace();
-        GL11.glFrontFace(mode);
+        this.event.save(StateKey.FRONT_FACE);
+        GLStateShadow.setFrontFace(mode);
     }
 
     /** 设置多边形模式。 */
     public void setPolygonMode(int face, int mode) {
-        this.event.savePolygonMode();
+        this.event.save(StateKey.POLYGON_MODE);
         GL11.glPolygonMode(face, mode);
     }
 
     /** 设置多边形偏移。 */
     public void setPolygonOffset(float factor, float units) {
-        this.event.savePolygonOffset();
-        GL11.glPolygonOffset(factor, units);
+        this.event.save(StateKey.POLYGON_OFFSET);
+        GLStateShadow.setPolygonOffset(factor, units);
     }
 
     // GL_SCISSOR_BIT
 
     /** 设置裁剪区域。 */
     public void setScissor(int x, int y, int width, int height) {
-        this.event.saveScissorBox();
+        this.event.save(StateKey.SCISSOR_BOX);
         GL11.glScissor(x, y, width, height);
     }
 
@@ -640,25 +704,25 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置模板测试函数。 */
     public void setStencilFunc(int func, int ref, int mask) {
-        this.event.saveStencilFunc();
+        this.event.save(StateKey.STENCIL_FUNC);
         GL11.glStencilFunc(func, ref, mask);
     }
 
     /** 设置模板操作。 */
     public void setStencilOp(int sfail, int dpfail, int dppass) {
-        this.event.saveStencilOp();
+        this.event.save(StateKey.STENCIL_OP);
         GL11.glStencilOp(sfail, dpfail, dppass);
     }
 
     /** 设置模板写入掩码。 */
     public void setStencilMask(int mask) {
-        this.event.saveStencilMask();
+        this.event.save(StateKey.STENCIL_MASK);
         GL11.glStencilMask(mask);
     }
 
     /** 设置模板清屏值。 */
     public void setClearStencil(int s) {
-        this.event.saveClearStencil();
+        this.event.save(StateKey.CLEAR_STENCIL);
         GL11.glClearStencil(s);
     }
 
@@ -666,19 +730,19 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置活动纹理单元。 */
     public void setActiveTexture(int texture) {
-        this.event.saveActiveTexture();
+        this.event.save(StateKey.ACTIVE_TEXTURE);
         GL13.glActiveTexture(texture);
     }
 
     /** 绑定纹理2D。 */
     public void bindTexture2D(int texture) {
-        this.event.saveTexture2DBinding();
+        this.event.save(StateKey.TEXTURE_2D_BINDING);
         GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
     }
 
     /** 设置纹理环境模式。 */
     public void setTexEnvMode(int mode) {
-        this.event.saveTexEnvMode();
+        this.event.save(StateKey.TEX_ENV_MODE);
         GL11.glTexEnvi(GL11.GL_TEXTURE_ENV, GL11.GL_TEXTURE_ENV_MODE, mode);
     }
 
@@ -686,13 +750,23 @@ public class GLStateContext implements AutoCloseable {
 
     /** 设置视口。 */
     public void setViewport(int x, int y, int width, int height) {
-        this.event.saveViewport();
+        this.event.save(StateKey.VIEWPORT);
         GL11.glViewport(x, y, width, height);
     }
 
     /** 设置深度范围。 */
     public void setDepthRange(double near, double far) {
-        this.event.saveDepthRange();
+        this.event.save(StateKey.DEPTH_RANGE);
         GL11.glDepthRange(near, far);
     }
+
+    private static FloatBuffer colorBuffer(float r, float g, float b, float a) {
+        COLOR_BUFFER.clear();
+        COLOR_BUFFER.put(r)
+            .put(g)
+            .put(b)
+            .put(a)
+            .flip();
+        return COLOR_BUFFER;
+    }
 }
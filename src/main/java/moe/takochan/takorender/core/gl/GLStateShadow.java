@@ -0,0 +1,430 @@
+package moe.takochan.takorender.core.gl;
+
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * GL 状态的客户端影子副本
+ *
+ * <p>
+ * 缓存常用的全局 GL 状态（开关、混合函数、深度 / Alpha 测试、颜色掩码、面剔除等），
+ * 使 {@link RenderEventStateTrackers} 保存原始值时直接读内存而不是 glGet*，
+ * 并让 {@link GLStateContext} 跳过与当前值相同的 glEnable / glBlendFunc 等调用。
+ * </p>
+ *
+ * <p>
+ * <b>有效范围</b>:
+ * MC 原版代码会绕过本类直接修改 GL 状态，因此影子只在一个渲染阶段内有效：
+ * {@link #beginPass()} 时清空，之后每个状态第一次被读取时从 GL 查询一次（懒加载），
+ * 其余读取和写入都经过影子；{@link #endPass()} 后回到直接查询 GL 的行为。
+ * 渲染阶段内绕过 GLStateContext 直接修改这些状态的代码必须调用 {@link #invalidate()}。
+ * </p>
+ *
+ * <p>
+ * 依赖活动纹理单元的状态（TEXTURE_2D 开关、纹理绑定）和视口不在影子范围内，始终直接访问 GL。
+ * </p>
+ *
+ * <p>
+ * <b>线程安全</b>: 只能在渲染线程使用。
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+final class GLStateShadow {
+
+    /** 影子管理的开关（下标即位号） */
+    private static final int[] CAPABILITIES = { GL11.GL_BLEND, GL11.GL_ALPHA_TEST, GL11.GL_DITHER,
+        GL11.GL_COLOR_LOGIC_OP, GL11.GL_DEPTH_TEST, GL11.GL_LIGHTING, GL11.GL_CULL_FACE, GL11.GL_FOG,
+        GL11.GL_SCISSOR_TEST, GL11.GL_STENCIL_TEST, GL11.GL_NORMALIZE, GL12.GL_RESCALE_NORMAL,
+        GL11.GL_POLYGON_OFFSET_FILL, GL11.GL_POLYGON_OFFSET_LINE, GL11.GL_LINE_STIPPLE, GL11.GL_LINE_SMOOTH,
+        GL11.GL_POLYGON_STIPPLE, GL11.GL_POLYGON_SMOOTH, GL11.GL_POINT_SMOOTH, GL11.GL_COLOR_MATERIAL };
+
+    private static final int BLEND_SRC = 1;
+    private static final int BLEND_DST = 1 << 1;
+    private static final int ALPHA_FUNC = 1 << 2;
+    private static final int ALPHA_REF = 1 << 3;
+    private static final int DEPTH_MASK = 1 << 4;
+    private static final int DEPTH_FUNC = 1 << 5;
+    private static final int COLOR_MASK = 1 << 6;
+    private static final int CULL_FACE_MODE = 1 << 7;
+    private static final int FRONT_FACE = 1 << 8;
+    private static final int SHADE_MODEL = 1 << 9;
+    private static final int LINE_WIDTH = 1 << 10;
+    private static final int POLYGON_OFFSET_FACTOR = 1 << 11;
+    private static final int POLYGON_OFFSET_UNITS = 1 << 12;
+
+    private static final IntBuffer INT_SCRATCH = BufferUtils.createIntBuffer(16);
+
+    private static boolean active;
+
+    /** 已知的开关位 / 开关值位 */
+    private static int knownCapabilities;
+    private static int enabledCapabilities;
+
+    /** 已知的参数状态位 */
+    private static int knownValues;
+
+    private static int blendSrc, blendDst;
+    private static int alphaFunc;
+    private static float alphaRef;
+    private static boolean depthMask;
+    private static int depthFunc;
+    /** 颜色掩码（位 0-3 依次为 R / G / B / A） */
+    private static int colorMask;
+    private static int cullFaceMode;
+    private static int frontFace;
+    private static int shadeModel;
+    private static float lineWidth;
+    private static float polygonOffsetFactor, polygonOffsetUnits;
+
+    /** 因命中影子而省去的 GL 调用数 */
+    private static long avoidedCalls;
+    private static long avoidedCallsThisFrame;
+    private static long avoidedCallsLastFrame;
+
+    private GLStateShadow() {}
+
+    // ==================== 生命周期 ====================
+
+    static void beginPass() {
+        invalidate();
+        active = true;
+    }
+
+    static void endPass() {
+        active = false;
+        invalidate();
+    }
+
+    static void invalidate() {
+        knownCapabilities = 0;
+        knownValues = 0;
+    }
+
+    static boolean isActive() {
+        return active;
+    }
+
+    static void endFrame() {
+        avoidedCallsLastFrame = avoidedCallsThisFrame;
+        avoidedCallsThisFrame = 0;
+    }
+
+    static long getAvoidedCalls() {
+        return avoidedCalls;
+    }
+
+    static long getAvoidedCallsLastFrame() {
+        return avoidedCallsLastFrame;
+    }
+
+    private static void avoided() {
+        avoidedCalls++;
+        avoidedCallsThisFrame++;
+    }
+
+    /**
+     * 影子值已知时计一次省去的查询
+     */
+    private static boolean hit(int bit) {
+        if (active && (knownValues & bit) != 0) {
+            avoided();
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean known(int bits) {
+        return active && (knownValues & bits) == bits;
+    }
+
+    private static void learn(int bit) {
+        if (active) {
+            knownValues |= bit;
+        }
+    }
+
+    // ==================== 开关 ====================
+
+    private static int capabilityBit(int cap) {
+        for (int i = 0; i < CAPABILITIES.length; i++) {
+            if (CAPABILITIES[i] == cap) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    static boolean isEnabled(int cap) {
+        int bit = active ? capabilityBit(cap) : 0;
+        if (bit == 0) {
+            return GL11.glIsEnabled(cap);
+        }
+        if ((knownCapabilities & bit) != 0) {
+            avoided();
+            return (enabledCapabilities & bit) != 0;
+        }
+        boolean enabled = GL11.glIsEnabled(cap);
+        recordCapability(bit, enabled);
+        return enabled;
+    }
+
+    static void setEnabled(int cap, boolean enabled) {
+        int bit = active ? capabilityBit(cap) : 0;
+        if (bit != 0 && (knownCapabilities & bit) != 0 && ((enabledCapabilities & bit) != 0) == enabled) {
+            avoided();
+            return;
+        }
+        if (enabled) {
+            GL11.glEnable(cap);
+        } else {
+            GL11.glDisable(cap);
+        }
+        if (bit != 0) {
+            recordCapability(bit, enabled);
+        }
+    }
+
+    private static void recordCapability(int bit, boolean enabled) {
+        knownCapabilities |= bit;
+        if (enabled) {
+            enabledCapabilities |= bit;
+        } else {
+            enabledCapabilities &= ~bit;
+        }
+    }
+
+    // ==================== 混合 / Alpha 测试 ====================
+
+    static int getBlendSrc() {
+        if (!hit(BLEND_SRC)) {
+            blendSrc = GL11.glGetInteger(GL11.GL_BLEND_SRC);
+            learn(BLEND_SRC);
+        }
+        return blendSrc;
+    }
+
+    static int getBlendDst() {
+        if (!hit(BLEND_DST)) {
+            blendDst = GL11.glGetInteger(GL11.GL_BLEND_DST);
+            learn(BLEND_DST);
+        }
+        return blendDst;
+    }
+
+    static void setBlendFunc(int src, int dst) {
+        if (known(BLEND_SRC | BLEND_DST) && blendSrc == src && blendDst == dst) {
+            avoided();
+            return;
+        }
+        GL11.glBlendFunc(src, dst);
+        blendSrc = src;
+        blendDst = dst;
+        learn(BLEND_SRC | BLEND_DST);
+    }
+
+    static int getAlphaFunc() {
+        if (!hit(ALPHA_FUNC)) {
+            alphaFunc = GL11.glGetInteger(GL11.GL_ALPHA_TEST_FUNC);
+            learn(ALPHA_FUNC);
+        }
+        return alphaFunc;
+    }
+
+    static float getAlphaRef() {
+        if (!hit(ALPHA_REF)) {
+            alphaRef = GL11.glGetFloat(GL11.GL_ALPHA_TEST_REF);
+            learn(ALPHA_REF);
+        }
+        return alphaRef;
+    }
+
+    static void setAlphaFunc(int func, float ref) {
+        if (known(ALPHA_FUNC | ALPHA_REF) && alphaFunc == func && alphaRef == ref) {
+            avoided();
+            return;
+        }
+        GL11.glAlphaFunc(func, ref);
+        alphaFunc = func;
+        alphaRef = ref;
+        learn(ALPHA_FUNC | ALPHA_REF);
+    }
+
+    // ==================== 颜色掩码 ====================
+
+    /**
+     * @return 位 0-3 依次为 R / G / B / A 是否可写
+     */
+    static int getColorMask() {
+        if (!hit(COLOR_MASK)) {
+            GL11.glGetInteger(GL11.GL_COLOR_WRITEMASK, INT_SCRATCH);
+            colorMask = packColorMask(
+                INT_SCRATCH.get(0) != 0,
+                INT_SCRATCH.get(1) != 0,
+                INT_SCRATCH.get(2) != 0,
+                INT_SCRATCH.get(3) != 0);
+            learn(COLOR_MASK);
+        }
+        return colorMask;
+    }
+
+    static void setColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        int mask = packColorMask(red, green, blue, alpha);
+        if (known(COLOR_MASK) && colorMask == mask) {
+            avoided();
+            return;
+        }
+        GL11.glColorMask(red, green, blue, alpha);
+        colorMask = mask;
+        learn(COLOR_MASK);
+    }
+
+    private static int packColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        return (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0);
+    }
+
+    // ==================== 深度 ====================
+
+    static boolean getDepthMask() {
+        if (!hit(DEPTH_MASK)) {
+            depthMask = GL11.glGetBoolean(GL11.GL_DEPTH_WRITEMASK);
+            learn(DEPTH_MASK);
+        }
+        return depthMask;
+    }
+
+    static void setDepthMask(boolean flag) {
+        if (known(DEPTH_MASK) && depthMask == flag) {
+            avoided();
+            return;
+        }
+        GL11.glDepthMask(flag);
+        depthMask = flag;
+        learn(DEPTH_MASK);
+    }
+
+    static int getDepthFunc() {
+        if (!hit(DEPTH_FUNC)) {
+            depthFunc = GL11.glGetInteger(GL11.GL_DEPTH_FUNC);
+            learn(DEPTH_FUNC);
+        }
+        return depthFunc;
+    }
+
+    static void setDepthFunc(int func) {
+        if (known(DEPTH_FUNC) && depthFunc == func) {
+            avoided();
+            return;
+        }
+        GL11.glDepthFunc(func);
+        depthFunc = func;
+        learn(DEPTH_FUNC);
+    }
+
+    // ==================== 多边形 / 光栅化 ====================
+
+    static int getCullFaceMode() {
+        if (!hit(CULL_FACE_MODE)) {
+            cullFaceMode = GL11.glGetInteger(GL11.GL_CULL_FACE_MODE);
+            learn(CULL_FACE_MODE);
+        }
+        return cullFaceMode;
+    }
+
+    static void setCullFaceMode(int mode) {
+        if (known(CULL_FACE_MODE) && cullFaceMode == mode) {
+            avoided();
+            return;
+        }
+        GL11.glCullFace(mode);
+        cullFaceMode = mode;
+        learn(CULL_FACE_MODE);
+    }
+
+    static int getFrontFace() {
+        if (!hit(FRONT_FACE)) {
+            frontFace = GL11.glGetInteger(GL11.GL_FRONT_FACE);
+            learn(FRONT_FACE);
+        }
+        return frontFace;
+    }
+
+    static void setFrontFace(int mode) {
+        if (known(FRONT_FACE) && frontFace == mode) {
+            avoided();
+            return;
+        }
+        GL11.glFrontFace(mode);
+        frontFace = mode;
+        learn(FRONT_FACE);
+    }
+
+    static int getShadeModel() {
+        if (!hit(SHADE_MODEL)) {
+            shadeModel = GL11.glGetInteger(GL11.GL_SHADE_MODEL);
+            learn(SHADE_MODEL);
+        }
+        return shadeModel;
+    }
+
+    static void setShadeModel(int mode) {
+        if (known(SHADE_MODEL) && shadeModel == mode) {
+            avoided();
+            return;
+        }
+        GL11.glShadeModel(mode);
+        shadeModel = mode;
+        learn(SHADE_MODEL);
+    }
+
+    static float getLineWidth() {
+        if (!hit(LINE_WIDTH)) {
+            lineWidth = GL11.glGetFloat(GL11.GL_LINE_WIDTH);
+            learn(LINE_WIDTH);
+        }
+        return lineWidth;
+    }
+
+    static void setLineWidth(float width) {
+        if (known(LINE_WIDTH) && lineWidth == width) {
+            avoided();
+            return;
+        }
+        GL11.glLineWidth(width);
+        lineWidth = width;
+        learn(LINE_WIDTH);
+    }
+
+    static float getPolygonOffsetFactor() {
+        if (!hit(POLYGON_OFFSET_FACTOR)) {
+            polygonOffsetFactor = GL11.glGetFloat(GL11.GL_POLYGON_OFFSET_FACTOR);
+            learn(POLYGON_OFFSET_FACTOR);
+        }
+        return polygonOffsetFactor;
+    }
+
+    static float getPolygonOffsetUnits() {
+        if (!hit(POLYGON_OFFSET_UNITS)) {
+            polygonOffsetUnits = GL11.glGetFloat(GL11.GL_POLYGON_OFFSET_UNITS);
+            learn(POLYGON_OFFSET_UNITS);
+        }
+        return polygonOffsetUnits;
+    }
+
+    static void setPolygonOffset(float factor, float units) {
+        if (known(POLYGON_OFFSET_FACTOR | POLYGON_OFFSET_UNITS) && polygonOffsetFactor == factor
+            && polygonOffsetUnits == units) {
+            avoided();
+            return;
+        }
+        GL11.glPolygonOffset(factor, units);
+        polygonOffsetFactor = factor;
+        polygonOffsetUnits = units;
+        learn(POLYGON_OFFSET_FACTOR | POLYGON_OFFSET_UNITS);
+    }
+}
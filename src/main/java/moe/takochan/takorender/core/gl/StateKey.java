@@ -1,5 +1,8 @@
 package moe.takochan.takorender.core.gl;
 
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -8,7 +11,8 @@ import cpw.mods.fml.relauncher.SideOnly;
  *
  * <p>
  * 用于标识不同的 GL 状态，在 RenderEvent 中实现去重。
- * 通过 HashMap 以 StateKey 为键，确保每个状态在单次渲染事件中只保存一次。
+ * RenderEvent 以序号为位号记录已保存的状态，并按序号为每个状态预留固定的原始值槽位，
+ * 确保每个状态在单次渲染事件中只保存一次。
  * </p>
  *
  * <p>
@@ -16,8 +20,8 @@ import cpw.mods.fml.relauncher.SideOnly;
  * </p>
  * <ul>
  * <li>防止重复保存：多次调用 enableBlend() 时，只在第一次保存状态</li>
- * <li>精确追踪：HashMap 记录哪些状态已被修改</li>
- * <li>LIFO 恢复：List 记录修改顺序，恢复时反向遍历</li>
+ * <li>精确追踪：位集记录哪些状态已被修改</li>
+ * <li>LIFO 恢复：序号数组记录修改顺序，恢复时反向遍历</li>
  * </ul>
  *
  * <p>
@@ -28,24 +32,24 @@ import cpw.mods.fml.relauncher.SideOnly;
  * <b>总计</b>: 67 个状态键，覆盖 OpenGL 1.3 固定管线所有状态
  * </p>
  *
- * @see RenderEvent#saveState(StateKey, StateTracker)
- * @see RenderEvent#savedStates
+ * @see RenderEvent#save(StateKey)
+ * @see RenderEventStateTrackers
  */
 @SideOnly(Side.CLIENT)
 enum StateKey {
     // GL_COLOR_BUFFER_BIT (9 states)
     /** 混合开关状态 (GL_BLEND) */
-    BLEND_ENABLED,
+    BLEND_ENABLED(GL11.GL_BLEND),
     /** 混合函数 (glBlendFunc) */
     BLEND_FUNC,
     /** Alpha 测试开关 (GL_ALPHA_TEST) */
-    ALPHA_TEST_ENABLED,
+    ALPHA_TEST_ENABLED(GL11.GL_ALPHA_TEST),
     /** Alpha 测试函数 (glAlphaFunc) */
     ALPHA_TEST_FUNC,
     /** 抖动开关 (GL_DITHER) */
-    DITHER_ENABLED,
+    DITHER_ENABLED(GL11.GL_DITHER),
     /** 逻辑操作开关 (GL_COLOR_LOGIC_OP) */
-    LOGIC_OP_ENABLED,
+    LOGIC_OP_ENABLED(GL11.GL_COLOR_LOGIC_OP),
     /** 逻辑操作模式 (glLogicOp) */
     LOGIC_OP_MODE,
     /** 颜色掩码 (glColorMask) */
@@ -63,7 +67,7 @@ enum StateKey {
 
     // GL_DEPTH_BUFFER_BIT (4 states)
     /** 深度测试开关 (GL_DEPTH_TEST) */
-    DEPTH_TEST_ENABLED,
+    DEPTH_TEST_ENABLED(GL11.GL_DEPTH_TEST),
     /** 深度写入掩码 (glDepthMask) */
     DEPTH_MASK,
     /** 深度测试函数 (glDepthFunc) */
@@ -73,63 +77,63 @@ enum StateKey {
 
     // GL_ENABLE_BIT (15 states)
     /** 2D 纹理开关 (GL_TEXTURE_2D) */
-    TEXTURE_2D_ENABLED,
+    TEXTURE_2D_ENABLED(GL11.GL_TEXTURE_2D),
     /** 光照开关 (GL_LIGHTING) */
-    LIGHTING_ENABLED,
+    LIGHTING_ENABLED(GL11.GL_LIGHTING),
     /** 面剔除开关 (GL_CULL_FACE) */
-    CULL_FACE_ENABLED,
+    CULL_FACE_ENABLED(GL11.GL_CULL_FACE),
     /** 雾效开关 (GL_FOG) */
-    FOG_ENABLED,
+    FOG_ENABLED(GL11.GL_FOG),
     /** 裁剪测试开关 (GL_SCISSOR_TEST) */
-    SCISSOR_TEST_ENABLED,
+    SCISSOR_TEST_ENABLED(GL11.GL_SCISSOR_TEST),
     /** 模板测试开关 (GL_STENCIL_TEST) */
-    STENCIL_TEST_ENABLED,
+    STENCIL_TEST_ENABLED(GL11.GL_STENCIL_TEST),
     /** 法线归一化开关 (GL_NORMALIZE) */
-    NORMALIZE_ENABLED,
+    NORMALIZE_ENABLED(GL11.GL_NORMALIZE),
     /** 法线重缩放开关 (GL_RESCALE_NORMAL) */
-    RESCALE_NORMAL_ENABLED,
+    RESCALE_NORMAL_ENABLED(GL12.GL_RESCALE_NORMAL),
     /** 多边形填充偏移开关 (GL_POLYGON_OFFSET_FILL) */
-    POLYGON_OFFSET_FILL_ENABLED,
+    POLYGON_OFFSET_FILL_ENABLED(GL11.GL_POLYGON_OFFSET_FILL),
     /** 多边形线框偏移开关 (GL_POLYGON_OFFSET_LINE) */
-    POLYGON_OFFSET_LINE_ENABLED,
+    POLYGON_OFFSET_LINE_ENABLED(GL11.GL_POLYGON_OFFSET_LINE),
     /** 线条点画开关 (GL_LINE_STIPPLE) */
-    LINE_STIPPLE_ENABLED,
+    LINE_STIPPLE_ENABLED(GL11.GL_LINE_STIPPLE),
     /** 线条平滑开关 (GL_LINE_SMOOTH) */
-    LINE_SMOOTH_ENABLED,
+    LINE_SMOOTH_ENABLED(GL11.GL_LINE_SMOOTH),
     /** 多边形点画开关 (GL_POLYGON_STIPPLE) */
-    POLYGON_STIPPLE_ENABLED,
+    POLYGON_STIPPLE_ENABLED(GL11.GL_POLYGON_STIPPLE),
     /** 多边形平滑开关 (GL_POLYGON_SMOOTH) */
-    POLYGON_SMOOTH_ENABLED,
+    POLYGON_SMOOTH_ENABLED(GL11.GL_POLYGON_SMOOTH),
     /** 点平滑开关 (GL_POINT_SMOOTH) */
-    POINT_SMOOTH_ENABLED,
+    POINT_SMOOTH_ENABLED(GL11.GL_POINT_SMOOTH),
 
     // GL_FOG_BIT (5 states)
     /** 雾效模式 (glFogi GL_FOG_MODE) */
     FOG_MODE,
     /** 雾效密度 (glFogf GL_FOG_DENSITY) */
-    FOG_DENSITY,
+    FOG_DENSITY(GL11.GL_FOG_DENSITY),
     /** 雾效起始距离 (glFogf GL_FOG_START) */
-    FOG_START,
+    FOG_START(GL11.GL_FOG_START),
     /** 雾效结束距离 (glFogf GL_FOG_END) */
-    FOG_END,
+    FOG_END(GL11.GL_FOG_END),
     /** 雾效颜色 (glFog GL_FOG_COLOR) */
     FOG_COLOR,
 
     // GL_HINT_BIT (5 states)
     /** 透视修正提示 (glHint GL_PERSPECTIVE_CORRECTION_HINT) */
-    PERSPECTIVE_CORRECTION_HINT,
+    PERSPECTIVE_CORRECTION_HINT(GL11.GL_PERSPECTIVE_CORRECTION_HINT),
     /** 点平滑提示 (glHint GL_POINT_SMOOTH_HINT) */
-    POINT_SMOOTH_HINT,
+    POINT_SMOOTH_HINT(GL11.GL_POINT_SMOOTH_HINT),
     /** 线条平滑提示 (glHint GL_LINE_SMOOTH_HINT) */
-    LINE_SMOOTH_HINT,
+    LINE_SMOOTH_HINT(GL11.GL_LINE_SMOOTH_HINT),
     /** 多边形平滑提示 (glHint GL_POLYGON_SMOOTH_HINT) */
-    POLYGON_SMOOTH_HINT,
+    POLYGON_SMOOTH_HINT(GL11.GL_POLYGON_SMOOTH_HINT),
     /** 雾效提示 (glHint GL_FOG_HINT) */
-    FOG_HINT,
+    FOG_HINT(GL11.GL_FOG_HINT),
 
     // GL_LIGHTING_BIT (9 states)
     /** 颜色材质开关 (GL_COLOR_MATERIAL) */
-    COLOR_MATERIAL_ENABLED,
+    COLOR_MATERIAL_ENABLED(GL11.GL_COLOR_MATERIAL),
     /** 颜色材质面 (glColorMaterial face) */
     COLOR_MATERIAL_FACE,
     /** 颜色材质模式 (glColorMaterial mode) */
@@ -137,13 +141,13 @@ enum StateKey {
     /** 着色模型 (glShadeModel) */
     SHADE_MODEL,
     /** 材质环境光 (glMaterial GL_AMBIENT) */
-    MATERIAL_AMBIENT,
+    MATERIAL_AMBIENT(GL11.GL_AMBIENT),
     /** 材质漫反射 (glMaterial GL_DIFFUSE) */
-    MATERIAL_DIFFUSE,
+    MATERIAL_DIFFUSE(GL11.GL_DIFFUSE),
     /** 材质镜面反射 (glMaterial GL_SPECULAR) */
-    MATERIAL_SPECULAR,
+    MATERIAL_SPECULAR(GL11.GL_SPECULAR),
     /** 材质自发光 (glMaterial GL_EMISSION) */
-    MATERIAL_EMISSION,
+    MATERIAL_EMISSION(GL11.GL_EMISSION),
     /** 材质光泽度 (glMaterialf GL_SHININESS) */
     MATERIAL_SHININESS,
 
@@ -191,5 +195,26 @@ enum StateKey {
     /** 视口 (glViewport) */
     VIEWPORT,
     /** 深度范围 (glDepthRange) */
-    DEPTH_RANGE
+    DEPTH_RANGE;
+
+    /** 状态键总数 */
+    static final int COUNT = values().length;
+
+    /** 按序号索引的状态键（避免 values() 每次复制数组） */
+    private static final StateKey[] BY_ORDINAL = values();
+
+    /** 对应的 GL 枚举（开关的 capability、提示的 target、雾效 / 材质的 pname；其余为 0） */
+    final int glEnum;
+
+    StateKey() {
+        this(0);
+    }
+
+    StateKey(int glEnum) {
+        this.glEnum = glEnum;
+    }
+
+    static StateKey byOrdinal(int ordinal) {
+        return BY_ORDINAL[ordinal];
+    }
 }
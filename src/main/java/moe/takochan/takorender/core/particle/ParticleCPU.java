@@ -1,12 +1,20 @@
 package moe.takochan.takorender.core.particle;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
+import moe.takochan.takorender.api.ecs.WorkerPool;
+import moe.takochan.takorender.api.particle.CollisionMode;
+import moe.takochan.takorender.api.particle.CollisionResponse;
+import moe.takochan.takorender.api.particle.ColorOverLifetime;
+import moe.takochan.takorender.api.particle.ForceType;
 import moe.takochan.takorender.api.particle.ParticleForce;
 import moe.takochan.takorender.api.particle.RotationOverLifetime;
+import moe.takochan.takorender.api.particle.SizeOverLifetime;
 import moe.takochan.takorender.api.particle.VelocityOverLifetime;
 
 /**
@@ -18,6 +26,37 @@ import moe.takochan.takorender.api.particle.VelocityOverLifetime;
  * </p>
  *
  * <p>
+ * <b>单遍内核</b>:
+ * 力场、速度 / 旋转曲线、平面 / 球体 / 盒子碰撞以及颜色 / 大小曲线在同一个逐粒子循环中完成，
+ * 每个粒子只读写一次。碰撞判定和响应与 particle_update.comp 一致，
+ * 弹跳概率和散射方向使用相同的无状态哈希（按槽位号和每次更新递增的种子），因此多线程结果不变。
+ * 颜色和大小曲线以粒子发射时的颜色 / 大小为基准相乘。
+ * </p>
+ *
+ * <p>
+ * <b>邻域力场</b>:
+ * 存在 {@link ForceType#NEIGHBOR} 力场时，每次更新前用 {@link ParticleSpatialHash} 对存活粒子重建均匀网格，
+ * 每个粒子只检查周围 27 个格子且最多统计固定数量的邻居，开销为 O(n·k) 而不是 O(n²)。
+ * 查询读取的是重建时的快照，因此多线程结果不变。
+ * </p>
+ *
+ * <p>
+ * <b>紧凑布局</b>:
+ * 存活粒子始终连续存放在 [0, aliveCount) 中。发射时追加到末尾（O(1)），
+ * {@link #update} 中粒子死亡时用最后一个存活粒子覆盖其槽位（swap-remove）。
+ * 模拟、上传和绘制都只需处理 aliveCount 个粒子，与缓冲区容量无关。
+ * 粒子的存储顺序因此不稳定，槽位号在下一次 update 后可能变化。
+ * </p>
+ *
+ * <p>
+ * <b>SoA 模式</b>:
+ * 通过 {@link #setSoAEnabled(boolean)} 启用后，动态字段改由 {@link ParticleSoA} 保存，
+ * 只有恒定力（重力、风力）且没有速度 / 旋转曲线时使用可自动向量化的流式积分内核；
+ * 其余情况按范围转换回 AoS 积分。AoS 数组在 {@link #getParticles()} 时按需同步。
+ * 两种模式的存活粒子结果逐位一致。
+ * </p>
+ *
+ * <p>
  * <b>性能注意</b>: CPU 实现比 GPU 慢很多，建议限制最大粒子数。
  * </p>
  */
@@ -30,18 +69,80 @@ public class ParticleCPU {
     /** 最大粒子数 */
     private int maxParticles;
 
-    /** 当前存活粒子数 */
+    /** 当前存活粒子数（存活粒子位于 [0, aliveCount)） */
     private int aliveCount;
 
-    /** 随机数生成器 */
-    private final Random random = new Random();
-
     /** 速度曲线 */
     private VelocityOverLifetime velocityOverLifetime;
 
     /** 旋转曲线 */
     private RotationOverLifetime rotationOverLifetime;
 
+    /** 颜色曲线 */
+    private ColorOverLifetime colorOverLifetime;
+
+    /** 大小曲线 */
+    private SizeOverLifetime sizeOverLifetime;
+
+    /** 每个粒子的初始属性数量：r, g, b, a, size */
+    private static final int INITIAL_STRIDE = 5;
+
+    /** 发射时的颜色和大小（颜色 / 大小曲线的基准，与粒子槽位一一对应） */
+    private final float[] initialAttributes;
+
+    /** 碰撞模式（CPU 回退只支持 PLANE / SPHERE / BOX，其余视为 NONE） */
+    private CollisionMode collisionMode = CollisionMode.NONE;
+
+    /** 碰撞响应 */
+    private CollisionResponse collisionResponse = CollisionResponse.KILL;
+
+    private float bounciness = 0.5f;
+    private float bounceChance = 1.0f;
+    private float bounceSpread = 0.0f;
+
+    /** 碰撞形状：平面 [nx, ny, nz, d]、球体 [cx, cy, cz, r]、盒子 [minX, minY, minZ, maxX, maxY, maxZ] */
+    private final float[] collisionShape = { 0, 1, 0, 0, 0, 0, 0, 1, 0, 0, 0, 1, 1, 1 };
+
+    private static final int SHAPE_PLANE = 0;
+    private static final int SHAPE_SPHERE = 4;
+    private static final int SHAPE_BOX = 8;
+
+    /** 碰撞随机种子（每次更新递增，对应 GPU 的 uRandomSeed） */
+    private int randomSeed;
+
+    /** 每个展开力场的参数数量：x, y, z, strength, param1, param2 */
+    private static final int FORCE_STRIDE = 6;
+
+    /** 展开后的力场类型（每帧重建） */
+    private ForceType[] forceTypes = new ForceType[4];
+
+    /** 展开后的力场参数（每帧重建） */
+    private float[] forceParams = new float[4 * FORCE_STRIDE];
+
+    /** 恒定力之和（重力、风力） */
+    private final float[] constantForce = new float[3];
+
+    /** 本帧需要逐粒子计算的力场数量 */
+    private int forceCount;
+
+    /** 邻域力场的最大半径（没有邻域力场时为 0） */
+    private float neighborRadius;
+
+    /** 邻域查询用的空间哈希（延迟创建） */
+    private ParticleSpatialHash spatialHash;
+
+    /** SoA 存储（未启用时为 null） */
+    private ParticleSoA soa;
+
+    /** 串行积分（以及非工作线程上执行的任务）使用的暂存数组 */
+    private final IntegrateScratch serialScratch = new IntegrateScratch();
+
+    /** 并行积分的暂存数组（按工作线程的池内序号，首次使用时创建） */
+    private IntegrateScratch[] workerScratch = new IntegrateScratch[0];
+
+    /** SoA 数据是否比 AoS 数组新 */
+    private boolean soaDirty;
+
     /**
      * 创建 CPU 粒子系统
      *
@@ -50,6 +151,7 @@ public class ParticleCPU {
     public ParticleCPU(int maxParticles) {
         this.maxParticles = maxParticles;
         this.particles = new float[maxParticles * ParticleBuffer.PARTICLE_SIZE_FLOATS];
+        this.initialAttributes = new float[maxParticles * INITIAL_STRIDE];
         this.aliveCount = 0;
     }
 
@@ -68,20 +170,202 @@ public class ParticleCPU {
     }
 
     /**
-     * 更新所有粒子
+     * 设置颜色曲线（与发射颜色相乘）
+     */
+    public void setColorOverLifetime(ColorOverLifetime curve) {
+        this.colorOverLifetime = curve;
+    }
+
+    /**
+     * 设置大小曲线（与发射大小相乘）
+     */
+    public void setSizeOverLifetime(SizeOverLifetime curve) {
+        this.sizeOverLifetime = curve;
+    }
+
+    /**
+     * 设置碰撞模式和响应
+     *
+     * @param mode         碰撞模式（只支持 PLANE / SPHERE / BOX，其余模式不检测碰撞）
+     * @param response     碰撞响应
+     * @param bounciness   BOUNCE_DAMPED 的速度保留系数
+     * @param bounceChance 弹跳概率 (0-1)，未命中的粒子被移除
+     * @param bounceSpread 弹跳方向随机散射角（度）
+     */
+    public void setCollision(CollisionMode mode, CollisionResponse response, float bounciness, float bounceChance,
+        float bounceSpread) {
+        this.collisionMode = mode != null ? mode : CollisionMode.NONE;
+        this.collisionResponse = response != null ? response : CollisionResponse.KILL;
+        this.bounciness = bounciness;
+        this.bounceChance = bounceChance;
+        this.bounceSpread = bounceSpread;
+    }
+
+    /**
+     * 设置碰撞平面（dot(pos, n) &lt; d 的一侧为碰撞区域，法线应已归一化）
+     */
+    public void setCollisionPlane(float nx, float ny, float nz, float d) {
+        collisionShape[SHAPE_PLANE] = nx;
+        collisionShape[SHAPE_PLANE + 1] = ny;
+        collisionShape[SHAPE_PLANE + 2] = nz;
+        collisionShape[SHAPE_PLANE + 3] = d;
+    }
+
+    /**
+     * 设置碰撞球体（球内为碰撞区域）
+     */
+    public void setCollisionSphere(float cx, float cy, float cz, float radius) {
+        collisionShape[SHAPE_SPHERE] = cx;
+        collisionShape[SHAPE_SPHERE + 1] = cy;
+        collisionShape[SHAPE_SPHERE + 2] = cz;
+        collisionShape[SHAPE_SPHERE + 3] = radius;
+    }
+
+    /**
+     * 设置碰撞盒子（盒内为碰撞区域）
+     */
+    public void setCollisionBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        collisionShape[SHAPE_BOX] = minX;
+        collisionShape[SHAPE_BOX + 1] = minY;
+        collisionShape[SHAPE_BOX + 2] = minZ;
+        collisionShape[SHAPE_BOX + 3] = maxX;
+        collisionShape[SHAPE_BOX + 4] = maxY;
+        collisionShape[SHAPE_BOX + 5] = maxZ;
+    }
+
+    /**
+     * 检查是否启用 SoA 模式
+     */
+    public boolean isSoAEnabled() {
+        return soa != null;
+    }
+
+    /**
+     * 设置是否启用 SoA 模式（默认关闭，切换时保留现有粒子）
+     */
+    public void setSoAEnabled(boolean enabled) {
+        if (enabled == (soa != null)) {
+            return;
+        }
+        if (enabled) {
+            soa = new ParticleSoA(maxParticles);
+            for (int i = 0; i < aliveCount; i++) {
+                soa.load(i, particles, i * ParticleBuffer.PARTICLE_SIZE_FLOATS);
+            }
+        } else {
+            syncAoS();
+            soa = null;
+        }
+        soaDirty = false;
+    }
+
+    /**
+     * 更新所有粒子（单线程）
+     *
+     * <p>
+     * 力场在每帧开始时展开为基本类型参数数组，与粒子无关的恒定力（重力、风力）预先合并为一个加速度；
+     * 逐粒子循环只读写局部变量和数组，不产生对象分配。
+     * </p>
      *
      * @param deltaTime 时间增量
      * @param forces    力场列表
      */
     public void update(float deltaTime, List<ParticleForce> forces) {
-        aliveCount = 0;
+        forceCount = flattenForces(forces);
+        randomSeed++;
+        buildSpatialHash();
+        integrate(0, aliveCount, deltaTime, serialScratch);
+        compact();
+        soaDirty = soa != null;
+    }
+
+    /**
+     * 更新所有粒子（多线程）
+     *
+     * <p>
+     * 存活区按 chunkSize 切分后在 {@link WorkerPool} 上并行积分，全部完成后单线程压缩。
+     * 每个粒子的积分只依赖自身数据和只读的力场参数（湍流噪声是无状态的哈希函数），
+     * 每个线程只使用自己的暂存数组，压缩顺序与切分方式无关，因此结果与 {@link #update} 逐位一致。
+     * </p>
+     *
+     * <p>
+     * 可以在工作线程上调用（此时直接在当前线程分治）。
+     * </p>
+     *
+     * @param deltaTime 时间增量
+     * @param forces    力场列表
+     * @param chunkSize 每个任务处理的粒子数
+     */
+    public void updateParallel(float deltaTime, List<ParticleForce> forces, int chunkSize) {
+        forceCount = flattenForces(forces);
+        randomSeed++;
+        buildSpatialHash();
+        int count = aliveCount;
+        if (count <= chunkSize || !WorkerPool.isParallelAvailable()) {
+            integrate(0, count, deltaTime, serialScratch);
+        } else {
+            IntegrateTask task = new IntegrateTask(0, count, deltaTime, Math.max(1, chunkSize));
+            if (WorkerPool.isWorkerThread()) {
+                task.invoke();
+            } else {
+                WorkerPool.get()
+                    .invoke(task);
+            }
+        }
+        compact();
+        soaDirty = soa != null;
+    }
 
-        for (int i = 0; i < maxParticles; i++) {
+    /**
+     * 积分 [from, to) 范围内的粒子
+     *
+     * <p>
+     * 死亡粒子只把生命值置为不大于 0，由 {@link #compact()} 统一移出存活区。
+     * 不同范围之间不共享可写数据，并发调用时各自传入不同的暂存数组。
+     * </p>
+     */
+    private void integrate(int from, int to, float deltaTime, IntegrateScratch scratch) {
+        if (soa == null) {
+            integrateAoS(from, to, deltaTime, scratch);
+            return;
+        }
+        if (forceCount == 0 && velocityOverLifetime == null
+            && rotationOverLifetime == null
+            && colorOverLifetime == null
+            && sizeOverLifetime == null
+            && collisionShapeOffset() < 0) {
+            soa.integrate(from, to, deltaTime, constantForce[0], constantForce[1], constantForce[2]);
+            return;
+        }
+        // 逐粒子力场、曲线或碰撞：范围内转换回 AoS 积分
+        soa.store(particles, from, to);
+        integrateAoS(from, to, deltaTime, scratch);
+        for (int i = from; i < to; i++) {
+            soa.load(i, particles, i * ParticleBuffer.PARTICLE_SIZE_FLOATS);
+        }
+    }
+
+    private void integrateAoS(int from, int to, float deltaTime, IntegrateScratch scratch) {
+        final int forceCount = this.forceCount;
+        final ForceType[] forceTypes = this.forceTypes;
+        final float[] forceParams = this.forceParams;
+        final float constantX = constantForce[0];
+        final float constantY = constantForce[1];
+        final float constantZ = constantForce[2];
+        final float[] particles = this.particles;
+        final float[] initial = this.initialAttributes;
+        final int shape = collisionShapeOffset();
+
+        final float[] velocityScale = velocityOverLifetime != null ? scratch.velocityScale : null;
+        final float[] colorScale = colorOverLifetime != null ? scratch.colorScale : null;
+        final float[] spreadDir = shape >= 0 && bounceSpread > 0 ? scratch.spreadDir : null;
+        final float[] neighborForce = scratch.neighborForce;
+        final int[] neighborBuckets = scratch.neighborBuckets;
+
+        for (int i = from; i < to; i++) {
             int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
 
             float life = particles[base + 3];
-            if (life <= 0) continue;
-
             float maxLife = particles[base + 7];
             float lifePercent = 1.0f - (life / maxLife);
 
@@ -103,15 +387,84 @@ public class ParticleCPU {
             float rotation = particles[base + 13];
             float angularVel = particles[base + 15];
 
-            float forceX = 0, forceY = 0, forceZ = 0;
-            if (forces != null) {
-                for (ParticleForce force : forces) {
-                    if (!force.isEnabled()) continue;
+            float forceX = constantX, forceY = constantY, forceZ = constantZ;
+            for (int f = 0; f < forceCount; f++) {
+                int p = f * FORCE_STRIDE;
+                float strength = forceParams[p + 3];
+
+                switch (forceTypes[f]) {
+                    case DRAG:
+                        forceX -= velX * strength;
+                        forceY -= velY * strength;
+                        forceZ -= velZ * strength;
+                        break;
+
+                    case ATTRACTOR:
+                    case REPULSOR: {
+                        float dx = forceParams[p] - posX;
+                        float dy = forceParams[p + 1] - posY;
+                        float dz = forceParams[p + 2] - posZ;
+                        float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                        float radius = forceParams[p + 4];
+                        if (dist > 0.01f && (radius <= 0 || dist < radius)) {
+                            // 与 particle_update.comp 一致：半径内按 (1 - dist / radius)^2 衰减，半径不大于 0 时不限范围
+                            float falloff = radius > 0 ? 1.0f - dist / radius : 1.0f;
+                            // 排斥力的参数中强度已取反
+                            float factor = strength * falloff * falloff / dist;
+                            forceX += dx * factor;
+                            forceY += dy * factor;
+                            forceZ += dz * factor;
+                        }
+                        break;
+                    }
 
-                    float[] f = applyForce(force, posX, posY, posZ, velX, velY, velZ);
-                    forceX += f[0];
-                    forceY += f[1];
-                    forceZ += f[2];
+                    case TURBULENCE: {
+                        float scale = forceParams[p + 4];
+                        float sx = posX * scale;
+                        float sy = posY * scale;
+                        float sz = posZ * scale;
+                        forceX += simplexNoise3D(sx, sy, sz) * strength;
+                        forceY += simplexNoise3D(sx + 100, sy + 100, sz + 100) * strength;
+                        forceZ += simplexNoise3D(sx + 200, sy + 200, sz + 200) * strength;
+                        break;
+                    }
+
+                    case VELOCITY_LIMIT: {
+                        float speed = (float) Math.sqrt(velX * velX + velY * velY + velZ * velZ);
+                        if (speed > strength) {
+                            float factor = 1.0f - strength / speed;
+                            forceX -= velX * factor;
+                            forceY -= velY * factor;
+                            forceZ -= velZ * factor;
+                        }
+                        break;
+                    }
+
+                    case NEIGHBOR: {
+                        neighborForce[0] = 0;
+                        neighborForce[1] = 0;
+                        neighborForce[2] = 0;
+                        spatialHash.accumulate(
+                            i,
+                            posX,
+                            posY,
+                            posZ,
+                            velX,
+                            velY,
+                            velZ,
+                            forceParams[p + 4],
+                            strength,
+                            forceParams[p + 5],
+                            neighborForce,
+                            neighborBuckets);
+                        forceX += neighborForce[0];
+                        forceY += neighborForce[1];
+                        forceZ += neighborForce[2];
+                        break;
+                    }
+
+                    default:
+                        break;
                 }
             }
 
@@ -123,11 +476,11 @@ public class ParticleCPU {
             float effectiveVelY = velY;
             float effectiveVelZ = velZ;
 
-            if (velocityOverLifetime != null) {
-                float[] mult = velocityOverLifetime.evaluate(lifePercent);
-                effectiveVelX *= mult[0];
-                effectiveVelY *= mult[1];
-                effectiveVelZ *= mult[2];
+            if (velocityScale != null) {
+                velocityOverLifetime.evaluateLUT(lifePercent, velocityScale);
+                effectiveVelX *= velocityScale[0];
+                effectiveVelY *= velocityScale[1];
+                effectiveVelZ *= velocityScale[2];
             }
 
             posX += effectiveVelX * deltaTime;
@@ -136,7 +489,7 @@ public class ParticleCPU {
 
             float additionalAngVel = 0;
             if (rotationOverLifetime != null) {
-                additionalAngVel = rotationOverLifetime.evaluateZ(lifePercent);
+                additionalAngVel = rotationOverLifetime.evaluateZLUT(lifePercent);
             }
             rotation += (angularVel + additionalAngVel) * deltaTime;
 
@@ -148,98 +501,365 @@ public class ParticleCPU {
             particles[base + 6] = velZ;
             particles[base + 13] = rotation;
 
-            aliveCount++;
+            if (shape >= 0 && collide(i, base, posX, posY, posZ, shape, spreadDir)) {
+                life = particles[base + 3];
+                if (life <= 0) {
+                    continue;
+                }
+            }
+
+            if (colorScale != null || sizeOverLifetime != null) {
+                // 与渲染一致，使用更新后的生命周期
+                float age = 1.0f - life / Math.max(maxLife, 0.001f);
+                age = age < 0 ? 0 : (age > 1 ? 1 : age);
+                int init = i * INITIAL_STRIDE;
+                if (colorScale != null) {
+                    colorOverLifetime.evaluateLUT(age, colorScale);
+                    particles[base + 8] = initial[init] * colorScale[0];
+                    particles[base + 9] = initial[init + 1] * colorScale[1];
+                    particles[base + 10] = initial[init + 2] * colorScale[2];
+                    particles[base + 11] = initial[init + 3] * colorScale[3];
+                }
+                if (sizeOverLifetime != null) {
+                    particles[base + 12] = initial[init + 4] * sizeOverLifetime.evaluateLUT(age);
+                }
+            }
         }
     }
 
     /**
-     * 计算力场效果
+     * 有邻域力场时用积分前的位置 / 速度重建空间哈希
      */
-    private float[] applyForce(ParticleForce force, float posX, float posY, float posZ, float velX, float velY,
-        float velZ) {
+    private void buildSpatialHash() {
+        if (neighborRadius <= 0) {
+            return;
+        }
+        if (spatialHash == null) {
+            spatialHash = new ParticleSpatialHash();
+        }
+        // SoA 模式下先同步 AoS 数组
+        syncAoS();
+        spatialHash.build(particles, aliveCount, neighborRadius);
+    }
 
-        float[] result = new float[] { 0, 0, 0 };
+    /**
+     * 当前碰撞模式对应的形状参数偏移
+     *
+     * @return 偏移，CPU 回退不支持的模式返回 -1
+     */
+    private int collisionShapeOffset() {
+        switch (collisionMode) {
+            case PLANE:
+                return SHAPE_PLANE;
+            case SPHERE:
+                return SHAPE_SPHERE;
+            case BOX:
+                return SHAPE_BOX;
+            default:
+                return -1;
+        }
+    }
 
-        switch (force.getType()) {
-            case GRAVITY:
-                result[0] = force.getX() * force.getStrength();
-                result[1] = force.getY() * force.getStrength();
-                result[2] = force.getZ() * force.getStrength();
-                break;
+    /**
+     * 碰撞检测与响应（与 particle_update.comp 的 check*Collision / handleCollision 一致）
+     *
+     * @param spreadDir 散射方向暂存（bounceSpread 为 0 时可为 null）
+     * @return 是否发生碰撞
+     */
+    private boolean collide(int index, int base, float posX, float posY, float posZ, int shape,
+        float[] spreadDir) {
+        final float[] s = collisionShape;
+        float nx, ny, nz;
+        if (shape == SHAPE_PLANE) {
+            if (posX * s[0] + posY * s[1] + posZ * s[2] - s[3] >= 0) {
+                return false;
+            }
+            nx = s[0];
+            ny = s[1];
+            nz = s[2];
+        } else if (shape == SHAPE_SPHERE) {
+            float dx = posX - s[4];
+            float dy = posY - s[5];
+            float dz = posZ - s[6];
+            float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (!(dist < s[7])) {
+                return false;
+            }
+            nx = dx / dist;
+            ny = dy / dist;
+            nz = dz / dist;
+        } else {
+            if (!(posX > s[8] && posX < s[11] && posY > s[9] && posY < s[12] && posZ > s[10] && posZ < s[13])) {
+                return false;
+            }
+            // 最近的面
+            float minDist = posX - s[8];
+            nx = -1;
+            ny = 0;
+            nz = 0;
+            if (s[11] - posX < minDist) {
+                minDist = s[11] - posX;
+                nx = 1;
+            }
+            if (posY - s[9] < minDist) {
+                minDist = posY - s[9];
+                nx = 0;
+                ny = -1;
+            }
+            if (s[12] - posY < minDist) {
+                minDist = s[12] - posY;
+                nx = 0;
+                ny = 1;
+            }
+            if (posZ - s[10] < minDist) {
+                minDist = posZ - s[10];
+                nx = 0;
+                ny = 0;
+                nz = -1;
+            }
+            if (s[13] - posZ < minDist) {
+                nx = 0;
+                ny = 0;
+                nz = 1;
+            }
+        }
 
-            case WIND:
-                result[0] = force.getX() * force.getStrength();
-                result[1] = force.getY() * force.getStrength();
-                result[2] = force.getZ() * force.getStrength();
-                break;
+        final float[] particles = this.particles;
+        float velX = particles[base + 4];
+        float velY = particles[base + 5];
+        float velZ = particles[base + 6];
 
-            case DRAG:
-                result[0] = -velX * force.getStrength();
-                result[1] = -velY * force.getStrength();
-                result[2] = -velZ * force.getStrength();
-                break;
+        switch (collisionResponse) {
+            case KILL:
+                particles[base + 3] = 0;
+                return true;
 
-            case ATTRACTOR: {
-                float dx = force.getX() - posX;
-                float dy = force.getY() - posY;
-                float dz = force.getZ() - posZ;
-                float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
-                if (dist > 0.01f) {
-                    float factor = force.getStrength() / dist;
-                    result[0] = dx * factor;
-                    result[1] = dy * factor;
-                    result[2] = dz * factor;
+            case BOUNCE:
+            case BOUNCE_DAMPED: {
+                if (particleRandom(index, 2) > bounceChance) {
+                    particles[base + 3] = 0;
+                    return true;
+                }
+                float d = 2.0f * (velX * nx + velY * ny + velZ * nz);
+                float rx = velX - d * nx;
+                float ry = velY - d * ny;
+                float rz = velZ - d * nz;
+                if (spreadDir != null) {
+                    float speed = (float) Math.sqrt(rx * rx + ry * ry + rz * rz);
+                    spreadDir[0] = rx / speed;
+                    spreadDir[1] = ry / speed;
+                    spreadDir[2] = rz / speed;
+                    randomSpread(index, spreadDir, bounceSpread);
+                    rx = spreadDir[0] * speed;
+                    ry = spreadDir[1] * speed;
+                    rz = spreadDir[2] * speed;
                 }
+                float damping = collisionResponse == CollisionResponse.BOUNCE_DAMPED ? bounciness : 1.0f;
+                velX = rx * damping;
+                velY = ry * damping;
+                velZ = rz * damping;
                 break;
             }
 
-            case REPULSOR: {
-                float dx = posX - force.getX();
-                float dy = posY - force.getY();
-                float dz = posZ - force.getZ();
-                float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
-                if (dist > 0.01f) {
-                    float factor = force.getStrength() / dist;
-                    result[0] = dx * factor;
-                    result[1] = dy * factor;
-                    result[2] = dz * factor;
-                }
+            case STICK:
+                velX = 0;
+                velY = 0;
+                velZ = 0;
                 break;
-            }
 
-            case TURBULENCE: {
-                float scale = force.getParam1();
-                float nx = simplexNoise3D(posX * scale, posY * scale, posZ * scale);
-                float ny = simplexNoise3D(posX * scale + 100, posY * scale + 100, posZ * scale + 100);
-                float nz = simplexNoise3D(posX * scale + 200, posY * scale + 200, posZ * scale + 200);
-                result[0] = nx * force.getStrength();
-                result[1] = ny * force.getStrength();
-                result[2] = nz * force.getStrength();
+            case SLIDE: {
+                float d = velX * nx + velY * ny + velZ * nz;
+                velX -= nx * d;
+                velY -= ny * d;
+                velZ -= nz * d;
                 break;
             }
 
-            case VELOCITY_LIMIT: {
-                float speed = (float) Math.sqrt(velX * velX + velY * velY + velZ * velZ);
-                if (speed > force.getStrength()) {
-                    float factor = 1.0f - force.getStrength() / speed;
-                    result[0] = -velX * factor;
-                    result[1] = -velY * factor;
-                    result[2] = -velZ * factor;
+            default:
+                return false;
+        }
+
+        particles[base] = posX + nx * 0.01f;
+        particles[base + 1] = posY + ny * 0.01f;
+        particles[base + 2] = posZ + nz * 0.01f;
+        particles[base + 4] = velX;
+        particles[base + 5] = velY;
+        particles[base + 6] = velZ;
+        return true;
+    }
+
+    /**
+     * 按槽位和通道生成 [0, 1] 随机数（与 particle_update.comp 的 particleRandom 一致）
+     */
+    private float particleRandom(int index, int channel) {
+        int h = hashUint(index * 7919 + randomSeed * 104729 + channel * 31337);
+        return (float) ((h & 0xFFFFFFFFL) / 4294967295.0);
+    }
+
+    /**
+     * 在 dir 周围 spreadAngle 度的圆锥内随机偏转（结果写回 dir，已归一化）
+     */
+    private void randomSpread(int index, float[] dir, float spreadAngle) {
+        float theta = particleRandom(index, 0) * 6.28318530718f;
+        float phi = particleRandom(index, 1) * spreadAngle * 0.0174532925f;
+
+        float bx = dir[0], by = dir[1], bz = dir[2];
+        float upX = 0, upY = 1, upZ = 0;
+        if (Math.abs(by) >= 0.999f) {
+            upX = 1;
+            upY = 0;
+        }
+        // tangent = normalize(cross(up, dir))
+        float tx = upY * bz - upZ * by;
+        float ty = upZ * bx - upX * bz;
+        float tz = upX * by - upY * bx;
+        float tl = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+        tx /= tl;
+        ty /= tl;
+        tz /= tl;
+        // bitangent = cross(dir, tangent)
+        float ux = by * tz - bz * ty;
+        float uy = bz * tx - bx * tz;
+        float uz = bx * ty - by * tx;
+
+        float sinPhi = (float) Math.sin(phi);
+        float cosPhi = (float) Math.cos(phi);
+        float ct = (float) Math.cos(theta) * sinPhi;
+        float st = (float) Math.sin(theta) * sinPhi;
+        float rx = bx * cosPhi + tx * ct + ux * st;
+        float ry = by * cosPhi + ty * ct + uy * st;
+        float rz = bz * cosPhi + tz * ct + uz * st;
+        float rl = (float) Math.sqrt(rx * rx + ry * ry + rz * rz);
+        dir[0] = rx / rl;
+        dir[1] = ry / rl;
+        dir[2] = rz / rl;
+    }
+
+    private static int hashUint(int x) {
+        x += x << 10;
+        x ^= x >>> 6;
+        x += x << 3;
+        x ^= x >>> 11;
+        x += x << 15;
+        return x;
+    }
+
+    /**
+     * 把死亡粒子移出存活区（swap-remove，保持存活粒子连续）
+     */
+    private void compact() {
+        final int stride = ParticleBuffer.PARTICLE_SIZE_FLOATS;
+        final float[] soaLife = soa != null ? soa.getLife() : null;
+        int count = aliveCount;
+        int i = 0;
+        while (i < count) {
+            float life = soaLife != null ? soaLife[i] : particles[i * stride + 3];
+            if (life > 0) {
+                i++;
+                continue;
+            }
+            // 末尾粒子移入当前槽位，它也可能已死亡，因此不前进
+            int last = --count;
+            if (last != i) {
+                System.arraycopy(particles, last * stride, particles, i * stride, stride);
+                System.arraycopy(
+                    initialAttributes,
+                    last * INITIAL_STRIDE,
+                    initialAttributes,
+                    i * INITIAL_STRIDE,
+                    INITIAL_STRIDE);
+                if (soa != null) {
+                    soa.move(last, i);
                 }
-                break;
             }
+            particles[last * stride + 3] = 0;
+        }
+        aliveCount = count;
+    }
 
-            default:
-                break;
+    /**
+     * 将启用的力场展开为参数数组
+     *
+     * <p>
+     * 重力和风力与粒子状态无关，直接累加到 constantForce；
+     * 其余力场按 [x, y, z, strength, param1, param2] 写入 forceParams。
+     * CPU 回退不支持的力场类型（漩涡、卷曲噪声等）在此跳过。
+     * </p>
+     *
+     * @return 需要逐粒子计算的力场数量
+     */
+    private int flattenForces(List<ParticleForce> forces) {
+        constantForce[0] = 0;
+        constantForce[1] = 0;
+        constantForce[2] = 0;
+        neighborRadius = 0;
+        if (forces == null || forces.isEmpty()) {
+            return 0;
         }
 
-        return result;
+        int size = forces.size();
+        if (forceTypes.length < size) {
+            forceTypes = new ForceType[size];
+            forceParams = new float[size * FORCE_STRIDE];
+        }
+
+        int count = 0;
+        for (int f = 0; f < size; f++) {
+            ParticleForce force = forces.get(f);
+            if (!force.isEnabled()) continue;
+
+            ForceType type = force.getType();
+            float strength = force.getStrength();
+            switch (type) {
+                case GRAVITY:
+                case WIND:
+                    constantForce[0] += force.getX() * strength;
+                    constantForce[1] += force.getY() * strength;
+                    constantForce[2] += force.getZ() * strength;
+                    continue;
+
+                case REPULSOR:
+                    strength = -strength;
+                    break;
+
+                case NEIGHBOR:
+                    if (!(force.getParam1() > 0)) {
+                        continue;
+                    }
+                    neighborRadius = Math.max(neighborRadius, force.getParam1());
+                    break;
+
+                case DRAG:
+                case ATTRACTOR:
+                case TURBULENCE:
+                case VELOCITY_LIMIT:
+                    break;
+
+                default:
+                    continue;
+            }
+
+            int p = count * FORCE_STRIDE;
+            forceTypes[count] = type;
+            forceParams[p] = force.getX();
+            forceParams[p + 1] = force.getY();
+            forceParams[p + 2] = force.getZ();
+            forceParams[p + 3] = strength;
+            forceParams[p + 4] = force.getParam1();
+            forceParams[p + 5] = force.getParam2();
+            count++;
+        }
+        return count;
     }
 
     /**
      * 简化的 3D 噪声（用于湍流）
+     *
+     * <p>
+     * 纯函数，没有可变状态，多个线程可以同时调用。
+     * </p>
      */
-    private float simplexNoise3D(float x, float y, float z) {
+    private static float simplexNoise3D(float x, float y, float z) {
         int ix = (int) Math.floor(x);
         int iy = (int) Math.floor(y);
         int iz = (int) Math.floor(z);
@@ -272,59 +892,124 @@ public class ParticleCPU {
         return lerp(y0, y1, fz) * 2 - 1;
     }
 
-    private float hash(int n) {
+    private static float hash(int n) {
         n = (n << 13) ^ n;
         return (1.0f - ((n * (n * n * 15731 + 789221) + 1376312589) & 0x7fffffff) / 1073741824.0f);
     }
 
-    private float lerp(float a, float b, float t) {
+    private static float lerp(float a, float b, float t) {
         return a + (b - a) * t;
     }
 
     /**
      * 发射粒子
+     *
+     * @return 粒子槽位，缓冲区已满时返回 -1
      */
     public int emit(float posX, float posY, float posZ, float velX, float velY, float velZ, float life, float size,
         float r, float g, float b, float a, float rotation, float angularVel) {
 
-        for (int i = 0; i < maxParticles; i++) {
-            int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
-            if (particles[base + 3] <= 0) {
-                particles[base] = posX;
-                particles[base + 1] = posY;
-                particles[base + 2] = posZ;
-                particles[base + 3] = life;
-
-                particles[base + 4] = velX;
-                particles[base + 5] = velY;
-                particles[base + 6] = velZ;
-                particles[base + 7] = life;
-
-                particles[base + 8] = r;
-                particles[base + 9] = g;
-                particles[base + 10] = b;
-                particles[base + 11] = a;
-
-                particles[base + 12] = size;
-                particles[base + 13] = rotation;
-                particles[base + 14] = 0;
-                particles[base + 15] = angularVel;
-
-                return i;
+        if (aliveCount == maxParticles || life <= 0) {
+            return -1;
+        }
+        int i = aliveCount++;
+        int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
+
+        particles[base] = posX;
+        particles[base + 1] = posY;
+        particles[base + 2] = posZ;
+        particles[base + 3] = life;
+
+        particles[base + 4] = velX;
+        particles[base + 5] = velY;
+        particles[base + 6] = velZ;
+        particles[base + 7] = life;
+
+        particles[base + 8] = r;
+        particles[base + 9] = g;
+        particles[base + 10] = b;
+        particles[base + 11] = a;
+
+        particles[base + 12] = size;
+        particles[base + 13] = rotation;
+        particles[base + 14] = 0;
+        particles[base + 15] = angularVel;
+        saveInitial(i, base);
+
+        if (soa != null) {
+            soa.load(i, particles, base);
+        }
+        return i;
+    }
+
+    /**
+     * 批量发射粒子
+     *
+     * <p>
+     * 数据布局与 GPU 缓冲区一致（每个粒子 {@link ParticleBuffer#PARTICLE_SIZE_FLOATS} 个 float），
+     * 追加到存活粒子末尾。生命值不大于 0 的粒子被跳过。
+     * </p>
+     *
+     * @param data  粒子数据
+     * @param count 粒子数量
+     * @return 实际发射的粒子数（缓冲区已满时小于 count）
+     */
+    public int emit(float[] data, int count) {
+        final int stride = ParticleBuffer.PARTICLE_SIZE_FLOATS;
+        int start = aliveCount;
+        for (int p = 0; p < count && aliveCount < maxParticles; p++) {
+            int src = p * stride;
+            if (data[src + 3] <= 0) {
+                continue;
+            }
+            System.arraycopy(data, src, particles, aliveCount * stride, stride);
+            saveInitial(aliveCount, aliveCount * stride);
+            if (soa != null) {
+                soa.load(aliveCount, particles, aliveCount * stride);
             }
+            aliveCount++;
         }
-        return -1;
+        return aliveCount - start;
+    }
+
+    /**
+     * 记录发射时的颜色和大小
+     */
+    private void saveInitial(int index, int base) {
+        System.arraycopy(particles, base + 8, initialAttributes, index * INITIAL_STRIDE, INITIAL_STRIDE);
+    }
+
+    /**
+     * 获取空闲槽位数
+     */
+    public int getFreeCount() {
+        return maxParticles - aliveCount;
     }
 
     /**
      * 获取粒子数据（用于渲染）
+     *
+     * <p>
+     * SoA 模式下先把动态字段同步回 AoS 数组。
+     * </p>
      */
     public float[] getParticles() {
+        syncAoS();
         return particles;
     }
 
     /**
-     * 获取存活粒子数
+     * SoA 模式下把存活粒子的动态字段写回 AoS 数组
+     */
+    private void syncAoS() {
+        if (soa != null && soaDirty) {
+            soa.store(particles, 0, aliveCount);
+            soaDirty = false;
+        }
+    }
+
+    /**
+     * 获取存活粒子数（存活粒子连续存放在数组开头）
      */
     public int getAliveCount() {
         return aliveCount;
@@ -341,9 +1026,81 @@ public class ParticleCPU {
      * 清空所有粒子
      */
     public void clear() {
-        for (int i = 0; i < particles.length; i++) {
-            particles[i] = 0;
-        }
+        // 存活区以外的槽位生命值已为 0
+        Arrays.fill(particles, 0, aliveCount * ParticleBuffer.PARTICLE_SIZE_FLOATS, 0);
         aliveCount = 0;
     }
+
+    /**
+     * 获取当前线程的暂存数组
+     *
+     * <p>
+     * 叶子任务的积分过程中不会 join，同一工作线程不会同时执行两个叶子，因此按线程复用是安全的。
+     * 只有 {@link WorkerPool} 的工作线程按池内下标取暂存数组；其他线程（包括提交任务后协助执行的调用线程，
+     * 以及其他 ForkJoinPool 的工作线程，它们的下标可能与本池重复）使用串行暂存数组，
+     * 此时不会有串行积分同时进行。
+     * </p>
+     */
+    private IntegrateScratch currentScratch() {
+        if (!WorkerPool.isWorkerThread()) {
+            return serialScratch;
+        }
+        Thread thread = Thread.currentThread();
+        int index = ((ForkJoinWorkerThread) thread).getPoolIndex();
+        synchronized (this) {
+            if (index >= workerScratch.length) {
+                workerScratch = Arrays.copyOf(workerScratch, index + 1);
+            }
+            IntegrateScratch scratch = workerScratch[index];
+            if (scratch == null) {
+                scratch = new IntegrateScratch();
+                workerScratch[index] = scratch;
+            }
+            return scratch;
+        }
+    }
+
+    /**
+     * 积分循环的暂存数组（曲线求值、碰撞散射和邻域查询），每个线程一组，跨帧复用
+     */
+    private static final class IntegrateScratch {
+
+        final float[] velocityScale = new float[3];
+        final float[] colorScale = new float[4];
+        final float[] spreadDir = new float[3];
+        final float[] neighborForce = new float[3];
+        final int[] neighborBuckets = new int[ParticleSpatialHash.SEARCH_CELLS];
+    }
+
+    /**
+     * 并行积分任务：范围大于 chunkSize 时对半拆分
+     */
+    private final class IntegrateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final float deltaTime;
+        private final int chunkSize;
+
+        IntegrateTask(int from, int to, float deltaTime, int chunkSize) {
+            this.from = from;
+            this.to = to;
+            this.deltaTime = deltaTime;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                integrate(from, to, deltaTime, currentScratch());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                new IntegrateTask(from, mid, deltaTime, chunkSize),
+                new IntegrateTask(mid, to, deltaTime, chunkSize));
+        }
+    }
 }
@@ -1,12 +1,7 @@
 package moe.takochan.takorender.core.particle;
 
-import java.nio.FloatBuffer;
 import java.util.List;
 
-import org.lwjgl.BufferUtils;
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL20;
-
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 import moe.takochan.takorender.TakoRenderMod;
@@ -35,6 +30,53 @@ public class ParticleCompute {
     private static final String SHADER_UPDATE = ShaderManager.SHADER_PARTICLE_UPDATE;
     private static final String SHADER_EMIT = ShaderManager.SHADER_PARTICLE_EMIT;
 
+    /** uniform 句柄 */
+    private static final int U_DELTA_TIME = ShaderProgram.uniformId("uDeltaTime");
+    private static final int U_PARTICLE_COUNT = ShaderProgram.uniformId("uParticleCount");
+    private static final int U_COLLISION_MODE = ShaderProgram.uniformId("uCollisionMode");
+    private static final int U_COLLISION_RESPONSE = ShaderProgram.uniformId("uCollisionResponse");
+    private static final int U_BOUNCINESS = ShaderProgram.uniformId("uBounciness");
+    private static final int U_BOUNCE_CHANCE = ShaderProgram.uniformId("uBounceChance");
+    private static final int U_BOUNCE_SPREAD = ShaderProgram.uniformId("uBounceSpread");
+    private static final int U_RANDOM_SEED = ShaderProgram.uniformId("uRandomSeed");
+    private static final int U_COLLISION_PLANE = ShaderProgram.uniformId("uCollisionPlane");
+    private static final int U_FORCE_COUNT = ShaderProgram.uniformId("uForceCount");
+    private static final int U_FORCES = ShaderProgram.uniformId("uForces");
+    private static final int U_COLLISION_SPHERE_CENTER = ShaderProgram.uniformId("uCollisionSphereCenter");
+    private static final int U_COLLISION_SPHERE_RADIUS = ShaderProgram.uniformId("uCollisionSphereRadius");
+    private static final int U_COLLISION_BOX_MIN = ShaderProgram.uniformId("uCollisionBoxMin");
+    private static final int U_COLLISION_BOX_MAX = ShaderProgram.uniformId("uCollisionBoxMax");
+    private static final int U_MAX_DEAD_PARTICLES = ShaderProgram.uniformId("uMaxDeadParticles");
+    private static final int U_VELOCITY_OVER_LIFETIME_ENABLED = ShaderProgram.uniformId("uVelocityOverLifetimeEnabled");
+    private static final int U_VELOCITY_SEPARATE_AXES = ShaderProgram.uniformId("uVelocitySeparateAxes");
+    private static final int U_VELOCITY_OVER_LIFETIME_KEY_COUNT = ShaderProgram
+        .uniformId("uVelocityOverLifetimeKeyCount");
+    private static final int U_VELOCITY_OVER_LIFETIME_CURVE = ShaderProgram.uniformId("uVelocityOverLifetimeCurve");
+    private static final int U_ROTATION_OVER_LIFETIME_ENABLED = ShaderProgram.uniformId("uRotationOverLifetimeEnabled");
+    private static final int U_ROTATION_OVER_LIFETIME_KEY_COUNT = ShaderProgram
+        .uniformId("uRotationOverLifetimeKeyCount");
+    private static final int U_ROTATION_OVER_LIFETIME_CURVE = ShaderProgram.uniformId("uRotationOverLifetimeCurve");
+    private static final int U_EMIT_COUNT = ShaderProgram.uniformId("uEmitCount");
+    private static final int U_MAX_PARTICLES = ShaderProgram.uniformId("uMaxParticles");
+    private static final int U_BASE_TIME = ShaderProgram.uniformId("uBaseTime");
+    private static final int U_EMITTER_POS = ShaderProgram.uniformId("uEmitterPos");
+    private static final int U_SHAPE_TYPE = ShaderProgram.uniformId("uShapeType");
+    private static final int U_SHAPE_PARAM1 = ShaderProgram.uniformId("uShapeParam1");
+    private static final int U_SHAPE_PARAM2 = ShaderProgram.uniformId("uShapeParam2");
+    private static final int U_SHAPE_PARAM3 = ShaderProgram.uniformId("uShapeParam3");
+    private static final int U_LIFETIME_MIN = ShaderProgram.uniformId("uLifetimeMin");
+    private static final int U_LIFETIME_MAX = ShaderProgram.uniformId("uLifetimeMax");
+    private static final int U_VELOCITY = ShaderProgram.uniformId("uVelocity");
+    private static final int U_SPEED = ShaderProgram.uniformId("uSpeed");
+    private static final int U_SIZE_MIN = ShaderProgram.uniformId("uSizeMin");
+    private static final int U_SIZE_MAX = ShaderProgram.uniformId("uSizeMax");
+    private static final int U_COLOR = ShaderProgram.uniformId("uColor");
+    private static final int U_PARTICLE_TYPE = ShaderProgram.uniformId("uParticleType");
+    private static final int U_ROTATION_MIN = ShaderProgram.uniformId("uRotationMin");
+    private static final int U_ROTATION_MAX = ShaderProgram.uniformId("uRotationMax");
+    private static final int U_ANGULAR_VEL_MIN = ShaderProgram.uniformId("uAngularVelMin");
+    private static final int U_ANGULAR_VEL_MAX = ShaderProgram.uniformId("uAngularVelMax");
+
     /** 粒子更新着色器句柄 */
     private ResourceHandle<ShaderProgram> updateShaderHandle;
 
@@ -72,6 +114,9 @@ public class ParticleCompute {
     /** 随机种子计数器 */
     private int randomSeedCounter = 0;
 
+    /** 当前绑定的着色器（setUniform 使用，uniform location 与值由 ShaderProgram 缓存） */
+    private ShaderProgram activeShader;
+
     public ParticleCompute() {}
 
     /**
@@ -175,21 +220,22 @@ public class ParticleCompute {
         buffer.resetAtomicCounter(0);
 
         updateShader.use();
+        activeShader = updateShader;
 
         randomSeedCounter++;
 
-        setUniform("uDeltaTime", deltaTime);
-        setUniform("uParticleCount", particleCount);
-        setUniform("uCollisionMode", collisionMode.getId());
-        setUniform("uCollisionResponse", collisionResponse.getId());
-        setUniform("uBounciness", bounciness);
-        setUniform("uBounceChance", bounceChance);
-        setUniform("uBounceSpread", bounceSpread);
-        setUniform("uRandomSeed", randomSeedCounter);
-        setUniform("uCollisionPlane", 0.0f, 1.0f, 0.0f, 0.0f);
+        setUniform(U_DELTA_TIME, deltaTime);
+        setUniform(U_PARTICLE_COUNT, particleCount);
+        setUniform(U_COLLISION_MODE, collisionMode.getId());
+        setUniform(U_COLLISION_RESPONSE, collisionResponse.getId());
+        setUniform(U_BOUNCINESS, bounciness);
+        setUniform(U_BOUNCE_CHANCE, bounceChance);
+        setUniform(U_BOUNCE_SPREAD, bounceSpread);
+        setUniform(U_RANDOM_SEED, randomSeedCounter);
+        setUniform(U_COLLISION_PLANE, 0.0f, 1.0f, 0.0f, 0.0f);
 
         int forceCount = Math.min(forces != null ? forces.size() : 0, MAX_FORCES);
-        setUniform("uForceCount", forceCount);
+        setUniform(U_FORCE_COUNT, forceCount);
 
         if (forceCount > 0) {
             for (int i = 0; i < forceCount; i++) {
@@ -197,7 +243,7 @@ public class ParticleCompute {
                 float[] data = force.toFloatArray();
                 System.arraycopy(data, 0, forceData, i * 12, 12);
             }
-            setUniformArray("uForces", forceData, forceCount * 12);
+            setUniformArray(U_FORCES, forceData, forceCount * 12);
         }
 
         buffer.bindToCompute(PARTICLE_SSBO_BINDING);
@@ -321,25 +367,26 @@ public class ParticleCompute {
 
         buffer.resetAtomicCounter(0);
         updateShader.use();
+        activeShader = updateShader;
         randomSeedCounter++;
 
-        setUniform("uDeltaTime", deltaTime);
-        setUniform("uParticleCount", particleCount);
-        setUniform("uCollisionMode", collisionMode.getId());
-        setUniform("uCollisionResponse", collisionResponse.getId());
-        setUniform("uBounciness", bounciness);
-        setUniform("uBounceChance", bounceChance);
-        setUniform("uBounceSpread", bounceSpread);
-        setUniform("uRandomSeed", randomSeedCounter);
-        setUniform("uCollisionPlane", planeNX, planeNY, planeNZ, planeD);
-        setUniform("uCollisionSphereCenter", sphereCX, sphereCY, sphereCZ);
-        setUniform("uCollisionSphereRadius", sphereR);
-        setUniform("uCollisionBoxMin", boxMinX, boxMinY, boxMinZ);
-        setUniform("uCollisionBoxMax", boxMaxX, boxMaxY, boxMaxZ);
-        setUniform("uMaxDeadParticles", maxDeadParticles);
+        setUniform(U_DELTA_TIME, deltaTime);
+        setUniform(U_PARTICLE_COUNT, particleCount);
+        setUniform(U_COLLISION_MODE, collisionMode.getId());
+        setUniform(U_COLLISION_RESPONSE, collisionResponse.getId());
+        setUniform(U_BOUNCINESS, bounciness);
+        setUniform(U_BOUNCE_CHANCE, bounceChance);
+        setUniform(U_BOUNCE_SPREAD, bounceSpread);
+        setUniform(U_RANDOM_SEED, randomSeedCounter);
+        setUniform(U_COLLISION_PLANE, planeNX, planeNY, planeNZ, planeD);
+        setUniform(U_COLLISION_SPHERE_CENTER, sphereCX, sphereCY, sphereCZ);
+        setUniform(U_COLLISION_SPHERE_RADIUS, sphereR);
+        setUniform(U_COLLISION_BOX_MIN, boxMinX, boxMinY, boxMinZ);
+        setUniform(U_COLLISION_BOX_MAX, boxMaxX, boxMaxY, boxMaxZ);
+        setUniform(U_MAX_DEAD_PARTICLES, maxDeadParticles);
 
         int forceCount = Math.min(forces != null ? forces.size() : 0, MAX_FORCES);
-        setUniform("uForceCount", forceCount);
+        setUniform(U_FORCE_COUNT, forceCount);
 
         if (forceCount > 0) {
             for (int i = 0; i < forceCount; i++) {
@@ -347,13 +394,13 @@ public class ParticleCompute {
                 float[] data = force.toFloatArray();
                 System.arraycopy(data, 0, forceData, i * 12, 12);
             }
-            setUniformArray("uForces", forceData, forceCount * 12);
+            setUniformArray(U_FORCES, forceData, forceCount * 12);
         }
 
         // 速度曲线
         if (velocityOverLife != null) {
-            setUniform("uVelocityOverLifetimeEnabled", 1);
-            setUniform("uVelocitySeparateAxes", velocityOverLife.isSeparateAxes() ? 1 : 0);
+            setUniform(U_VELOCITY_OVER_LIFETIME_ENABLED, 1);
+            setUniform(U_VELOCITY_SEPARATE_AXES, velocityOverLife.isSeparateAxes() ? 1 : 0);
 
             if (velocityOverLife.isSeparateAxes()) {
                 // 分离轴模式：需要交错格式 [t0, x0, y0, z0, t1, x1, y1, z1, ...]
@@ -361,7 +408,7 @@ public class ParticleCompute {
                 AnimationCurve cy = velocityOverLife.getCurveY();
                 AnimationCurve cz = velocityOverLife.getCurveZ();
                 int keyCount = cx.getKeyframeCount();
-                setUniform("uVelocityOverLifetimeKeyCount", keyCount);
+                setUniform(U_VELOCITY_OVER_LIFETIME_KEY_COUNT, keyCount);
 
                 if (keyCount > 0) {
                     float[] curveData = new float[keyCount * 4];
@@ -374,38 +421,38 @@ public class ParticleCompute {
                         curveData[i * 4 + 2] = arrY[i * 2 + 1]; // y
                         curveData[i * 4 + 3] = arrZ[i * 2 + 1]; // z
                     }
-                    setUniformArray("uVelocityOverLifetimeCurve", curveData, keyCount * 4);
+                    setUniformArray(U_VELOCITY_OVER_LIFETIME_CURVE, curveData, keyCount * 4);
                 }
             } else {
                 // 统一模式：[t0, v0, t1, v1, ...]
                 AnimationCurve curve = velocityOverLife.getUniformCurve();
                 int keyCount = curve.getKeyframeCount();
-                setUniform("uVelocityOverLifetimeKeyCount", keyCount);
+                setUniform(U_VELOCITY_OVER_LIFETIME_KEY_COUNT, keyCount);
 
                 if (keyCount > 0) {
                     float[] curveData = curve.toArray();
-                    setUniformArray("uVelocityOverLifetimeCurve", curveData, keyCount * 2);
+                    setUniformArray(U_VELOCITY_OVER_LIFETIME_CURVE, curveData, keyCount * 2);
                 }
             }
         } else {
-            setUniform("uVelocityOverLifetimeEnabled", 0);
-            setUniform("uVelocityOverLifetimeKeyCount", 0);
+            setUniform(U_VELOCITY_OVER_LIFETIME_ENABLED, 0);
+            setUniform(U_VELOCITY_OVER_LIFETIME_KEY_COUNT, 0);
         }
 
         // 旋转曲线（仅使用统一模式，Billboard 粒子只需 Z 轴旋转）
         if (rotationOverLife != null) {
-            setUniform("uRotationOverLifetimeEnabled", 1);
+            setUniform(U_ROTATION_OVER_LIFETIME_ENABLED, 1);
             AnimationCurve curve = rotationOverLife.getUniformCurve();
             int keyCount = curve.getKeyframeCount();
-            setUniform("uRotationOverLifetimeKeyCount", keyCount);
+            setUniform(U_ROTATION_OVER_LIFETIME_KEY_COUNT, keyCount);
 
             if (keyCount > 0) {
                 float[] curveData = curve.toArray();
-                setUniformArray("uRotationOverLifetimeCurve", curveData, keyCount * 2);
+                setUniformArray(U_ROTATION_OVER_LIFETIME_CURVE, curveData, keyCount * 2);
             }
         } else {
-            setUniform("uRotationOverLifetimeEnabled", 0);
-            setUniform("uRotationOverLifetimeKeyCount", 0);
+            setUniform(U_ROTATION_OVER_LIFETIME_ENABLED, 0);
+            setUniform(U_ROTATION_OVER_LIFETIME_KEY_COUNT, 0);
         }
 
         buffer.bindToCompute(PARTICLE_SSBO_BINDING);
@@ -432,30 +479,31 @@ public class ParticleCompute {
         }
 
         emitShader.use();
+        activeShader = emitShader;
 
-        setUniform("uEmitCount", count);
-        setUniform("uMaxParticles", buffer.getMaxParticles());
-        setUniform("uBaseTime", baseTime);
-        setUniform("uEmitterPos", emitter.getPositionX(), emitter.getPositionY(), emitter.getPositionZ());
+        setUniform(U_EMIT_COUNT, count);
+        setUniform(U_MAX_PARTICLES, buffer.getMaxParticles());
+        setUniform(U_BASE_TIME, baseTime);
+        setUniform(U_EMITTER_POS, emitter.getPositionX(), emitter.getPositionY(), emitter.getPositionZ());
         setUniform(
-            "uShapeType",
+            U_SHAPE_TYPE,
             emitter.getShape()
                 .getId());
-        setUniform("uShapeParam1", emitter.getShapeParam1());
-        setUniform("uShapeParam2", emitter.getShapeParam2());
-        setUniform("uShapeParam3", emitter.getShapeParam3());
-        setUniform("uLifetimeMin", emitter.getLifetimeMin());
-        setUniform("uLifetimeMax", emitter.getLifetimeMax());
-        setUniform("uVelocity", emitter.getVelocityX(), emitter.getVelocityY(), emitter.getVelocityZ());
-        setUniform("uSpeed", emitter.getSpeed());
-        setUniform("uSizeMin", emitter.getSizeMin());
-        setUniform("uSizeMax", emitter.getSizeMax());
-        setUniform("uColor", emitter.getColorR(), emitter.getColorG(), emitter.getColorB(), emitter.getColorA());
-        setUniform("uParticleType", emitter.getParticleType());
-        setUniform("uRotationMin", emitter.getRotationMin());
-        setUniform("uRotationMax", emitter.getRotationMax());
-        setUniform("uAngularVelMin", emitter.getAngularVelocityMin());
-        setUniform("uAngularVelMax", emitter.getAngularVelocityMax());
+        setUniform(U_SHAPE_PARAM1, emitter.getShapeParam1());
+        setUniform(U_SHAPE_PARAM2, emitter.getShapeParam2());
+        setUniform(U_SHAPE_PARAM3, emitter.getShapeParam3());
+        setUniform(U_LIFETIME_MIN, emitter.getLifetimeMin());
+        setUniform(U_LIFETIME_MAX, emitter.getLifetimeMax());
+        setUniform(U_VELOCITY, emitter.getVelocityX(), emitter.getVelocityY(), emitter.getVelocityZ());
+        setUniform(U_SPEED, emitter.getSpeed());
+        setUniform(U_SIZE_MIN, emitter.getSizeMin());
+        setUniform(U_SIZE_MAX, emitter.getSizeMax());
+        setUniform(U_COLOR, emitter.getColorR(), emitter.getColorG(), emitter.getColorB(), emitter.getColorA());
+        setUniform(U_PARTICLE_TYPE, emitter.getParticleType());
+        setUniform(U_ROTATION_MIN, emitter.getRotationMin());
+        setUniform(U_ROTATION_MAX, emitter.getRotationMax());
+        setUniform(U_ANGULAR_VEL_MIN, emitter.getAngularVelocityMin());
+        setUniform(U_ANGULAR_VEL_MAX, emitter.getAngularVelocityMax());
 
         buffer.bindToCompute(PARTICLE_SSBO_BINDING);
         buffer.bindAtomicCounter(COUNTER_BINDING);
@@ -492,46 +540,24 @@ public class ParticleCompute {
         initialized = false;
     }
 
-    private void setUniform(String name, float value) {
-        int location = GL20.glGetUniformLocation(getCurrentProgramId(), name);
-        if (location >= 0) {
-            GL20.glUniform1f(location, value);
-        }
-    }
-
-    private void setUniform(String name, int value) {
-        int location = GL20.glGetUniformLocation(getCurrentProgramId(), name);
-        if (location >= 0) {
-            GL20.glUniform1i(location, value);
-        }
+    private void setUniform(int id, float value) {
+        activeShader.setUniformFloat(id, value);
     }
 
-    private void setUniform(String name, float x, float y, float z) {
-        int location = GL20.glGetUniformLocation(getCurrentProgramId(), name);
-        if (location >= 0) {
-            GL20.glUniform3f(location, x, y, z);
-        }
+    private void setUniform(int id, int value) {
+        activeShader.setUniformInt(id, value);
     }
 
-    private void setUniform(String name, float x, float y, float z, float w) {
-        int location = GL20.glGetUniformLocation(getCurrentProgramId(), name);
-        if (location >= 0) {
-            GL20.glUniform4f(location, x, y, z, w);
-        }
+    private void setUniform(int id, float x, float y, float z) {
+        activeShader.setUniformVec3(id, x, y, z);
     }
 
-    private void setUniformArray(String name, float[] data, int count) {
-        int location = GL20.glGetUniformLocation(getCurrentProgramId(), name);
-        if (location >= 0) {
-            FloatBuffer buffer = BufferUtils.createFloatBuffer(count);
-            buffer.put(data, 0, count);
-            buffer.flip();
-            GL20.glUniform1(location, buffer);
-        }
+    private void setUniform(int id, float x, float y, float z, float w) {
+        activeShader.setUniformVec4(id, x, y, z, w);
     }
 
-    private int getCurrentProgramId() {
-        return GL11.glGetInteger(GL20.GL_CURRENT_PROGRAM);
+    private void setUniformArray(int id, float[] data, int count) {
+        activeShader.setUniformFloatArray(id, data, count);
     }
 
     private ShaderProgram createFallbackUpdateShader() {
@@ -21,6 +21,8 @@ import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
 import moe.takochan.takorender.api.resource.ResourceHandle;
 import moe.takochan.takorender.api.resource.ShaderManager;
 import moe.takochan.takorender.core.gl.GLStateContext;
+import moe.takochan.takorender.core.render.CameraUniformBuffer;
+import moe.takochan.takorender.core.render.StreamBuffer;
 
 /**
  * 粒子渲染器
@@ -45,6 +47,26 @@ public class ParticleRenderer {
     private static final String SHADER_PARTICLE = ShaderManager.SHADER_PARTICLE;
     private static final String SHADER_PARTICLE_MESH = ShaderManager.SHADER_PARTICLE_MESH;
 
+    /** uniform 句柄 */
+    private static final int U_VIEW_MATRIX = ShaderProgram.uniformId("uViewMatrix");
+    private static final int U_PROJ_MATRIX = ShaderProgram.uniformId("uProjMatrix");
+    private static final int U_CAMERA_POS = ShaderProgram.uniformId("uCameraPos");
+    private static final int U_RENDER_MODE = ShaderProgram.uniformId("uRenderMode");
+    private static final int U_SOFT_PARTICLES = ShaderProgram.uniformId("uSoftParticles");
+    private static final int U_SOFT_DISTANCE = ShaderProgram.uniformId("uSoftDistance");
+    private static final int U_TEXTURE = ShaderProgram.uniformId("uTexture");
+    private static final int U_HAS_TEXTURE = ShaderProgram.uniformId("uHasTexture");
+    private static final int U_TEXTURE_TILES_X = ShaderProgram.uniformId("uTextureTilesX");
+    private static final int U_TEXTURE_TILES_Y = ShaderProgram.uniformId("uTextureTilesY");
+    private static final int U_ANIMATION_MODE = ShaderProgram.uniformId("uAnimationMode");
+    private static final int U_ANIMATION_SPEED = ShaderProgram.uniformId("uAnimationSpeed");
+    private static final int U_BLOCK_LIGHT = ShaderProgram.uniformId("uBlockLight");
+    private static final int U_SKY_LIGHT = ShaderProgram.uniformId("uSkyLight");
+    private static final int U_EMISSIVE = ShaderProgram.uniformId("uEmissive");
+    private static final int U_MIN_BRIGHTNESS = ShaderProgram.uniformId("uMinBrightness");
+    private static final int U_RECEIVE_LIGHTING = ShaderProgram.uniformId("uReceiveLighting");
+    private static final int U_USE_COLOR_LUT = ShaderProgram.uniformId("uUseColorLUT");
+
     /** 渲染模式 */
     public enum RenderMode {
         /** 点精灵 */
@@ -162,11 +184,8 @@ public class ParticleRenderer {
     /** 当前内置 Mesh 类型 */
     private BuiltinMesh currentBuiltinMesh = null;
 
-    /** CPU 粒子 VBO（动态数据） */
-    private int cpuParticleVbo = 0;
-
-    /** CPU 粒子 VBO 容量 */
-    private int cpuParticleVboCapacity = 0;
+    /** CPU 粒子流式缓冲区（三段环形，延迟创建） */
+    private StreamBuffer cpuParticleStream;
 
     /** 四边形顶点数据 (2D position + UV) */
     private static final float[] QUAD_VERTICES = {
@@ -320,39 +339,41 @@ public class ParticleRenderer {
             currentShader = shader;
             shader.use();
 
-            // 设置矩阵 uniform
-            setUniformMatrix4("uViewMatrix", viewMatrix);
-            setUniformMatrix4("uProjMatrix", projMatrix);
-            setUniform("uCameraPos", cameraPos[0], cameraPos[1], cameraPos[2]);
-            setUniform("uRenderMode", renderMode.ordinal());
-            setUniform("uSoftParticles", softParticles ? 1 : 0);
-            setUniform("uSoftDistance", softParticleDistance);
+            // 相机矩阵来自 TakoCamera 块，未声明该块时按 uniform 设置
+            if (!CameraUniformBuffer.attach(shader)) {
+                setUniformMatrix4(U_VIEW_MATRIX, viewMatrix);
+                setUniformMatrix4(U_PROJ_MATRIX, projMatrix);
+                setUniform(U_CAMERA_POS, cameraPos[0], cameraPos[1], cameraPos[2]);
+            }
+            setUniform(U_RENDER_MODE, renderMode.ordinal());
+            setUniform(U_SOFT_PARTICLES, softParticles ? 1 : 0);
+            setUniform(U_SOFT_DISTANCE, softParticleDistance);
 
             // 绑定纹理
             if (textureId > 0) {
                 GL13.glActiveTexture(GL13.GL_TEXTURE0);
                 GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
-                setUniform("uTexture", 0);
-                setUniform("uHasTexture", 1);
+                setUniform(U_TEXTURE, 0);
+                setUniform(U_HAS_TEXTURE, 1);
             } else {
-                setUniform("uHasTexture", 0);
+                setUniform(U_HAS_TEXTURE, 0);
             }
 
             // 纹理动画参数
-            setUniform("uTextureTilesX", textureTilesX);
-            setUniform("uTextureTilesY", textureTilesY);
-            setUniform("uAnimationMode", animationMode);
-            setUniform("uAnimationSpeed", animationSpeed);
+            setUniform(U_TEXTURE_TILES_X, textureTilesX);
+            setUniform(U_TEXTURE_TILES_Y, textureTilesY);
+            setUniform(U_ANIMATION_MODE, animationMode);
+            setUniform(U_ANIMATION_SPEED, animationSpeed);
 
             // 光照参数
-            setUniform("uBlockLight", blockLight);
-            setUniform("uSkyLight", skyLight);
-            setUniform("uEmissive", emissive);
-            setUniform("uMinBrightness", minBrightness);
-            setUniform("uReceiveLighting", receiveLighting ? 1 : 0);
+            setUniform(U_BLOCK_LIGHT, blockLight);
+            setUniform(U_SKY_LIGHT, skyLight);
+            setUniform(U_EMISSIVE, emissive);
+            setUniform(U_MIN_BRIGHTNESS, minBrightness);
+            setUniform(U_RECEIVE_LIGHTING, receiveLighting ? 1 : 0);
 
             // Color LUT 暂不使用
-            setUniform("uUseColorLUT", 0);
+            setUniform(U_USE_COLOR_LUT, 0);
 
             // 绑定 VAO
             GL30.glBindVertexArray(vao);
@@ -393,7 +414,7 @@ public class ParticleRenderer {
      * @param projMatrix    投影矩阵
      * @param cameraPos     相机位置
      * @param textureId     纹理 ID
-     * @param particleCount 粒子数量
+     * @param particleCount 粒子数量（只上传和绘制前 particleCount 个存活粒子）
      */
     public void renderCPU(ParticleCPU cpuBuffer, float[] viewMatrix, float[] projMatrix, float[] cameraPos,
         int textureId, int particleCount) {
@@ -407,14 +428,14 @@ public class ParticleRenderer {
             return;
         }
 
-        float[] particles = cpuBuffer.getParticles();
-        int maxParticles = cpuBuffer.getMaxParticles();
-
-        // 确保 VBO 容量足够
-        ensureCpuVboCapacity(maxParticles);
+        // 存活粒子连续存放在数组开头，只处理这一段
+        int aliveCount = Math.min(particleCount, cpuBuffer.getAliveCount());
+        if (aliveCount <= 0) {
+            return;
+        }
 
-        // 上传粒子数据到 VBO
-        uploadCpuParticleData(particles, maxParticles);
+        // 上传粒子数据到流式缓冲区
+        long cpuDataOffset = uploadCpuParticleData(cpuBuffer, aliveCount);
 
         try (var ctx = GLStateContext.begin()) {
             setupRenderState(ctx);
@@ -423,48 +444,50 @@ public class ParticleRenderer {
             shader.use();
 
             // 设置 uniform（与 GPU 渲染相同）
-            setUniformMatrix4("uViewMatrix", viewMatrix);
-            setUniformMatrix4("uProjMatrix", projMatrix);
-            setUniform("uCameraPos", cameraPos[0], cameraPos[1], cameraPos[2]);
-            setUniform("uRenderMode", renderMode.ordinal());
-            setUniform("uSoftParticles", softParticles ? 1 : 0);
-            setUniform("uSoftDistance", softParticleDistance);
+            if (!CameraUniformBuffer.attach(shader)) {
+                setUniformMatrix4(U_VIEW_MATRIX, viewMatrix);
+                setUniformMatrix4(U_PROJ_MATRIX, projMatrix);
+                setUniform(U_CAMERA_POS, cameraPos[0], cameraPos[1], cameraPos[2]);
+            }
+            setUniform(U_RENDER_MODE, renderMode.ordinal());
+            setUniform(U_SOFT_PARTICLES, softParticles ? 1 : 0);
+            setUniform(U_SOFT_DISTANCE, softParticleDistance);
 
             if (textureId > 0) {
                 GL13.glActiveTexture(GL13.GL_TEXTURE0);
                 GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
-                setUniform("uTexture", 0);
-                setUniform("uHasTexture", 1);
+                setUniform(U_TEXTURE, 0);
+                setUniform(U_HAS_TEXTURE, 1);
             } else {
-                setUniform("uHasTexture", 0);
+                setUniform(U_HAS_TEXTURE, 0);
             }
 
-            setUniform("uTextureTilesX", textureTilesX);
-            setUniform("uTextureTilesY", textureTilesY);
-            setUniform("uAnimationMode", animationMode);
-            setUniform("uAnimationSpeed", animationSpeed);
-            setUniform("uBlockLight", blockLight);
-            setUniform("uSkyLight", skyLight);
-            setUniform("uEmissive", emissive);
-            setUniform("uMinBrightness", minBrightness);
-            setUniform("uReceiveLighting", receiveLighting ? 1 : 0);
-            setUniform("uUseColorLUT", 0);
+            setUniform(U_TEXTURE_TILES_X, textureTilesX);
+            setUniform(U_TEXTURE_TILES_Y, textureTilesY);
+            setUniform(U_ANIMATION_MODE, animationMode);
+            setUniform(U_ANIMATION_SPEED, animationSpeed);
+            setUniform(U_BLOCK_LIGHT, blockLight);
+            setUniform(U_SKY_LIGHT, skyLight);
+            setUniform(U_EMISSIVE, emissive);
+            setUniform(U_MIN_BRIGHTNESS, minBrightness);
+            setUniform(U_RECEIVE_LIGHTING, receiveLighting ? 1 : 0);
+            setUniform(U_USE_COLOR_LUT, 0);
 
             // 绑定 VAO
             GL30.glBindVertexArray(vao);
 
-            // 绑定 CPU 粒子 VBO 作为实例属性
-            bindCpuParticleAttributes();
+            // 绑定 CPU 粒子数据作为实例属性
+            bindCpuParticleAttributes(cpuDataOffset);
 
             // 实例化渲染
             if (renderMode == RenderMode.POINT_SPRITE) {
                 GL11.glEnable(GL20.GL_POINT_SPRITE);
                 GL11.glEnable(GL20.GL_VERTEX_PROGRAM_POINT_SIZE);
-                GL31.glDrawArraysInstanced(GL11.GL_POINTS, 0, 1, maxParticles);
+                GL31.glDrawArraysInstanced(GL11.GL_POINTS, 0, 1, aliveCount);
                 GL11.glDisable(GL20.GL_VERTEX_PROGRAM_POINT_SIZE);
                 GL11.glDisable(GL20.GL_POINT_SPRITE);
             } else {
-                GL31.glDrawArraysInstanced(GL11.GL_TRIANGLES, 0, 6, maxParticles);
+                GL31.glDrawArraysInstanced(GL11.GL_TRIANGLES, 0, 6, aliveCount);
             }
 
             GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
@@ -478,62 +501,55 @@ public class ParticleRenderer {
     }
 
     /**
-     * 确保 CPU VBO 容量足够
+     * 上传 CPU 粒子数据到流式缓冲区
+     *
+     * <p>
+     * 直接从粒子数组复制到环形缓冲区的下一段（持久映射时为映射内存），不需要额外的暂存区，
+     * 也不会等待 GPU 读完上一帧的数据。
+     * </p>
+     *
+     * @param cpuBuffer CPU 粒子系统
+     * @param count     上传的粒子数（从数组开头算起）
+     * @return 数据在流式缓冲区中的字节偏移
      */
-    private void ensureCpuVboCapacity(int maxParticles) {
-        int requiredBytes = maxParticles * ParticleBuffer.PARTICLE_SIZE_BYTES;
-
-        if (cpuParticleVbo == 0) {
-            cpuParticleVbo = GL15.glGenBuffers();
-        }
-
-        if (cpuParticleVboCapacity < requiredBytes) {
-            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, cpuParticleVbo);
-            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, requiredBytes, GL15.GL_DYNAMIC_DRAW);
-            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-            cpuParticleVboCapacity = requiredBytes;
+    private long uploadCpuParticleData(ParticleCPU cpuBuffer, int count) {
+        if (cpuParticleStream == null) {
+            cpuParticleStream = new StreamBuffer(cpuBuffer.getMaxParticles() * ParticleBuffer.PARTICLE_SIZE_BYTES);
         }
+        return cpuParticleStream.write(
+            cpuBuffer.getParticles(),
+            0,
+            count * ParticleBuffer.PARTICLE_SIZE_FLOATS,
+            ParticleBuffer.PARTICLE_SIZE_BYTES);
     }
 
     /**
-     * 上传 CPU 粒子数据到 VBO
-     */
-    private void uploadCpuParticleData(float[] particles, int maxParticles) {
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, cpuParticleVbo);
-
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(particles.length);
-        buffer.put(particles)
-            .flip();
-        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0, buffer);
-
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-    }
-
-    /**
-     * 绑定 CPU 粒子 VBO 作为实例属性
+     * 绑定 CPU 粒子数据作为实例属性
+     *
+     * @param baseOffset 本帧数据在流式缓冲区中的字节偏移
      */
-    private void bindCpuParticleAttributes() {
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, cpuParticleVbo);
+    private void bindCpuParticleAttributes(long baseOffset) {
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, cpuParticleStream.getBufferId());
 
         int stride = ParticleBuffer.PARTICLE_SIZE_BYTES;
 
         // location 2: position (vec4)
-        GL20.glVertexAttribPointer(2, 4, GL11.GL_FLOAT, false, stride, ParticleBuffer.OFFSET_POSITION);
+        GL20.glVertexAttribPointer(2, 4, GL11.GL_FLOAT, false, stride, baseOffset + ParticleBuffer.OFFSET_POSITION);
         GL20.glEnableVertexAttribArray(2);
         GL33.glVertexAttribDivisor(2, 1);
 
         // location 3: velocity (vec4)
-        GL20.glVertexAttribPointer(3, 4, GL11.GL_FLOAT, false, stride, ParticleBuffer.OFFSET_VELOCITY);
+        GL20.glVertexAttribPointer(3, 4, GL11.GL_FLOAT, false, stride, baseOffset + ParticleBuffer.OFFSET_VELOCITY);
         GL20.glEnableVertexAttribArray(3);
         GL33.glVertexAttribDivisor(3, 1);
 
         // location 4: color (vec4)
-        GL20.glVertexAttribPointer(4, 4, GL11.GL_FLOAT, false, stride, ParticleBuffer.OFFSET_COLOR);
+        GL20.glVertexAttribPointer(4, 4, GL11.GL_FLOAT, false, stride, baseOffset + ParticleBuffer.OFFSET_COLOR);
         GL20.glEnableVertexAttribArray(4);
         GL33.glVertexAttribDivisor(4, 1);
 
         // location 5: params (vec4)
-        GL20.glVertexAttribPointer(5, 4, GL11.GL_FLOAT, false, stride, ParticleBuffer.OFFSET_PARAMS);
+        GL20.glVertexAttribPointer(5, 4, GL11.GL_FLOAT, false, stride, baseOffset + ParticleBuffer.OFFSET_PARAMS);
         GL20.glEnableVertexAttribArray(5);
         GL33.glVertexAttribDivisor(5, 1);
     }
@@ -572,14 +588,16 @@ public class ParticleRenderer {
 
             // 启用面剔除 (Mesh 需要)
             ctx.enableCullFace();
-            GL11.glCullFace(GL11.GL_BACK);
+            ctx.setCullFaceMode(GL11.GL_BACK);
 
             meshShader.use();
 
-            // 设置 uniform
-            setMeshUniformMatrix4("uViewMatrix", viewMatrix);
-            setMeshUniformMatrix4("uProjMatrix", projMatrix);
-            setMeshUniform("uCameraPos", cameraPos[0], cameraPos[1], cameraPos[2]);
+            // 相机矩阵来自 TakoCamera 块，未声明该块时按 uniform 设置
+            if (!CameraUniformBuffer.attach(meshShader)) {
+                setMeshUniformMatrix4(U_VIEW_MATRIX, viewMatrix);
+                setMeshUniformMatrix4(U_PROJ_MATRIX, projMatrix);
+                setMeshUniform(U_CAMERA_POS, cameraPos[0], cameraPos[1], cameraPos[2]);
+            }
 
             // 绑定 Mesh VAO
             GL30.glBindVertexArray(meshVao);
@@ -598,26 +616,17 @@ public class ParticleRenderer {
     }
 
     /** 设置 Mesh shader 的 mat4 uniform */
-    private void setMeshUniformMatrix4(String name, float[] matrix) {
+    private void setMeshUniformMatrix4(int id, float[] matrix) {
         ShaderProgram shader = getMeshShader();
         if (shader == null) return;
-        int location = GL20.glGetUniformLocation(shader.getProgram(), name);
-        if (location >= 0) {
-            FloatBuffer buffer = BufferUtils.createFloatBuffer(16);
-            buffer.put(matrix)
-                .flip();
-            GL20.glUniformMatrix4(location, false, buffer);
-        }
+        shader.setUniformMatrix4(id, false, matrix);
     }
 
     /** 设置 Mesh shader 的 vec3 uniform */
-    private void setMeshUniform(String name, float x, float y, float z) {
+    private void setMeshUniform(int id, float x, float y, float z) {
         ShaderProgram shader = getMeshShader();
         if (shader == null) return;
-        int location = GL20.glGetUniformLocation(shader.getProgram(), name);
-        if (location >= 0) {
-            GL20.glUniform3f(location, x, y, z);
-        }
+        shader.setUniformVec3(id, x, y, z);
     }
 
     /**
@@ -875,10 +884,9 @@ public class ParticleRenderer {
             GL15.glDeleteBuffers(quadVbo);
             quadVbo = 0;
         }
-        if (cpuParticleVbo != 0) {
-            GL15.glDeleteBuffers(cpuParticleVbo);
-            cpuParticleVbo = 0;
-            cpuParticleVboCapacity = 0;
+        if (cpuParticleStream != null) {
+            cpuParticleStream.dispose();
+            cpuParticleStream = null;
         }
         if (shaderHandle != null) {
             shaderHandle.release();
@@ -898,7 +906,7 @@ public class ParticleRenderer {
     private void setupRenderState(GLStateContext ctx) {
         // 深度测试
         ctx.enableDepthTest();
-        GL11.glDepthMask(depthWrite);
+        ctx.setDepthMask(depthWrite);
 
         // 混合
         ctx.enableBlend();
@@ -924,48 +932,33 @@ public class ParticleRenderer {
     /**
      * 设置 float uniform
      */
-    private void setUniform(String name, float value) {
+    private void setUniform(int id, float value) {
         if (currentShader == null) return;
-        int location = GL20.glGetUniformLocation(currentShader.getProgram(), name);
-        if (location >= 0) {
-            GL20.glUniform1f(location, value);
-        }
+        currentShader.setUniformFloat(id, value);
     }
 
     /**
      * 设置 int uniform
      */
-    private void setUniform(String name, int value) {
+    private void setUniform(int id, int value) {
         if (currentShader == null) return;
-        int location = GL20.glGetUniformLocation(currentShader.getProgram(), name);
-        if (location >= 0) {
-            GL20.glUniform1i(location, value);
-        }
+        currentShader.setUniformInt(id, value);
     }
 
     /**
      * 设置 vec3 uniform
      */
-    private void setUniform(String name, float x, float y, float z) {
+    private void setUniform(int id, float x, float y, float z) {
         if (currentShader == null) return;
-        int location = GL20.glGetUniformLocation(currentShader.getProgram(), name);
-        if (location >= 0) {
-            GL20.glUniform3f(location, x, y, z);
-        }
+        currentShader.setUniformVec3(id, x, y, z);
     }
 
     /**
      * 设置 mat4 uniform
      */
-    private void setUniformMatrix4(String name, float[] matrix) {
+    private void setUniformMatrix4(int id, float[] matrix) {
         if (currentShader == null) return;
-        int location = GL20.glGetUniformLocation(currentShader.getProgram(), name);
-        if (location >= 0) {
-            FloatBuffer buffer = BufferUtils.createFloatBuffer(16);
-            buffer.put(matrix)
-                .flip();
-            GL20.glUniformMatrix4(location, false, buffer);
-        }
+        currentShader.setUniformMatrix4(id, false, matrix);
     }
 
     /**
@@ -982,9 +975,13 @@ public class ParticleRenderer {
             + "layout(location = 4) in vec4 aColor;\n"
             + "layout(location = 5) in vec4 aParams;    // x: size, y: rot, z: type, w: reserved\n"
             + "\n"
-            + "uniform mat4 uViewMatrix;\n"
-            + "uniform mat4 uProjMatrix;\n"
-            + "uniform vec3 uCameraPos;\n"
+            + "layout(std140) uniform TakoCamera {\n"
+            + "    mat4 uView;\n"
+            + "    mat4 uProjection;\n"
+            + "    mat4 uViewProjection;\n"
+            + "    vec4 uCameraPosition;\n"
+            + "    vec4 uCameraClip;\n"
+            + "};\n"
             + "uniform int uRenderMode;\n"
             + "\n"
             + "out vec2 vUV;\n"
@@ -1011,10 +1008,10 @@ public class ParticleRenderer {
             + "    );\n"
             + "    \n"
             + "    // Convert to camera-relative position\n"
-            + "    vec3 relativePos = aPosition.xyz - uCameraPos;\n"
+            + "    vec3 relativePos = aPosition.xyz - uCameraPosition.xyz;\n"
             + "    \n"
             + "    // Transform to view space\n"
-            + "    vec4 viewCenter = uViewMatrix * vec4(relativePos, 1.0);\n"
+            + "    vec4 viewCenter = uView * vec4(relativePos, 1.0);\n"
             + "    \n"
             + "    // Billboard in view space (right=X, up=Y)\n"
             + "    vec3 viewPos = viewCenter.xyz;\n"
@@ -1022,7 +1019,7 @@ public class ParticleRenderer {
             + "    viewPos.y += rotatedPos.y * size;\n"
             + "    \n"
             + "    // Apply projection only\n"
-            + "    gl_Position = uProjMatrix * vec4(viewPos, 1.0);\n"
+            + "    gl_Position = uProjection * vec4(viewPos, 1.0);\n"
             + "    \n"
             + "    vUV = aQuadUV;\n"
             + "    vColor = aColor;\n"
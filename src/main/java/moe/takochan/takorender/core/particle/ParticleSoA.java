@@ -0,0 +1,221 @@
+package moe.takochan.takorender.core.particle;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * CPU 粒子动态字段的 SoA（结构数组）存储
+ *
+ * <p>
+ * 每帧都会变化的字段（位置、生命、速度、旋转）以及积分需要的角速度按字段分别存放在 float 数组中，
+ * 下标与 {@link ParticleCPU} 的粒子槽位一一对应。颜色、大小、最大生命等发射后不变的字段仍只保存在 AoS 数组里。
+ * </p>
+ *
+ * <p>
+ * <b>积分内核</b>:
+ * {@link #integrate(int, int, float, float, float, float)} 处理只有恒定加速度的情况，
+ * 每个字段一个独立的循环，循环体形如 {@code a[i] += b[i] * c}，没有分支和跨字段依赖，
+ * HotSpot C2 会将其自动向量化（SuperWord）。运行时只有 Java 8 API 可用，
+ * 因此不使用 {@code jdk.incubator.vector}，标量循环即为唯一实现。
+ * </p>
+ *
+ * <p>
+ * <b>线程安全</b>: 不同范围的 {@link #integrate} / {@link #store} 可以并发调用。
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+public final class ParticleSoA {
+
+    private final float[] posX;
+    private final float[] posY;
+    private final float[] posZ;
+    private final float[] life;
+    private final float[] velX;
+    private final float[] velY;
+    private final float[] velZ;
+    private final float[] rotation;
+    private final float[] angularVel;
+
+    /**
+     * @param capacity 槽位数（与 ParticleCPU 的最大粒子数一致）
+     */
+    public ParticleSoA(int capacity) {
+        posX = new float[capacity];
+        posY = new float[capacity];
+        posZ = new float[capacity];
+        life = new float[capacity];
+        velX = new float[capacity];
+        velY = new float[capacity];
+        velZ = new float[capacity];
+        rotation = new float[capacity];
+        angularVel = new float[capacity];
+    }
+
+    /**
+     * 获取槽位数
+     */
+    public int getCapacity() {
+        return life.length;
+    }
+
+    /**
+     * 从 AoS 记录载入一个槽位
+     *
+     * @param index  槽位号
+     * @param aos    AoS 粒子数组
+     * @param offset 记录在 aos 中的起始下标
+     */
+    public void load(int index, float[] aos, int offset) {
+        posX[index] = aos[offset];
+        posY[index] = aos[offset + 1];
+        posZ[index] = aos[offset + 2];
+        life[index] = aos[offset + 3];
+        velX[index] = aos[offset + 4];
+        velY[index] = aos[offset + 5];
+        velZ[index] = aos[offset + 6];
+        rotation[index] = aos[offset + 13];
+        angularVel[index] = aos[offset + 15];
+    }
+
+    /**
+     * 将 [from, to) 槽位的动态字段写回 AoS 数组（其余字段不变）
+     *
+     * @param aos  AoS 粒子数组
+     * @param from 起始槽位（含）
+     * @param to   结束槽位（不含）
+     */
+    public void store(float[] aos, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int base = i * ParticleBuffer.PARTICLE_SIZE_FLOATS;
+            aos[base] = posX[i];
+            aos[base + 1] = posY[i];
+            aos[base + 2] = posZ[i];
+            aos[base + 3] = life[i];
+            aos[base + 4] = velX[i];
+            aos[base + 5] = velY[i];
+            aos[base + 6] = velZ[i];
+            aos[base + 13] = rotation[i];
+        }
+    }
+
+    /**
+     * 复制槽位（用于压缩存活区）
+     *
+     * @param from 源槽位
+     * @param to   目标槽位
+     */
+    public void move(int from, int to) {
+        posX[to] = posX[from];
+        posY[to] = posY[from];
+        posZ[to] = posZ[from];
+        life[to] = life[from];
+        velX[to] = velX[from];
+        velY[to] = velY[from];
+        velZ[to] = velZ[from];
+        rotation[to] = rotation[from];
+        angularVel[to] = angularVel[from];
+    }
+
+    /**
+     * 恒定加速度下积分 [from, to) 槽位
+     *
+     * <p>
+     * vel += a·dt，pos += vel·dt，life -= dt，rotation += angularVel·dt。
+     * 已死亡（life ≤ 0）的粒子同样参与计算，结果由调用方在压缩时丢弃。
+     * </p>
+     *
+     * @param from      起始槽位（含）
+     * @param to        结束槽位（不含）
+     * @param deltaTime 时间增量
+     * @param accelX    恒定加速度 X
+     * @param accelY    恒定加速度 Y
+     * @param accelZ    恒定加速度 Z
+     */
+    public void integrate(int from, int to, float deltaTime, float accelX, float accelY, float accelZ) {
+        integrateAxis(posX, velX, from, to, accelX * deltaTime, deltaTime);
+        integrateAxis(posY, velY, from, to, accelY * deltaTime, deltaTime);
+        integrateAxis(posZ, velZ, from, to, accelZ * deltaTime, deltaTime);
+
+        final float[] life = this.life;
+        for (int i = from; i < to; i++) {
+            life[i] -= deltaTime;
+        }
+
+        final float[] rotation = this.rotation;
+        final float[] angularVel = this.angularVel;
+        for (int i = from; i < to; i++) {
+            rotation[i] += angularVel[i] * deltaTime;
+        }
+    }
+
+    private static void integrateAxis(float[] pos, float[] vel, int from, int to, float deltaVel, float deltaTime) {
+        for (int i = from; i < to; i++) {
+            float v = vel[i] + deltaVel;
+            vel[i] = v;
+            pos[i] += v * deltaTime;
+        }
+    }
+
+    /**
+     * 获取位置 X 数组（直接引用）
+     */
+    public float[] getPosX() {
+        return posX;
+    }
+
+    /**
+     * 获取位置 Y 数组（直接引用）
+     */
+    public float[] getPosY() {
+        return posY;
+    }
+
+    /**
+     * 获取位置 Z 数组（直接引用）
+     */
+    public float[] getPosZ() {
+        return posZ;
+    }
+
+    /**
+     * 获取剩余生命数组（直接引用）
+     */
+    public float[] getLife() {
+        return life;
+    }
+
+    /**
+     * 获取速度 X 数组（直接引用）
+     */
+    public float[] getVelX() {
+        return velX;
+    }
+
+    /**
+     * 获取速度 Y 数组（直接引用）
+     */
+    public float[] getVelY() {
+        return velY;
+    }
+
+    /**
+     * 获取速度 Z 数组（直接引用）
+     */
+    public float[] getVelZ() {
+        return velZ;
+    }
+
+    /**
+     * 获取旋转角数组（直接引用）
+     */
+    public float[] getRotation() {
+        return rotation;
+    }
+
+    /**
+     * 获取角速度数组（直接引用）
+     */
+    public float[] getAngularVel() {
+        return angularVel;
+    }
+}
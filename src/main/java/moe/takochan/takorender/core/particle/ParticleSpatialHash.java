@@ -0,0 +1,216 @@
+package moe.takochan.takorender.core.particle;
+
+import java.util.Arrays;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * CPU 粒子的均匀网格空间哈希
+ *
+ * <p>
+ * 每帧在积分前对存活粒子重建：格子边长等于最大查询半径，格子坐标哈希到 2 的幂大小的桶表，
+ * 用计数排序把粒子按桶连续存放（O(n)，不产生对象分配）。
+ * 查询半径不超过格子边长时只需检查周围 3×3×3 个格子，每个粒子最多统计
+ * {@link #MAX_NEIGHBORS} 个邻居，邻域搜索总开销为 O(n·k)。
+ * </p>
+ *
+ * <p>
+ * 重建时复制一份位置和速度快照，查询只读快照，积分过程中修改粒子数据不影响其他粒子的查询结果，
+ * 因此多线程积分与单线程结果一致。
+ * </p>
+ *
+ * <p>
+ * <b>线程安全</b>: {@link #build} 只能单线程调用；构建完成后 {@link #accumulate} 可以并发调用。
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+public final class ParticleSpatialHash {
+
+    /** 每个粒子最多统计的邻居数 */
+    public static final int MAX_NEIGHBORS = 32;
+
+    /** 每次查询检查的格子数（3×3×3） */
+    public static final int SEARCH_CELLS = 27;
+
+    private float cellSize = 1.0f;
+    private float invCellSize = 1.0f;
+    private int count;
+
+    /** 桶起始下标（长度 tableSize + 1） */
+    private int[] bucketStart = new int[0];
+    private int tableMask;
+
+    /** 每个粒子所在的桶 */
+    private int[] bucketOf = new int[0];
+
+    /** 按桶排序后的粒子槽位号与位置 / 速度快照（每个 3 个 float） */
+    private int[] sortedIndex = new int[0];
+    private float[] sortedPos = new float[0];
+    private float[] sortedVel = new float[0];
+
+    /**
+     * 从 AoS 粒子数组重建
+     *
+     * @param particles 粒子数据（每个粒子 {@link ParticleBuffer#PARTICLE_SIZE_FLOATS} 个 float）
+     * @param count     粒子数（[0, count) 槽位）
+     * @param cellSize  格子边长（应不小于最大查询半径）
+     */
+    public void build(float[] particles, int count, float cellSize) {
+        final int stride = ParticleBuffer.PARTICLE_SIZE_FLOATS;
+        this.count = count;
+        this.cellSize = Math.max(cellSize, 1.0e-4f);
+        this.invCellSize = 1.0f / this.cellSize;
+
+        int tableSize = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+        if (bucketStart.length < tableSize + 1) {
+            bucketStart = new int[tableSize + 1];
+        }
+        tableMask = tableSize - 1;
+        if (bucketOf.length < count) {
+            int capacity = Math.max(count, bucketOf.length << 1);
+            bucketOf = new int[capacity];
+            sortedIndex = new int[capacity];
+            sortedPos = new float[capacity * 3];
+            sortedVel = new float[capacity * 3];
+        }
+
+        // 计数
+        Arrays.fill(bucketStart, 0, tableSize + 1, 0);
+        for (int i = 0; i < count; i++) {
+            int base = i * stride;
+            int bucket = bucket(cell(particles[base]), cell(particles[base + 1]), cell(particles[base + 2]));
+            bucketOf[i] = bucket;
+            bucketStart[bucket + 1]++;
+        }
+        // 前缀和
+        for (int b = 0; b < tableSize; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        // 分配（bucketStart[b] 暂作写指针，结束后整体右移一位复原）
+        for (int i = 0; i < count; i++) {
+            int slot = bucketStart[bucketOf[i]]++;
+            int base = i * stride;
+            int s = slot * 3;
+            sortedIndex[slot] = i;
+            sortedPos[s] = particles[base];
+            sortedPos[s + 1] = particles[base + 1];
+            sortedPos[s + 2] = particles[base + 2];
+            sortedVel[s] = particles[base + 4];
+            sortedVel[s + 1] = particles[base + 5];
+            sortedVel[s + 2] = particles[base + 6];
+        }
+        System.arraycopy(bucketStart, 0, bucketStart, 1, tableSize);
+        bucketStart[0] = 0;
+    }
+
+    /**
+     * 累加邻域力：分离（远离半径内的邻居，越近越强）和速度对齐（向邻居平均速度靠拢）
+     *
+     * @param index      粒子槽位号（跳过自身）
+     * @param posX       粒子位置 X
+     * @param posY       粒子位置 Y
+     * @param posZ       粒子位置 Z
+     * @param velX       粒子速度 X
+     * @param velY       粒子速度 Y
+     * @param velZ       粒子速度 Z
+     * @param radius     作用半径（不大于格子边长）
+     * @param separation 分离强度（负值为聚合）
+     * @param alignment  速度对齐系数
+     * @param dest       力累加到 dest[0..2]
+     * @param buckets    暂存数组（至少 {@link #SEARCH_CELLS} 个元素，用于跳过哈希到同一个桶的格子）
+     * @return 统计到的邻居数
+     */
+    public int accumulate(int index, float posX, float posY, float posZ, float velX, float velY, float velZ,
+        float radius, float separation, float alignment, float[] dest, int[] buckets) {
+        final float radiusSq = radius * radius;
+        final int cx = cell(posX);
+        final int cy = cell(posY);
+        final int cz = cell(posZ);
+
+        float forceX = 0, forceY = 0, forceZ = 0;
+        float sumVelX = 0, sumVelY = 0, sumVelZ = 0;
+        int neighbors = 0;
+        int visited = 0;
+
+        search: for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int bucket = bucket(cx + dx, cy + dy, cz + dz);
+                    if (contains(buckets, visited, bucket)) {
+                        continue;
+                    }
+                    buckets[visited++] = bucket;
+                    for (int k = bucketStart[bucket], end = bucketStart[bucket + 1]; k < end; k++) {
+                        if (sortedIndex[k] == index) {
+                            continue;
+                        }
+                        // 哈希冲突的其他格子粒子也在这里被距离判断过滤
+                        int s = k * 3;
+                        float ox = posX - sortedPos[s];
+                        float oy = posY - sortedPos[s + 1];
+                        float oz = posZ - sortedPos[s + 2];
+                        float distSq = ox * ox + oy * oy + oz * oz;
+                        if (distSq >= radiusSq || distSq < 1.0e-8f) {
+                            continue;
+                        }
+                        float dist = (float) Math.sqrt(distSq);
+                        float factor = separation * (1.0f - dist / radius) / dist;
+                        forceX += ox * factor;
+                        forceY += oy * factor;
+                        forceZ += oz * factor;
+                        sumVelX += sortedVel[s];
+                        sumVelY += sortedVel[s + 1];
+                        sumVelZ += sortedVel[s + 2];
+                        if (++neighbors == MAX_NEIGHBORS) {
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (neighbors > 0 && alignment != 0) {
+            float inv = 1.0f / neighbors;
+            forceX += (sumVelX * inv - velX) * alignment;
+            forceY += (sumVelY * inv - velY) * alignment;
+            forceZ += (sumVelZ * inv - velZ) * alignment;
+        }
+        dest[0] += forceX;
+        dest[1] += forceY;
+        dest[2] += forceZ;
+        return neighbors;
+    }
+
+    /**
+     * 获取格子边长
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 获取最近一次构建的粒子数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    private int bucket(int x, int y, int z) {
+        int h = x * 73856093 ^ y * 19349663 ^ z * 83492791;
+        return (h ^ (h >>> 16)) & tableMask;
+    }
+}
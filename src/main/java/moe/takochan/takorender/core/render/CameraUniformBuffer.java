@@ -0,0 +1,252 @@
+package moe.takochan.takorender.core.render;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+import moe.takochan.takorender.api.component.CameraComponent;
+import moe.takochan.takorender.api.component.TransformComponent;
+import moe.takochan.takorender.api.ecs.Entity;
+import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
+
+/**
+ * 相机 Uniform 缓冲区 - 每帧共享的相机数据（std140 UBO）
+ *
+ * <p>
+ * 视图 / 投影矩阵和相机位置每帧只写入一次，所有声明了 {@value #BLOCK_NAME} 块的着色器
+ * 通过固定绑定点 {@value #BINDING} 读取，切换材质或着色器时不再逐个上传相机 uniform。
+ * </p>
+ *
+ * <p>
+ * <b>GLSL 声明</b>（std140，共 224 字节）:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * layout(std140) uniform TakoCamera {
+ *     mat4 uView;            // 偏移 0
+ *     mat4 uProjection;      // 偏移 64
+ *     mat4 uViewProjection;  // 偏移 128
+ *     vec4 uCameraPosition;  // 偏移 192，xyz: 相机世界坐标
+ *     vec4 uCameraClip;      // 偏移 208，x: 近平面，y: 远平面
+ * };
+ * }
+ * </pre>
+ *
+ * <p>
+ * <b>数据流</b>:
+ * </p>
+ * <ol>
+ * <li>{@code CameraSystem} 在 UPDATE 阶段调用 {@link #update(CameraComponent, Vector3f)} 暂存活动相机数据（不调用 GL）</li>
+ * <li>渲染系统在 RENDER 阶段调用 {@link #bind(CameraComponent)}：数据与上次上传不同时才 glBufferSubData，
+ * 然后绑定到 {@value #BINDING}；传入的相机不是暂存来源时先从该相机重新暂存</li>
+ * <li>切换着色器后调用 {@link #attach(ShaderProgram)}，返回 false 表示着色器没有声明该块，
+ * 调用方回退为逐个设置 uniform</li>
+ * </ol>
+ *
+ * <p>
+ * <b>注意</b>: 非线程安全，{@link #bind()} / {@link #attach(ShaderProgram)} 只能在 GL 线程调用。
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+public final class CameraUniformBuffer {
+
+    /** GLSL uniform 块名称 */
+    public static final String BLOCK_NAME = "TakoCamera";
+
+    /** 固定的 uniform 块绑定点 */
+    public static final int BINDING = 0;
+
+    /** 块大小（float 数）：3 个 mat4 + 2 个 vec4 */
+    public static final int SIZE_FLOATS = 56;
+
+    private static final int OFFSET_VIEW = 0;
+    private static final int OFFSET_PROJECTION = 16;
+    private static final int OFFSET_VIEW_PROJECTION = 32;
+    private static final int OFFSET_POSITION = 48;
+    private static final int OFFSET_CLIP = 52;
+
+    /** 暂存的块内容 */
+    private static final float[] staged = new float[SIZE_FLOATS];
+    /** 最近一次上传的块内容 */
+    private static final float[] uploaded = new float[SIZE_FLOATS];
+    private static final FloatBuffer uploadBuffer = BufferUtils.createFloatBuffer(SIZE_FLOATS);
+
+    private static final Matrix4f tempView = new Matrix4f();
+    private static final Matrix4f tempViewProj = new Matrix4f();
+    private static final Vector3f tempPosition = new Vector3f();
+
+    /** 暂存数据所属的相机（按原始矩阵暂存时为 null） */
+    private static CameraComponent source;
+    private static boolean hasData;
+    private static boolean uploadedOnce;
+    private static int buffer;
+
+    /** 累计上传次数 */
+    private static long uploadCount;
+
+    private CameraUniformBuffer() {}
+
+    // ==================== 暂存 ====================
+
+    /**
+     * 暂存相机数据
+     *
+     * @param camera   相机组件（矩阵需已更新）
+     * @param position 相机世界坐标
+     */
+    public static void update(CameraComponent camera, Vector3f position) {
+        camera.getViewMatrix()
+            .get(staged, OFFSET_VIEW);
+        camera.getProjectionMatrix()
+            .get(staged, OFFSET_PROJECTION);
+        camera.getViewProjectionMatrix()
+            .get(staged, OFFSET_VIEW_PROJECTION);
+        setPosition(position.x, position.y, position.z);
+        setClip(camera.getNearPlane(), camera.getFarPlane());
+        source = camera;
+        hasData = true;
+    }
+
+    /**
+     * 按原始矩阵暂存（列主序 float[16]，用于 Minecraft 矩阵栈等非 ECS 相机）
+     *
+     * @param view       视图矩阵
+     * @param projection 投影矩阵
+     * @param x          相机世界坐标 X
+     * @param y          相机世界坐标 Y
+     * @param z          相机世界坐标 Z
+     * @param near       近平面（未知时为 0）
+     * @param far        远平面（未知时为 0）
+     */
+    public static void update(float[] view, float[] projection, float x, float y, float z, float near, float far) {
+        System.arraycopy(view, 0, staged, OFFSET_VIEW, 16);
+        System.arraycopy(projection, 0, staged, OFFSET_PROJECTION, 16);
+        tempViewProj.set(projection)
+            .mul(tempView.set(view))
+            .get(staged, OFFSET_VIEW_PROJECTION);
+        setPosition(x, y, z);
+        setClip(near, far);
+        source = null;
+        hasData = true;
+    }
+
+    private static void setPosition(float x, float y, float z) {
+        staged[OFFSET_POSITION] = x;
+        staged[OFFSET_POSITION + 1] = y;
+        staged[OFFSET_POSITION + 2] = z;
+        staged[OFFSET_POSITION + 3] = 1.0f;
+    }
+
+    private static void setClip(float near, float far) {
+        staged[OFFSET_CLIP] = near;
+        staged[OFFSET_CLIP + 1] = far;
+        staged[OFFSET_CLIP + 2] = 0.0f;
+        staged[OFFSET_CLIP + 3] = 0.0f;
+    }
+
+    // ==================== 上传与绑定 ====================
+
+    /**
+     * 确保缓冲区内容属于指定相机，并绑定到 {@link #BINDING}
+     *
+     * <p>
+     * 相机与暂存来源相同时直接使用 CameraSystem 暂存的数据；
+     * 不同时（例如没有 CameraSystem 或多个 World 交替渲染）先从该相机重新暂存。
+     * </p>
+     *
+     * @param camera 当前渲染使用的相机
+     */
+    public static void bind(CameraComponent camera) {
+        if (camera != null && camera != source) {
+            Entity entity = camera.getEntity();
+            TransformComponent transform = entity != null ? entity.getComponentOrNull(TransformComponent.class)
+                : null;
+            if (transform != null) {
+                transform.getWorldPosition(tempPosition);
+            } else {
+                tempPosition.set(0, 0, 0);
+            }
+            update(camera, tempPosition);
+        }
+        bind();
+    }
+
+    /**
+     * 上传暂存数据（与上次上传相同时跳过）并绑定到 {@link #BINDING}
+     */
+    public static void bind() {
+        if (!hasData) {
+            return;
+        }
+
+        if (buffer == 0) {
+            buffer = GL15.glGenBuffers();
+            GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, buffer);
+            GL15.glBufferData(GL31.GL_UNIFORM_BUFFER, (long) SIZE_FLOATS * Float.BYTES, GL15.GL_DYNAMIC_DRAW);
+            uploadedOnce = false;
+        }
+
+        // 同时设置通用绑定和索引绑定
+        GL30.glBindBufferBase(GL31.GL_UNIFORM_BUFFER, BINDING, buffer);
+
+        if (!uploadedOnce || !Arrays.equals(staged, uploaded)) {
+            uploadBuffer.clear();
+            uploadBuffer.put(staged);
+            uploadBuffer.flip();
+            GL15.glBufferSubData(GL31.GL_UNIFORM_BUFFER, 0, uploadBuffer);
+            System.arraycopy(staged, 0, uploaded, 0, SIZE_FLOATS);
+            uploadedOnce = true;
+            uploadCount++;
+        }
+
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+    }
+
+    /**
+     * 把着色器的 {@value #BLOCK_NAME} 块绑定到 {@link #BINDING}（着色器需已链接）
+     *
+     * @param shader 着色器程序
+     * @return 着色器是否声明了该块；false 时调用方应自行设置相机 uniform
+     */
+    public static boolean attach(ShaderProgram shader) {
+        return shader != null && shader.hasUniformBlock(BLOCK_NAME) && shader.bindUniformBlock(BLOCK_NAME, BINDING);
+    }
+
+    // ==================== 查询与清理 ====================
+
+    /**
+     * 是否已暂存过相机数据
+     */
+    public static boolean hasData() {
+        return hasData;
+    }
+
+    /**
+     * 获取累计上传次数（数据未变化的帧不计入）
+     */
+    public static long getUploadCount() {
+        return uploadCount;
+    }
+
+    /**
+     * 释放 GL 缓冲区并清空暂存数据
+     */
+    public static void dispose() {
+        if (buffer != 0) {
+            GL15.glDeleteBuffers(buffer);
+            buffer = 0;
+        }
+        source = null;
+        hasData = false;
+        uploadedOnce = false;
+    }
+}
@@ -1,9 +1,8 @@
 package moe.takochan.takorender.core.render;
 
-import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import org.joml.Matrix4f;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
@@ -18,6 +17,8 @@ import cpw.mods.fml.relauncher.SideOnly;
  * <p>
  * InstanceBuffer 管理实例化渲染所需的变换矩阵数据。
  * 每个实例存储一个 4x4 变换矩阵（16 floats）。
+ * 数据先写入 CPU 端数组，{@link #end()} 时通过 {@link StreamBuffer} 上传到环形缓冲区的下一段，
+ * 不会等待 GPU 读完上一批实例数据。
  * </p>
  *
  * <p>
@@ -59,8 +60,11 @@ public class InstanceBuffer implements AutoCloseable {
     /** 每个实例的字节数 */
     private static final int BYTES_PER_INSTANCE = FLOATS_PER_INSTANCE * Float.BYTES;
 
-    /** VBO ID */
-    private int vbo;
+    /** GPU 端流式缓冲区 */
+    private StreamBuffer stream;
+
+    /** 本批数据在流式缓冲区中的字节偏移 */
+    private long baseOffset;
 
     /** 当前容量（实例数） */
     private int capacity;
@@ -68,11 +72,8 @@ public class InstanceBuffer implements AutoCloseable {
     /** 当前实例数量 */
     private int instanceCount;
 
-    /** CPU 端缓冲区 */
-    private FloatBuffer buffer;
-
-    /** 临时矩阵（复用避免分配） */
-    private final float[] tempMatrix = new float[16];
+    /** CPU 端数据 */
+    private float[] data;
 
     /** 是否已释放 */
     private boolean disposed;
@@ -84,21 +85,15 @@ public class InstanceBuffer implements AutoCloseable {
      */
     public InstanceBuffer(int initialCapacity) {
         this.capacity = Math.max(16, initialCapacity);
-        this.buffer = BufferUtils.createFloatBuffer(capacity * FLOATS_PER_INSTANCE);
-        this.vbo = GL15.glGenBuffers();
+        this.data = new float[capacity * FLOATS_PER_INSTANCE];
+        this.stream = new StreamBuffer(capacity * BYTES_PER_INSTANCE);
         this.disposed = false;
-
-        // 初始化 VBO
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, (long) capacity * BYTES_PER_INSTANCE, GL15.GL_DYNAMIC_DRAW);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
     }
 
     /**
      * 开始填充实例数据
      */
     public void begin() {
-        buffer.clear();
         instanceCount = 0;
     }
 
@@ -111,11 +106,35 @@ public class InstanceBuffer implements AutoCloseable {
         ensureCapacity(instanceCount + 1);
 
         // 获取矩阵数据（列主序）
-        transform.get(tempMatrix);
-        buffer.put(tempMatrix);
+        transform.get(data, instanceCount * FLOATS_PER_INSTANCE);
+        instanceCount++;
+    }
+
+    /**
+     * 从列主序 float 数组添加一个实例（直接复制 16 个 float，不经过 Matrix4f）
+     *
+     * @param matrices 矩阵数组（如 {@link moe.takochan.takorender.api.component.TransformStore#getMatrices()}）
+     * @param offset   矩阵起始下标
+     */
+    public void addInstance(float[] matrices, int offset) {
+        ensureCapacity(instanceCount + 1);
+        System.arraycopy(matrices, offset, data, instanceCount * FLOATS_PER_INSTANCE, FLOATS_PER_INSTANCE);
         instanceCount++;
     }
 
+    /**
+     * 从列主序 float 数组批量添加连续的实例
+     *
+     * @param matrices 矩阵数组
+     * @param offset   第一个矩阵的起始下标
+     * @param count    实例数量
+     */
+    public void addInstances(float[] matrices, int offset, int count) {
+        ensureCapacity(instanceCount + count);
+        System.arraycopy(matrices, offset, data, instanceCount * FLOATS_PER_INSTANCE, count * FLOATS_PER_INSTANCE);
+        instanceCount += count;
+    }
+
     /**
      * 结束填充并上传到 GPU
      */
@@ -124,11 +143,7 @@ public class InstanceBuffer implements AutoCloseable {
             return;
         }
 
-        buffer.flip();
-
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0, buffer);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        baseOffset = stream.write(data, 0, instanceCount * FLOATS_PER_INSTANCE, BYTES_PER_INSTANCE);
     }
 
     /**
@@ -141,13 +156,13 @@ public class InstanceBuffer implements AutoCloseable {
      * @param location 起始属性位置
      */
     public void bindAttributes(int location) {
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, stream.getBufferId());
 
         // mat4 需要 4 个 vec4 属性
         for (int i = 0; i < 4; i++) {
             int loc = location + i;
             GL20.glEnableVertexAttribArray(loc);
-            GL20.glVertexAttribPointer(loc, 4, GL11.GL_FLOAT, false, BYTES_PER_INSTANCE, (long) i * 16);
+            GL20.glVertexAttribPointer(loc, 4, GL11.GL_FLOAT, false, BYTES_PER_INSTANCE, baseOffset + i * 16L);
             // 每个实例更新一次（divisor = 1）
             GL33.glVertexAttribDivisor(loc, 1);
         }
@@ -202,23 +217,11 @@ public class InstanceBuffer implements AutoCloseable {
     }
 
     /**
-     * 调整缓冲区大小
+     * 调整 CPU 端数组大小（GPU 端由 StreamBuffer 在写入时按需扩容）
      */
     private void resize(int newCapacity) {
-        // 创建新的 CPU 缓冲区
-        FloatBuffer newBuffer = BufferUtils.createFloatBuffer(newCapacity * FLOATS_PER_INSTANCE);
-
-        // 复制现有数据
-        buffer.flip();
-        newBuffer.put(buffer);
-
-        buffer = newBuffer;
+        data = Arrays.copyOf(data, newCapacity * FLOATS_PER_INSTANCE);
         capacity = newCapacity;
-
-        // 重新分配 GPU 缓冲区
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, (long) capacity * BYTES_PER_INSTANCE, GL15.GL_DYNAMIC_DRAW);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
     }
 
     /**
@@ -226,9 +229,9 @@ public class InstanceBuffer implements AutoCloseable {
      */
     public void dispose() {
         if (!disposed) {
-            GL15.glDeleteBuffers(vbo);
-            vbo = 0;
-            buffer = null;
+            stream.dispose();
+            stream = null;
+            data = null;
             disposed = true;
         }
     }
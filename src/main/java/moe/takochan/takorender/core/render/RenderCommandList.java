@@ -0,0 +1,400 @@
+package moe.takochan.takorender.core.render;
+
+import java.util.Arrays;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+
+/**
+ * 按 64 位排序键排序的渲染命令列表
+ *
+ * <p>
+ * 每个可见的绘制在收集时编码一次排序键，附带一个由调用方解释的载荷下标（通常指向并行的实体 / 网格 / 材质数组）。
+ * 排序只比较 long，不再在比较器中查询组件或重复计算相机距离；
+ * 排序使用 LSD 基数排序（8 位一趟，所有键该字节相同的趟直接跳过），结果是稳定的。
+ * </p>
+ *
+ * <p>
+ * <b>键布局</b>（高位在前，按无符号比较）:
+ * </p>
+ *
+ * <pre>
+ * 不透明等队列: queue(2) | sortingOrder(12) | shader(10) | material(13) | mesh(13) | depth(14, 近→远)
+ * 透明队列:     queue(2) | sortingOrder(12) | depth(24, 远→近) | shader(10) | material(13) | 保留(3)
+ * </pre>
+ *
+ * <p>
+ * 不透明物体先按着色器 / 材质 / 网格分组以减少状态切换，组内由近到远（Early-Z）；
+ * 透明物体在同一 sortingOrder 内严格由远到近，相同深度时再按着色器 / 材质分组。
+ * 着色器 / 材质 / 网格 ID 由 {@link #shaderId} 等方法按首次出现顺序分配，每次 {@link #clear()} 后重新分配，
+ * 超出字段宽度的 ID 会被截断到最大值（仅影响分组，不影响正确性）。
+ * </p>
+ *
+ * <p>
+ * 所有数组按需增长并在帧间复用，稳定运行时不产生分配。
+ * </p>
+ *
+ * <p>
+ * <b>使用示例</b>:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * commands.clear();
+ * for (...) {
+ *     long key = RenderCommandList.opaqueKey(queue, order, commands.shaderId(shader),
+ *         commands.materialId(material), commands.meshId(mesh), RenderCommandList.quantizeDepth(dist, far));
+ *     commands.add(key, payloadIndex);
+ * }
+ * commands.sort();
+ * for (int i = 0; i < commands.size(); i++) {
+ *     draw(commands.getPayload(i));
+ * }
+ * }
+ * </pre>
+ *
+ * <p>
+ * <b>线程安全</b>: 非线程安全，只能在渲染线程使用
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+public final class RenderCommandList {
+
+    private static final int QUEUE_BITS = 2;
+    private static final int ORDER_BITS = 12;
+    private static final int SHADER_BITS = 10;
+    private static final int MATERIAL_BITS = 13;
+    private static final int MESH_BITS = 13;
+    private static final int DEPTH_BITS = 14;
+    private static final int TRANSPARENT_DEPTH_BITS = 24;
+
+    private static final int QUEUE_SHIFT = 64 - QUEUE_BITS;
+    private static final int ORDER_SHIFT = QUEUE_SHIFT - ORDER_BITS;
+
+    /** sortingOrder 可区分的范围（超出部分截断） */
+    public static final int MIN_SORTING_ORDER = -(1 << (ORDER_BITS - 1));
+    public static final int MAX_SORTING_ORDER = (1 << (ORDER_BITS - 1)) - 1;
+
+    /** 不超过此数量时使用插入排序 */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private long[] keys;
+    private int[] payloads;
+    private long[] scratchKeys;
+    private int[] scratchPayloads;
+    private final int[] counts = new int[256];
+    private int size;
+
+    private final IdTable shaders = new IdTable();
+    private final IdTable materials = new IdTable();
+    private final IdTable meshes = new IdTable();
+
+    public RenderCommandList() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity 初始命令容量
+     */
+    public RenderCommandList(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        keys = new long[capacity];
+        payloads = new int[capacity];
+        scratchKeys = new long[capacity];
+        scratchPayloads = new int[capacity];
+    }
+
+    /**
+     * 清空命令和资源 ID（每帧收集前调用）
+     */
+    public void clear() {
+        size = 0;
+        shaders.clear();
+        materials.clear();
+        meshes.clear();
+    }
+
+    /**
+     * 添加一条命令
+     *
+     * @param key     排序键
+     * @param payload 载荷下标
+     */
+    public void add(long key, int payload) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            scratchKeys = new long[capacity];
+            scratchPayloads = new int[capacity];
+        }
+        keys[size] = key;
+        payloads[size] = payload;
+        size++;
+    }
+
+    /**
+     * 按排序键（无符号）升序排序，键相同的命令保持添加顺序
+     */
+    public void sort() {
+        final int n = size;
+        if (n < 2) {
+            return;
+        }
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(n);
+            return;
+        }
+
+        long[] srcKeys = keys;
+        int[] srcPayloads = payloads;
+        long[] dstKeys = scratchKeys;
+        int[] dstPayloads = scratchPayloads;
+        final int[] counts = this.counts;
+
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) (srcKeys[i] >>> shift) & 0xFF]++;
+            }
+            // 所有键在这一字节上相同，本趟不会改变顺序
+            if (counts[(int) (srcKeys[0] >>> shift) & 0xFF] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int b = 0; b < 256; b++) {
+                int count = counts[b];
+                counts[b] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int dst = counts[(int) (key >>> shift) & 0xFF]++;
+                dstKeys[dst] = key;
+                dstPayloads[dst] = srcPayloads[i];
+            }
+
+            long[] tempKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tempKeys;
+            int[] tempPayloads = srcPayloads;
+            srcPayloads = dstPayloads;
+            dstPayloads = tempPayloads;
+        }
+
+        // 结果可能落在暂存数组中，交换引用即可
+        keys = srcKeys;
+        payloads = srcPayloads;
+        scratchKeys = dstKeys;
+        scratchPayloads = dstPayloads;
+    }
+
+    private void insertionSort(int n) {
+        final long[] keys = this.keys;
+        final int[] payloads = this.payloads;
+        for (int i = 1; i < n; i++) {
+            long key = keys[i];
+            int payload = payloads[i];
+            int j = i - 1;
+            while (j >= 0 && Long.compareUnsigned(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                payloads[j + 1] = payloads[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            payloads[j + 1] = payload;
+        }
+    }
+
+    /**
+     * 获取命令数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 检查是否没有命令
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取第 index 条命令的排序键
+     */
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * 获取第 index 条命令的载荷下标
+     */
+    public int getPayload(int index) {
+        return payloads[index];
+    }
+
+    // ==================== 资源 ID ====================
+
+    /**
+     * 获取着色器在本帧的排序 ID（null 为 0）
+     */
+    public int shaderId(Object shader) {
+        return shaders.idOf(shader);
+    }
+
+    /**
+     * 获取材质在本帧的排序 ID（null 为 0）
+     */
+    public int materialId(Object material) {
+        return materials.idOf(material);
+    }
+
+    /**
+     * 获取网格在本帧的排序 ID（null 为 0）
+     */
+    public int meshId(Object mesh) {
+        return meshes.idOf(mesh);
+    }
+
+    // ==================== 键编码 ====================
+
+    /**
+     * 编码非透明队列的排序键（状态分组优先，组内由近到远）
+     *
+     * @param queue        队列序号（0-3，按渲染顺序）
+     * @param sortingOrder 排序顺序
+     * @param shader       着色器 ID
+     * @param material     材质 ID
+     * @param mesh         网格 ID
+     * @param depth        量化深度（{@link #quantizeDepth}）
+     * @return 排序键
+     */
+    public static long opaqueKey(int queue, int sortingOrder, int shader, int material, int mesh, int depth) {
+        long key = header(queue, sortingOrder);
+        key |= (long) clamp(shader, SHADER_BITS) << (MATERIAL_BITS + MESH_BITS + DEPTH_BITS);
+        key |= (long) clamp(material, MATERIAL_BITS) << (MESH_BITS + DEPTH_BITS);
+        key |= (long) clamp(mesh, MESH_BITS) << DEPTH_BITS;
+        key |= depth >>> (TRANSPARENT_DEPTH_BITS - DEPTH_BITS);
+        return key;
+    }
+
+    /**
+     * 编码透明队列的排序键（同一 sortingOrder 内由远到近）
+     *
+     * @param queue        队列序号（0-3，按渲染顺序）
+     * @param sortingOrder 排序顺序
+     * @param shader       着色器 ID
+     * @param material     材质 ID
+     * @param depth        量化深度（{@link #quantizeDepth}）
+     * @return 排序键
+     */
+    public static long transparentKey(int queue, int sortingOrder, int shader, int material, int depth) {
+        final int maxDepth = (1 << TRANSPARENT_DEPTH_BITS) - 1;
+        final int low = SHADER_BITS + MATERIAL_BITS + 3;
+        long key = header(queue, sortingOrder);
+        key |= (long) (maxDepth - depth) << low;
+        key |= (long) clamp(shader, SHADER_BITS) << (MATERIAL_BITS + 3);
+        key |= (long) clamp(material, MATERIAL_BITS) << 3;
+        return key;
+    }
+
+    /**
+     * 把到相机的距离量化为 24 位深度
+     *
+     * @param distance 到相机的距离
+     * @param far      远裁剪面距离（超出部分截断）
+     * @return [0, 2^24 - 1]
+     */
+    public static int quantizeDepth(float distance, float far) {
+        final int maxDepth = (1 << TRANSPARENT_DEPTH_BITS) - 1;
+        if (!(distance > 0) || !(far > 0)) {
+            return 0;
+        }
+        float normalized = distance / far;
+        return normalized >= 1.0f ? maxDepth : (int) (normalized * maxDepth);
+    }
+
+    /**
+     * 从排序键取出队列序号
+     */
+    public static int queueOf(long key) {
+        return (int) (key >>> QUEUE_SHIFT);
+    }
+
+    private static long header(int queue, int sortingOrder) {
+        int order = Math.max(MIN_SORTING_ORDER, Math.min(MAX_SORTING_ORDER, sortingOrder)) - MIN_SORTING_ORDER;
+        return ((long) (queue & 0x3) << QUEUE_SHIFT) | ((long) order << ORDER_SHIFT);
+    }
+
+    private static int clamp(int id, int bits) {
+        return Math.min(id, (1 << bits) - 1);
+    }
+
+    /**
+     * 按引用分配连续 ID 的开放寻址表
+     */
+    private static final class IdTable {
+
+        private Object[] objects = new Object[64];
+        private int[] ids = new int[64];
+        private int count;
+
+        void clear() {
+            if (count > 0) {
+                Arrays.fill(objects, null);
+                count = 0;
+            }
+        }
+
+        int idOf(Object object) {
+            if (object == null) {
+                return 0;
+            }
+            int mask = objects.length - 1;
+            int slot = mix(System.identityHashCode(object)) & mask;
+            while (true) {
+                Object existing = objects[slot];
+                if (existing == object) {
+                    return ids[slot];
+                }
+                if (existing == null) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // ID 从 1 开始，0 留给 null
+            int id = ++count;
+            objects[slot] = object;
+            ids[slot] = id;
+            if (count * 2 > objects.length) {
+                grow();
+            }
+            return id;
+        }
+
+        private void grow() {
+            Object[] oldObjects = objects;
+            int[] oldIds = ids;
+            objects = new Object[oldObjects.length * 2];
+            ids = new int[oldObjects.length * 2];
+            int mask = objects.length - 1;
+            for (int i = 0; i < oldObjects.length; i++) {
+                Object object = oldObjects[i];
+                if (object != null) {
+                    int slot = mix(System.identityHashCode(object)) & mask;
+                    while (objects[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    objects[slot] = object;
+                    ids[slot] = oldIds[i];
+                }
+            }
+        }
+
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
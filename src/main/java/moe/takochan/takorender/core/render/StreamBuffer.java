@@ -0,0 +1,404 @@
+package moe.takochan.takorender.core.render;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ARBBufferStorage;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GLContext;
+import org.lwjgl.opengl.GLSync;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+import moe.takochan.takorender.TakoRenderMod;
+
+/**
+ * 流式上传缓冲区（三段环形）
+ *
+ * <p>
+ * 每帧都会重写的顶点 / 实例数据通过此类上传。缓冲区分为 {@link #REGION_COUNT} 段，
+ * 写入在段内线性追加，当前段写满后切换到下一段，因此 GPU 读取上一段时 CPU 可以继续写入，
+ * 不会因为覆盖仍在使用的数据而同步等待。每次写入返回数据在缓冲区中的字节偏移，
+ * 调用方在绑定顶点属性或绘制时加上该偏移。
+ * </p>
+ *
+ * <p>
+ * <b>两种实现</b>:
+ * </p>
+ * <ul>
+ * <li>持久映射（OpenGL 4.4 或 ARB_buffer_storage）：缓冲区只映射一次（PERSISTENT | COHERENT），
+ * 写入直接复制到映射内存；离开一段时插入 fence，再次进入该段前等待 fence，确保 GPU 已读完</li>
+ * <li>Orphaning（其余情况）：用 glBufferSubData 写入，环绕回第一段时 glBufferData(null) 重新分配存储，
+ * 旧存储由驱动在 GPU 用完后回收</li>
+ * </ul>
+ *
+ * <p>
+ * 上传时缓冲区绑定在 GL_COPY_WRITE_BUFFER 上，不影响当前 VAO 记录的 GL_ELEMENT_ARRAY_BUFFER，
+ * 同一个 StreamBuffer 既可以作为顶点 / 实例缓冲区，也可以作为索引缓冲区。
+ * 单次写入超过一段容量时缓冲区按需扩容（扩容后 {@link #getBufferId()} 会变化）。
+ * </p>
+ *
+ * <p>
+ * <b>统计</b>: {@link #getBytesStreamedLastFrame()} 返回上一帧所有 StreamBuffer 上传的字节数，
+ * 帧边界由 {@link #endFrame()} 标记。
+ * </p>
+ *
+ * <p>
+ * <b>注意</b>: 非线程安全，只能在 GL 线程使用。同一段内的数据应在下一次写入同一个 StreamBuffer 之前提交绘制，
+ * 这样离开该段时插入的 fence 能覆盖所有读取它的绘制命令。
+ * </p>
+ */
+@SideOnly(Side.CLIENT)
+public final class StreamBuffer implements AutoCloseable {
+
+    /** 环形缓冲的段数 */
+    public static final int REGION_COUNT = 3;
+
+    /** 单次等待 fence 的超时（纳秒） */
+    private static final long FENCE_TIMEOUT_NANOS = 1_000_000L;
+
+    /** 本帧所有 StreamBuffer 上传的字节数 */
+    private static long frameBytes;
+
+    /** 上一帧所有 StreamBuffer 上传的字节数 */
+    private static long lastFrameBytes;
+
+    private static Boolean persistentSupported = null;
+
+    private int buffer;
+    private int regionSize;
+    private final boolean persistent;
+
+    /** 持久映射的内存（仅持久映射模式） */
+    private ByteBuffer mapped;
+    private FloatBuffer mappedFloats;
+    private IntBuffer mappedInts;
+
+    /** 每段的 fence（仅持久映射模式） */
+    private final GLSync[] fences = new GLSync[REGION_COUNT];
+
+    /** Orphaning 模式的暂存区 */
+    private ByteBuffer staging;
+    private FloatBuffer stagingFloats;
+    private IntBuffer stagingInts;
+
+    /** 当前段 */
+    private int region;
+
+    /** 下一次写入的起始字节偏移 */
+    private int head;
+
+    /** 累计上传字节数 */
+    private long bytesStreamed;
+
+    /** 等待 fence 的次数（GPU 尚未读完即将覆盖的段） */
+    private long stallCount;
+
+    private boolean disposed;
+
+    /**
+     * 创建流式缓冲区（根据 GL 能力自动选择持久映射或 orphaning）
+     *
+     * @param regionSize 每段初始字节数（总大小为 regionSize × {@link #REGION_COUNT}）
+     */
+    public StreamBuffer(int regionSize) {
+        this(regionSize, isPersistentMappingSupported());
+    }
+
+    /**
+     * 创建流式缓冲区
+     *
+     * @param regionSize 每段初始字节数
+     * @param persistent 是否使用持久映射（当前上下文不支持时忽略）
+     */
+    public StreamBuffer(int regionSize, boolean persistent) {
+        this.persistent = persistent && isPersistentMappingSupported();
+        createStorage(Math.max(256, align(regionSize, 4)));
+    }
+
+    /**
+     * 检查当前上下文是否支持持久映射（ARB_buffer_storage + fence）
+     */
+    public static boolean isPersistentMappingSupported() {
+        if (persistentSupported == null) {
+            try {
+                ContextCapabilities caps = GLContext.getCapabilities();
+                boolean storage = caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+                boolean sync = caps.OpenGL32 || caps.GL_ARB_sync;
+                persistentSupported = storage && sync;
+                TakoRenderMod.LOG.info("StreamBuffer: persistent mapping {}", persistentSupported ? "on" : "off");
+            } catch (Exception e) {
+                persistentSupported = false;
+            }
+        }
+        return persistentSupported;
+    }
+
+    /**
+     * 标记帧边界（由 RenderTickEvent 在每个渲染帧开始时调用一次）
+     */
+    public static void endFrame() {
+        lastFrameBytes = frameBytes;
+        frameBytes = 0;
+    }
+
+    /**
+     * 获取上一帧所有 StreamBuffer 上传的字节数
+     */
+    public static long getBytesStreamedLastFrame() {
+        return lastFrameBytes;
+    }
+
+    /**
+     * 获取本帧到目前为止所有 StreamBuffer 上传的字节数
+     */
+    public static long getBytesStreamedThisFrame() {
+        return frameBytes;
+    }
+
+    /**
+     * 写入 float 数据
+     *
+     * @param data      源数组
+     * @param offset    源数组起始下标
+     * @param count     float 数量
+     * @param alignment 写入位置的字节对齐（4 的倍数，顶点数据通常传入步长）
+     * @return 数据在缓冲区中的字节偏移
+     */
+    public long write(float[] data, int offset, int count, int alignment) {
+        int bytes = count * Float.BYTES;
+        int dst = allocate(bytes, alignment);
+        if (persistent) {
+            mappedFloats.position(dst >> 2);
+            mappedFloats.put(data, offset, count);
+        } else {
+            ensureStaging(bytes);
+            stagingFloats.clear();
+            stagingFloats.put(data, offset, count)
+                .flip();
+            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+            GL15.glBufferSubData(GL31.GL_COPY_WRITE_BUFFER, dst, stagingFloats);
+            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        }
+        return dst;
+    }
+
+    /**
+     * 写入 int 数据（如索引）
+     *
+     * @param data      源数组
+     * @param offset    源数组起始下标
+     * @param count     int 数量
+     * @param alignment 写入位置的字节对齐（4 的倍数）
+     * @return 数据在缓冲区中的字节偏移
+     */
+    public long write(int[] data, int offset, int count, int alignment) {
+        int bytes = count * Integer.BYTES;
+        int dst = allocate(bytes, alignment);
+        if (persistent) {
+            mappedInts.position(dst >> 2);
+            mappedInts.put(data, offset, count);
+        } else {
+            ensureStaging(bytes);
+            stagingInts.clear();
+            stagingInts.put(data, offset, count)
+                .flip();
+            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+            GL15.glBufferSubData(GL31.GL_COPY_WRITE_BUFFER, dst, stagingInts);
+            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        }
+        return dst;
+    }
+
+    /**
+     * 在当前段中分配空间，必要时切换段或扩容
+     */
+    private int allocate(int bytes, int alignment) {
+        if (disposed) {
+            throw new IllegalStateException("StreamBuffer has been disposed");
+        }
+        alignment = Math.max(4, alignment);
+        if (bytes + alignment > regionSize) {
+            // 对齐后可能多占 alignment - 1 字节
+            createStorage(Math.max(align(bytes + alignment, 4), regionSize << 1));
+        }
+
+        int offset = align(head, alignment);
+        if (offset + bytes > (region + 1) * regionSize) {
+            nextRegion();
+            offset = align(head, alignment);
+        }
+        head = offset + bytes;
+        bytesStreamed += bytes;
+        frameBytes += bytes;
+        return offset;
+    }
+
+    /**
+     * 离开当前段：持久映射模式插入 fence 并等待下一段空闲，orphaning 模式在环绕时重新分配存储
+     */
+    private void nextRegion() {
+        if (persistent) {
+            fences[region] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+        region = (region + 1) % REGION_COUNT;
+        head = region * regionSize;
+
+        if (persistent) {
+            waitFence(region);
+        } else if (region == 0) {
+            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+            GL15.glBufferData(GL31.GL_COPY_WRITE_BUFFER, (long) regionSize * REGION_COUNT, GL15.GL_STREAM_DRAW);
+            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        }
+    }
+
+    private void waitFence(int index) {
+        GLSync fence = fences[index];
+        if (fence == null) {
+            return;
+        }
+        int flags = GL32.GL_SYNC_FLUSH_COMMANDS_BIT;
+        while (true) {
+            int result = GL32.glClientWaitSync(fence, flags, FENCE_TIMEOUT_NANOS);
+            if (result == GL32.GL_ALREADY_SIGNALED || result == GL32.GL_WAIT_FAILED) {
+                break;
+            }
+            if (result == GL32.GL_CONDITION_SATISFIED) {
+                stallCount++;
+                break;
+            }
+            // 超时：命令已经 flush，继续等待
+            flags = 0;
+        }
+        GL32.glDeleteSync(fence);
+        fences[index] = null;
+    }
+
+    /**
+     * （重新）创建 GL 存储，丢弃旧缓冲区
+     */
+    private void createStorage(int newRegionSize) {
+        releaseStorage();
+        regionSize = newRegionSize;
+        region = 0;
+        head = 0;
+
+        long totalBytes = (long) regionSize * REGION_COUNT;
+        buffer = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+        if (persistent) {
+            int flags = GL30.GL_MAP_WRITE_BIT | ARBBufferStorage.GL_MAP_PERSISTENT_BIT
+                | ARBBufferStorage.GL_MAP_COHERENT_BIT;
+            ARBBufferStorage.glBufferStorage(GL31.GL_COPY_WRITE_BUFFER, totalBytes, flags);
+            mapped = GL30.glMapBufferRange(GL31.GL_COPY_WRITE_BUFFER, 0, totalBytes, flags, null)
+                .order(ByteOrder.nativeOrder());
+            mappedFloats = mapped.asFloatBuffer();
+            mappedInts = mapped.asIntBuffer();
+        } else {
+            GL15.glBufferData(GL31.GL_COPY_WRITE_BUFFER, totalBytes, GL15.GL_STREAM_DRAW);
+        }
+        GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    private void ensureStaging(int bytes) {
+        if (staging == null || staging.capacity() < bytes) {
+            staging = BufferUtils.createByteBuffer(Math.max(bytes, regionSize));
+            stagingFloats = staging.asFloatBuffer();
+            stagingInts = staging.asIntBuffer();
+        }
+    }
+
+    private void releaseStorage() {
+        for (int i = 0; i < REGION_COUNT; i++) {
+            if (fences[i] != null) {
+                GL32.glDeleteSync(fences[i]);
+                fences[i] = null;
+            }
+        }
+        if (buffer != 0) {
+            if (mapped != null) {
+                GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+                GL15.glUnmapBuffer(GL31.GL_COPY_WRITE_BUFFER);
+                GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+            }
+            GL15.glDeleteBuffers(buffer);
+            buffer = 0;
+        }
+        mapped = null;
+        mappedFloats = null;
+        mappedInts = null;
+    }
+
+    private static int align(int value, int alignment) {
+        int rem = value % alignment;
+        return rem == 0 ? value : value + alignment - rem;
+    }
+
+    /**
+     * 获取 GL 缓冲区 ID（扩容后会变化，每次写入后重新获取）
+     */
+    public int getBufferId() {
+        return buffer;
+    }
+
+    /**
+     * 是否使用持久映射
+     */
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * 获取每段字节数
+     */
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    /**
+     * 获取累计上传字节数
+     */
+    public long getBytesStreamed() {
+        return bytesStreamed;
+    }
+
+    /**
+     * 获取等待 fence 的次数（持续增长说明环形缓冲偏小）
+     */
+    public long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * 释放资源
+     */
+    public void dispose() {
+        if (!disposed) {
+            releaseStorage();
+            staging = null;
+            stagingFloats = null;
+            stagingInts = null;
+            disposed = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        dispose();
+    }
+
+    /**
+     * 检查是否已释放
+     */
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
@@ -1,17 +1,27 @@
 package moe.takochan.takorender.core.system;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import moe.takochan.takorender.api.component.BoundsComponent;
 import moe.takochan.takorender.api.component.CameraComponent;
 import moe.takochan.takorender.api.component.LayerComponent;
 import moe.takochan.takorender.api.component.MeshRendererComponent;
+import moe.takochan.takorender.api.component.StaticFlagsComponent;
+import moe.takochan.takorender.api.component.TransformComponent;
 import moe.takochan.takorender.api.component.VisibilityComponent;
+import moe.takochan.takorender.api.ecs.ComponentAccess;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
+import moe.takochan.takorender.api.ecs.LongObjectHashMap;
 import moe.takochan.takorender.api.ecs.Layer;
 import moe.takochan.takorender.api.ecs.Phase;
+import moe.takochan.takorender.api.ecs.RequiresComponent;
 import moe.takochan.takorender.api.graphics.AABB;
+import moe.takochan.takorender.api.graphics.DynamicAABBTree;
 import moe.takochan.takorender.api.graphics.Frustum;
 import moe.takochan.takorender.api.graphics.Mesh;
+import moe.takochan.takorender.api.graphics.StaticSpatialGrid;
 
 /**
  * 视锥剔除系统
@@ -35,18 +45,61 @@ import moe.takochan.takorender.api.graphics.Mesh;
  * </p>
  * <ol>
  * <li>BoundsComponent.worldBounds</li>
- * <li>MeshRendererComponent.getMesh().getBounds()（转换到世界空间）</li>
+ * <li>MeshRendererComponent.getMesh().getBounds() 变换到世界空间（缓存，Transform 版本或 Mesh 包围盒变化时重算）</li>
  * <li>无包围盒：不剔除（始终渲染）</li>
  * </ol>
  *
  * <p>
+ * <b>层级剔除</b>:
+ * 参与剔除的 Entity 保存在 {@link DynamicAABBTree} 中。每帧只比较世界包围盒引用
+ * （BoundsComponent 更新时会替换为新的 AABB 实例），变化时增量更新树；
+ * 之后从根节点遍历，整棵子树完全在视锥内 / 外时一次判定，平面掩码跳过父节点已通过的平面。
+ * 只有上一帧可见而本帧不可见的 Entity 需要重新标记为 culled。
+ * </p>
+ *
+ * <p>
+ * <b>静态物体</b>:
+ * {@link StaticFlagsComponent#isStatic()} 为 true 的 Entity 注册时放入 {@link StaticSpatialGrid}，
+ * 之后不再检查包围盒变化，剔除按 16×16×16 格子整体进行。
+ * </p>
+ *
+ * <p>
  * <b>执行阶段</b>: UPDATE（在 TransformSystem 之后）
  * </p>
  */
+@RequiresComponent(VisibilityComponent.class)
+@ComponentAccess(read = { CameraComponent.class, LayerComponent.class, BoundsComponent.class,
+    MeshRendererComponent.class, StaticFlagsComponent.class,
+    TransformComponent.class }, write = VisibilityComponent.class)
 public class FrustumCullingSystem extends GameSystem {
 
     private final Frustum frustum = new Frustum();
 
+    /** 参与剔除的 Entity 的层级包围盒 */
+    private final DynamicAABBTree<CullProxy> tree = new DynamicAABBTree<>();
+
+    /** 静态 Entity 的空间网格 */
+    private final StaticSpatialGrid<CullProxy> staticGrid = new StaticSpatialGrid<>();
+
+    /** Entity ID -> 代理 */
+    private final LongObjectHashMap<CullProxy> proxyMap = new LongObjectHashMap<>();
+
+    /** 所有代理（用于检测已移除的 Entity） */
+    private final List<CullProxy> proxies = new ArrayList<>();
+
+    /** 上一帧 / 本帧可见的代理 */
+    private List<CullProxy> visibleProxies = new ArrayList<>();
+    private List<CullProxy> previousVisible = new ArrayList<>();
+
+    /** 尚未创建代理的 Entity 使用的 Mesh 包围盒缓存（创建代理时复制过去） */
+    private final MeshBoundsCache pendingMeshBounds = new MeshBoundsCache();
+
+    /** 帧计数（用于标记代理的访问 / 可见状态） */
+    private int frame;
+
+    private final DynamicAABBTree.Visitor<CullProxy> treeVisitor = this::markVisible;
+    private final StaticSpatialGrid.Visitor<CullProxy> gridVisitor = this::markVisible;
+
     @Override
     public Phase getPhase() {
         return Phase.UPDATE;
@@ -68,79 +121,248 @@ public class FrustumCullingSystem extends GameSystem {
 
         // 更新视锥
         frustum.update(activeCamera.getViewProjectionMatrix());
+        frame++;
 
-        // 处理所有可渲染 Entity
-        for (Entity entity : getWorld().getEntitiesWith(VisibilityComponent.class)) {
+        // 同步树中的包围盒
+        for (Entity entity : getRequiredEntities()) {
             processEntity(entity);
         }
+        removeStaleProxies();
+
+        // 层级遍历，可见的代理取消剔除
+        List<CullProxy> swap = previousVisible;
+        previousVisible = visibleProxies;
+        visibleProxies = swap;
+        visibleProxies.clear();
+        tree.query(frustum, treeVisitor);
+        staticGrid.query(frustum, gridVisitor);
+
+        // 上一帧可见、本帧不可见的代理重新剔除
+        for (int i = 0, size = previousVisible.size(); i < size; i++) {
+            CullProxy proxy = previousVisible.get(i);
+            if (proxy.visibleFrame != frame && proxy.node >= 0) {
+                proxy.visibility.setCulled(true);
+            }
+        }
+        previousVisible.clear();
+    }
+
+    @Override
+    public void onDestroy() {
+        tree.clear();
+        staticGrid.clear();
+        proxyMap.clear();
+        proxies.clear();
+        visibleProxies.clear();
+        previousVisible.clear();
     }
 
     private void processEntity(Entity entity) {
-        VisibilityComponent visibility = entity.getComponent(VisibilityComponent.class)
-            .orElse(null);
+        VisibilityComponent visibility = entity.getComponentOrNull(VisibilityComponent.class);
         if (visibility == null) {
             return;
         }
 
         // 仅对 WORLD_3D 层进行剔除
-        LayerComponent layer = entity.getComponent(LayerComponent.class)
-            .orElse(null);
+        LayerComponent layer = entity.getComponentOrNull(LayerComponent.class);
         if (layer != null && layer.getLayer() != Layer.WORLD_3D) {
+            removeProxy(entity);
             visibility.setCulled(false);
             return;
         }
 
+        // 已注册的静态 Entity 不再检查包围盒
+        StaticFlagsComponent flags = entity.getComponentOrNull(StaticFlagsComponent.class);
+        boolean isStatic = flags != null && flags.isStatic();
+        CullProxy proxy = proxyMap.get(entity.getId());
+        if (proxy != null && proxy.isStatic && isStatic && proxy.visibility == visibility) {
+            proxy.seenFrame = frame;
+            return;
+        }
+
         // 获取包围盒
-        AABB worldBounds = getWorldBounds(entity);
+        AABB worldBounds = getWorldBounds(entity, proxy);
         if (worldBounds == null || !worldBounds.isValid()) {
             // 无包围盒，不剔除
+            removeProxy(entity);
             visibility.setCulled(false);
             return;
         }
 
-        // 视锥测试
-        boolean intersects = frustum.intersects(worldBounds);
-        visibility.setCulled(!intersects);
+        if (proxy != null && proxy.isStatic != isStatic) {
+            // 静态标记变化：在树和网格之间迁移
+            removeProxy(entity);
+            proxy = null;
+        }
+        if (proxy == null) {
+            proxy = new CullProxy(entity, visibility);
+            proxy.bounds = worldBounds;
+            proxy.isStatic = isStatic;
+            proxy.meshBounds.copyFrom(pendingMeshBounds);
+            proxy.node = isStatic ? staticGrid.insert(worldBounds, proxy) : tree.insert(worldBounds, proxy);
+            proxy.listIndex = proxies.size();
+            proxies.add(proxy);
+            proxyMap.put(entity.getId(), proxy);
+            // 在遍历中可见时再取消剔除
+            visibility.setCulled(true);
+        } else {
+            if (proxy.bounds != worldBounds && !isStatic) {
+                proxy.bounds = worldBounds;
+                tree.update(proxy.node, worldBounds);
+            }
+            if (proxy.visibility != visibility) {
+                proxy.visibility = visibility;
+                visibility.setCulled(true);
+            }
+        }
+        proxy.seenFrame = frame;
+    }
+
+    /**
+     * 移除本帧未出现在查询中的代理（Entity 被移除、失活或失去 VisibilityComponent）
+     */
+    private void removeStaleProxies() {
+        for (int i = proxies.size() - 1; i >= 0; i--) {
+            CullProxy proxy = proxies.get(i);
+            if (proxy.seenFrame != frame) {
+                proxyMap.remove(proxy.entity.getId());
+                detach(proxy);
+            }
+        }
+    }
+
+    private void markVisible(CullProxy proxy) {
+        proxy.visibleFrame = frame;
+        proxy.visibility.setCulled(false);
+        visibleProxies.add(proxy);
+    }
+
+    private void removeProxy(Entity entity) {
+        CullProxy proxy = proxyMap.remove(entity.getId());
+        if (proxy != null) {
+            detach(proxy);
+        }
+    }
+
+    private void detach(CullProxy proxy) {
+        if (proxy.isStatic) {
+            staticGrid.remove(proxy.node);
+        } else {
+            tree.remove(proxy.node);
+        }
+        proxy.node = -1;
+
+        // 与末尾交换后删除
+        int last = proxies.size() - 1;
+        CullProxy moved = proxies.get(last);
+        proxies.set(proxy.listIndex, moved);
+        moved.listIndex = proxy.listIndex;
+        proxies.remove(last);
     }
 
     /**
      * 获取 Entity 的世界空间包围盒
+     *
+     * <p>
+     * 没有 BoundsComponent 时把 Mesh 的本地包围盒变换到世界空间并缓存在代理中；
+     * 缓存命中时返回同一个 AABB 实例，因此树不会被更新。
+     * </p>
      */
-    private AABB getWorldBounds(Entity entity) {
+    private AABB getWorldBounds(Entity entity, CullProxy proxy) {
+        if (proxy == null) {
+            pendingMeshBounds.clear();
+        }
+
         // 优先使用 BoundsComponent
-        BoundsComponent bounds = entity.getComponent(BoundsComponent.class)
-            .orElse(null);
+        BoundsComponent bounds = entity.getComponentOrNull(BoundsComponent.class);
         if (bounds != null) {
             return bounds.getWorldBounds();
         }
 
         // 尝试从 MeshRendererComponent 获取
-        MeshRendererComponent meshRenderer = entity.getComponent(MeshRendererComponent.class)
-            .orElse(null);
-        if (meshRenderer != null) {
-            Mesh mesh = meshRenderer.getMesh();
-            if (mesh != null) {
-                AABB localBounds = mesh.getBounds();
-                if (localBounds != null && localBounds.isValid()) {
-                    // 需要变换到世界空间，但没有 BoundsComponent 存储结果
-                    // 这里简化处理：假设 Mesh 已经在世界空间或使用本地包围盒
-                    // 完整实现应该使用 TransformComponent 变换
-                    return localBounds;
-                }
-            }
+        MeshRendererComponent meshRenderer = entity.getComponentOrNull(MeshRendererComponent.class);
+        if (meshRenderer == null) {
+            return null;
+        }
+        Mesh mesh = meshRenderer.getMesh();
+        AABB localBounds = mesh != null ? mesh.getBounds() : null;
+        if (localBounds == null || !localBounds.isValid()) {
+            return null;
         }
 
-        return null;
+        TransformComponent transform = entity.getComponentOrNull(TransformComponent.class);
+        MeshBoundsCache cache = proxy != null ? proxy.meshBounds : pendingMeshBounds;
+        if (!cache.matches(localBounds, transform)) {
+            // 无 Transform 时视为 Mesh 已在世界空间
+            AABB worldBounds = transform != null ? localBounds.transformAffine(transform.getWorldMatrix())
+                : localBounds;
+            cache.set(localBounds, transform, worldBounds);
+        }
+        return cache.worldBounds;
     }
 
     private CameraComponent findActiveCamera() {
-        for (Entity entity : getWorld().getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
-            if (camera != null && camera.isActive()) {
-                return camera;
-            }
+        Entity entity = getWorld().findActiveCamera();
+        return entity != null ? entity.getComponentOrNull(CameraComponent.class) : null;
+    }
+
+    /**
+     * 剔除代理：Entity 在树中的叶子
+     */
+    private static final class CullProxy {
+
+        final Entity entity;
+        VisibilityComponent visibility;
+        AABB bounds;
+        boolean isStatic;
+        final MeshBoundsCache meshBounds = new MeshBoundsCache();
+
+        /** 树的代理 ID 或网格句柄 */
+        int node = -1;
+        int listIndex;
+        int seenFrame;
+        int visibleFrame;
+
+        CullProxy(Entity entity, VisibilityComponent visibility) {
+            this.entity = entity;
+            this.visibility = visibility;
+        }
+    }
+
+    /**
+     * Mesh 世界包围盒缓存：本地包围盒、Transform 及其版本都未变化时复用结果
+     */
+    private static final class MeshBoundsCache {
+
+        AABB localBounds;
+        TransformComponent transform;
+        int transformVersion;
+        AABB worldBounds;
+
+        boolean matches(AABB localBounds, TransformComponent transform) {
+            return worldBounds != null && this.localBounds == localBounds
+                && this.transform == transform
+                && (transform == null || transformVersion == transform.getVersion());
+        }
+
+        void set(AABB localBounds, TransformComponent transform, AABB worldBounds) {
+            this.localBounds = localBounds;
+            this.transform = transform;
+            this.transformVersion = transform != null ? transform.getVersion() : 0;
+            this.worldBounds = worldBounds;
+        }
+
+        void clear() {
+            localBounds = null;
+            transform = null;
+            worldBounds = null;
+        }
+
+        void copyFrom(MeshBoundsCache other) {
+            localBounds = other.localBounds;
+            transform = other.transform;
+            transformVersion = other.transformVersion;
+            worldBounds = other.worldBounds;
         }
-        return null;
     }
 }
@@ -2,11 +2,13 @@ package moe.takochan.takorender.core.system;
 
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.joml.Matrix4f;
+import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL31;
@@ -20,20 +22,25 @@ import moe.takochan.takorender.api.component.LayerComponent;
 import moe.takochan.takorender.api.component.MeshRendererComponent;
 import moe.takochan.takorender.api.component.StaticFlagsComponent;
 import moe.takochan.takorender.api.component.TransformComponent;
+import moe.takochan.takorender.api.component.TransformStore;
 import moe.takochan.takorender.api.component.VisibilityComponent;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Layer;
 import moe.takochan.takorender.api.ecs.Phase;
+import moe.takochan.takorender.api.ecs.Query;
 import moe.takochan.takorender.api.ecs.RequiresComponent;
 import moe.takochan.takorender.api.ecs.StaticFlags;
 import moe.takochan.takorender.api.graphics.Material;
 import moe.takochan.takorender.api.graphics.Mesh;
 import moe.takochan.takorender.api.graphics.RenderQueue;
+import moe.takochan.takorender.api.graphics.StaticSpatialGrid;
 import moe.takochan.takorender.api.graphics.mesh.BaseMesh;
 import moe.takochan.takorender.api.graphics.shader.ShaderProgram;
+import moe.takochan.takorender.api.system.TransformSystem;
 import moe.takochan.takorender.core.gl.GLStateContext;
 import moe.takochan.takorender.core.render.BatchKey;
+import moe.takochan.takorender.core.render.CameraUniformBuffer;
 import moe.takochan.takorender.core.render.InstanceBuffer;
 
 /**
@@ -55,6 +62,13 @@ import moe.takochan.takorender.core.render.InstanceBuffer;
  * </ul>
  *
  * <p>
+ * <b>批次缓存</b>:
+ * 合批的实体是静态的，分组结果跨帧复用（每个 Layer 独立缓存），只在以下情况重建：
+ * 相机跨越 16×16×16 格子（LOD 级别可能变化）、合批实体增减、Dimension 切换，
+ * 或调用 {@link #invalidateBatches()}。可见性在填充实例缓冲区时逐帧检查。
+ * </p>
+ *
+ * <p>
  * <b>执行阶段</b>: RENDER（在 MeshRenderSystem 之前）
  * </p>
  *
@@ -64,6 +78,7 @@ import moe.takochan.takorender.core.render.InstanceBuffer;
  * <ul>
  * <li>顶点属性 0-2: 网格数据（position, normal, uv）</li>
  * <li>顶点属性 3-6: 实例变换矩阵（mat4，4个 vec4）</li>
+ * <li>相机矩阵: TakoCamera uniform 块（见 {@link CameraUniformBuffer}），或 uView / uProjection uniform</li>
  * </ul>
  */
 @SideOnly(Side.CLIENT)
@@ -73,8 +88,11 @@ public class InstancedRenderSystem extends GameSystem {
     /** 实例矩阵属性的起始位置（location 3-6） */
     private static final int INSTANCE_MATRIX_LOCATION = 3;
 
-    /** 批次数据：BatchKey -> Entity 列表 */
-    private final Map<BatchKey, List<Entity>> batches = new HashMap<>();
+    /** 每个 Layer 的批次缓存（未指定 Layer 时使用 defaultBatches） */
+    private final Map<Layer, BatchCache> layerBatches = new EnumMap<>(Layer.class);
+    private final BatchCache defaultBatches = new BatchCache();
+
+    private final Vector3f tempCameraPos = new Vector3f();
 
     /** 实例缓冲区（复用） */
     private InstanceBuffer instanceBuffer;
@@ -99,6 +117,16 @@ public class InstancedRenderSystem extends GameSystem {
         instanceBuffer = new InstanceBuffer(256);
     }
 
+    /**
+     * 强制下一帧重建批次（修改合批实体的 Mesh / Material 后调用）
+     */
+    public void invalidateBatches() {
+        defaultBatches.dirty = true;
+        for (BatchCache cache : layerBatches.values()) {
+            cache.dirty = true;
+        }
+    }
+
     @Override
     public void onDestroy() {
         if (instanceBuffer != null) {
@@ -121,14 +149,20 @@ public class InstancedRenderSystem extends GameSystem {
             return;
         }
 
-        // 收集并分组可合批实体
-        collectBatchableEntities();
+        // 收集并分组可合批实体（静态，仅在失效时重建）
+        Layer layer = getWorld().getCurrentLayer();
+        BatchCache cache = layer != null ? layerBatches.computeIfAbsent(layer, l -> new BatchCache()) : defaultBatches;
+        if (isStale(cache, cameraEntity)) {
+            collectBatchableEntities(cache.batches);
+        }
 
+        Map<BatchKey, List<Entity>> batches = cache.batches;
         if (batches.isEmpty()) {
             return;
         }
 
-        // 缓存相机矩阵
+        // 上传相机 UBO；矩阵缓冲区供未声明 TakoCamera 块的着色器使用
+        CameraUniformBuffer.bind(camera);
         Matrix4f viewMatrix = camera.getViewMatrix();
         Matrix4f projMatrix = camera.getProjectionMatrix();
 
@@ -145,20 +179,40 @@ public class InstancedRenderSystem extends GameSystem {
             ctx.enableBlend();
             ctx.setBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
 
-            renderBatches();
+            renderBatches(batches);
         }
+    }
 
-        // 清空批次（下一帧重新收集）
-        for (List<Entity> list : batches.values()) {
-            list.clear();
+    /**
+     * 检查批次缓存是否需要重建，并记录当前状态
+     */
+    private boolean isStale(BatchCache cache, Entity cameraEntity) {
+        Query query = getRequiredQuery();
+        int queryVersion = query != null ? query.getVersion() : 0;
+        TransformComponent cameraTransform = cameraEntity.getComponentOrNull(TransformComponent.class);
+        long cameraSection = 0;
+        if (cameraTransform != null) {
+            cameraTransform.getWorldPosition(tempCameraPos);
+            cameraSection = StaticSpatialGrid.sectionKeyAt(tempCameraPos.x, tempCameraPos.y, tempCameraPos.z);
         }
-        batches.clear();
+        int dimension = getWorld().getSceneManager()
+            .getActiveDimensionId();
+
+        boolean stale = cache.dirty || queryVersion != cache.queryVersion
+            || cameraSection != cache.cameraSection
+            || dimension != cache.dimension;
+        cache.dirty = false;
+        cache.queryVersion = queryVersion;
+        cache.cameraSection = cameraSection;
+        cache.dimension = dimension;
+        return stale;
     }
 
     /**
      * 收集可合批的实体并按 BatchKey 分组
      */
-    private void collectBatchableEntities() {
+    private void collectBatchableEntities(Map<BatchKey, List<Entity>> batches) {
+        batches.clear();
         Layer currentLayer = getWorld().getCurrentLayer();
         int activeDimension = getWorld().getSceneManager()
             .getActiveDimensionId();
@@ -171,13 +225,6 @@ public class InstancedRenderSystem extends GameSystem {
                 continue;
             }
 
-            // 检查可见性
-            VisibilityComponent visibility = entity.getComponent(VisibilityComponent.class)
-                .orElse(null);
-            if (visibility != null && !visibility.shouldRender()) {
-                continue;
-            }
-
             // 检查 Layer 筛选
             if (currentLayer != null) {
                 Layer entityLayer = entity.getComponent(LayerComponent.class)
@@ -236,12 +283,13 @@ public class InstancedRenderSystem extends GameSystem {
     /**
      * 渲染所有批次
      */
-    private void renderBatches() {
+    private void renderBatches(Map<BatchKey, List<Entity>> batches) {
         for (Map.Entry<BatchKey, List<Entity>> entry : batches.entrySet()) {
             BatchKey key = entry.getKey();
             List<Entity> entities = entry.getValue();
 
-            if (entities.isEmpty()) {
+            if (entities.isEmpty() || key.getMesh()
+                .isDisposed()) {
                 continue;
             }
 
@@ -253,12 +301,27 @@ public class InstancedRenderSystem extends GameSystem {
      * 渲染单个批次
      */
     private void renderBatch(Mesh mesh, Material material, List<Entity> entities) {
-        // 填充实例缓冲区
+        // 填充实例缓冲区：优先直接复制 TransformSystem 存储中的矩阵
+        TransformSystem transformSystem = getWorld().getSystem(TransformSystem.class);
+        TransformStore store = transformSystem != null ? transformSystem.getStore() : null;
+        float[] matrices = store != null ? store.getMatrices() : null;
+
         instanceBuffer.begin();
         for (Entity entity : entities) {
-            TransformComponent transform = entity.getComponent(TransformComponent.class)
-                .orElse(null);
-            if (transform != null) {
+            // 检查可见性（剔除结果逐帧变化）
+            VisibilityComponent visibility = entity.getComponentOrNull(VisibilityComponent.class);
+            if (visibility != null && !visibility.shouldRender()) {
+                continue;
+            }
+
+            TransformComponent transform = entity.getComponentOrNull(TransformComponent.class);
+            if (transform == null) {
+                continue;
+            }
+            int slot = store != null && !transform.isDirty() ? store.getSlot(transform) : -1;
+            if (slot >= 0) {
+                instanceBuffer.addInstance(matrices, slot * TransformStore.MATRIX_FLOATS);
+            } else {
                 instanceBuffer.addInstance(transform.getWorldMatrix());
             }
         }
@@ -276,11 +339,13 @@ public class InstancedRenderSystem extends GameSystem {
             return;
         }
 
-        // 设置相机矩阵
-        viewMatrixBuffer.rewind();
-        shader.setUniformMatrix4("uView", false, viewMatrixBuffer);
-        projMatrixBuffer.rewind();
-        shader.setUniformMatrix4("uProjection", false, projMatrixBuffer);
+        // 相机矩阵来自 TakoCamera 块，未声明该块时按 uniform 设置
+        if (!CameraUniformBuffer.attach(shader)) {
+            viewMatrixBuffer.rewind();
+            shader.setUniformMatrix4("uView", false, viewMatrixBuffer);
+            projMatrixBuffer.rewind();
+            shader.setUniformMatrix4("uProjection", false, projMatrixBuffer);
+        }
 
         // 绑定网格
         mesh.bind();
@@ -314,4 +379,19 @@ public class InstancedRenderSystem extends GameSystem {
     private Entity findActiveCamera() {
         return getWorld().findActiveCamera();
     }
+
+    /**
+     * 单个 Layer 的批次缓存
+     */
+    private static final class BatchCache {
+
+        /** 批次数据：BatchKey -> Entity 列表 */
+        final Map<BatchKey, List<Entity>> batches = new HashMap<>();
+
+        /** 构建时的状态，任一变化即失效 */
+        boolean dirty = true;
+        int queryVersion;
+        long cameraSection;
+        int dimension;
+    }
 }
@@ -4,11 +4,14 @@ import org.joml.Vector3f;
 
 import moe.takochan.takorender.api.component.CameraComponent;
 import moe.takochan.takorender.api.component.LODComponent;
+import moe.takochan.takorender.api.component.StaticFlagsComponent;
 import moe.takochan.takorender.api.component.TransformComponent;
+import moe.takochan.takorender.api.ecs.ComponentAccess;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
 import moe.takochan.takorender.api.ecs.RequiresComponent;
+import moe.takochan.takorender.api.graphics.StaticSpatialGrid;
 
 /**
  * LOD 系统
@@ -29,13 +32,27 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
  * <li>计算每个 Entity 到相机的距离</li>
  * <li>根据距离和滞后值更新 activeLevel</li>
  * </ol>
+ *
+ * <p>
+ * <b>静态 Entity</b>:
+ * {@link StaticFlagsComponent#isStatic()} 为 true 的 Entity 只在相机跨越 16×16×16 格子时重新计算，
+ * 同一格子内移动相机不会改变它们的 LOD 级别。
+ * </p>
  */
 @RequiresComponent({ TransformComponent.class, LODComponent.class })
+@ComponentAccess(read = { CameraComponent.class, StaticFlagsComponent.class }, write = LODComponent.class)
 public class LODSystem extends GameSystem {
 
     private final Vector3f tempCameraPos = new Vector3f();
     private final Vector3f tempEntityPos = new Vector3f();
 
+    /** 上次计算时相机所在的格子 */
+    private long cameraSection;
+    private boolean hasCameraSection;
+
+    /** 本帧相机跨格，所有 LOD（包括静态）都需要重算 */
+    private boolean sectionChanged;
+
     @Override
     public Phase getPhase() {
         return Phase.UPDATE;
@@ -56,6 +73,13 @@ public class LODSystem extends GameSystem {
         }
         tempCameraPos.set(cameraPos);
 
+        long section = StaticSpatialGrid.sectionKeyAt(cameraPos.x, cameraPos.y, cameraPos.z);
+        sectionChanged = !hasCameraSection || section != cameraSection;
+        if (sectionChanged) {
+            cameraSection = section;
+            hasCameraSection = true;
+        }
+
         // 处理所有 LOD 组件
         for (Entity entity : getRequiredEntities()) {
             processLOD(entity, tempCameraPos);
@@ -72,9 +96,17 @@ public class LODSystem extends GameSystem {
             return;
         }
 
+        // 静态 Entity 在相机跨格前无需重算（级别配置变化时 LODComponent 清除已计算标记）
+        if (!sectionChanged && lod.isEvaluated()) {
+            StaticFlagsComponent flags = entity.getComponentOrNull(StaticFlagsComponent.class);
+            if (flags != null && flags.isStatic()) {
+                return;
+            }
+        }
+        lod.setEvaluated(true);
+
         // 计算距离
-        Vector3f entityPos = transform.getPositionRef();
-        tempEntityPos.set(entityPos);
+        transform.getWorldPosition(tempEntityPos);
         float distance = tempEntityPos.distance(cameraPos);
 
         // 更新距离
@@ -90,18 +122,17 @@ public class LODSystem extends GameSystem {
         }
     }
 
+    @Override
+    public void onDestroy() {
+        hasCameraSection = false;
+    }
+
     private Vector3f getActiveCameraPosition() {
-        for (Entity entity : getWorld().getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
-            if (camera != null && camera.isActive()) {
-                TransformComponent transform = entity.getComponent(TransformComponent.class)
-                    .orElse(null);
-                if (transform != null) {
-                    return transform.getPositionRef();
-                }
-            }
+        Entity entity = getWorld().findActiveCamera();
+        if (entity == null) {
+            return null;
         }
-        return null;
+        TransformComponent transform = entity.getComponentOrNull(TransformComponent.class);
+        return transform != null ? transform.getPositionRef() : null;
     }
 }
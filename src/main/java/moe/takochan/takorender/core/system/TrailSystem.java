@@ -4,6 +4,7 @@ import org.joml.Vector3f;
 
 import moe.takochan.takorender.api.component.TrailComponent;
 import moe.takochan.takorender.api.component.TransformComponent;
+import moe.takochan.takorender.api.ecs.ComponentAccess;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
@@ -30,8 +31,11 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
  * </p>
  */
 @RequiresComponent({ TransformComponent.class, TrailComponent.class })
+@ComponentAccess(write = TrailComponent.class)
 public class TrailSystem extends GameSystem {
 
+    private final Vector3f tempPos = new Vector3f();
+
     @Override
     public Phase getPhase() {
         return Phase.UPDATE;
@@ -60,7 +64,7 @@ public class TrailSystem extends GameSystem {
 
             // 如果正在发射，添加新点
             if (trail.isEmitting()) {
-                Vector3f pos = transform.getPositionRef();
+                Vector3f pos = transform.getWorldPosition(tempPos);
                 trail.addPoint(pos.x, pos.y, pos.z);
             }
         }
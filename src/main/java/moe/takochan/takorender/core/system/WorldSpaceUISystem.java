@@ -6,6 +6,7 @@ import org.joml.Vector4f;
 import moe.takochan.takorender.api.component.CameraComponent;
 import moe.takochan.takorender.api.component.TransformComponent;
 import moe.takochan.takorender.api.component.WorldSpaceUIComponent;
+import moe.takochan.takorender.api.ecs.ComponentAccess;
 import moe.takochan.takorender.api.ecs.Entity;
 import moe.takochan.takorender.api.ecs.GameSystem;
 import moe.takochan.takorender.api.ecs.Phase;
@@ -33,6 +34,7 @@ import moe.takochan.takorender.api.ecs.RequiresComponent;
  * </p>
  */
 @RequiresComponent({ TransformComponent.class, WorldSpaceUIComponent.class })
+@ComponentAccess(read = CameraComponent.class, write = WorldSpaceUIComponent.class)
 public class WorldSpaceUISystem extends GameSystem {
 
     private final Vector3f tempWorldPos = new Vector3f();
@@ -88,7 +90,7 @@ public class WorldSpaceUISystem extends GameSystem {
             return;
         }
 
-        Vector3f pos = transform.getPositionRef();
+        Vector3f pos = transform.getWorldPosition(tempWorldPos);
 
         // 计算世界坐标（Transform 位置 + 偏移）
         tempWorldPos.set(pos.x + ui.getWorldOffset().x, pos.y + ui.getWorldOffset().y, pos.z + ui.getWorldOffset().z);
@@ -145,24 +147,11 @@ public class WorldSpaceUISystem extends GameSystem {
     }
 
     private CameraComponent findActiveCamera() {
-        for (Entity entity : getWorld().getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
-            if (camera != null && camera.isActive()) {
-                return camera;
-            }
-        }
-        return null;
+        Entity entity = findActiveCameraEntity();
+        return entity != null ? entity.getComponentOrNull(CameraComponent.class) : null;
     }
 
     private Entity findActiveCameraEntity() {
-        for (Entity entity : getWorld().getEntitiesWith(CameraComponent.class)) {
-            CameraComponent camera = entity.getComponent(CameraComponent.class)
-                .orElse(null);
-            if (camera != null && camera.isActive()) {
-                return entity;
-            }
-        }
-        return null;
+        return getWorld().findActiveCamera();
     }
 }
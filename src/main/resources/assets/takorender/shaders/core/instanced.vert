@@ -16,9 +16,14 @@ layout (location = 4) in vec4 aModelCol1;
 layout (location = 5) in vec4 aModelCol2;
 layout (location = 6) in vec4 aModelCol3;
 
-// Camera matrices
-uniform mat4 uView;
-uniform mat4 uProjection;
+// Per-frame camera data (std140 UBO, binding 0, uploaded once per frame by CameraUniformBuffer)
+layout(std140) uniform TakoCamera {
+    mat4 uView;
+    mat4 uProjection;
+    mat4 uViewProjection;
+    vec4 uCameraPosition;  // xyz: camera world position
+    vec4 uCameraClip;      // x: near, y: far
+};
 
 out vec3 vNormal;
 out vec2 vTexCoord;
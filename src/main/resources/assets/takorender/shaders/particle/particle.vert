@@ -13,10 +13,16 @@ layout(location = 3) in vec4 aVelocity;  // xyz: velocity, w: max lifetime
 layout(location = 4) in vec4 aColor;     // rgba
 layout(location = 5) in vec4 aParams;    // x: size, y: rotation, z: type, w: angular velocity
 
+// Per-frame camera data (std140 UBO, binding 0, uploaded once per frame by CameraUniformBuffer)
+layout(std140) uniform TakoCamera {
+    mat4 uView;
+    mat4 uProjection;
+    mat4 uViewProjection;
+    vec4 uCameraPosition;  // xyz: camera world position
+    vec4 uCameraClip;      // x: near, y: far
+};
+
 // Uniforms
-uniform mat4 uViewMatrix;
-uniform mat4 uProjMatrix;
-uniform vec3 uCameraPos;
 uniform int uRenderMode;  // 0: billboard, 1: stretched billboard, 2: horizontal
 
 // Output to fragment shader
@@ -52,10 +58,10 @@ void main() {
 
     // Convert particle world position to camera-relative position
     // (MC's ModelView matrix in RenderWorldLastEvent only contains rotation, not translation)
-    vec3 particleRelativePos = aPosition.xyz - uCameraPos;
+    vec3 particleRelativePos = aPosition.xyz - uCameraPosition.xyz;
 
     // Transform particle center to view space
-    vec4 viewCenter = uViewMatrix * vec4(particleRelativePos, 1.0);
+    vec4 viewCenter = uView * vec4(particleRelativePos, 1.0);
 
     // In view space: right = (1,0,0), up = (0,1,0)
     // This ensures billboard always faces camera correctly
@@ -74,7 +80,7 @@ void main() {
 
         if (speed > 0.001) {
             // Transform velocity to view space for stretching
-            vec3 viewVelocity = mat3(uViewMatrix) * velocity;
+            vec3 viewVelocity = mat3(uView) * velocity;
             vec3 stretchDir = normalize(viewVelocity);
             vec3 perpDir = normalize(vec3(-stretchDir.y, stretchDir.x, 0.0));
 
@@ -93,8 +99,8 @@ void main() {
         // Horizontal particles (ground effects) - transform world axes to view space
         vec3 worldRight = vec3(1.0, 0.0, 0.0);
         vec3 worldForward = vec3(0.0, 0.0, 1.0);
-        vec3 viewRight = mat3(uViewMatrix) * worldRight;
-        vec3 viewForward = mat3(uViewMatrix) * worldForward;
+        vec3 viewRight = mat3(uView) * worldRight;
+        vec3 viewForward = mat3(uView) * worldForward;
 
         viewPos = viewCenter.xyz;
         viewPos += viewRight * rotatedPos.x * size;
@@ -108,7 +114,7 @@ void main() {
     }
 
     // Apply projection only (view transform already applied)
-    gl_Position = uProjMatrix * vec4(viewPos, 1.0);
+    gl_Position = uProjection * vec4(viewPos, 1.0);
 
     // Pass to fragment shader
     vUV = aQuadUV;
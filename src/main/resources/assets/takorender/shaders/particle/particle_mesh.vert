@@ -13,10 +13,14 @@ layout(location = 3) in vec4 aVelocity;  // xyz: velocity, w: max lifetime
 layout(location = 4) in vec4 aColor;     // rgba
 layout(location = 5) in vec4 aParams;    // x: size, y: rotation, z: type, w: angular velocity
 
-// Uniforms
-uniform mat4 uViewMatrix;
-uniform mat4 uProjMatrix;
-uniform vec3 uCameraPos;
+// Per-frame camera data (std140 UBO, binding 0, uploaded once per frame by CameraUniformBuffer)
+layout(std140) uniform TakoCamera {
+    mat4 uView;
+    mat4 uProjection;
+    mat4 uViewProjection;
+    vec4 uCameraPosition;  // xyz: camera world position
+    vec4 uCameraClip;      // x: near, y: far
+};
 
 // Output to fragment shader
 out vec3 vNormal;
@@ -48,10 +52,10 @@ void main() {
     vec3 rotatedPos = rotMat * scaledPos;
 
     // Convert to camera-relative position (MC's ModelView only has rotation)
-    vec3 worldPos = rotatedPos + aPosition.xyz - uCameraPos;
+    vec3 worldPos = rotatedPos + aPosition.xyz - uCameraPosition.xyz;
 
     // Apply view and projection
-    gl_Position = uProjMatrix * uViewMatrix * vec4(worldPos, 1.0);
+    gl_Position = uProjection * uView * vec4(worldPos, 1.0);
 
     // Transform normal (rotation only, no translation)
     vNormal = rotMat * aNormal;
@@ -0,0 +1,110 @@
+package moe.takochan.takorender.api.graphics.shader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.FloatBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link UniformValueCache} 测试
+ *
+ * <p>
+ * 返回 true 表示 {@link ShaderProgram} 会跳过 {@code glUniform*}：相同的值只上传一次，
+ * 值或类型变化、失效以及程序重新链接（{@link UniformValueCache#clear()}）之后必须重新上传。
+ * </p>
+ */
+class UniformValueCacheTest {
+
+    @Test
+    void redundantValueIsSkipped() {
+        UniformValueCache cache = new UniformValueCache();
+        assertFalse(cache.unchanged(3, UniformValueCache.VEC3, 1, 2, 3, 0));
+        assertTrue(cache.unchanged(3, UniformValueCache.VEC3, 1, 2, 3, 0));
+        assertTrue(cache.unchanged(3, UniformValueCache.VEC3, 1, 2, 3, 0));
+    }
+
+    @Test
+    void changedValueIsUploaded() {
+        UniformValueCache cache = new UniformValueCache();
+        cache.unchanged(0, UniformValueCache.VEC4, 1, 2, 3, 4);
+        assertFalse(cache.unchanged(0, UniformValueCache.VEC4, 1, 2, 3, 5));
+        assertTrue(cache.unchanged(0, UniformValueCache.VEC4, 1, 2, 3, 5));
+    }
+
+    @Test
+    void kindChangeIsUploaded() {
+        UniformValueCache cache = new UniformValueCache();
+        int bits = Float.floatToRawIntBits(1.0f);
+        cache.unchanged(1, UniformValueCache.INT, bits, 0, 0, 0);
+        assertFalse(cache.unchanged(1, UniformValueCache.FLOAT, bits, 0, 0, 0));
+    }
+
+    @Test
+    void handlesAreIndependent() {
+        UniformValueCache cache = new UniformValueCache();
+        cache.unchanged(2, UniformValueCache.INT, 7, 0, 0, 0);
+        assertFalse(cache.unchanged(40, UniformValueCache.INT, 7, 0, 0, 0));
+        assertTrue(cache.unchanged(2, UniformValueCache.INT, 7, 0, 0, 0));
+    }
+
+    @Test
+    void matrixIsComparedWithoutMovingBuffer() {
+        UniformValueCache cache = new UniformValueCache();
+        float[] data = new float[18];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i;
+        }
+        FloatBuffer matrix = FloatBuffer.wrap(data);
+        matrix.position(2);
+
+        assertFalse(cache.unchangedMatrix(5, UniformValueCache.MAT4, matrix, 16));
+        assertEquals(2, matrix.position());
+        assertTrue(cache.unchangedMatrix(5, UniformValueCache.MAT4, matrix, 16));
+
+        data[17] = -1;
+        assertFalse(cache.unchangedMatrix(5, UniformValueCache.MAT4, matrix, 16));
+        assertTrue(cache.unchangedMatrix(5, UniformValueCache.MAT4, matrix, 16));
+        assertFalse(cache.unchangedMatrix(5, UniformValueCache.MAT3, matrix, 9));
+    }
+
+    @Test
+    void invalidateForcesUpload() {
+        UniformValueCache cache = new UniformValueCache();
+        FloatBuffer matrix = FloatBuffer.wrap(new float[16]);
+        cache.unchanged(0, UniformValueCache.FLOAT, 1, 0, 0, 0);
+        cache.unchangedMatrix(1, UniformValueCache.MAT4, matrix, 16);
+
+        cache.invalidate();
+        assertFalse(cache.unchanged(0, UniformValueCache.FLOAT, 1, 0, 0, 0));
+        assertFalse(cache.unchangedMatrix(1, UniformValueCache.MAT4, matrix, 16));
+    }
+
+    @Test
+    void relinkForcesUpload() {
+        UniformValueCache cache = new UniformValueCache();
+        FloatBuffer matrix = FloatBuffer.wrap(new float[16]);
+        cache.unchanged(0, UniformValueCache.VEC2, 1, 2, 0, 0);
+        cache.unchangedMatrix(1, UniformValueCache.MAT4, matrix, 16);
+
+        // 重新链接后 uniform 回到默认值，旧记录不可复用
+        cache.clear();
+        assertFalse(cache.unchanged(0, UniformValueCache.VEC2, 1, 2, 0, 0));
+        assertFalse(cache.unchangedMatrix(1, UniformValueCache.MAT4, matrix, 16));
+        assertTrue(cache.unchanged(0, UniformValueCache.VEC2, 1, 2, 0, 0));
+    }
+
+    @Test
+    void forgetDropsSingleHandle() {
+        UniformValueCache cache = new UniformValueCache();
+        cache.unchanged(0, UniformValueCache.INT, 1, 0, 0, 0);
+        cache.unchanged(1, UniformValueCache.INT, 1, 0, 0, 0);
+
+        cache.forget(0);
+        cache.forget(100);
+        assertFalse(cache.unchanged(0, UniformValueCache.INT, 1, 0, 0, 0));
+        assertTrue(cache.unchanged(1, UniformValueCache.INT, 1, 0, 0, 0));
+    }
+}
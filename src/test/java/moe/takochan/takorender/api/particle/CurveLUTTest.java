@@ -0,0 +1,205 @@
+package moe.takochan.takorender.api.particle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link AnimationCurve} / {@link Gradient} 查找表采样的黄金输出测试
+ *
+ * <p>
+ * 随机种子生成曲线和采样点，与两个参考比较：
+ * 按同样的采样点烘焙、以 double 线性插值的参考查找表（应逐点吻合），
+ * 以及直接调用 evaluate 的精确值（误差不超过关键帧最大斜率乘以采样间距）。
+ * </p>
+ */
+class CurveLUTTest {
+
+    private static final int CURVES = 200;
+    private static final int SAMPLES = 500;
+    private static final int[] RESOLUTIONS = { 2, 17, AnimationCurve.DEFAULT_LUT_RESOLUTION, 1024 };
+
+    @Test
+    void animationCurveLUTMatchesReferenceTable() {
+        Random random = new Random(17L);
+        for (int c = 0; c < CURVES; c++) {
+            AnimationCurve curve = randomCurve(random);
+            int resolution = RESOLUTIONS[c % RESOLUTIONS.length];
+            curve.setLUTResolution(resolution);
+
+            double[] table = new double[resolution];
+            for (int i = 0; i < resolution; i++) {
+                table[i] = curve.evaluate((float) i / (resolution - 1));
+            }
+            for (int s = 0; s < SAMPLES; s++) {
+                float t = random.nextFloat() * 1.2f - 0.1f;
+                assertEquals(referenceLerp(table, 1, 0, t), curve.evaluateLUT(t), 1.0e-5, "curve " + c + " t=" + t);
+            }
+        }
+    }
+
+    @Test
+    void animationCurveLUTTracksExactCurve() {
+        Random random = new Random(18L);
+        for (int c = 0; c < CURVES; c++) {
+            AnimationCurve curve = randomCurve(random);
+            int resolution = RESOLUTIONS[c % RESOLUTIONS.length];
+            curve.setLUTResolution(resolution);
+
+            double tolerance = maxSlope(curve) / (resolution - 1) + 1.0e-5;
+            for (int s = 0; s < SAMPLES; s++) {
+                float t = random.nextFloat();
+                assertEquals(curve.evaluate(t), curve.evaluateLUT(t), tolerance, "curve " + c + " t=" + t);
+            }
+        }
+    }
+
+    @Test
+    void gradientLUTMatchesReferenceTable() {
+        Random random = new Random(19L);
+        float[] dest = new float[4];
+        float[] color = new float[4];
+        for (int c = 0; c < CURVES; c++) {
+            Gradient gradient = randomGradient(random);
+            int resolution = RESOLUTIONS[c % RESOLUTIONS.length];
+            gradient.setLUTResolution(resolution);
+
+            double[] table = new double[resolution * 4];
+            for (int i = 0; i < resolution; i++) {
+                gradient.evaluate((float) i / (resolution - 1), color);
+                for (int ch = 0; ch < 4; ch++) {
+                    table[i * 4 + ch] = color[ch];
+                }
+            }
+            for (int s = 0; s < SAMPLES; s++) {
+                float t = random.nextFloat() * 1.2f - 0.1f;
+                gradient.evaluateLUT(t, dest);
+                for (int ch = 0; ch < 4; ch++) {
+                    assertEquals(referenceLerp(table, 4, ch, t), dest[ch], 1.0e-5, "gradient " + c + " t=" + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gradientLUTTracksExactGradient() {
+        Random random = new Random(20L);
+        float[] dest = new float[4];
+        float[] exact = new float[4];
+        for (int c = 0; c < CURVES; c++) {
+            // 随机关键帧可能间隔极近，只用均匀分布的关键帧检查与精确值的误差
+            Gradient gradient = new Gradient();
+            int keys = 2 + random.nextInt(4);
+            for (int k = 0; k < keys; k++) {
+                gradient.addKey(
+                    (float) k / (keys - 1),
+                    random.nextFloat(),
+                    random.nextFloat(),
+                    random.nextFloat(),
+                    random.nextFloat());
+            }
+            int resolution = RESOLUTIONS[c % RESOLUTIONS.length];
+            gradient.setLUTResolution(resolution);
+
+            // 每个通道相邻关键帧差值不超过 1，间隔为 1 / (keys - 1)
+            double tolerance = (keys - 1.0) / (resolution - 1) + 1.0e-5;
+            for (int s = 0; s < SAMPLES; s++) {
+                float t = random.nextFloat();
+                gradient.evaluate(t, exact);
+                gradient.evaluateLUT(t, dest);
+                for (int ch = 0; ch < 4; ch++) {
+                    assertEquals(exact[ch], dest[ch], tolerance, "gradient " + c + " t=" + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gradientHoldsEdgeKeysOutsideKeyRange() {
+        Gradient gradient = new Gradient().addKey(0.3f, 0.2f, 0.4f, 0.6f, 0.8f)
+            .addKey(0.6f, 1, 1, 1, 1);
+        assertArrayEquals(new float[] { 0.2f, 0.4f, 0.6f, 0.8f }, gradient.evaluate(0.0f), 1.0e-6f);
+        assertArrayEquals(new float[] { 1, 1, 1, 1 }, gradient.evaluate(1.0f), 1.0e-6f);
+        assertArrayEquals(new float[] { 0.6f, 0.7f, 0.8f, 0.9f }, gradient.evaluate(0.45f), 1.0e-6f);
+    }
+
+    @Test
+    void lutIsRebakedWhenKeysChange() {
+        // 3 个采样点：0.5 正好落在采样点上
+        AnimationCurve curve = new AnimationCurve().addKey(0, 0)
+            .addKey(1, 1)
+            .setLUTResolution(3);
+        assertEquals(0.5f, curve.evaluateLUT(0.5f), 1.0e-5);
+        curve.addKey(0.5f, 2);
+        assertEquals(2.0f, curve.evaluateLUT(0.5f), 1.0e-5);
+        curve.setSmooth(true)
+            .setLUTResolution(5);
+        assertEquals(curve.evaluate(0.25f), curve.evaluateLUT(0.25f), 1.0e-5);
+
+        Gradient gradient = Gradient.solid(1, 1, 1, 1);
+        float[] dest = new float[4];
+        assertEquals(1.0f, gradient.evaluateLUT(0.5f, dest)[0], 1.0e-5);
+        gradient.clear()
+            .addKey(0, 0, 0, 0, 0)
+            .addKey(1, 0, 0, 0, 0);
+        assertEquals(0.0f, gradient.evaluateLUT(0.5f, dest)[0], 1.0e-5);
+    }
+
+    /**
+     * 参考实现：在均匀采样的交错表中取通道 channel，double 精度线性插值
+     */
+    private static double referenceLerp(double[] table, int stride, int channel, float t) {
+        int samples = table.length / stride;
+        double x = Math.max(0, Math.min(1, t)) * (samples - 1);
+        int i = (int) Math.floor(x);
+        if (i >= samples - 1) {
+            return table[(samples - 1) * stride + channel];
+        }
+        double frac = x - i;
+        double a = table[i * stride + channel];
+        double b = table[(i + 1) * stride + channel];
+        return a + (b - a) * frac;
+    }
+
+    /**
+     * 曲线的最大斜率（smoothstep 插值的最大斜率是线性插值的 1.5 倍）
+     */
+    private static double maxSlope(AnimationCurve curve) {
+        double slope = 0;
+        for (int k = 0; k + 1 < curve.getKeyframeCount(); k++) {
+            AnimationCurve.Keyframe a = curve.getKeyframe(k);
+            AnimationCurve.Keyframe b = curve.getKeyframe(k + 1);
+            if (b.time > a.time) {
+                slope = Math.max(slope, Math.abs(b.value - a.value) / (b.time - a.time));
+            }
+        }
+        return slope * 1.5;
+    }
+
+    private static AnimationCurve randomCurve(Random random) {
+        AnimationCurve curve = new AnimationCurve();
+        int keys = 2 + random.nextInt(5);
+        for (int k = 0; k < keys; k++) {
+            // 首尾关键帧固定在 0 / 1，相邻关键帧至少相隔 1 / (2 * keys)，斜率有界
+            float time = k == 0 ? 0 : k == keys - 1 ? 1 : (k + random.nextFloat() * 0.5f) / keys;
+            curve.addKey(time, random.nextFloat() * 4 - 2);
+        }
+        return curve.setSmooth(random.nextBoolean());
+    }
+
+    private static Gradient randomGradient(Random random) {
+        Gradient gradient = new Gradient();
+        int colorKeys = 1 + random.nextInt(5);
+        for (int k = 0; k < colorKeys; k++) {
+            gradient.addColorKey(random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+        int alphaKeys = 1 + random.nextInt(4);
+        for (int k = 0; k < alphaKeys; k++) {
+            gradient.addAlphaKey(random.nextFloat(), random.nextFloat());
+        }
+        return gradient;
+    }
+}
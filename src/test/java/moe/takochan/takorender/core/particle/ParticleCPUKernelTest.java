@@ -0,0 +1,415 @@
+package moe.takochan.takorender.core.particle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import moe.takochan.takorender.api.particle.AnimationCurve;
+import moe.takochan.takorender.api.particle.CollisionMode;
+import moe.takochan.takorender.api.particle.CollisionResponse;
+import moe.takochan.takorender.api.particle.ColorOverLifetime;
+import moe.takochan.takorender.api.particle.Gradient;
+import moe.takochan.takorender.api.particle.ParticleForce;
+import moe.takochan.takorender.api.particle.SizeOverLifetime;
+
+/**
+ * ParticleCPU 单遍内核（力场 + 碰撞 + 颜色 / 大小曲线）的黄金输出测试
+ *
+ * <p>
+ * 随机种子生成的粒子逐帧发射并更新，每帧与按 particle_update.comp 逐步移植的参考实现比较。
+ * 压缩会打乱槽位，粒子通过类型字段（params.z，内核不修改）中的编号对应。
+ * 参考实现的颜色 / 大小直接调用 evaluate，允许的误差为查找表的插值误差。
+ * </p>
+ */
+class ParticleCPUKernelTest {
+
+    private static final int STRIDE = ParticleBuffer.PARTICLE_SIZE_FLOATS;
+    private static final float DELTA_TIME = 1.0f / 60.0f;
+    private static final int FRAMES = 90;
+    private static final int EMIT_FRAMES = 30;
+    private static final int EMIT_PER_FRAME = 200;
+
+    private static final float DRAG = 0.3f;
+    private static final float BOUNCINESS = 0.6f;
+
+    /** 颜色 / 大小曲线的查找表分辨率 */
+    private static final int LUT_RESOLUTION = 1024;
+
+    /** 颜色曲线最大斜率 1.75（0.4 内从 1 降到 0.3），大小曲线最大斜率 2，初始颜色 / 大小不超过 1 */
+    private static final float CURVE_TOLERANCE = 2.0f / (LUT_RESOLUTION - 1) + 1.0e-5f;
+
+    private static final float[] PLANE = { 0, 1, 0, -0.5f };
+    private static final float[] SPHERE = { 0, 0, 0, 1.2f };
+    private static final float[] BOX = { -1, -2, -1, 1, -1, 1 };
+
+    static Stream<Arguments> collisionCases() {
+        List<Arguments> cases = new ArrayList<>();
+        for (CollisionMode mode : new CollisionMode[] { CollisionMode.PLANE, CollisionMode.SPHERE,
+            CollisionMode.BOX }) {
+            for (CollisionResponse response : new CollisionResponse[] { CollisionResponse.KILL,
+                CollisionResponse.BOUNCE, CollisionResponse.BOUNCE_DAMPED, CollisionResponse.STICK,
+                CollisionResponse.SLIDE }) {
+                cases.add(Arguments.of(mode, response));
+            }
+        }
+        return cases.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("collisionCases")
+    void fusedKernelMatchesReference(CollisionMode mode, CollisionResponse response) {
+        Gradient gradient = new Gradient().addKey(0, 1, 1, 0.5f, 1)
+            .addKey(0.4f, 1, 0.3f, 0, 0.8f)
+            .addKey(1, 0.2f, 0.2f, 0.2f, 0);
+        AnimationCurve sizeCurve = new AnimationCurve().addKey(0, 0.5f)
+            .addKey(0.5f, 1.5f)
+            .addKey(1, 0.5f);
+        ColorOverLifetime color = new ColorOverLifetime(gradient).setLUTResolution(LUT_RESOLUTION);
+        SizeOverLifetime size = new SizeOverLifetime(sizeCurve).setLUTResolution(LUT_RESOLUTION);
+
+        ParticleCPU cpu = new ParticleCPU(EMIT_FRAMES * EMIT_PER_FRAME);
+        cpu.setColorOverLifetime(color);
+        cpu.setSizeOverLifetime(size);
+        // 弹跳概率为 1、无散射：结果与槽位无关，参考实现无需模拟压缩顺序
+        cpu.setCollision(mode, response, BOUNCINESS, 1.0f, 0.0f);
+        cpu.setCollisionPlane(PLANE[0], PLANE[1], PLANE[2], PLANE[3]);
+        cpu.setCollisionSphere(SPHERE[0], SPHERE[1], SPHERE[2], SPHERE[3]);
+        cpu.setCollisionBox(BOX[0], BOX[1], BOX[2], BOX[3], BOX[4], BOX[5]);
+
+        ParticleForce gravity = ParticleForce.gravity();
+        List<ParticleForce> forces = new ArrayList<>();
+        forces.add(gravity);
+        forces.add(ParticleForce.drag(DRAG));
+
+        Reference reference = new Reference(mode, response, gravity, gradient, sizeCurve);
+        Random random = new Random(mode.ordinal() * 31L + response.ordinal());
+        int nextId = 0;
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            if (frame < EMIT_FRAMES) {
+                float[] data = seededParticles(random, EMIT_PER_FRAME, nextId);
+                nextId += EMIT_PER_FRAME;
+                cpu.emit(data, EMIT_PER_FRAME);
+                reference.emit(data, EMIT_PER_FRAME);
+            }
+            cpu.update(DELTA_TIME, forces);
+            reference.step(DELTA_TIME);
+            assertMatches(reference, cpu, frame);
+        }
+    }
+
+    @Test
+    void parallelAndSoAMatchSerialBitForBit() {
+        ParticleCPU serial = configured(new ParticleCPU(20000));
+        ParticleCPU parallel = configured(new ParticleCPU(20000));
+        ParticleCPU soa = configured(new ParticleCPU(20000));
+        soa.setSoAEnabled(true);
+
+        List<ParticleForce> forces = new ArrayList<>();
+        forces.add(ParticleForce.gravity());
+        forces.add(ParticleForce.drag(DRAG));
+        forces.add(ParticleForce.turbulence(0.5f, 1.0f));
+
+        Random random = new Random(7L);
+        for (int frame = 0; frame < 60; frame++) {
+            float[] data = seededParticles(random, 300, frame * 300);
+            serial.emit(data, 300);
+            parallel.emit(data, 300);
+            soa.emit(data, 300);
+            serial.update(DELTA_TIME, forces);
+            parallel.updateParallel(DELTA_TIME, forces, 256);
+            soa.updateParallel(DELTA_TIME, forces, 256);
+        }
+
+        int floats = serial.getAliveCount() * STRIDE;
+        assertTrue(serial.getAliveCount() > 0);
+        assertEquals(serial.getAliveCount(), parallel.getAliveCount());
+        assertEquals(serial.getAliveCount(), soa.getAliveCount());
+        assertArrayEquals(
+            Arrays.copyOf(serial.getParticles(), floats),
+            Arrays.copyOf(parallel.getParticles(), floats));
+        assertArrayEquals(Arrays.copyOf(serial.getParticles(), floats), Arrays.copyOf(soa.getParticles(), floats));
+    }
+
+    @Test
+    void bounceChanceAndSpreadFollowParameters() {
+        final int count = 20000;
+        final float chance = 0.3f;
+        final float spread = 20.0f;
+        ParticleCPU cpu = new ParticleCPU(count);
+        cpu.setCollision(CollisionMode.PLANE, CollisionResponse.BOUNCE, 1.0f, chance, spread);
+        cpu.setCollisionPlane(0, 1, 0, 0);
+
+        // 所有粒子本帧都穿过 y = 0 平面，无外力时反射方向为 (1, 1, 0) / sqrt(2)
+        float[] data = new float[count * STRIDE];
+        for (int i = 0; i < count; i++) {
+            int base = i * STRIDE;
+            data[base] = i * 0.001f;
+            data[base + 1] = 0.005f;
+            data[base + 3] = 1;
+            data[base + 4] = 1;
+            data[base + 5] = -1;
+            data[base + 7] = 1;
+            data[base + 12] = 1;
+        }
+        cpu.emit(data, count);
+        cpu.update(DELTA_TIME, new ArrayList<ParticleForce>());
+
+        int alive = cpu.getAliveCount();
+        assertEquals(chance, (float) alive / count, 0.02f);
+
+        float[] particles = cpu.getParticles();
+        double cosLimit = Math.cos(Math.toRadians(spread)) - 1.0e-5;
+        double spreadSum = 0;
+        for (int i = 0; i < alive; i++) {
+            int base = i * STRIDE;
+            float vx = particles[base + 4];
+            float vy = particles[base + 5];
+            float vz = particles[base + 6];
+            double speed = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            assertEquals(Math.sqrt(2), speed, 1.0e-4);
+            double cos = (vx + vy) / (speed * Math.sqrt(2));
+            assertTrue(cos >= cosLimit, "bounce direction outside the spread cone");
+            spreadSum += Math.toDegrees(Math.acos(Math.min(1, cos)));
+        }
+        // 偏转角均匀分布在 [0, spread]，平均值约为一半
+        assertEquals(spread / 2, spreadSum / alive, 1.0);
+    }
+
+    private static ParticleCPU configured(ParticleCPU cpu) {
+        cpu.setColorOverLifetime(ColorOverLifetime.fire());
+        cpu.setSizeOverLifetime(SizeOverLifetime.shrink());
+        cpu.setCollision(CollisionMode.PLANE, CollisionResponse.BOUNCE_DAMPED, BOUNCINESS, 0.7f, 20.0f);
+        cpu.setCollisionPlane(PLANE[0], PLANE[1], PLANE[2], PLANE[3]);
+        return cpu;
+    }
+
+    /**
+     * 生成种子粒子：位置在碰撞形状附近，类型字段写入编号
+     */
+    private static float[] seededParticles(Random random, int count, int firstId) {
+        float[] data = new float[count * STRIDE];
+        for (int i = 0; i < count; i++) {
+            int base = i * STRIDE;
+            data[base] = random.nextFloat() * 4 - 2;
+            data[base + 1] = random.nextFloat() * 4 - 2;
+            data[base + 2] = random.nextFloat() * 4 - 2;
+            data[base + 3] = 0.2f + random.nextFloat() * 1.3f;
+            data[base + 4] = random.nextFloat() * 4 - 2;
+            data[base + 5] = random.nextFloat() * 4 - 2;
+            data[base + 6] = random.nextFloat() * 4 - 2;
+            data[base + 7] = data[base + 3] + random.nextFloat() * 0.5f;
+            data[base + 8] = random.nextFloat();
+            data[base + 9] = random.nextFloat();
+            data[base + 10] = random.nextFloat();
+            data[base + 11] = random.nextFloat();
+            data[base + 12] = 0.1f + random.nextFloat() * 0.9f;
+            data[base + 13] = random.nextFloat() * 6.2831855f;
+            data[base + 14] = firstId + i;
+            data[base + 15] = random.nextFloat() * 4 - 2;
+        }
+        return data;
+    }
+
+    private static void assertMatches(Reference reference, ParticleCPU cpu, int frame) {
+        float[] particles = cpu.getParticles();
+        assertEquals(reference.particles.size(), cpu.getAliveCount(), "alive count at frame " + frame);
+        for (int i = 0; i < cpu.getAliveCount(); i++) {
+            int base = i * STRIDE;
+            int id = (int) particles[base + 14];
+            float[] expected = reference.particles.get(id);
+            assertNotNull(expected, "particle " + id + " should be dead at frame " + frame);
+            String where = "particle " + id + " at frame " + frame;
+            for (int k = 0; k < 8; k++) {
+                assertEquals(expected[k], particles[base + k], 1.0e-5f, where + " field " + k);
+            }
+            for (int k = 8; k <= 12; k++) {
+                assertEquals(expected[k], particles[base + k], CURVE_TOLERANCE, where + " field " + k);
+            }
+            assertEquals(expected[13], particles[base + 13], 1.0e-5f, where + " rotation");
+        }
+    }
+
+    /**
+     * 参考实现：按 particle_update.comp 的步骤逐粒子更新，颜色 / 大小直接采样曲线
+     */
+    private static final class Reference {
+
+        private final CollisionMode mode;
+        private final CollisionResponse response;
+        private final float gravityX, gravityY, gravityZ;
+        private final Gradient gradient;
+        private final AnimationCurve sizeCurve;
+
+        /** 编号 -> 粒子数据 */
+        final Map<Integer, float[]> particles = new HashMap<>();
+
+        /** 编号 -> 发射时的颜色和大小 */
+        private final Map<Integer, float[]> initial = new HashMap<>();
+
+        private final float[] color = new float[4];
+
+        Reference(CollisionMode mode, CollisionResponse response, ParticleForce gravity, Gradient gradient,
+            AnimationCurve sizeCurve) {
+            this.mode = mode;
+            this.response = response;
+            this.gravityX = gravity.getX() * gravity.getStrength();
+            this.gravityY = gravity.getY() * gravity.getStrength();
+            this.gravityZ = gravity.getZ() * gravity.getStrength();
+            this.gradient = gradient;
+            this.sizeCurve = sizeCurve;
+        }
+
+        void emit(float[] data, int count) {
+            for (int i = 0; i < count; i++) {
+                float[] p = Arrays.copyOfRange(data, i * STRIDE, (i + 1) * STRIDE);
+                particles.put((int) p[14], p);
+                initial.put((int) p[14], Arrays.copyOfRange(p, 8, 13));
+            }
+        }
+
+        void step(float dt) {
+            particles.entrySet()
+                .removeIf(entry -> !update(entry.getValue(), initial.get(entry.getKey()), dt));
+        }
+
+        /**
+         * @return 粒子是否仍然存活
+         */
+        private boolean update(float[] p, float[] init, float dt) {
+            p[3] -= dt;
+            if (p[3] <= 0) {
+                return false;
+            }
+
+            // 重力 + 阻力，半隐式欧拉
+            float fx = gravityX - p[4] * DRAG;
+            float fy = gravityY - p[5] * DRAG;
+            float fz = gravityZ - p[6] * DRAG;
+            p[4] += fx * dt;
+            p[5] += fy * dt;
+            p[6] += fz * dt;
+            p[0] += p[4] * dt;
+            p[1] += p[5] * dt;
+            p[2] += p[6] * dt;
+            p[13] += p[15] * dt;
+
+            float[] normal = collisionNormal(p[0], p[1], p[2]);
+            if (normal != null && !respond(p, normal)) {
+                return false;
+            }
+
+            float age = 1.0f - p[3] / Math.max(p[7], 0.001f);
+            age = Math.max(0, Math.min(1, age));
+            gradient.evaluate(age, color);
+            for (int c = 0; c < 4; c++) {
+                p[8 + c] = init[c] * color[c];
+            }
+            p[12] = init[4] * sizeCurve.evaluate(age);
+            return true;
+        }
+
+        /**
+         * checkPlaneCollision / checkSphereCollision / checkBoxCollision
+         *
+         * @return 碰撞法线，未碰撞返回 null
+         */
+        private float[] collisionNormal(float x, float y, float z) {
+            switch (mode) {
+                case PLANE:
+                    if (x * PLANE[0] + y * PLANE[1] + z * PLANE[2] - PLANE[3] < 0) {
+                        return new float[] { PLANE[0], PLANE[1], PLANE[2] };
+                    }
+                    return null;
+
+                case SPHERE: {
+                    float dx = x - SPHERE[0];
+                    float dy = y - SPHERE[1];
+                    float dz = z - SPHERE[2];
+                    float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    if (dist < SPHERE[3]) {
+                        return new float[] { dx / dist, dy / dist, dz / dist };
+                    }
+                    return null;
+                }
+
+                case BOX: {
+                    if (!(x > BOX[0] && x < BOX[3] && y > BOX[1] && y < BOX[4] && z > BOX[2] && z < BOX[5])) {
+                        return null;
+                    }
+                    float[] distances = { x - BOX[0], BOX[3] - x, y - BOX[1], BOX[4] - y, z - BOX[2], BOX[5] - z };
+                    float[][] normals = { { -1, 0, 0 }, { 1, 0, 0 }, { 0, -1, 0 }, { 0, 1, 0 }, { 0, 0, -1 },
+                        { 0, 0, 1 } };
+                    int closest = 0;
+                    for (int face = 1; face < 6; face++) {
+                        if (distances[face] < distances[closest]) {
+                            closest = face;
+                        }
+                    }
+                    return normals[closest];
+                }
+
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * handleCollision（弹跳概率为 1、无散射）
+         *
+         * @return 粒子是否仍然存活
+         */
+        private boolean respond(float[] p, float[] n) {
+            switch (response) {
+                case KILL:
+                    return false;
+
+                case BOUNCE:
+                case BOUNCE_DAMPED: {
+                    // reflect(v, n) = v - 2 * dot(n, v) * n
+                    float d = 2.0f * (p[4] * n[0] + p[5] * n[1] + p[6] * n[2]);
+                    float damping = response == CollisionResponse.BOUNCE_DAMPED ? BOUNCINESS : 1.0f;
+                    p[4] = (p[4] - d * n[0]) * damping;
+                    p[5] = (p[5] - d * n[1]) * damping;
+                    p[6] = (p[6] - d * n[2]) * damping;
+                    break;
+                }
+
+                case STICK:
+                    p[4] = 0;
+                    p[5] = 0;
+                    p[6] = 0;
+                    break;
+
+                case SLIDE: {
+                    float d = p[4] * n[0] + p[5] * n[1] + p[6] * n[2];
+                    p[4] -= n[0] * d;
+                    p[5] -= n[1] * d;
+                    p[6] -= n[2] * d;
+                    break;
+                }
+
+                default:
+                    return true;
+            }
+            p[0] += n[0] * 0.01f;
+            p[1] += n[1] * 0.01f;
+            p[2] += n[2] * 0.01f;
+            return true;
+        }
+    }
+}